@@ -0,0 +1,20 @@
+--
+-- Downsampled occupancy history written by OccupancyRecorder and read by
+-- the GET_OCCUPANCY_SERIES request, so occupancy charts never touch
+-- `parkinginfo`. One row per closed minute, hour or day; averages are
+-- Sum / Samples. Minute rows are pruned after bpark.occupancy.minuteDays
+-- days (default 30); hour and day rows are kept.
+--
+
+CREATE TABLE IF NOT EXISTS `occupancy_series` (
+  `Resolution` enum('minute','hour','day') NOT NULL,
+  `Bucket_start` datetime NOT NULL,
+  `Samples` int NOT NULL,
+  `Occupied_sum` int NOT NULL,
+  `Occupied_max` smallint NOT NULL,
+  `Reservations_sum` int NOT NULL,
+  `Reservations_max` smallint NOT NULL,
+  `Late_sum` int NOT NULL,
+  `Late_max` smallint NOT NULL,
+  PRIMARY KEY (`Resolution`, `Bucket_start`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
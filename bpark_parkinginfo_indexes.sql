@@ -0,0 +1,19 @@
+--
+-- Secondary indexes for `parkinginfo` used by the application queries.
+-- Apply after loading bpark_parkinginfo.sql.
+--
+
+--
+-- Keyset-paginated parking history (ReservationService.getParkingHistoryPage).
+-- InnoDB appends the primary key, so the index also covers the
+-- (Entry_time, ParkingInfo_ID) cursor order.
+--
+
+ALTER TABLE `parkinginfo` ADD KEY `idx_user_entry` (`User_ID`, `Entry_time`);
+
+--
+-- Monthly reports (ReportService.generateMonthlyReports) and rollup rebuilds
+-- (RollupService.rebuild) select half-open Entry_time ranges.
+--
+
+ALTER TABLE `parkinginfo` ADD KEY `idx_entry_time` (`Entry_time`);
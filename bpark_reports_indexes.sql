@@ -0,0 +1,12 @@
+--
+-- Secondary indexes for `reports` used by the application queries.
+-- Apply after loading bpark_reports.sql.
+--
+
+--
+-- Persisted report cache (ReportCacheService): latest entry per key.
+-- InnoDB appends the primary key, so the index also serves
+-- ORDER BY Reports_ID DESC LIMIT 1.
+--
+
+ALTER TABLE `reports` ADD KEY `idx_report_type` (`Report_Type`);
@@ -1,6 +1,12 @@
 package client;
 
+import java.io.Serializable;
+
+import common.MessageCodec;
 import entities.Message;
+import entities.Message.MessageType;
+import entities.StreamCredit;
+import entities.StreamRequest;
 import javafx.application.Application;
 import javafx.application.Platform;
 import ocsf.client.ObservableClient;
@@ -14,6 +20,7 @@ public abstract class BParkBaseApp extends Application {
     protected static BParkClient client;
     protected static String serverIP = "localhost";
     protected static int serverPort = 5555;
+    private static volatile boolean compressionEnabled = false;
     
     /**
      * Common BPark client implementation shared between applications
@@ -29,7 +36,7 @@ public abstract class BParkBaseApp extends Application {
                 try {
                     Object message = msg;
                     if (message instanceof byte[]) {
-                        message = ClientMessageHandler.deserialize(msg);
+                        message = ClientMessageHandler.deserialize(msg, compressionEnabled);
                     }
 
                     if (message instanceof Message) {
@@ -61,6 +68,10 @@ public abstract class BParkBaseApp extends Application {
         try {
             client = new BParkClient(serverIP, serverPort);
             client.openConnection();
+            compressionEnabled = false;
+            if (MessageCodec.COMPRESSION_ENABLED) {
+                sendMessage(new Message(MessageType.NEGOTIATE_COMPRESSION, MessageCodec.VERSION));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -72,13 +83,38 @@ public abstract class BParkBaseApp extends Application {
     public static void sendMessage(Message msg) {
         try {
             if (client != null && client.isConnected()) {
-                client.sendToServer(ClientMessageHandler.serialize(msg));
+                byte[] payload = ClientMessageHandler.serialize(msg);
+                if (compressionEnabled && MessageCodec.shouldCompress(payload)) {
+                    payload = MessageCodec.compress(payload);
+                }
+                client.sendToServer(payload);
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
     
+    /**
+     * Records whether the server accepted compression for this connection
+     */
+    public static void setCompressionEnabled(boolean enabled) {
+        compressionEnabled = enabled;
+    }
+    
+    /**
+     * Requests a large result as a chunked stream instead of a single message
+     */
+    public static void openStream(MessageType requestType, Serializable argument) {
+        sendMessage(new Message(MessageType.OPEN_STREAM, new StreamRequest(requestType, argument)));
+    }
+    
+    /**
+     * Lets the server send one more chunk of an open stream
+     */
+    public static void grantStreamCredit(int streamId) {
+        sendMessage(new Message(MessageType.STREAM_CREDIT, new StreamCredit(streamId, 1)));
+    }
+    
     /**
      * Sends a String message to the server
      */
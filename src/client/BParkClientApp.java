@@ -18,6 +18,7 @@ public class BParkClientApp extends BParkBaseApp {
     
   	private static AttendantController attendantController;
 	  private static ManagerController managerController;
+	  private static SubscriberController subscriberController;
 	
     // Current user info
     private static String currentUser;
@@ -162,4 +163,12 @@ public class BParkClientApp extends BParkBaseApp {
 	public static controllers.ManagerController getManagerController() {
 		return managerController;
 	}
+
+	public static void setSubscriberController(SubscriberController controller) {
+		subscriberController = controller;
+	}
+
+	public static SubscriberController getSubscriberController() {
+		return subscriberController;
+	}
 }
\ No newline at end of file
@@ -2,17 +2,24 @@ package client;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import common.MessageCodec;
 import controllers.AttendantController;
 import controllers.ExtendParkingController;
 import controllers.LoginController;
 import controllers.ManagerController;
+import controllers.SubscriberController;
 import controllers.UpdateProfileController;
 import entities.Message;
+import entities.ParkingHistoryPage;
 import entities.ParkingOrder;
 import entities.ParkingReport;
 import entities.ParkingSubscriber;
+import entities.StreamChunk;
+import entities.SystemStatus;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.scene.control.Alert;
@@ -20,6 +27,9 @@ import controllers.KioskController;
 
 public class ClientMessageHandler {
 
+    /** Items of streams that are delivered whole, by stream ID; only touched on the FX thread */
+    private static final Map<Integer, ArrayList<Serializable>> pendingStreams = new HashMap<>();
+
     /**
      * Handle incoming Message objects from the server
      */
@@ -69,7 +79,12 @@ public class ClientMessageHandler {
                 handleParkingHistory(message);
                 break;
 
+            case PARKING_HISTORY_PAGE_RESPONSE:
+                handleParkingHistoryPage(message);
+                break;
+
             case MANAGER_SEND_REPORTS:
+            case MONTHLY_REPORTS_RESPONSE:
                 handleReports(message);
                 break;
 
@@ -115,6 +130,32 @@ public class ClientMessageHandler {
                     BParkClientApp.getManagerController().updateSubscriberTable(subs);
                 break;
 
+            case ENTER_PARKING_RESPONSE:
+                showAlert("Entry Result", (String) message.getContent());
+                break;
+
+            case EXIT_PARKING_RESPONSE:
+                showAlert("Exit Result", (String) message.getContent());
+                break;
+
+            case SYSTEM_STATUS_RESPONSE:
+                SystemStatus status = (SystemStatus) message.getContent();
+                if (BParkClientApp.getManagerController() != null)
+                    BParkClientApp.getManagerController().updateSystemStatus(status);
+                break;
+
+            case SERVER_BUSY:
+                showAlert("Server Busy", "The server is busy, please try again in a moment.");
+                break;
+
+            case COMPRESSION_RESPONSE:
+                BParkBaseApp.setCompressionEnabled(Boolean.TRUE.equals(message.getContent()));
+                break;
+
+            case STREAM_CHUNK:
+                handleStreamChunk(message);
+                break;
+
             default:
                 System.out.println("Unknown message type: " + message.getType());
         }
@@ -240,13 +281,32 @@ public class ClientMessageHandler {
     private static void handleParkingHistory(Message message) {
         ArrayList<ParkingOrder> history = (ArrayList<ParkingOrder>) message.getContent();
         System.out.println("Received " + history.size() + " parking records");
+        showParkingHistory(history);
+    }
+
+    private static void showParkingHistory(ArrayList<ParkingOrder> history) {
+        SubscriberController controller = BParkClientApp.getSubscriberController();
+        if (controller != null) {
+            controller.updateParkingHistory(FXCollections.observableArrayList(history));
+        }
+    }
+
+    private static void handleParkingHistoryPage(Message message) {
+        ParkingHistoryPage page = (ParkingHistoryPage) message.getContent();
+        SubscriberController controller = BParkClientApp.getSubscriberController();
+        if (controller != null) {
+            controller.appendParkingHistoryPage(page);
+        }
     }
 
     @SuppressWarnings("unchecked")
     private static void handleReports(Message message) {
         ArrayList<ParkingReport> reports = (ArrayList<ParkingReport>) message.getContent();
         System.out.println("Received " + reports.size() + " reports");
+        showReports(reports);
+    }
 
+    private static void showReports(ArrayList<ParkingReport> reports) {
         ManagerController managerController = BParkClientApp.getManagerController();
         if (managerController != null) {
             managerController.updateReports(reports);
@@ -270,6 +330,73 @@ public class ClientMessageHandler {
         }
     }
 
+    /**
+     * Consumes one chunk of a streamed result and grants the server credit for the next one.
+     * Subscribers are shown as they arrive; history and monthly reports are collected and
+     * handed to the same controller callbacks as their non-streamed responses once complete.
+     */
+    private static void handleStreamChunk(Message message) {
+        StreamChunk chunk = (StreamChunk) message.getContent();
+
+        if (chunk.getError() != null) {
+            pendingStreams.remove(chunk.getStreamId());
+            showAlert("Request Failed", chunk.getError());
+            return;
+        }
+
+        switch (chunk.getResponseType()) {
+            case SHOW_ALL_SUBSCRIBERS:
+                List<ParkingSubscriber> subs = new ArrayList<>(chunk.getItems().size());
+                for (Serializable item : chunk.getItems()) {
+                    subs.add((ParkingSubscriber) item);
+                }
+                if (BParkClientApp.getAttendantController() != null)
+                    BParkClientApp.getAttendantController().appendSubscribers(subs, chunk.isFirst());
+                if (BParkClientApp.getManagerController() != null)
+                    BParkClientApp.getManagerController().appendSubscribers(subs, chunk.isFirst());
+                break;
+
+            case PARKING_HISTORY_RESPONSE:
+                ArrayList<Serializable> orders = collectStream(chunk);
+                if (orders != null) {
+                    ArrayList<ParkingOrder> history = new ArrayList<>(orders.size());
+                    for (Serializable item : orders) {
+                        history.add((ParkingOrder) item);
+                    }
+                    showParkingHistory(history);
+                }
+                break;
+
+            case MONTHLY_REPORTS_RESPONSE:
+                ArrayList<Serializable> items = collectStream(chunk);
+                if (items != null) {
+                    ArrayList<ParkingReport> reports = new ArrayList<>(items.size());
+                    for (Serializable item : items) {
+                        reports.add((ParkingReport) item);
+                    }
+                    showReports(reports);
+                }
+                break;
+
+            default:
+                System.out.println("Unknown stream type: " + chunk.getResponseType());
+        }
+
+        if (!chunk.isEndOfStream()) {
+            BParkBaseApp.grantStreamCredit(chunk.getStreamId());
+        }
+    }
+
+    /**
+     * Adds a chunk's items to its stream.
+     * @return all items of the stream if this chunk ends it, otherwise null
+     */
+    private static ArrayList<Serializable> collectStream(StreamChunk chunk) {
+        ArrayList<Serializable> items = pendingStreams.computeIfAbsent(chunk.getStreamId(), id -> new ArrayList<>());
+        items.addAll(chunk.getItems());
+        return chunk.isEndOfStream() ? pendingStreams.remove(chunk.getStreamId()) : null;
+    }
+
     private static void handleUpdateResponse(Message message) {
         String response = (String) message.getContent();
         showAlert("Update Profile", response);
@@ -339,25 +466,11 @@ public class ClientMessageHandler {
     }
 
     public static byte[] serialize(Message msg) {
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-             ObjectOutputStream out = new ObjectOutputStream(bos)) {
-            out.writeObject(msg);
-            out.flush();
-            return bos.toByteArray();
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            return null;
-        }
+        return MessageCodec.serialize(msg);
     }
 
-    public static Object deserialize(Object msg) {
-        try (ByteArrayInputStream bis = new ByteArrayInputStream((byte[]) msg);
-             ObjectInputStream in = new ObjectInputStream(bis)) {
-            return in.readObject();
-        } catch (IOException | ClassNotFoundException ex) {
-            ex.printStackTrace();
-            return null;
-        }
+    public static Object deserialize(Object msg, boolean compressionNegotiated) {
+        return MessageCodec.deserialize((byte[]) msg, compressionNegotiated);
     }
 
     private static void showAlert(String title, String content) {
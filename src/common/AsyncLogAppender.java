@@ -0,0 +1,222 @@
+package common;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AsyncLogAppender writes log lines on a background thread using the
+ * Singleton pattern. Callers only copy the template and argument references
+ * into a preallocated slot of a fixed-size ring buffer; formatting and console
+ * I/O happen on the writer thread. When the buffer is full the event is
+ * dropped and counted instead of blocking the caller.
+ *
+ * The ring size is set with {@code bpark.log.bufferSize} (rounded up to a power of two).
+ */
+public final class AsyncLogAppender {
+
+    /** One preallocated ring buffer entry */
+    private static final class Slot {
+        /** Sequence number + 1 of the event stored here, written last to publish it */
+        volatile long published;
+        long timeMillis;
+        Logger.Level level;
+        String component;
+        String thread;
+        String template;
+        int argCount;
+        Object arg0;
+        Object arg1;
+        Object arg2;
+        Object[] args;
+        Throwable error;
+        long suppressed;
+
+        void clear() {
+            arg0 = arg1 = arg2 = null;
+            args = null;
+            error = null;
+            template = null;
+        }
+    }
+
+    private static final AsyncLogAppender instance = new AsyncLogAppender(
+            Integer.getInteger("bpark.log.bufferSize", 8192));
+
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final long IDLE_PARK_NANOS = 2_000_000;
+
+    private final Slot[] slots;
+    private final int mask;
+    /** Next sequence number to hand out to a producer */
+    private final AtomicLong claimed = new AtomicLong();
+    /** Number of events the writer has finished with */
+    private volatile long consumed;
+    private final LongAdder dropped = new LongAdder();
+    private final StringBuilder line = new StringBuilder(256);
+    private final Thread writer;
+
+    private AsyncLogAppender(int requestedSize) {
+        int size = Integer.highestOneBit(Math.max(16, requestedSize - 1)) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        mask = size - 1;
+        writer = new Thread(this::drain, "bpark-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "bpark-log-flush"));
+    }
+
+    /**
+     * Returns the singleton instance of AsyncLogAppender.
+     * @return the appender
+     */
+    public static AsyncLogAppender getInstance() {
+        return instance;
+    }
+
+    /**
+     * Queues one log event. Never blocks.
+     * @return false if the ring buffer was full and the event was dropped
+     */
+    boolean append(Logger.Level level, String component, String template, int argCount,
+                   Object arg0, Object arg1, Object arg2, Object[] args, Throwable error, long suppressed) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= slots.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        Slot slot = slots[(int) (seq & mask)];
+        slot.timeMillis = System.currentTimeMillis();
+        slot.level = level;
+        slot.component = component;
+        slot.thread = Thread.currentThread().getName();
+        slot.template = template;
+        slot.argCount = argCount;
+        slot.arg0 = arg0;
+        slot.arg1 = arg1;
+        slot.arg2 = arg2;
+        slot.args = args;
+        slot.error = error;
+        slot.suppressed = suppressed;
+        slot.published = seq + 1;
+        if (level.compareTo(Logger.Level.WARN) >= 0) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Writer loop: formats and prints events in sequence order, flushing the
+     * console streams whenever the buffer runs empty.
+     */
+    private void drain() {
+        long next = 0;
+        boolean dirty = false;
+        while (true) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.published != next + 1) {
+                if (dirty) {
+                    System.out.flush();
+                    System.err.flush();
+                    dirty = false;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                write(slot);
+            } catch (RuntimeException e) {
+                System.err.println("Error writing log event: " + e);
+            }
+            slot.clear();
+            consumed = ++next;
+            dirty = true;
+        }
+    }
+
+    private void write(Slot slot) {
+        line.setLength(0);
+        TIME_FORMAT.formatTo(Instant.ofEpochMilli(slot.timeMillis), line);
+        line.append(' ').append(slot.level).append(" [").append(slot.thread).append("] ")
+            .append(slot.component).append(" - ");
+        format(slot);
+        if (slot.suppressed > 0) {
+            line.append(" (+").append(slot.suppressed).append(" similar suppressed)");
+        }
+        long lost = dropped.sumThenReset();
+        if (lost > 0) {
+            line.append(" (log buffer full, ").append(lost).append(" events dropped)");
+        }
+
+        PrintStream out = slot.level.compareTo(Logger.Level.WARN) >= 0 ? System.err : System.out;
+        out.append(line).append(System.lineSeparator());
+        if (slot.error != null) {
+            slot.error.printStackTrace(out);
+        }
+    }
+
+    /**
+     * Replaces each {} in the template with the next argument.
+     */
+    private void format(Slot slot) {
+        String template = slot.template;
+        int argIndex = 0;
+        int start = 0;
+        int marker;
+        while (argIndex < slot.argCount && (marker = template.indexOf("{}", start)) >= 0) {
+            line.append(template, start, marker);
+            line.append(argument(slot, argIndex++));
+            start = marker + 2;
+        }
+        line.append(template, start, template.length());
+    }
+
+    private static Object argument(Slot slot, int index) {
+        if (slot.args != null) {
+            return slot.args[index];
+        }
+        return index == 0 ? slot.arg0 : index == 1 ? slot.arg1 : slot.arg2;
+    }
+
+    /**
+     * Waits up to two seconds for every queued event to be written.
+     */
+    public void flush() {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (consumed < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(1_000_000);
+        }
+        System.out.flush();
+        System.err.flush();
+    }
+
+    /**
+     * Returns the number of events waiting to be written.
+     * @return queued event count
+     */
+    public long getQueuedEvents() {
+        return claimed.get() - consumed;
+    }
+
+    /**
+     * Returns the ring buffer capacity.
+     * @return number of slots
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,242 @@
+package common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logger is the logging facade of the server. Each component gets its own
+ * logger with an independent level, and lines are handed to the
+ * {@link AsyncLogAppender} unformatted: parameters are substituted for {}
+ * markers on the writer thread, so a call that is filtered out costs one
+ * level comparison and a call that is logged costs a few field writes.
+ *
+ * Levels are read from {@code bpark.log.level} (default INFO) and
+ * {@code bpark.log.level.<component>}, where a component also inherits the
+ * level of its dotted parent ("db.pool" falls back to "db"). Per-request
+ * loggers can be rate limited with {@link #getSampled(String, int)}; the
+ * limit is overridden by {@code bpark.log.rate.<component>} lines per second.
+ */
+public final class Logger {
+
+    /** Log levels, from most to least verbose */
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+    private static final Level DEFAULT_LEVEL = parseLevel(System.getProperty("bpark.log.level"), Level.INFO);
+
+    private final String component;
+    private volatile Level level;
+    /** Lines per second allowed through, 0 for unlimited */
+    private final int ratePerSecond;
+    private final AtomicLong windowSecond = new AtomicLong();
+    private final AtomicInteger windowCount = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    private Logger(String component, int ratePerSecond) {
+        this.component = component;
+        this.level = configuredLevel(component);
+        this.ratePerSecond = Integer.getInteger("bpark.log.rate." + component, ratePerSecond);
+    }
+
+    /**
+     * Returns the logger of a component.
+     * @param component Component name, e.g. "db" or "server.requests"
+     * @return the component's logger
+     */
+    public static Logger get(String component) {
+        return loggers.computeIfAbsent(component, c -> new Logger(c, 0));
+    }
+
+    /**
+     * Returns a rate-limited logger for lines written once per request. Lines
+     * beyond the limit in any one second are counted and reported with the
+     * next line that gets through.
+     * @param component Component name
+     * @param defaultRatePerSecond Lines per second let through unless configured otherwise
+     * @return the component's logger
+     */
+    public static Logger getSampled(String component, int defaultRatePerSecond) {
+        return loggers.computeIfAbsent(component, c -> new Logger(c, defaultRatePerSecond));
+    }
+
+    /**
+     * Changes the level of a component and of its dotted sub-components at runtime.
+     * @param component Component name
+     * @param level New level
+     */
+    public static void setLevel(String component, Level level) {
+        get(component).level = level;
+        for (Logger logger : loggers.values()) {
+            if (logger.component.startsWith(component + ".")) {
+                logger.level = level;
+            }
+        }
+    }
+
+    private static Level configuredLevel(String component) {
+        String name = component;
+        while (true) {
+            String value = System.getProperty("bpark.log.level." + name);
+            if (value != null) {
+                return parseLevel(value, DEFAULT_LEVEL);
+            }
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) {
+                return DEFAULT_LEVEL;
+            }
+            name = name.substring(0, dot);
+        }
+    }
+
+    private static Level parseLevel(String value, Level fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns whether lines of a level are written by this logger.
+     * @param lineLevel Level of the line
+     * @return true if the line would be logged
+     */
+    public boolean isEnabled(Level lineLevel) {
+        return lineLevel.compareTo(level) >= 0 && lineLevel != Level.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public boolean isTraceEnabled() {
+        return isEnabled(Level.TRACE);
+    }
+
+    /**
+     * Applies the rate limit.
+     * @return false if the line must be suppressed
+     */
+    private boolean admit() {
+        if (ratePerSecond <= 0) {
+            return true;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        long current = windowSecond.get();
+        if (second != current && windowSecond.compareAndSet(current, second)) {
+            windowCount.set(0);
+        }
+        if (windowCount.incrementAndGet() <= ratePerSecond) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    private void log(Level lineLevel, String template, int argCount,
+                     Object arg0, Object arg1, Object arg2, Object[] args, Throwable error) {
+        if (!isEnabled(lineLevel) || !admit()) {
+            return;
+        }
+        long skipped = ratePerSecond > 0 ? suppressed.sumThenReset() : 0;
+        AsyncLogAppender.getInstance().append(lineLevel, component, template, argCount,
+                arg0, arg1, arg2, args, error, skipped);
+    }
+
+    public void trace(String message) {
+        log(Level.TRACE, message, 0, null, null, null, null, null);
+    }
+
+    public void trace(String template, Object arg) {
+        log(Level.TRACE, template, 1, arg, null, null, null, null);
+    }
+
+    public void trace(String template, Object arg0, Object arg1) {
+        log(Level.TRACE, template, 2, arg0, arg1, null, null, null);
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, 0, null, null, null, null, null);
+    }
+
+    public void debug(String template, Object arg) {
+        log(Level.DEBUG, template, 1, arg, null, null, null, null);
+    }
+
+    public void debug(String template, Object arg0, Object arg1) {
+        log(Level.DEBUG, template, 2, arg0, arg1, null, null, null);
+    }
+
+    public void debug(String template, Object arg0, Object arg1, Object arg2) {
+        log(Level.DEBUG, template, 3, arg0, arg1, arg2, null, null);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, 0, null, null, null, null, null);
+    }
+
+    public void info(String template, Object arg) {
+        log(Level.INFO, template, 1, arg, null, null, null, null);
+    }
+
+    public void info(String template, Object arg0, Object arg1) {
+        log(Level.INFO, template, 2, arg0, arg1, null, null, null);
+    }
+
+    public void info(String template, Object arg0, Object arg1, Object arg2) {
+        log(Level.INFO, template, 3, arg0, arg1, arg2, null, null);
+    }
+
+    public void info(String template, Object... args) {
+        log(Level.INFO, template, args.length, null, null, null, args, null);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, 0, null, null, null, null, null);
+    }
+
+    public void warn(String template, Object arg) {
+        log(Level.WARN, template, 1, arg, null, null, null, null);
+    }
+
+    public void warn(String template, Object arg0, Object arg1) {
+        log(Level.WARN, template, 2, arg0, arg1, null, null, null);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, 0, null, null, null, null, null);
+    }
+
+    public void error(String template, Object arg) {
+        log(Level.ERROR, template, 1, arg, null, null, null, null);
+    }
+
+    public void error(String template, Object arg0, Object arg1) {
+        log(Level.ERROR, template, 2, arg0, arg1, null, null, null);
+    }
+
+    /**
+     * Logs an error with its stack trace.
+     * @param message Error description
+     * @param error The exception
+     */
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, message, 0, null, null, null, null, error);
+    }
+}
@@ -0,0 +1,190 @@
+package common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import entities.Message;
+
+/**
+ * MessageCodec is the framing layer shared by the BPark client and server.
+ * A frame is either a plain serialized Message (which always starts with the
+ * Java serialization magic 0xACED) or a deflated frame:
+ *
+ * <pre>
+ *   [0x01][original length: 4 bytes][raw deflate data]
+ * </pre>
+ *
+ * Plain frames stay readable by peers that never negotiated compression.
+ * Deflated frames are only accepted from peers that negotiated it, and their
+ * declared length is capped, so a small frame cannot make the receiver
+ * allocate an arbitrary buffer.
+ * Deflater and Inflater instances are kept per thread and reset between uses.
+ */
+public final class MessageCodec {
+
+    /** Codec version sent when negotiating compression */
+    public static final int VERSION = 1;
+
+    /** Payloads smaller than this are never compressed */
+    public static final int COMPRESSION_THRESHOLD =
+            Integer.getInteger("bpark.compression.threshold", 2048);
+
+    /** Whether this process offers/accepts compression at all */
+    public static final boolean COMPRESSION_ENABLED =
+            !"false".equalsIgnoreCase(System.getProperty("bpark.compression"));
+
+    /** Largest plain frame a deflated frame may declare */
+    public static final int MAX_FRAME_LENGTH =
+            Integer.getInteger("bpark.compression.maxFrameLength", 16 * 1024 * 1024);
+
+    private static final byte DEFLATED_FRAME = 0x01;
+    private static final int HEADER_LENGTH = 5;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATER =
+            ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<byte[]> BUFFER =
+            ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private MessageCodec() {}
+
+    /**
+     * Serializes a message into a plain frame.
+     * @param msg Message to serialize
+     * @return Serialized bytes, or null on failure
+     */
+    public static byte[] serialize(Message msg) {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(msg);
+            out.flush();
+            return bos.toByteArray();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether a plain frame is large enough to be worth compressing.
+     * @param plain Plain frame
+     * @return true if at or above the compression threshold
+     */
+    public static boolean shouldCompress(byte[] plain) {
+        return plain != null && plain.length >= COMPRESSION_THRESHOLD;
+    }
+
+    /**
+     * Compresses a plain frame into a deflated frame.
+     * @param plain Plain frame
+     * @return Deflated frame
+     */
+    public static byte[] compress(byte[] plain) {
+        Deflater deflater = DEFLATER.get();
+        byte[] buffer = BUFFER.get();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2 + HEADER_LENGTH);
+        out.write(DEFLATED_FRAME);
+        out.write(plain.length >>> 24);
+        out.write(plain.length >>> 16);
+        out.write(plain.length >>> 8);
+        out.write(plain.length);
+        try {
+            deflater.setInput(plain);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            deflater.reset();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns whether a frame is deflated.
+     * @param frame Received frame
+     * @return true for a deflated frame
+     */
+    public static boolean isCompressed(byte[] frame) {
+        return frame.length > HEADER_LENGTH && frame[0] == DEFLATED_FRAME;
+    }
+
+    /**
+     * Decodes a received plain frame, from a peer that did not negotiate compression.
+     * @param frame Plain frame
+     * @return The deserialized object, or null on failure
+     */
+    public static Object deserialize(byte[] frame) {
+        return deserialize(frame, false);
+    }
+
+    /**
+     * Decodes a received frame, inflating it first if needed.
+     * @param frame Plain or deflated frame
+     * @param compressionNegotiated Whether the peer may send deflated frames
+     * @return The deserialized object, or null on failure
+     */
+    public static Object deserialize(byte[] frame, boolean compressionNegotiated) {
+        try {
+            byte[] plain = frame;
+            if (isCompressed(frame)) {
+                if (!compressionNegotiated) {
+                    throw new DataFormatException("Compressed frame without negotiated compression");
+                }
+                plain = decompress(frame);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(plain))) {
+                return in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException | DataFormatException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Inflates a deflated frame back to the plain frame. The frame must
+     * inflate to exactly its declared length.
+     */
+    private static byte[] decompress(byte[] frame) throws DataFormatException {
+        int length = ((frame[1] & 0xFF) << 24) | ((frame[2] & 0xFF) << 16)
+                | ((frame[3] & 0xFF) << 8) | (frame[4] & 0xFF);
+        if (length <= 0 || length > MAX_FRAME_LENGTH) {
+            throw new DataFormatException("Invalid compressed frame length " + length);
+        }
+        byte[] plain = new byte[length];
+        Inflater inflater = INFLATER.get();
+        try {
+            inflater.setInput(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH);
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int n = inflater.inflate(plain, offset, length - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed frame");
+                }
+                offset += n;
+            }
+            if (offset < length) {
+                throw new DataFormatException("Compressed frame shorter than declared");
+            }
+            if (!inflater.finished() && (inflater.inflate(BUFFER.get()) > 0 || !inflater.finished())) {
+                throw new DataFormatException("Compressed frame longer than declared");
+            }
+            if (inflater.getRemaining() > 0) {
+                throw new DataFormatException("Trailing data after compressed frame");
+            }
+        } finally {
+            inflater.reset();
+        }
+        return plain;
+    }
+}
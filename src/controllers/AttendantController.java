@@ -4,10 +4,13 @@ import java.net.URL;
 import java.util.ResourceBundle;
 
 import client.BParkClientApp;
+import entities.ExtensionRequest;
 import entities.Message;
 import entities.Message.MessageType;
 import entities.ParkingOrder;
 import entities.ParkingSubscriber;
+import entities.RegistrationRequest;
+import entities.ReservationCodeRequest;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
@@ -162,12 +165,11 @@ public class AttendantController implements Initializable {
 			return;
 		}
 
-		String registrationData = String.format("%s,%s,%s,%s,%s,%s", BParkClientApp.getCurrentUser(), // Attendant
-																										// username
+		RegistrationRequest request = new RegistrationRequest(BParkClientApp.getCurrentUser(), // Attendant username
 				txtName.getText().trim(), txtPhone.getText().trim(), txtEmail.getText().trim(),
 				txtCarNumber.getText().trim(), txtUsername.getText().trim());
 
-		Message msg = new Message(MessageType.REGISTER_SUBSCRIBER, registrationData);
+		Message msg = new Message(MessageType.REGISTER_SUBSCRIBER, request);
 		BParkClientApp.sendMessage(msg);
 	}
 
@@ -202,8 +204,8 @@ public class AttendantController implements Initializable {
 
 	@FXML
 	private void loadSubscribers() {
-		Message msg = new Message(MessageType.GET_ALL_SUBSCRIBERS, null);
-		BParkClientApp.sendMessage(msg);
+		// Streamed in chunks so large subscriber lists never travel as one message
+		BParkClientApp.openStream(MessageType.GET_ALL_SUBSCRIBERS, null);
 	}
 
 	public void updateSubscriberTable(java.util.List<ParkingSubscriber> subscribers) {
@@ -213,6 +215,20 @@ public class AttendantController implements Initializable {
 		});
 	}
 
+	/**
+	 * Appends one streamed chunk of subscribers to the table.
+	 * @param subscribers Subscribers in the chunk
+	 * @param firstChunk true if this chunk starts a new listing
+	 */
+	public void appendSubscribers(java.util.List<ParkingSubscriber> subscribers, boolean firstChunk) {
+		Platform.runLater(() -> {
+			if (firstChunk || tableSubscribers.getItems() == null) {
+				tableSubscribers.setItems(FXCollections.observableArrayList());
+			}
+			tableSubscribers.getItems().addAll(subscribers);
+		});
+	}
+
 	@FXML
 	private void handleAssistAction() {
 		String code = txtAssistCode.getText().trim();
@@ -323,7 +339,8 @@ public class AttendantController implements Initializable {
 		// Check if this is a reservation code or subscriber code
 		if (subscriberCode.matches("\\d+") && subscriberCode.length() == 6) {
 			// Looks like a reservation code
-			Message msg = new Message(MessageType.ACTIVATE_RESERVATION, subscriberCode);
+			Message msg = new Message(MessageType.ACTIVATE_RESERVATION,
+					new ReservationCodeRequest(null, Integer.parseInt(subscriberCode)));
 			BParkClientApp.sendMessage(msg);
 		} else {
 			// Treat as subscriber username
@@ -339,9 +356,14 @@ public class AttendantController implements Initializable {
 		dialog.setContentText("Extension hours:");
 
 		dialog.showAndWait().ifPresent(hours -> {
-			String extensionData = parkingCode + "," + hours;
-			Message msg = new Message(MessageType.EXTEND_PARKING, extensionData);
-			BParkClientApp.sendMessage(msg);
+			try {
+				ExtensionRequest request = new ExtensionRequest(Integer.parseInt(parkingCode.trim()),
+						Integer.parseInt(hours));
+				Message msg = new Message(MessageType.REQUEST_EXTENSION, request);
+				BParkClientApp.sendMessage(msg);
+			} catch (NumberFormatException e) {
+				showError("Invalid Code", "Parking code must be numeric");
+			}
 		});
 	}
 
@@ -3,6 +3,7 @@ package controllers;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import client.BParkClientApp;
+import entities.ExtensionRequest;
 import entities.Message;
 import entities.Message.MessageType;
 
@@ -35,8 +36,15 @@ public class ExtendParkingController {
             return;
         }
 
-        String extensionData = code + "," + hours;
-        Message msg = new Message(MessageType.REQUEST_EXTENSION, extensionData);
+        int parkingCode;
+        try {
+            parkingCode = Integer.parseInt(code.trim());
+        } catch (NumberFormatException e) {
+            statusLabel.setText("Parking code must be numeric.");
+            return;
+        }
+
+        Message msg = new Message(MessageType.REQUEST_EXTENSION, new ExtensionRequest(parkingCode, Integer.parseInt(hours)));
         BParkClientApp.sendMessage(msg);
         
       
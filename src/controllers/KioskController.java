@@ -13,6 +13,7 @@ import javafx.geometry.Insets;
 
 import java.util.Optional;
 
+import entities.LoginRequest;
 import entities.Message;
 import static entities.Message.MessageType.*;
 import client.BParkKioskApp;
@@ -82,7 +83,7 @@ public class KioskController {
                 String userIDStr = pair.getValue();
                 try {
                     int userID = Integer.parseInt(userIDStr);
-                    Message msg = new Message(KIOSK_ID_LOGIN, username + "," + userID);
+                    Message msg = new Message(KIOSK_ID_LOGIN, new LoginRequest(username, userID));
                     BParkKioskApp.sendMessage(msg);
                 } catch (NumberFormatException e) {
                     showAlert("Invalid Input", "User ID must be numeric.");
@@ -10,6 +10,7 @@ import java.net.URL;
 import java.util.ResourceBundle;
 
 import client.BParkClientApp;
+import entities.LoginRequest;
 import entities.Message;
 import entities.Message.MessageType;
 
@@ -90,6 +91,15 @@ public class LoginController implements Initializable {
             return;
         }
         
+        int userID;
+        try {
+            userID = Integer.parseInt(usercode);
+        } catch (NumberFormatException e) {
+            showError("userCode must be numeric");
+            txtUsercode.requestFocus();
+            return;
+        }
+        
         // Update UI for connection attempt
         isConnecting = true;
         btnLogin.setDisable(true);
@@ -113,7 +123,7 @@ public class LoginController implements Initializable {
                     BParkClientApp.setCurrentUser(username);
                     
                     // Send login message
-                    Message loginMsg = new Message(MessageType.SUBSCRIBER_LOGIN, username + "," + usercode);
+                    Message loginMsg = new Message(MessageType.SUBSCRIBER_LOGIN, new LoginRequest(username, userID));
                     BParkClientApp.sendMessage(loginMsg);
                     
                     lblStatus.setText("Authenticating...");
@@ -9,11 +9,13 @@ import java.util.Map;
 import java.util.ResourceBundle;
 
 import client.BParkClientApp;
+import entities.LatencySummary;
 import entities.Message;
 import entities.Message.MessageType;
 import entities.ParkingOrder;
 import entities.ParkingReport;
 import entities.ParkingSubscriber;
+import entities.SystemStatus;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
@@ -52,6 +54,8 @@ public class ManagerController implements Initializable {
 	@FXML
 	private Label lblLastUpdate;
 	@FXML
+	private Label lblServerHealth;
+	@FXML
 	private Label lbltotalusedreservation;
 	@FXML
 	private Label lblimidiateParkings;
@@ -178,6 +182,7 @@ public class ManagerController implements Initializable {
 	private AttendantController attendantController;
 
 	private Timeline refreshTimeline;
+	private Timeline healthTimeline;
 	private ObservableList<ParkingReport> currentReports = FXCollections.observableArrayList();
 
 	@Override
@@ -268,6 +273,7 @@ public class ManagerController implements Initializable {
 	private void loadInitialData() {
 		// Load parking availability
 		checkParkingStatus();
+		checkServerHealth();
 
 		// Load initial reports
 		loadReports("ALL");
@@ -284,6 +290,11 @@ public class ManagerController implements Initializable {
 		}));
 		refreshTimeline.setCycleCount(Timeline.INDEFINITE);
 		refreshTimeline.play();
+
+		// Server health is served from memory, so it can be polled more often
+		healthTimeline = new Timeline(new KeyFrame(Duration.seconds(10), event -> checkServerHealth()));
+		healthTimeline.setCycleCount(Timeline.INDEFINITE);
+		healthTimeline.play();
 	}
 
 	// ===== Action Handlers =====
@@ -324,8 +335,7 @@ public class ManagerController implements Initializable {
 		int monthNum = comboMonth.getSelectionModel().getSelectedIndex() + 1;
 		String monthYear = String.format("%s-%02d", year, monthNum);
 
-		Message msg = new Message(MessageType.GENERATE_MONTHLY_REPORTS, monthYear);
-		BParkClientApp.sendMessage(msg);
+		BParkClientApp.openStream(MessageType.GENERATE_MONTHLY_REPORTS, monthYear);
 	}
 
 	@FXML
@@ -338,6 +348,10 @@ public class ManagerController implements Initializable {
 		BParkClientApp.sendMessage(activeMsg);
 	}
 
+	private void checkServerHealth() {
+		BParkClientApp.sendMessage(new Message(MessageType.GET_SYSTEM_STATUS, null));
+	}
+
 	private void loadReports(String type) {
 		Message msg = new Message(MessageType.MANAGER_GET_REPORTS, type);
 		BParkClientApp.sendMessage(msg);
@@ -345,6 +359,37 @@ public class ManagerController implements Initializable {
 
 	// ===== UI Update Methods =====
 
+	/**
+	 * Shows the server health snapshot: availability, the slowest request p99,
+	 * DB pool usage and queued work.
+	 *
+	 * @param status snapshot returned for GET_SYSTEM_STATUS
+	 */
+	public void updateSystemStatus(SystemStatus status) {
+		if (status.getAvailableSpots() >= 0) {
+			updateParkingStatus(status.getAvailableSpots());
+		}
+
+		LatencySummary slowest = null;
+		for (LatencySummary latency : status.getMessageLatencies().values()) {
+			if (slowest == null || latency.getP99Micros() > slowest.getP99Micros()) {
+				slowest = latency;
+			}
+		}
+		int laneQueued = status.getLaneQueueDepths().values().stream().mapToInt(Integer::intValue).sum();
+		String text = String.format("Server: p99 %s | DB %d/%d in use, wait p99 %.1fms | queued %d | clients %d",
+				slowest == null ? "--" : String.format("%.1fms (%s)", slowest.getP99Micros() / 1000.0, slowest.getName()),
+				status.getDbConnectionsActive(), status.getDbConnectionsActive() + status.getDbConnectionsIdle(),
+				status.getDbPoolWait() == null ? 0 : status.getDbPoolWait().getP99Micros() / 1000.0,
+				laneQueued + status.getOutboundQueueDepth(), status.getConnectedClients());
+
+		Platform.runLater(() -> {
+			if (lblServerHealth != null) {
+				lblServerHealth.setText(text);
+			}
+		});
+	}
+
 	public void updateParkingStatus(int availableSpots) {
 		Platform.runLater(() -> {
 			int occupied = 10 - availableSpots;
@@ -635,8 +680,8 @@ public class ManagerController implements Initializable {
 
 	@FXML
 	private void loadSubscribers() {
-		Message msg = new Message(MessageType.GET_ALL_SUBSCRIBERS, null);
-		BParkClientApp.sendMessage(msg);
+		// Streamed in chunks so large subscriber lists never travel as one message
+		BParkClientApp.openStream(MessageType.GET_ALL_SUBSCRIBERS, null);
 	}
 
 	public void updateSubscriberTable(java.util.List<ParkingSubscriber> subscribers) {
@@ -646,6 +691,20 @@ public class ManagerController implements Initializable {
 		});
 	}
 
+	/**
+	 * Appends one streamed chunk of subscribers to the table.
+	 * @param subscribers Subscribers in the chunk
+	 * @param firstChunk true if this chunk starts a new listing
+	 */
+	public void appendSubscribers(java.util.List<ParkingSubscriber> subscribers, boolean firstChunk) {
+		Platform.runLater(() -> {
+			if (firstChunk || tableSubscribers.getItems() == null) {
+				tableSubscribers.setItems(FXCollections.observableArrayList());
+			}
+			tableSubscribers.getItems().addAll(subscribers);
+		});
+	}
+
 	// =======================
 	// Parking Report
 	// =======================
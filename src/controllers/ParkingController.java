@@ -5,13 +5,20 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 
+import entities.ParkingHistoryPage;
+import entities.ParkingHistoryPageRequest;
 import entities.ParkingOrder;
 import entities.ParkingSubscriber;
+import entities.ProfileUpdateRequest;
+import entities.ReservationRequest;
 import server.DBController;
+import server.ResultCursor;
+import services.DemandForecastService;
 import services.UserService;
 import services.ParkingSpotService;
 import services.ReservationService;
@@ -90,6 +97,14 @@ public class ParkingController {
         }
     }
 
+    /**
+     * Returns how many times the automatic cancellation service freed a spot.
+     * @return count of its committed cancellations and finishes
+     */
+    public long getAutoCancellationSpotChanges() {
+        return autoCancellationService != null ? autoCancellationService.getSpotChanges() : 0;
+    }
+
     /**
      * Stops the automatic cancellation monitoring service.
      */
@@ -153,43 +168,62 @@ public class ParkingController {
         return availableSpots >= (TOTAL_PARKING_SPOTS * RESERVATION_THRESHOLD);
     }
 
+    /**
+     * Checks if a reservation for a time range is possible, using the spots
+     * predicted to be free in its busiest 15-minute slot. Falls back to live
+     * availability while there is no demand forecast.
+     * @param date Reservation date
+     * @param startTime Reservation start time
+     * @param endTime Reservation end time; at or before the start time means
+     *                the reservation ends the next day
+     * @return true if reservation can be made, false otherwise
+     */
+    public boolean canMakeReservation(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        LocalDateTime start = date.atTime(startTime);
+        LocalDateTime end = date.atTime(endTime);
+        if (!end.isAfter(start)) {
+            end = end.plusDays(1);
+        }
+        double predictedFree = DemandForecastService.getInstance().minPredictedFreeSpots(start, end);
+        if (predictedFree < 0) {
+            return canMakeReservation();
+        }
+        return predictedFree >= (TOTAL_PARKING_SPOTS * RESERVATION_THRESHOLD);
+    }
+
+    /**
+     * Refits the demand forecast used for reservation admission.
+     */
+    public void refreshDemandForecast() {
+        DemandForecastService.getInstance().refresh();
+    }
+
     /**
      * Makes a parking reservation.
-     * @param userName Username making reservation
-     * @param reservationDateTimeStr Date and time string for reservation
+     * @param request Subscriber, date, start and end time of the reservation
      * @return Success message or error description
      */
-    public String makeReservation(String userName, String reservationDateTimeStr) {
-        if (!canMakeReservation()) {
+    public String makeReservation(ReservationRequest request) {
+        if (request.getDate() == null || request.getStartTime() == null || request.getEndTime() == null) {
+            return "Invalid date/time format";
+        }
+
+        if (!canMakeReservation(request.getDate(), request.getStartTime(), request.getEndTime())) {
             return "Reservations not available - insufficient parking spots";
         }
 
-        ParkingSubscriber subscriber = UserService.getInstance().getSubscriberByUserName(userName);
+        ParkingSubscriber subscriber = UserService.getInstance().getSubscriberByUserName(request.getUserName());
         if (subscriber == null) {
             return "User not found";
         }
 
-        try {
-            String[] parts = reservationDateTimeStr.split(",");
-            if (parts.length != 3) {
-                return "Invalid date/time format";
-            }
-            
-            LocalDate date = LocalDate.parse(parts[0].trim());
-            LocalTime startTime = LocalTime.parse(parts[1].trim());
-            LocalTime endTime = LocalTime.parse(parts[2].trim());
-            
-            int reservationCode = ReservationService.getInstance().createReservation(
-                subscriber.getSubscriberID(), date, startTime, endTime);
-            
-            if (reservationCode > 0) {
-                return "Reservation successful. Code: " + reservationCode;
-            } else {
-                return "Reservation failed";
-            }
-        } catch (Exception e) {
-            System.err.println("Error making reservation: " + e.getMessage());
-            return "Invalid date/time format";
+        int reservationCode = ReservationService.getInstance().createReservation(
+            subscriber.getSubscriberID(), request.getDate(), request.getStartTime(), request.getEndTime());
+
+        if (reservationCode > 0) {
+            return "Reservation successful. Code: " + reservationCode;
+        } else {
+            return "Reservation failed";
         }
     }
 
@@ -280,6 +314,24 @@ public class ParkingController {
         return ReservationService.getInstance().getParkingHistory(userName);
     }
 
+    /**
+     * Gets one page of parking history for a user.
+     * @param request Page request with username, cursor and page size
+     * @return Page of parking orders, newest first
+     */
+    public ParkingHistoryPage getParkingHistoryPage(ParkingHistoryPageRequest request) {
+        return ReservationService.getInstance().getParkingHistoryPage(request);
+    }
+
+    /**
+     * Opens a streaming cursor over a user's full parking history.
+     * @param userName Username to get history for
+     * @return Open cursor, or null if the query failed
+     */
+    public ResultCursor<ParkingOrder> openParkingHistoryCursor(String userName) {
+        return ReservationService.getInstance().openParkingHistoryCursor(userName);
+    }
+
     /**
      * Gets all active parking sessions.
      * @return List of active parking orders
@@ -296,6 +348,14 @@ public class ParkingController {
         return ParkingSpotService.getInstance().getAvailableSpots();
     }
 
+    /**
+     * Gets the total number of parking spots.
+     * @return Number of spots in the parking lot
+     */
+    public int getTotalParkingSpots() {
+        return ParkingSpotService.getInstance().getTotalSpots();
+    }
+
     /**
      * Checks if parking is full.
      * @return true if no spots available, false otherwise
@@ -319,20 +379,11 @@ public class ParkingController {
 
     /**
      * Updates subscriber information.
-     * @param updateData Comma-separated update data (userName,phone,email)
+     * @param request Username and new contact details
      * @return Success message or error description
      */
-    public String updateSubscriberInfo(String updateData) {
-        String[] data = updateData.split(",");
-        if (data.length != 3) {
-            return "Invalid update data format";
-        }
-        
-        String userName = data[0];
-        String phone = data[1];
-        String email = data[2];
-        
-        return UserService.getInstance().updateSubscriberInfo(userName, phone, email);
+    public String updateSubscriberInfo(ProfileUpdateRequest request) {
+        return UserService.getInstance().updateSubscriberInfo(request.getUserName(), request.getPhone(), request.getEmail());
     }
 
     /**
@@ -398,6 +449,14 @@ public class ParkingController {
         return UserService.getInstance().getAllSubscribers();
     }
     
+    /**
+     * Opens a streaming cursor over all subscribers.
+     * @return Open cursor, or null if the query failed
+     */
+    public ResultCursor<ParkingSubscriber> openAllSubscribersCursor() {
+        return UserService.getInstance().openAllSubscribersCursor();
+    }
+    
     /**
      * Initializes parking spots in the database.
      */
@@ -416,12 +475,12 @@ public class ParkingController {
     
     /**
      * Extends parking time for an active session.
-     * @param parkingCodeStr Parking code as string
+     * @param parkingCode Parking code
      * @param additionalHours Hours to extend
      * @return Success message or error description
      */
-    public String extendParkingTime(String parkingCodeStr, int additionalHours) {
-        return requestParkingExtension(parkingCodeStr, additionalHours);
+    public String extendParkingTime(int parkingCode, int additionalHours) {
+        return ReservationService.getInstance().extendParking(parkingCode, additionalHours);
     }
     
     /**
@@ -2,10 +2,25 @@ package controllers;
 
 import java.util.ArrayList;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
+import entities.ExportRequest;
+import entities.ExportResult;
+import entities.LiveActivity;
+import entities.OccupancyRangeRequest;
+import entities.OccupancySeries;
 import entities.ParkingReport;
+import entities.SessionQuery;
+import entities.SessionQueryResult;
 import server.DBController;
+import server.FileChunkSource;
+import server.ResultCursor;
+import services.ActivityCounters;
+import services.ExportService;
+import services.OccupancyRecorder;
 import services.ReportService;
+import services.SessionSketchService;
+import services.SessionStore;
 
 /**
  * ReportController handles report generation coordination.
@@ -74,4 +89,106 @@ public class ReportController {
     public ArrayList<ParkingReport> generateMonthlyReports(String monthYear) {
         return ReportService.getInstance().generateMonthlyReports(monthYear);
     }
+    
+    /**
+     * Stores the reports of recently closed months that are not cached yet.
+     * @param months How many closed months to cover
+     * @return number of months newly stored
+     */
+    public int freezeClosedMonths(int months) {
+        return ReportService.getInstance().freezeClosedMonths(months);
+    }
+    
+    /**
+     * Starts loading completed sessions into the in-memory session store
+     * and the per-day analytics sketches, and past arrivals into the live
+     * activity counters.
+     */
+    public void loadAnalytics() {
+        SessionStore.getInstance().loadInBackground();
+        SessionSketchService.getInstance().loadInBackground();
+        ActivityCounters.getInstance().seedInBackground();
+    }
+    
+    /**
+     * Gets the live activity counts for the dashboard, without a query.
+     * @return LiveActivity snapshot
+     */
+    public LiveActivity getLiveActivity() {
+        return ActivityCounters.getInstance().snapshot();
+    }
+    
+    /**
+     * Runs an ad-hoc analytics query over completed sessions.
+     * @param query Filters and grouping
+     * @return grouped aggregates
+     */
+    public SessionQueryResult querySessions(SessionQuery query) {
+        return SessionStore.getInstance().query(query);
+    }
+    
+    /**
+     * Records one occupancy sample.
+     */
+    public void sampleOccupancy() {
+        OccupancyRecorder.getInstance().sample();
+    }
+    
+    /**
+     * Writes the open occupancy buckets, e.g. before shutdown.
+     */
+    public void flushOccupancy() {
+        OccupancyRecorder.getInstance().flush();
+    }
+    
+    /**
+     * Returns the seconds between occupancy samples.
+     * @return sampling interval
+     */
+    public int getOccupancySampleSeconds() {
+        return OccupancyRecorder.getInstance().getSampleSeconds();
+    }
+    
+    /**
+     * Returns the occupancy history of a time range.
+     * @param request Range and optional resolution
+     * @return occupancy series
+     */
+    public OccupancySeries getOccupancySeries(OccupancyRangeRequest request) {
+        return OccupancyRecorder.getInstance().query(request);
+    }
+    
+    /**
+     * Opens a streaming cursor over the per-day reports of a month.
+     * @param monthYear Month and year string (e.g., "2024-01")
+     * @return Open cursor, or null if the month is invalid or the query failed
+     */
+    public ResultCursor<ParkingReport> openMonthlyReportsCursor(String monthYear) {
+        return ReportService.getInstance().openMonthlyReportsCursor(monthYear);
+    }
+    
+    /**
+     * Queues a CSV export of sessions or users.
+     * @param request Dataset and date range
+     * @return the result, completed when the export file is written
+     */
+    public CompletableFuture<ExportResult> exportData(ExportRequest request) {
+        return ExportService.getInstance().export(request);
+    }
+    
+    /**
+     * Opens a finished export for a chunked download.
+     * @param fileName Name from the export result
+     * @return Open source, or null if there is no such export
+     */
+    public FileChunkSource openExportDownload(String fileName) {
+        return ExportService.getInstance().openDownload(fileName);
+    }
+    
+    /**
+     * Deletes exports older than their retention period.
+     */
+    public void deleteExpiredExports() {
+        ExportService.getInstance().deleteExpired();
+    }
 }
\ No newline at end of file
@@ -1,16 +1,23 @@
 package controllers;
 
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.sql.Timestamp;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import common.Logger;
 import server.DBController;
+import server.ServerEvents;
+import services.ActivityCounters;
+import services.ClockService;
+import services.RollupService;
+import services.SessionStore;
 
 /**
  * Enhanced Automatic Service for:
@@ -21,10 +28,14 @@ import server.DBController;
  */
 public class SimpleAutoCancellationService {
     
+    private static final Logger LOG = Logger.get("autocancel");
+    
     private final ParkingController parkingController;
     private final ScheduledExecutorService scheduler;
     private static final int LATE_THRESHOLD_MINUTES = 15;
     private boolean isRunning = false;
+    /** Committed cancellations and finishes, each of which freed a spot */
+    private final AtomicLong spotChanges = new AtomicLong();
     
     public SimpleAutoCancellationService(ParkingController parkingController) {
         this.parkingController = parkingController;
@@ -52,14 +63,31 @@ public class SimpleAutoCancellationService {
         // Schedule to run every minute
         scheduler.scheduleAtFixedRate(() -> {
             try {
-                checkAndCancelLatePreorders();
-                checkAndNotifyLatePickups();
+                runSweep();
             } catch (Exception e) {
                 System.err.println("Error in auto-monitoring service: " + e.getMessage());
             }
         }, 0, 1, TimeUnit.MINUTES);
     }
     
+    /**
+     * Runs both checks once at the current {@link ClockService} time.
+     * Called every minute by the scheduler, and directly by simulations
+     * that drive a simulated clock.
+     * @return number of reservations cancelled and customers notified
+     */
+    public SweepResult runSweep() {
+        ServerEvents.AutoCancellationSweep sweep = new ServerEvents.AutoCancellationSweep();
+        sweep.begin();
+        try {
+            sweep.cancelled = checkAndCancelLatePreorders();
+            sweep.notified = checkAndNotifyLatePickups();
+            return new SweepResult(sweep.cancelled, sweep.notified);
+        } finally {
+            sweep.commit();
+        }
+    }
+    
     /**
      * Stop the automatic monitoring service
      */
@@ -75,8 +103,10 @@ public class SimpleAutoCancellationService {
     
     /**
      * Check for and cancel late preorder reservations
+     * @return number of reservations cancelled
      */
-    private void checkAndCancelLatePreorders() {
+    private int checkAndCancelLatePreorders() {
+        int cancelledCount = 0;
         String query = """
             SELECT 
                 pi.ParkingInfo_ID,
@@ -86,22 +116,25 @@ public class SimpleAutoCancellationService {
                 u.Email,
                 u.Name,
                 u.Phone,
-                TIMESTAMPDIFF(MINUTE, pi.Estimated_start_time, NOW()) as minutes_late,
+                TIMESTAMPDIFF(MINUTE, pi.Estimated_start_time, ?) as minutes_late,
                 pi.Estimated_start_time
             FROM parkinginfo pi
             JOIN users u ON pi.User_ID = u.User_ID
             WHERE pi.statusEnum = 'preorder'
-            AND DATE(pi.Estimated_start_time) = CURDATE()
+            AND DATE(pi.Estimated_start_time) = ?
             AND pi.ParkingSpot_ID IS NOT NULL
             AND pi.Estimated_start_time IS NOT NULL
-            AND TIMESTAMPDIFF(MINUTE, pi.Estimated_start_time, NOW()) >= ?
+            AND TIMESTAMPDIFF(MINUTE, pi.Estimated_start_time, ?) >= ?
             """;
+        Timestamp now = ClockService.getInstance().nowTimestamp();
         Connection conn = DBController.getInstance().getConnection();
         try (PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, LATE_THRESHOLD_MINUTES);
+            stmt.setTimestamp(1, now);
+            stmt.setDate(2, Date.valueOf(now.toLocalDateTime().toLocalDate()));
+            stmt.setTimestamp(3, now);
+            stmt.setInt(4, LATE_THRESHOLD_MINUTES);
             
             try (ResultSet rs = stmt.executeQuery()) {
-                int cancelledCount = 0;
                 
                 while (rs.next()) {
                     int reservationCode = rs.getInt("ParkingInfo_ID");
@@ -116,21 +149,16 @@ public class SimpleAutoCancellationService {
                         
                         // Send email notification for auto-cancellation
                         if (userEmail != null && fullName != null) {
-                            System.out.println("Auto-cancellation notification would be sent to: " + userEmail);
+                            LOG.debug("Auto-cancellation notification would be sent to: {}", userEmail);
                         }
                         
-                        System.out.println(String.format(
-                            "✅ AUTO-CANCELLED: Reservation %d for %s (Spot %d) - %d minutes late - Email sent",
-                            reservationCode, userName, spotId, minutesLate
-                        ));
+                        LOG.info("✅ AUTO-CANCELLED: Reservation {} for {} (Spot {}) - {} minutes late - Email sent",
+                            reservationCode, userName, spotId, minutesLate);
                     }
                 }
                 
                 if (cancelledCount > 0) {
-                    System.out.println(String.format(
-                        "[%s] Auto-cancellation: %d preorder reservations cancelled",
-                        getCurrentTimestamp(), cancelledCount
-                    ));
+                    LOG.info("Auto-cancellation: {} preorder reservations cancelled", cancelledCount);
                 }
             }
         } catch (SQLException e) {
@@ -138,12 +166,15 @@ public class SimpleAutoCancellationService {
         }finally {
             DBController.getInstance().releaseConnection(conn);
         }
+        return cancelledCount;
     }
     
     /**
      * NEW METHOD: Check for late pickups in active parkings and send notifications
+     * @return number of customers notified
      */
-    private void checkAndNotifyLatePickups() {
+    private int checkAndNotifyLatePickups() {
+        int notifiedCount = 0;
         String query = """
             SELECT 
                 pi.ParkingInfo_ID,
@@ -153,7 +184,7 @@ public class SimpleAutoCancellationService {
                 u.Email,
                 u.Name,
                 u.Phone,
-                TIMESTAMPDIFF(MINUTE, pi.Estimated_end_time, NOW()) as minutes_late,
+                TIMESTAMPDIFF(MINUTE, pi.Estimated_end_time, ?) as minutes_late,
                 pi.Estimated_end_time,
                 pi.IsLate
             FROM parkinginfo pi
@@ -161,16 +192,18 @@ public class SimpleAutoCancellationService {
             WHERE pi.statusEnum = 'active'
             AND pi.Actual_end_time IS NULL
             AND pi.Estimated_end_time IS NOT NULL
-            AND TIMESTAMPDIFF(MINUTE, pi.Estimated_end_time, NOW()) >= ?
+            AND TIMESTAMPDIFF(MINUTE, pi.Estimated_end_time, ?) >= ?
             AND pi.IsLate = 'no'
             """;
+        Timestamp now = ClockService.getInstance().nowTimestamp();
         Connection conn = DBController.getInstance().getConnection();
 
         try (PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, LATE_THRESHOLD_MINUTES);
+            stmt.setTimestamp(1, now);
+            stmt.setTimestamp(2, now);
+            stmt.setInt(3, LATE_THRESHOLD_MINUTES);
             
             try (ResultSet rs = stmt.executeQuery()) {
-                int notifiedCount = 0;
                 
                 while (rs.next()) {
                     int parkingInfoId = rs.getInt("ParkingInfo_ID");
@@ -183,18 +216,13 @@ public class SimpleAutoCancellationService {
                     if (markAsLateAndNotify(parkingInfoId, userEmail, fullName)) {
                         notifiedCount++;
                         
-                        System.out.println(String.format(
-                            "⏰ LATE PICKUP: Parking %d for %s (Spot %d) - %d minutes late - Email sent",
-                            parkingInfoId, userName, spotId, minutesLate
-                        ));
+                        LOG.info("⏰ LATE PICKUP: Parking {} for {} (Spot {}) - {} minutes late - Email sent",
+                            parkingInfoId, userName, spotId, minutesLate);
                     }
                 }
                 
                 if (notifiedCount > 0) {
-                    System.out.println(String.format(
-                        "[%s] Late pickup monitoring: %d customers notified",
-                        getCurrentTimestamp(), notifiedCount
-                    ));
+                    LOG.info("Late pickup monitoring: {} customers notified", notifiedCount);
                 }
             }
         } catch (SQLException e) {
@@ -202,6 +230,7 @@ public class SimpleAutoCancellationService {
         }finally {
             DBController.getInstance().releaseConnection(conn);
         }
+        return notifiedCount;
     }
     
     /**
@@ -227,7 +256,7 @@ public class SimpleAutoCancellationService {
             if (updated > 0) {
                 // Send late pickup email notification
                 if (userEmail != null && fullName != null) {
-                    System.out.println("Late pickup notification would be sent to: " + userEmail);
+                    LOG.debug("Late pickup notification would be sent to: {}", userEmail);
                 }
                 return true;
             }
@@ -260,15 +289,17 @@ public class SimpleAutoCancellationService {
                 """;
             
             int updatedReservations = 0;
+            RollupService.Snapshot before = RollupService.getInstance().snapshot(conn, reservationCode);
             try (PreparedStatement stmt = conn.prepareStatement(cancelQuery)) {
                 stmt.setInt(1, reservationCode);
                 updatedReservations = stmt.executeUpdate();
             }
             
             if (updatedReservations == 0) {
-                conn.rollback();
+                DBController.getInstance().rollback(conn);
                 return false; // Reservation was already cancelled or doesn't exist
             }
+            RollupService.getInstance().apply(conn, before, reservationCode);
             
             // 2. Free up the parking spot
             String freeSpotQuery = """
@@ -282,12 +313,14 @@ public class SimpleAutoCancellationService {
                 stmt.executeUpdate();
             }
             
-            conn.commit();
+            DBController.getInstance().commit(conn);
+            spotChanges.incrementAndGet();
+            ActivityCounters.getInstance().record(ActivityCounters.Event.CANCELLATION);
             return true;
             
         } catch (SQLException e) {
             try {
-                conn.rollback();
+                DBController.getInstance().rollback(conn);
             } catch (SQLException rollbackEx) {
                 System.err.println("Failed to rollback transaction: " + rollbackEx.getMessage());
             }
@@ -311,17 +344,21 @@ public class SimpleAutoCancellationService {
     public boolean activateReservation(int reservationCode) {
         String query = """
             UPDATE parkinginfo 
-            SET statusEnum = 'active', Actual_start_time = NOW()
+            SET statusEnum = 'active', Actual_start_time = ?
             WHERE ParkingInfo_ID = ? AND statusEnum = 'preorder'
             """;
         Connection conn = DBController.getInstance().getConnection();
 
         try (PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setInt(1, reservationCode);
+            RollupService.Snapshot before = RollupService.getInstance().snapshot(conn, reservationCode);
+            stmt.setTimestamp(1, ClockService.getInstance().nowTimestamp());
+            stmt.setInt(2, reservationCode);
             int updated = stmt.executeUpdate();
             
             if (updated > 0) {
-                System.out.println("Reservation " + reservationCode + " activated (preorder → active)");
+                RollupService.getInstance().apply(conn, before, reservationCode);
+                ActivityCounters.getInstance().record(ActivityCounters.Event.ARRIVAL);
+                LOG.info("Reservation {} activated (preorder → active)", reservationCode);
                 return true;
             }
             return false;
@@ -347,20 +384,23 @@ public class SimpleAutoCancellationService {
             // 1. Update reservation status to finished and set actual end time
             String finishQuery = """
                 UPDATE parkinginfo 
-                SET statusEnum = 'finished', Actual_end_time = NOW()
+                SET statusEnum = 'finished', Actual_end_time = ?
                 WHERE ParkingInfo_ID = ? AND statusEnum = 'active'
                 """;
             
             int updated = 0;
+            RollupService.Snapshot before = RollupService.getInstance().snapshot(conn, reservationCode);
             try (PreparedStatement stmt = conn.prepareStatement(finishQuery)) {
-                stmt.setInt(1, reservationCode);
+                stmt.setTimestamp(1, ClockService.getInstance().nowTimestamp());
+                stmt.setInt(2, reservationCode);
                 updated = stmt.executeUpdate();
             }
             
             if (updated == 0) {
-                conn.rollback();
+                DBController.getInstance().rollback(conn);
                 return false;
             }
+            RollupService.getInstance().apply(conn, before, reservationCode);
             
             // 2. Free up the parking spot
             String freeSpotQuery = """
@@ -374,13 +414,16 @@ public class SimpleAutoCancellationService {
                 stmt.executeUpdate();
             }
             
-            conn.commit();
-            System.out.println("Reservation " + reservationCode + " finished and spot " + spotId + " freed");
+            DBController.getInstance().commit(conn);
+            spotChanges.incrementAndGet();
+            SessionStore.getInstance().recordCompleted(conn, reservationCode);
+            ActivityCounters.getInstance().record(ActivityCounters.Event.EXIT);
+            LOG.info("Reservation {} finished and spot {} freed", reservationCode, spotId);
             return true;
             
         } catch (SQLException e) {
             try {
-                conn.rollback();
+                DBController.getInstance().rollback(conn);
             } catch (SQLException rollbackEx) {
                 System.err.println("Failed to rollback: " + rollbackEx.getMessage());
             }
@@ -399,10 +442,12 @@ public class SimpleAutoCancellationService {
     }
     
     /**
-     * Get current timestamp for logging
+     * Returns how many times the service freed a spot, so callers that cache
+     * availability can tell when it changed outside a client request.
+     * @return count of committed cancellations and finishes
      */
-    private String getCurrentTimestamp() {
-        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    public long getSpotChanges() {
+        return spotChanges.get();
     }
     
     /**
@@ -412,6 +457,27 @@ public class SimpleAutoCancellationService {
         return isRunning;
     }
     
+    /**
+     * Outcome of one sweep
+     */
+    public static class SweepResult {
+        private final int cancelled;
+        private final int notified;
+        
+        public SweepResult(int cancelled, int notified) {
+            this.cancelled = cancelled;
+            this.notified = notified;
+        }
+        
+        public int getCancelled() {
+            return cancelled;
+        }
+        
+        public int getNotified() {
+            return notified;
+        }
+    }
+    
     /**
      * Shutdown the service
      */
@@ -1,12 +1,16 @@
 package controllers;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 
 import entities.ParkingOrder;
 import entities.ParkingSubscriber;
+import entities.ProfileUpdateRequest;
 import server.DBController;
+import services.ClockService;
+import services.DemandForecastService;
 import services.UserService;
 import services.ParkingSpotService;
 import services.ReservationService;
@@ -52,20 +56,11 @@ public class SmartParkingController {
 
     /**
      * Updates subscriber information.
-     * @param updateData Comma-separated data: userName,phone,email
+     * @param request Username and new contact details
      * @return Success message or error description
      */
-    public String updateSubscriberInfo(String updateData) {
-        String[] data = updateData.split(",");
-        if (data.length != 3) {
-            return "Invalid update data format";
-        }
-        
-        String userName = data[0];
-        String phone = data[1];
-        String email = data[2];
-        
-        return UserService.getInstance().updateSubscriberInfo(userName, phone, email);
+    public String updateSubscriberInfo(ProfileUpdateRequest request) {
+        return UserService.getInstance().updateSubscriberInfo(request.getUserName(), request.getPhone(), request.getEmail());
     }
 
     /**
@@ -100,7 +95,8 @@ public class SmartParkingController {
             return "Invalid duration. Must be between 1-12 hours.";
         }
 
-        if (!canMakeReservation()) {
+        LocalTime endTime = preferredStartTime.plusHours(durationHours);
+        if (!canMakeReservation(preferredDate, preferredStartTime, endTime)) {
             return "Reservations not available - insufficient parking spots";
         }
 
@@ -108,8 +104,6 @@ public class SmartParkingController {
         if (subscriber == null) {
             return "User not found";
         }
-
-        LocalTime endTime = preferredStartTime.plusHours(durationHours);
         
         int reservationCode = ReservationService.getInstance().createReservation(
             subscriber.getSubscriberID(), preferredDate, preferredStartTime, endTime);
@@ -230,6 +224,29 @@ public class SmartParkingController {
         return availableSpots >= (TOTAL_PARKING_SPOTS * AVAILABILITY_THRESHOLD);
     }
 
+    /**
+     * Checks if a reservation for a time range is possible, using the spots
+     * predicted to be free in its busiest 15-minute slot. Falls back to live
+     * availability while there is no demand forecast.
+     * @param date Reservation date
+     * @param startTime Reservation start time
+     * @param endTime Reservation end time; at or before the start time means
+     *                the reservation ends the next day
+     * @return true if reservations can be made, false otherwise
+     */
+    public boolean canMakeReservation(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        LocalDateTime start = date.atTime(startTime);
+        LocalDateTime end = date.atTime(endTime);
+        if (!end.isAfter(start)) {
+            end = end.plusDays(1);
+        }
+        double predictedFree = DemandForecastService.getInstance().minPredictedFreeSpots(start, end);
+        if (predictedFree < 0) {
+            return canMakeReservation();
+        }
+        return predictedFree >= (TOTAL_PARKING_SPOTS * AVAILABILITY_THRESHOLD);
+    }
+
     /**
      * Initializes parking spots in the database.
      */
@@ -288,7 +305,7 @@ public class SmartParkingController {
      */
     public boolean validateSmartParkingParams(String userName, LocalDate date, LocalTime time, int duration) {
         return ValidationService.getInstance().isValidUserName(userName) &&
-               date != null && !date.isBefore(LocalDate.now()) &&
+               date != null && !date.isBefore(ClockService.getInstance().today()) &&
                time != null &&
                ValidationService.getInstance().isValidDuration(duration);
     }
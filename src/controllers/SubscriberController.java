@@ -3,6 +3,7 @@ package controllers;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.geometry.Orientation;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
@@ -26,7 +27,11 @@ import java.util.ResourceBundle;
 import client.BParkClientApp;
 import entities.Message;
 import entities.Message.MessageType;
+import entities.ParkingHistoryPage;
+import entities.ParkingHistoryPageRequest;
 import entities.ParkingOrder;
+import entities.ReservationCodeRequest;
+import entities.ReservationRequest;
 
 public class SubscriberController implements Initializable {
     
@@ -82,6 +87,11 @@ public class SubscriberController implements Initializable {
     
     private ObservableList<ParkingOrder> parkingHistory = FXCollections.observableArrayList();
     
+    // Keyset-paginated history: the last page received and whether the next one is in flight
+    private static final double HISTORY_PREFETCH_THRESHOLD = 0.9;
+    private ParkingHistoryPage lastHistoryPage;
+    private boolean historyPageLoading = false;
+    
     @Override
     public void initialize(URL location, ResourceBundle resources) {
     	 setupUI();
@@ -117,8 +127,43 @@ public class SubscriberController implements Initializable {
         
         // Setup parking history table
         if (tableParkingHistory != null) {
+            BParkClientApp.setSubscriberController(this);
             tableParkingHistory.setItems(parkingHistory);
             // Setup column cell value factories here
+            
+            // Scroll bars only exist once the table skin is created
+            tableParkingHistory.skinProperty().addListener((obs, oldSkin, newSkin) ->
+                Platform.runLater(this::attachHistoryScrollListener));
+        }
+    }
+    
+    /**
+     * Fetches the next history page when the table is scrolled near its end.
+     */
+    private void attachHistoryScrollListener() {
+        for (Node node : tableParkingHistory.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar scrollBar = (ScrollBar) node;
+                scrollBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * HISTORY_PREFETCH_THRESHOLD) {
+                        requestNextHistoryPage();
+                    }
+                });
+            }
+        }
+    }
+    
+    /**
+     * Requests the page after the last one received, if there is one.
+     */
+    private void requestNextHistoryPage() {
+        if (historyPageLoading || lastHistoryPage == null) {
+            return;
+        }
+        ParkingHistoryPageRequest nextPage = lastHistoryPage.nextPageRequest(ParkingHistoryPage.DEFAULT_PAGE_SIZE);
+        if (nextPage != null) {
+            historyPageLoading = true;
+            BParkClientApp.sendMessage(new Message(MessageType.GET_PARKING_HISTORY_PAGE, nextPage));
         }
     }
     
@@ -190,11 +235,10 @@ public class SubscriberController implements Initializable {
             return;
         }
         
-        // Format: "YYYY-MM-DD HH:MM"
-        String dateTimeStr = selectedDate.toString() + " " + selectedTime;
-        String reservationData = BParkClientApp.getCurrentUser() + "," + dateTimeStr;
+        ReservationRequest request = new ReservationRequest(BParkClientApp.getCurrentUser(),
+                selectedDate, LocalTime.parse(selectedTime));
         
-        Message msg = new Message(MessageType.RESERVE_PARKING, reservationData);
+        Message msg = new Message(MessageType.RESERVE_PARKING, request);
         BParkClientApp.sendMessage(msg);
     }
     
@@ -207,9 +251,14 @@ public class SubscriberController implements Initializable {
         
         dialog.showAndWait().ifPresent(code -> {
             if (!code.trim().isEmpty()) {
-                String activationData = BParkClientApp.getCurrentUser() + "," + code;
-                Message msg = new Message(MessageType.ACTIVATE_RESERVATION, activationData);
-                BParkClientApp.sendMessage(msg);
+                try {
+                    ReservationCodeRequest request = new ReservationCodeRequest(
+                            BParkClientApp.getCurrentUser(), Integer.parseInt(code.trim()));
+                    Message msg = new Message(MessageType.ACTIVATE_RESERVATION, request);
+                    BParkClientApp.sendMessage(msg);
+                } catch (NumberFormatException e) {
+                    showAlert("Error", "Reservation code must be numeric");
+                }
             }
         });
     }
@@ -246,17 +295,26 @@ public class SubscriberController implements Initializable {
 
             // Step 3: If user confirms, proceed with cancellation
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                String cancellationData = BParkClientApp.getCurrentUser() + "," + code;
-                Message msg = new Message(MessageType.CANCEL_RESERVATION, cancellationData);
-                BParkClientApp.sendMessage(msg);
-                txtCancelCode.clear();
+                try {
+                    ReservationCodeRequest request = new ReservationCodeRequest(
+                            BParkClientApp.getCurrentUser(), Integer.parseInt(code.trim()));
+                    Message msg = new Message(MessageType.CANCEL_RESERVATION, request);
+                    BParkClientApp.sendMessage(msg);
+                    txtCancelCode.clear();
+                } catch (NumberFormatException e) {
+                    showAlert("Error", "Reservation code must be numeric");
+                }
             }
         }
     }
     
     @FXML
     private void handleViewHistory() {
-        Message msg = new Message(MessageType.GET_PARKING_HISTORY, BParkClientApp.getCurrentUser());
+        lastHistoryPage = null;
+        historyPageLoading = true;
+        ParkingHistoryPageRequest firstPage = new ParkingHistoryPageRequest(
+            BParkClientApp.getCurrentUser(), ParkingHistoryPage.DEFAULT_PAGE_SIZE);
+        Message msg = new Message(MessageType.GET_PARKING_HISTORY_PAGE, firstPage);
         BParkClientApp.sendMessage(msg);
     }
     
@@ -370,6 +428,19 @@ public class SubscriberController implements Initializable {
         this.parkingHistory.addAll(history);
     }
     
+    /**
+     * Appends a page of history to the table (the first page replaces its content).
+     * @param page Page received from the server
+     */
+    public void appendParkingHistoryPage(ParkingHistoryPage page) {
+        if (page.isFirstPage()) {
+            this.parkingHistory.clear();
+        }
+        this.parkingHistory.addAll(page.getOrders());
+        lastHistoryPage = page;
+        historyPageLoading = false;
+    }
+    
     // ===== Utility Methods =====
     
     private void showAlert(String title, String content) {
@@ -5,6 +5,7 @@ package controllers;
 import client.BParkClientApp;
 import entities.Message;
 import entities.Message.MessageType;
+import entities.ProfileUpdateRequest;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
@@ -52,11 +53,8 @@ public static UpdateProfileController instance;
             return;
         }
 
-        // Format: userId,phone,email,carNumber
-        String data = userId + "," + phone + "," + email + "," + carNumber;
-
         // ✅ Send the update
-        Message msg = new Message(MessageType.UPDATE_SUBSCRIBER_INFO, data);
+        Message msg = new Message(MessageType.UPDATE_SUBSCRIBER_INFO, new ProfileUpdateRequest(userId, phone, email));
         BParkClientApp.sendMessage(msg);
 
         statusLabel.setText("Profile update sent.");
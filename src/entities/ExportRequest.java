@@ -0,0 +1,61 @@
+package entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Request for a CSV export of sessions or users over a date range.
+ * Sessions are selected by entry date; users are all listed, with the
+ * number of sessions they started in the range.
+ */
+public class ExportRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Data to export.
+     */
+    public enum Dataset {
+        /** Rows of parkinginfo */
+        SESSIONS,
+        /** Rows of users */
+        USERS
+    }
+
+    private Dataset dataset;
+    private LocalDate from; // inclusive
+    private LocalDate to; // exclusive
+
+    // Constructors
+    public ExportRequest() {}
+
+    public ExportRequest(Dataset dataset, LocalDate from, LocalDate to) {
+        this.dataset = dataset;
+        this.from = from;
+        this.to = to;
+    }
+
+    // Getters and Setters
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public void setDataset(Dataset dataset) {
+        this.dataset = dataset;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+}
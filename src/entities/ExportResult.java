@@ -0,0 +1,64 @@
+package entities;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of an export. A finished export is kept on the server under
+ * {@code fileName} and downloaded with a DOWNLOAD_EXPORT stream; a failed
+ * one carries an error instead.
+ */
+public class ExportResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String fileName;
+    private long rows;
+    private long bytes;
+    private long elapsedMillis;
+    private String error;
+
+    // Constructors
+    public ExportResult() {}
+
+    public ExportResult(String fileName, long rows, long bytes, long elapsedMillis) {
+        this.fileName = fileName;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Creates the result of an export that failed.
+     * @param error Error description
+     * @return Failed result
+     */
+    public static ExportResult failed(String error) {
+        ExportResult result = new ExportResult();
+        result.error = error;
+        return result;
+    }
+
+    // Getters
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
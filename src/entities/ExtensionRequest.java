@@ -0,0 +1,45 @@
+package entities;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Request to extend an active parking session, sent with REQUEST_EXTENSION.
+ */
+public class ExtensionRequest implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private int parkingCode;
+    private int additionalHours;
+
+    // Constructors
+    public ExtensionRequest() {}
+
+    public ExtensionRequest(int parkingCode, int additionalHours) {
+        this.parkingCode = parkingCode;
+        this.additionalHours = additionalHours;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(parkingCode);
+        out.writeInt(additionalHours);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        parkingCode = in.readInt();
+        additionalHours = in.readInt();
+    }
+
+    // Getters
+    public int getParkingCode() {
+        return parkingCode;
+    }
+
+    public int getAdditionalHours() {
+        return additionalHours;
+    }
+}
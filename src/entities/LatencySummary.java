@@ -0,0 +1,86 @@
+package entities;
+
+import java.io.Serializable;
+
+/**
+ * Percentile summary of one latency histogram, sent inside {@link SystemStatus}.
+ * All values are in microseconds.
+ */
+public class LatencySummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+    private long count;
+    private long p50Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+
+    // Constructors
+    public LatencySummary() {
+    }
+
+    public LatencySummary(String name, long count, long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+        this.name = name;
+        this.count = count;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public void setP50Micros(long p50Micros) {
+        this.p50Micros = p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public void setP99Micros(long p99Micros) {
+        this.p99Micros = p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public void setP999Micros(long p999Micros) {
+        this.p999Micros = p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public void setMaxMicros(long maxMicros) {
+        this.maxMicros = maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                name, count, p50Micros / 1000.0, p99Micros / 1000.0, p999Micros / 1000.0, maxMicros / 1000.0);
+    }
+}
@@ -0,0 +1,89 @@
+package entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+
+/**
+ * Live lot activity for the manager dashboard, read from in-memory counters.
+ * Holds, per event (arrivals, exits, reservations, cancellations,
+ * extensions), the count over the last minute, hour, day and 30 days, plus
+ * the arrivals of each of the last 60 minutes and per hour of day.
+ */
+public class LiveActivity implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Counts of one event over the sliding windows.
+     */
+    public static class Counts implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long lastMinute;
+        private final long lastHour;
+        private final long lastDay;
+        private final long last30Days;
+
+        public Counts(long lastMinute, long lastHour, long lastDay, long last30Days) {
+            this.lastMinute = lastMinute;
+            this.lastHour = lastHour;
+            this.lastDay = lastDay;
+            this.last30Days = last30Days;
+        }
+
+        public long getLastMinute() {
+            return lastMinute;
+        }
+
+        public long getLastHour() {
+            return lastHour;
+        }
+
+        public long getLastDay() {
+            return lastDay;
+        }
+
+        public long getLast30Days() {
+            return last30Days;
+        }
+    }
+
+    private LocalDateTime time;
+    private LinkedHashMap<String, Counts> counts; // by event name, e.g. "ARRIVAL"
+    private long[] arrivalsPerMinute; // last 60 minutes, oldest first
+    private long[] arrivalsByHourOfDay; // last 30 days, index = hour
+
+    // Constructors
+    public LiveActivity() {
+        this.counts = new LinkedHashMap<>();
+    }
+
+    public LiveActivity(LocalDateTime time, LinkedHashMap<String, Counts> counts,
+                        long[] arrivalsPerMinute, long[] arrivalsByHourOfDay) {
+        this.time = time;
+        this.counts = counts;
+        this.arrivalsPerMinute = arrivalsPerMinute;
+        this.arrivalsByHourOfDay = arrivalsByHourOfDay;
+    }
+
+    // Getters
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public LinkedHashMap<String, Counts> getCounts() {
+        return counts;
+    }
+
+    public Counts getCounts(String event) {
+        return counts.get(event);
+    }
+
+    public long[] getArrivalsPerMinute() {
+        return arrivalsPerMinute;
+    }
+
+    public long[] getArrivalsByHourOfDay() {
+        return arrivalsByHourOfDay;
+    }
+}
@@ -0,0 +1,45 @@
+package entities;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Login credentials, sent with SUBSCRIBER_LOGIN and KIOSK_ID_LOGIN.
+ */
+public class LoginRequest implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private String userName;
+    private int userID;
+
+    // Constructors
+    public LoginRequest() {}
+
+    public LoginRequest(String userName, int userID) {
+        this.userName = userName;
+        this.userID = userID;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeString(out, userName);
+        out.writeInt(userID);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        userName = WireFormat.readString(in);
+        userID = in.readInt();
+    }
+
+    // Getters
+    public String getUserName() {
+        return userName;
+    }
+
+    public int getUserID() {
+        return userID;
+    }
+}
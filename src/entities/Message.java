@@ -1,15 +1,22 @@
 package entities;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.io.Serializable;
 
 /**
  * This class represents a message between the server and the client for the
  * ParkB system. It contains the type of the message and its content.
+ * The type is encoded by ordinal, so client and server must be built from the
+ * same MessageType enum, and new types are only ever appended at its end.
  * 
  * @author ParkB Team
  * @version 1.0
  */
-public class Message implements Serializable {
+public class Message implements Externalizable {
 	private static final long serialVersionUID = 1L;
 
 	// Class variables *************************************************
@@ -72,6 +79,10 @@ public class Message implements Serializable {
 		GET_PARKING_HISTORY,
 		/** Parking history response */
 		PARKING_HISTORY_RESPONSE,
+		/** Get one keyset-paginated page of parking history */
+		GET_PARKING_HISTORY_PAGE,
+		/** Parking history page response */
+		PARKING_HISTORY_PAGE_RESPONSE,
 
 		// Manager operations
 		/** Manager login request */
@@ -163,11 +174,58 @@ public class Message implements Serializable {
 		/** Request subscriber data (for profile update) */
 		REQUEST_SUBSCRIBER_DATA,
 		/** Subscriber data response */
-		SUBSCRIBER_DATA_RESPONSE
+		SUBSCRIBER_DATA_RESPONSE,
+
+		// Chunked streaming of large results
+		/** Open a chunked stream for a large request (content: StreamRequest) */
+		OPEN_STREAM,
+		/** One chunk of an open stream (content: StreamChunk) */
+		STREAM_CHUNK,
+		/** Grant more chunks to, or cancel, an open stream (content: StreamCredit) */
+		STREAM_CREDIT,
+
+		// Connection setup
+		/** Offer payload compression for this connection (content: codec version) */
+		NEGOTIATE_COMPRESSION,
+		/** Whether the server accepted compression (content: Boolean) */
+		COMPRESSION_RESPONSE,
+		/** Request rejected because its lane is saturated (content: rejected MessageType) */
+		SERVER_BUSY,
+
+		// Manager analytics
+		/** Ad-hoc query over completed sessions (content: SessionQuery) */
+		QUERY_SESSIONS,
+		/** Session query result (content: SessionQueryResult) */
+		SESSION_QUERY_RESPONSE,
+		/** Occupancy history of a time range (content: OccupancyRangeRequest) */
+		GET_OCCUPANCY_SERIES,
+		/** Occupancy history response (content: OccupancySeries) */
+		OCCUPANCY_SERIES_RESPONSE,
+		/** Live activity counts for the dashboard (no content) */
+		GET_LIVE_ACTIVITY,
+		/** Live activity response (content: LiveActivity) */
+		LIVE_ACTIVITY_RESPONSE,
+		/** CSV export of sessions or users (content: ExportRequest) */
+		EXPORT_DATA,
+		/** Export finished or failed, sent when the file is written (content: ExportResult) */
+		EXPORT_RESPONSE,
+		/** Download of a finished export, only as a stream (argument: file name) */
+		DOWNLOAD_EXPORT,
+		/** Stream response type of a download; each item is a block of the file (byte[]) */
+		EXPORT_FILE_RESPONSE
 	}
 
+	/** Types by ordinal, for decoding */
+	private static final MessageType[] TYPES = MessageType.values();
+
 	// Constructors ******************************************************
 
+	/**
+	 * Constructs an empty Message, used when decoding from the wire.
+	 */
+	public Message() {
+	}
+
 	/**
 	 * Constructs a new Message with the specified type and content.
 	 * 
@@ -181,6 +239,35 @@ public class Message implements Serializable {
 
 	// Methods ***********************************************************
 
+	/**
+	 * Writes the type ordinal followed by the content.
+	 * 
+	 * @param out the stream to write to
+	 * @throws IOException if writing fails
+	 */
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeShort(type == null ? -1 : type.ordinal());
+		out.writeObject(content);
+	}
+
+	/**
+	 * Reads a message written by {@link #writeExternal(ObjectOutput)}.
+	 * 
+	 * @param in the stream to read from
+	 * @throws IOException            if reading fails
+	 * @throws ClassNotFoundException if the content class is unknown
+	 */
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		short ordinal = in.readShort();
+		if (ordinal < -1 || ordinal >= TYPES.length) {
+			throw new InvalidObjectException("Unknown message type " + ordinal);
+		}
+		type = ordinal < 0 ? null : TYPES[ordinal];
+		content = (Serializable) in.readObject();
+	}
+
 	/**
 	 * Returns the type of the message.
 	 * 
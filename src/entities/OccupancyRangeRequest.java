@@ -0,0 +1,56 @@
+package entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Request for the occupancy history of a time range.
+ * Without a resolution the server picks the finest one that keeps the
+ * series to a chartable number of points.
+ */
+public class OccupancyRangeRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private LocalDateTime from; // inclusive
+    private LocalDateTime to; // exclusive
+    private OccupancySeries.Resolution resolution; // null to let the server choose
+
+    // Constructors
+    public OccupancyRangeRequest() {}
+
+    public OccupancyRangeRequest(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public OccupancyRangeRequest(LocalDateTime from, LocalDateTime to, OccupancySeries.Resolution resolution) {
+        this.from = from;
+        this.to = to;
+        this.resolution = resolution;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public OccupancySeries.Resolution getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(OccupancySeries.Resolution resolution) {
+        this.resolution = resolution;
+    }
+}
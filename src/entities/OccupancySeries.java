@@ -0,0 +1,107 @@
+package entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+/**
+ * Occupancy history of a time range at one resolution, oldest point first.
+ * Each point summarizes the samples taken in its bucket: occupied spots,
+ * reservations held and sessions past their estimated end.
+ */
+public class OccupancySeries implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Bucket width of a series.
+     */
+    public enum Resolution {
+        /** Every sample, from the last few hours only */
+        RAW,
+        MINUTE,
+        HOUR,
+        DAY
+    }
+
+    /**
+     * One bucket of the series.
+     */
+    public static class Point implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final LocalDateTime time;
+        private final int samples;
+        private final double avgOccupied;
+        private final int maxOccupied;
+        private final double avgReservations;
+        private final int maxReservations;
+        private final double avgLate;
+        private final int maxLate;
+
+        public Point(LocalDateTime time, int samples, double avgOccupied, int maxOccupied,
+                     double avgReservations, int maxReservations, double avgLate, int maxLate) {
+            this.time = time;
+            this.samples = samples;
+            this.avgOccupied = avgOccupied;
+            this.maxOccupied = maxOccupied;
+            this.avgReservations = avgReservations;
+            this.maxReservations = maxReservations;
+            this.avgLate = avgLate;
+            this.maxLate = maxLate;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+
+        public double getAvgOccupied() {
+            return avgOccupied;
+        }
+
+        public int getMaxOccupied() {
+            return maxOccupied;
+        }
+
+        public double getAvgReservations() {
+            return avgReservations;
+        }
+
+        public int getMaxReservations() {
+            return maxReservations;
+        }
+
+        public double getAvgLate() {
+            return avgLate;
+        }
+
+        public int getMaxLate() {
+            return maxLate;
+        }
+    }
+
+    private Resolution resolution;
+    private ArrayList<Point> points;
+
+    // Constructors
+    public OccupancySeries() {
+        this.points = new ArrayList<>();
+    }
+
+    public OccupancySeries(Resolution resolution, ArrayList<Point> points) {
+        this.resolution = resolution;
+        this.points = points;
+    }
+
+    // Getters and Setters
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    public ArrayList<Point> getPoints() {
+        return points;
+    }
+}
@@ -0,0 +1,78 @@
+package entities;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * One page of a subscriber's parking history, newest first.
+ * Carries the keyset cursor the client sends back to fetch the next page.
+ */
+public class ParkingHistoryPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Page size used by clients when they do not ask for a specific one */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private String userName;
+    private ArrayList<ParkingOrder> orders;
+    private boolean hasMore;
+    private boolean firstPage;
+
+    // Constructors
+    public ParkingHistoryPage() {
+        this.orders = new ArrayList<>();
+    }
+
+    public ParkingHistoryPage(String userName, ArrayList<ParkingOrder> orders, boolean hasMore, boolean firstPage) {
+        this.userName = userName;
+        this.orders = orders;
+        this.hasMore = hasMore;
+        this.firstPage = firstPage;
+    }
+
+    // Getters and Setters
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public ArrayList<ParkingOrder> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(ArrayList<ParkingOrder> orders) {
+        this.orders = orders;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isFirstPage() {
+        return firstPage;
+    }
+
+    public void setFirstPage(boolean firstPage) {
+        this.firstPage = firstPage;
+    }
+
+    /**
+     * Builds the request for the page following this one.
+     * @param pageSize Maximum number of orders to return
+     * @return Next page request, or null if this is the last page
+     */
+    public ParkingHistoryPageRequest nextPageRequest(int pageSize) {
+        if (!hasMore || orders.isEmpty()) {
+            return null;
+        }
+        ParkingOrder last = orders.get(orders.size() - 1);
+        return new ParkingHistoryPageRequest(userName, last.getEntryTime(), last.getOrderID(), pageSize);
+    }
+}
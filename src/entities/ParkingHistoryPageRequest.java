@@ -0,0 +1,91 @@
+package entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Request for one page of a subscriber's parking history.
+ * Pages are addressed by a keyset cursor (entry time and order ID of the last
+ * row already shown) instead of an offset, so every page costs the same
+ * regardless of how deep into the history the client has scrolled.
+ * Orders without an entry time sort after all others, so a null cursor entry
+ * time is a valid position and the first page is marked by its own flag.
+ */
+public class ParkingHistoryPageRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String userName;
+    private boolean firstPage;
+    private LocalDateTime afterEntryTime; // null when the last order had no entry time
+    private int afterOrderID;
+    private int pageSize;
+
+    // Constructors
+    public ParkingHistoryPageRequest() {}
+
+    /**
+     * Creates a request for the first (most recent) page of history.
+     * @param userName Username to get history for
+     * @param pageSize Maximum number of orders to return
+     */
+    public ParkingHistoryPageRequest(String userName, int pageSize) {
+        this.userName = userName;
+        this.firstPage = true;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a request for the page that follows the given cursor.
+     * @param userName Username to get history for
+     * @param afterEntryTime Entry time of the last order already received, may be null
+     * @param afterOrderID Order ID of the last order already received
+     * @param pageSize Maximum number of orders to return
+     */
+    public ParkingHistoryPageRequest(String userName, LocalDateTime afterEntryTime, int afterOrderID, int pageSize) {
+        this.userName = userName;
+        this.afterEntryTime = afterEntryTime;
+        this.afterOrderID = afterOrderID;
+        this.pageSize = pageSize;
+    }
+
+    // Getters and Setters
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public LocalDateTime getAfterEntryTime() {
+        return afterEntryTime;
+    }
+
+    public void setAfterEntryTime(LocalDateTime afterEntryTime) {
+        this.afterEntryTime = afterEntryTime;
+    }
+
+    public int getAfterOrderID() {
+        return afterOrderID;
+    }
+
+    public void setAfterOrderID(int afterOrderID) {
+        this.afterOrderID = afterOrderID;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public boolean isFirstPage() {
+        return firstPage;
+    }
+
+    public void setFirstPage(boolean firstPage) {
+        this.firstPage = firstPage;
+    }
+}
@@ -1,6 +1,9 @@
 package entities;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
@@ -9,7 +12,7 @@ import java.time.temporal.ChronoUnit;
  * Represents a parking order/session in the ParkB system.
  * Contains information about entry, exit, and parking details.
  */
-public class ParkingOrder implements Serializable {
+public class ParkingOrder implements Externalizable {
     private static final long serialVersionUID = 1L;
     
     
@@ -42,6 +45,36 @@ public class ParkingOrder implements Serializable {
     }
     
     // Getters and Setters
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(orderID);
+        WireFormat.writeString(out, parkingCode);
+        WireFormat.writeString(out, subscriberName);
+        WireFormat.writeString(out, orderType);
+        WireFormat.writeDateTime(out, entryTime);
+        WireFormat.writeDateTime(out, exitTime);
+        WireFormat.writeDateTime(out, expectedExitTime);
+        out.writeBoolean(isLate);
+        out.writeBoolean(isExtended);
+        WireFormat.writeString(out, status);
+        WireFormat.writeString(out, spotNumber);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        orderID = in.readInt();
+        parkingCode = WireFormat.readString(in);
+        subscriberName = WireFormat.readString(in);
+        orderType = WireFormat.readString(in);
+        entryTime = WireFormat.readDateTime(in);
+        exitTime = WireFormat.readDateTime(in);
+        expectedExitTime = WireFormat.readDateTime(in);
+        isLate = in.readBoolean();
+        isExtended = in.readBoolean();
+        status = WireFormat.readString(in);
+        spotNumber = WireFormat.readString(in);
+    }
+
     public int getOrderID() {
         return orderID;
     }
@@ -15,6 +15,7 @@ public class ParkingReport implements Serializable {
 
 	private String reportType; // "PARKING_TIME", "SUBSCRIBER_STATUS"
 	private LocalDate reportDate;
+	private boolean incomplete; // some of its data did not arrive in time
 
 	// Parking Time Report fields
 	private int totalParkings;
@@ -23,6 +24,8 @@ public class ParkingReport implements Serializable {
 	private int extensions;
 	private int minParkingTime;
 	private int maxParkingTime;
+	private int medianParkingTime; // in minutes, approximate
+	private int p90ParkingTime; // in minutes, approximate
 	private int imidiateParkings;
 	// Subscriber Status Report fields
 	private int activeSubscribers;
@@ -77,6 +80,14 @@ public class ParkingReport implements Serializable {
 		this.reportDate = reportDate;
 	}
 
+	public boolean isIncomplete() {
+		return incomplete;
+	}
+
+	public void setIncomplete(boolean incomplete) {
+		this.incomplete = incomplete;
+	}
+
 	public int getTotalParkings() {
 		return totalParkings;
 	}
@@ -125,6 +136,22 @@ public class ParkingReport implements Serializable {
 		this.maxParkingTime = maxParkingTime;
 	}
 
+	public int getMedianParkingTime() {
+		return medianParkingTime;
+	}
+
+	public void setMedianParkingTime(int medianParkingTime) {
+		this.medianParkingTime = medianParkingTime;
+	}
+
+	public int getP90ParkingTime() {
+		return p90ParkingTime;
+	}
+
+	public void setP90ParkingTime(int p90ParkingTime) {
+		this.p90ParkingTime = p90ParkingTime;
+	}
+
 	public int getActiveSubscribers() {
 		return activeSubscribers;
 	}
@@ -1,13 +1,16 @@
 package entities;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 
 /**
  * Represents a parking subscriber in the ParkB system.
  * Contains subscriber information and parking history.
  */
-public class ParkingSubscriber implements Serializable {
+public class ParkingSubscriber implements Externalizable {
     private static final long serialVersionUID = 1L;
     
     private int subscriberID;
@@ -37,6 +40,40 @@ public class ParkingSubscriber implements Serializable {
     }
     
     // Getters and Setters
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(subscriberID);
+        WireFormat.writeString(out, subscriberCode);
+        WireFormat.writeString(out, firstName);
+        WireFormat.writeString(out, phoneNumber);
+        WireFormat.writeString(out, email);
+        WireFormat.writeString(out, carNumber);
+        WireFormat.writeString(out, userType);
+        int historySize = parkingHistory == null ? 0 : parkingHistory.size();
+        out.writeInt(historySize);
+        for (int i = 0; i < historySize; i++) {
+            parkingHistory.get(i).writeExternal(out);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        subscriberID = in.readInt();
+        subscriberCode = WireFormat.readString(in);
+        firstName = WireFormat.readString(in);
+        phoneNumber = WireFormat.readString(in);
+        email = WireFormat.readString(in);
+        carNumber = WireFormat.readString(in);
+        userType = WireFormat.readString(in);
+        int historySize = in.readInt();
+        parkingHistory = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            ParkingOrder order = new ParkingOrder();
+            order.readExternal(in);
+            parkingHistory.add(order);
+        }
+    }
+
     public int getSubscriberID() {
         return subscriberID;
     }
@@ -0,0 +1,53 @@
+package entities;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Contact details a subscriber changed, sent with UPDATE_SUBSCRIBER_INFO.
+ */
+public class ProfileUpdateRequest implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private String userName;
+    private String phone;
+    private String email;
+
+    // Constructors
+    public ProfileUpdateRequest() {}
+
+    public ProfileUpdateRequest(String userName, String phone, String email) {
+        this.userName = userName;
+        this.phone = phone;
+        this.email = email;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeString(out, userName);
+        WireFormat.writeString(out, phone);
+        WireFormat.writeString(out, email);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        userName = WireFormat.readString(in);
+        phone = WireFormat.readString(in);
+        email = WireFormat.readString(in);
+    }
+
+    // Getters
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
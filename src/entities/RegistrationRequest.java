@@ -0,0 +1,78 @@
+package entities;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * New subscriber details entered by an attendant, sent with REGISTER_SUBSCRIBER.
+ */
+public class RegistrationRequest implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private String attendantUserName;
+    private String name;
+    private String phone;
+    private String email;
+    private String carNumber;
+    private String userName;
+
+    // Constructors
+    public RegistrationRequest() {}
+
+    public RegistrationRequest(String attendantUserName, String name, String phone, String email,
+                               String carNumber, String userName) {
+        this.attendantUserName = attendantUserName;
+        this.name = name;
+        this.phone = phone;
+        this.email = email;
+        this.carNumber = carNumber;
+        this.userName = userName;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeString(out, attendantUserName);
+        WireFormat.writeString(out, name);
+        WireFormat.writeString(out, phone);
+        WireFormat.writeString(out, email);
+        WireFormat.writeString(out, carNumber);
+        WireFormat.writeString(out, userName);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        attendantUserName = WireFormat.readString(in);
+        name = WireFormat.readString(in);
+        phone = WireFormat.readString(in);
+        email = WireFormat.readString(in);
+        carNumber = WireFormat.readString(in);
+        userName = WireFormat.readString(in);
+    }
+
+    // Getters
+    public String getAttendantUserName() {
+        return attendantUserName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getCarNumber() {
+        return carNumber;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+}
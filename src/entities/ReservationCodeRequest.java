@@ -0,0 +1,46 @@
+package entities;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A subscriber acting on one of their reservations, sent with
+ * CANCEL_RESERVATION and ACTIVATE_RESERVATION.
+ */
+public class ReservationCodeRequest implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private String userName; // null when an attendant acts for the subscriber
+    private int reservationCode;
+
+    // Constructors
+    public ReservationCodeRequest() {}
+
+    public ReservationCodeRequest(String userName, int reservationCode) {
+        this.userName = userName;
+        this.reservationCode = reservationCode;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeString(out, userName);
+        out.writeInt(reservationCode);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        userName = WireFormat.readString(in);
+        reservationCode = in.readInt();
+    }
+
+    // Getters
+    public String getUserName() {
+        return userName;
+    }
+
+    public int getReservationCode() {
+        return reservationCode;
+    }
+}
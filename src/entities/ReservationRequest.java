@@ -0,0 +1,78 @@
+package entities;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Pre-booking request, sent with RESERVE_PARKING. An end time at or before
+ * the start time means the reservation ends the next day.
+ */
+public class ReservationRequest implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    /** Length of a reservation when the client does not choose an end time */
+    public static final int STANDARD_BOOKING_HOURS = 4;
+
+    private String userName;
+    private LocalDate date;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    // Constructors
+    public ReservationRequest() {}
+
+    /**
+     * Creates a request for a standard-length reservation; it ends the next
+     * day if it starts within the last hours of the day.
+     * @param userName Subscriber making the reservation
+     * @param date Reservation date
+     * @param startTime Start time
+     */
+    public ReservationRequest(String userName, LocalDate date, LocalTime startTime) {
+        this(userName, date, startTime, startTime.plusHours(STANDARD_BOOKING_HOURS));
+    }
+
+    public ReservationRequest(String userName, LocalDate date, LocalTime startTime, LocalTime endTime) {
+        this.userName = userName;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        WireFormat.writeString(out, userName);
+        WireFormat.writeDate(out, date);
+        WireFormat.writeTime(out, startTime);
+        WireFormat.writeTime(out, endTime);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        userName = WireFormat.readString(in);
+        date = WireFormat.readDate(in);
+        startTime = WireFormat.readTime(in);
+        endTime = WireFormat.readTime(in);
+    }
+
+    // Getters
+    public String getUserName() {
+        return userName;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+}
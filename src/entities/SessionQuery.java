@@ -0,0 +1,108 @@
+package entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Ad-hoc analytics query over completed parking sessions, answered from the
+ * server's in-memory session store instead of the database.
+ * Every filter is optional; the matching sessions are grouped and each group
+ * reports its session count, late exits, extensions and average durations.
+ */
+public class SessionQuery implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * How matching sessions are grouped, by their entry time or type.
+     */
+    public enum GroupBy {
+        /** One group with every matching session */
+        NONE,
+        /** Monday to Sunday */
+        WEEKDAY,
+        /** 00:00 to 23:00 */
+        HOUR_OF_DAY,
+        /** 1 to 31 */
+        DAY_OF_MONTH,
+        /** January to December */
+        MONTH,
+        /** pre_order, spontaneous or other */
+        RESERVATION_TYPE
+    }
+
+    private LocalDate fromDate; // first entry day, inclusive; null for no bound
+    private LocalDate toDate; // last entry day, exclusive; null for no bound
+    private String reservationType; // "pre_order" or "spontaneous"; null for any
+    private Boolean late; // null for any
+    private Boolean extended; // null for any
+    private int userId; // 0 for any
+    private GroupBy groupBy = GroupBy.NONE;
+
+    // Constructors
+    public SessionQuery() {}
+
+    /**
+     * Creates a query over every completed session.
+     * @param groupBy How to group the sessions
+     */
+    public SessionQuery(GroupBy groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    // Getters and Setters
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    public String getReservationType() {
+        return reservationType;
+    }
+
+    public void setReservationType(String reservationType) {
+        this.reservationType = reservationType;
+    }
+
+    public Boolean getLate() {
+        return late;
+    }
+
+    public void setLate(Boolean late) {
+        this.late = late;
+    }
+
+    public Boolean getExtended() {
+        return extended;
+    }
+
+    public void setExtended(Boolean extended) {
+        this.extended = extended;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(GroupBy groupBy) {
+        this.groupBy = groupBy;
+    }
+}
@@ -0,0 +1,106 @@
+package entities;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Answer to a {@link SessionQuery}: one row per non-empty group, in group order.
+ */
+public class SessionQueryResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Aggregates of one group of sessions.
+     */
+    public static class Group implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String label;
+        private final long sessions;
+        private final long lateExits;
+        private final long extended;
+        private final double avgDurationMinutes;
+        private final double avgOverstayMinutes; // over late exits only
+
+        public Group(String label, long sessions, long lateExits, long extended,
+                     double avgDurationMinutes, double avgOverstayMinutes) {
+            this.label = label;
+            this.sessions = sessions;
+            this.lateExits = lateExits;
+            this.extended = extended;
+            this.avgDurationMinutes = avgDurationMinutes;
+            this.avgOverstayMinutes = avgOverstayMinutes;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getSessions() {
+            return sessions;
+        }
+
+        public long getLateExits() {
+            return lateExits;
+        }
+
+        public long getExtended() {
+            return extended;
+        }
+
+        public double getAvgDurationMinutes() {
+            return avgDurationMinutes;
+        }
+
+        public double getAvgOverstayMinutes() {
+            return avgOverstayMinutes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d sessions, %d late, %d extended, avg %.1f min, avg overstay %.1f min",
+                    label, sessions, lateExits, extended, avgDurationMinutes, avgOverstayMinutes);
+        }
+    }
+
+    private SessionQuery.GroupBy groupBy;
+    private ArrayList<Group> groups;
+    private long scannedSessions;
+    private long elapsedMicros;
+    private boolean complete; // false while the store is still loading history
+
+    // Constructors
+    public SessionQueryResult() {
+        this.groups = new ArrayList<>();
+    }
+
+    public SessionQueryResult(SessionQuery.GroupBy groupBy, ArrayList<Group> groups, long scannedSessions,
+                              long elapsedMicros, boolean complete) {
+        this.groupBy = groupBy;
+        this.groups = groups;
+        this.scannedSessions = scannedSessions;
+        this.elapsedMicros = elapsedMicros;
+        this.complete = complete;
+    }
+
+    // Getters and Setters
+    public SessionQuery.GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    public ArrayList<Group> getGroups() {
+        return groups;
+    }
+
+    public long getScannedSessions() {
+        return scannedSessions;
+    }
+
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -0,0 +1,103 @@
+package entities;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import entities.Message.MessageType;
+
+/**
+ * One chunk of a streamed result. Chunks of a stream share a stream ID and
+ * carry consecutive sequence numbers starting at 0; the last chunk has
+ * {@code endOfStream} set (it may be empty, or carry an error).
+ */
+public class StreamChunk implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int streamId;
+    private int sequence;
+    private MessageType responseType; // the response type the non-streamed request would get
+    private ArrayList<Serializable> items;
+    private boolean endOfStream;
+    private String error;
+
+    // Constructors
+    public StreamChunk() {
+        this.items = new ArrayList<>();
+    }
+
+    public StreamChunk(int streamId, int sequence, MessageType responseType,
+                       ArrayList<Serializable> items, boolean endOfStream) {
+        this.streamId = streamId;
+        this.sequence = sequence;
+        this.responseType = responseType;
+        this.items = items;
+        this.endOfStream = endOfStream;
+    }
+
+    /**
+     * Creates the terminal chunk of a stream that failed.
+     * @param streamId Stream ID, or -1 if the stream could not be opened
+     * @param sequence Sequence number of this chunk
+     * @param responseType Response type of the stream
+     * @param error Error description
+     * @return Terminal error chunk
+     */
+    public static StreamChunk failed(int streamId, int sequence, MessageType responseType, String error) {
+        StreamChunk chunk = new StreamChunk(streamId, sequence, responseType, new ArrayList<>(), true);
+        chunk.setError(error);
+        return chunk;
+    }
+
+    // Getters and Setters
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public void setStreamId(int streamId) {
+        this.streamId = streamId;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    public MessageType getResponseType() {
+        return responseType;
+    }
+
+    public void setResponseType(MessageType responseType) {
+        this.responseType = responseType;
+    }
+
+    public ArrayList<Serializable> getItems() {
+        return items;
+    }
+
+    public void setItems(ArrayList<Serializable> items) {
+        this.items = items;
+    }
+
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    public void setEndOfStream(boolean endOfStream) {
+        this.endOfStream = endOfStream;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public boolean isFirst() {
+        return sequence == 0;
+    }
+}
@@ -0,0 +1,59 @@
+package entities;
+
+import java.io.Serializable;
+
+/**
+ * Flow-control message from the client for an open stream: grants the server
+ * permission to send more chunks, or cancels the stream.
+ */
+public class StreamCredit implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int streamId;
+    private int credits;
+    private boolean cancel;
+
+    // Constructors
+    public StreamCredit() {}
+
+    public StreamCredit(int streamId, int credits) {
+        this.streamId = streamId;
+        this.credits = credits;
+    }
+
+    /**
+     * Creates a message that cancels the stream and frees its server resources.
+     * @param streamId Stream to cancel
+     * @return Cancel message
+     */
+    public static StreamCredit cancel(int streamId) {
+        StreamCredit credit = new StreamCredit(streamId, 0);
+        credit.setCancel(true);
+        return credit;
+    }
+
+    // Getters and Setters
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public void setStreamId(int streamId) {
+        this.streamId = streamId;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+
+    public void setCredits(int credits) {
+        this.credits = credits;
+    }
+
+    public boolean isCancel() {
+        return cancel;
+    }
+
+    public void setCancel(boolean cancel) {
+        this.cancel = cancel;
+    }
+}
@@ -0,0 +1,72 @@
+package entities;
+
+import java.io.Serializable;
+
+import entities.Message.MessageType;
+
+/**
+ * Asks the server to deliver the result of a large request as a chunked stream
+ * instead of a single message. The client grants an initial number of credits;
+ * the server sends at most one chunk per credit and waits for more credits
+ * (see {@link StreamCredit}) before sending further chunks.
+ */
+public class StreamRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Chunks the client allows in flight when it does not ask for a specific window */
+    public static final int DEFAULT_INITIAL_CREDITS = 4;
+    /** Rows per chunk when the client does not ask for a specific size */
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private MessageType requestType; // e.g. GET_ALL_SUBSCRIBERS
+    private Serializable argument;   // the content the non-streamed request would carry
+    private int initialCredits;
+    private int chunkSize;
+
+    // Constructors
+    public StreamRequest() {}
+
+    public StreamRequest(MessageType requestType, Serializable argument) {
+        this(requestType, argument, DEFAULT_INITIAL_CREDITS, DEFAULT_CHUNK_SIZE);
+    }
+
+    public StreamRequest(MessageType requestType, Serializable argument, int initialCredits, int chunkSize) {
+        this.requestType = requestType;
+        this.argument = argument;
+        this.initialCredits = initialCredits;
+        this.chunkSize = chunkSize;
+    }
+
+    // Getters and Setters
+    public MessageType getRequestType() {
+        return requestType;
+    }
+
+    public void setRequestType(MessageType requestType) {
+        this.requestType = requestType;
+    }
+
+    public Serializable getArgument() {
+        return argument;
+    }
+
+    public void setArgument(Serializable argument) {
+        this.argument = argument;
+    }
+
+    public int getInitialCredits() {
+        return initialCredits;
+    }
+
+    public void setInitialCredits(int initialCredits) {
+        this.initialCredits = initialCredits;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,148 @@
+package entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+
+/**
+ * Snapshot of the server's state and health, returned for GET_SYSTEM_STATUS.
+ * Built from in-memory counters only, so it can be polled without load on the database.
+ */
+public class SystemStatus implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private LocalDateTime serverTime;
+    private int totalSpots;
+    private int availableSpots;
+    private int connectedClients;
+    private int openStreams;
+    private LinkedHashMap<String, Integer> laneQueueDepths; // lane name -> queued requests
+    private LinkedHashMap<String, LatencySummary> messageLatencies; // message type -> latency
+    private LatencySummary dbPoolWait;
+    private LatencySummary dbQuery;
+    private int dbConnectionsActive;
+    private int dbConnectionsIdle;
+    private int outboundQueueDepth;
+    private long outboundBytesSent;
+
+    // Constructors
+    public SystemStatus() {
+        this.laneQueueDepths = new LinkedHashMap<>();
+        this.messageLatencies = new LinkedHashMap<>();
+    }
+
+    public SystemStatus(LocalDateTime serverTime, int totalSpots, int availableSpots,
+                        int connectedClients, int openStreams) {
+        this();
+        this.serverTime = serverTime;
+        this.totalSpots = totalSpots;
+        this.availableSpots = availableSpots;
+        this.connectedClients = connectedClients;
+        this.openStreams = openStreams;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getServerTime() {
+        return serverTime;
+    }
+
+    public void setServerTime(LocalDateTime serverTime) {
+        this.serverTime = serverTime;
+    }
+
+    public int getTotalSpots() {
+        return totalSpots;
+    }
+
+    public void setTotalSpots(int totalSpots) {
+        this.totalSpots = totalSpots;
+    }
+
+    public int getAvailableSpots() {
+        return availableSpots;
+    }
+
+    public void setAvailableSpots(int availableSpots) {
+        this.availableSpots = availableSpots;
+    }
+
+    public int getConnectedClients() {
+        return connectedClients;
+    }
+
+    public void setConnectedClients(int connectedClients) {
+        this.connectedClients = connectedClients;
+    }
+
+    public int getOpenStreams() {
+        return openStreams;
+    }
+
+    public void setOpenStreams(int openStreams) {
+        this.openStreams = openStreams;
+    }
+
+    public LinkedHashMap<String, Integer> getLaneQueueDepths() {
+        return laneQueueDepths;
+    }
+
+    public void setLaneQueueDepths(LinkedHashMap<String, Integer> laneQueueDepths) {
+        this.laneQueueDepths = laneQueueDepths;
+    }
+
+    public LinkedHashMap<String, LatencySummary> getMessageLatencies() {
+        return messageLatencies;
+    }
+
+    public void setMessageLatencies(LinkedHashMap<String, LatencySummary> messageLatencies) {
+        this.messageLatencies = messageLatencies;
+    }
+
+    public LatencySummary getDbPoolWait() {
+        return dbPoolWait;
+    }
+
+    public void setDbPoolWait(LatencySummary dbPoolWait) {
+        this.dbPoolWait = dbPoolWait;
+    }
+
+    public LatencySummary getDbQuery() {
+        return dbQuery;
+    }
+
+    public void setDbQuery(LatencySummary dbQuery) {
+        this.dbQuery = dbQuery;
+    }
+
+    public int getDbConnectionsActive() {
+        return dbConnectionsActive;
+    }
+
+    public void setDbConnectionsActive(int dbConnectionsActive) {
+        this.dbConnectionsActive = dbConnectionsActive;
+    }
+
+    public int getDbConnectionsIdle() {
+        return dbConnectionsIdle;
+    }
+
+    public void setDbConnectionsIdle(int dbConnectionsIdle) {
+        this.dbConnectionsIdle = dbConnectionsIdle;
+    }
+
+    public int getOutboundQueueDepth() {
+        return outboundQueueDepth;
+    }
+
+    public void setOutboundQueueDepth(int outboundQueueDepth) {
+        this.outboundQueueDepth = outboundQueueDepth;
+    }
+
+    public long getOutboundBytesSent() {
+        return outboundBytesSent;
+    }
+
+    public void setOutboundBytesSent(long outboundBytesSent) {
+        this.outboundBytesSent = outboundBytesSent;
+    }
+}
@@ -0,0 +1,63 @@
+package entities;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Field encoders shared by the Externalizable entities. Values are written
+ * directly instead of through reflective default serialization; nullable
+ * values are prefixed with a presence flag.
+ */
+final class WireFormat {
+
+    private WireFormat() {}
+
+    static void writeString(ObjectOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(ObjectInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeDate(ObjectOutput out, LocalDate value) throws IOException {
+        out.writeLong(value == null ? Long.MIN_VALUE : value.toEpochDay());
+    }
+
+    static LocalDate readDate(ObjectInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    static void writeTime(ObjectOutput out, LocalTime value) throws IOException {
+        out.writeLong(value == null ? -1 : value.toNanoOfDay());
+    }
+
+    static LocalTime readTime(ObjectInput in) throws IOException {
+        long nanoOfDay = in.readLong();
+        return nanoOfDay < 0 ? null : LocalTime.ofNanoOfDay(nanoOfDay);
+    }
+
+    static void writeDateTime(ObjectOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toLocalDate().toEpochDay());
+            out.writeLong(value.toLocalTime().toNanoOfDay());
+        }
+    }
+
+    static LocalDateTime readDateTime(ObjectInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readLong()));
+    }
+}
@@ -0,0 +1,37 @@
+package server;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * ChunkSource produces the items of a chunked stream in order, a batch at a
+ * time, for {@link StreamManager}. Sources are read from one thread at a
+ * time and release what they hold (a pooled connection, an open file) when
+ * exhausted or closed.
+ *
+ * @param <T> type of the streamed items
+ */
+public interface ChunkSource<T> extends AutoCloseable {
+
+    /**
+     * Reads up to {@code max} items.
+     * @param max maximum number of items to read
+     * @return the items read, possibly empty
+     * @throws SQLException if reading from the database fails
+     * @throws IOException if reading from a file fails
+     */
+    List<T> next(int max) throws SQLException, IOException;
+
+    /**
+     * Returns whether all items have been read.
+     * @return true once the source has run past its last item
+     */
+    boolean isExhausted();
+
+    /**
+     * Releases the source. Safe to call more than once.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,103 @@
+package server;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import entities.Message.MessageType;
+
+/**
+ * CompressionStats records, per MessageType, how well outgoing payloads
+ * compress and how much CPU time the compression costs.
+ */
+public class CompressionStats {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Counters for one message type.
+     */
+    private static class Entry {
+        final LongAdder messages = new LongAdder();
+        final LongAdder rawBytes = new LongAdder();
+        final LongAdder compressedBytes = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+    }
+
+    private final Map<MessageType, Entry> entries = new EnumMap<>(MessageType.class);
+
+    public CompressionStats() {
+        for (MessageType type : MessageType.values()) {
+            entries.put(type, new Entry());
+        }
+    }
+
+    /**
+     * Returns a CPU timestamp for the current thread, falling back to wall time
+     * if the JVM does not measure thread CPU time.
+     * @return timestamp in nanoseconds
+     */
+    public static long cpuTime() {
+        if (THREADS.isCurrentThreadCpuTimeSupported()) {
+            return THREADS.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records one compressed payload.
+     * @param type Message type of the payload
+     * @param rawBytes Size before compression
+     * @param compressedBytes Size after compression
+     * @param cpuNanos CPU time spent compressing
+     */
+    public void record(MessageType type, int rawBytes, int compressedBytes, long cpuNanos) {
+        Entry entry = entries.get(type);
+        entry.messages.increment();
+        entry.rawBytes.add(rawBytes);
+        entry.compressedBytes.add(compressedBytes);
+        entry.cpuNanos.add(cpuNanos);
+    }
+
+    /**
+     * Returns the compression ratio (raw / compressed) of a message type.
+     * @param type Message type
+     * @return ratio, or 0 if nothing was compressed
+     */
+    public double getRatio(MessageType type) {
+        Entry entry = entries.get(type);
+        long compressed = entry.compressedBytes.sum();
+        return compressed == 0 ? 0 : (double) entry.rawBytes.sum() / compressed;
+    }
+
+    /**
+     * Returns the average CPU time per compressed message of a message type.
+     * @param type Message type
+     * @return microseconds per message, or 0 if nothing was compressed
+     */
+    public double getAverageCpuMicros(MessageType type) {
+        Entry entry = entries.get(type);
+        long messages = entry.messages.sum();
+        return messages == 0 ? 0 : entry.cpuNanos.sum() / 1000.0 / messages;
+    }
+
+    /**
+     * Builds a one-line-per-type summary of the types that were compressed.
+     * @return summary text, empty if nothing was compressed yet
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<MessageType, Entry> e : entries.entrySet()) {
+            long messages = e.getValue().messages.sum();
+            if (messages == 0) {
+                continue;
+            }
+            sb.append(String.format("%s: %d msgs, %d -> %d bytes, ratio %.2f, %.1f us/msg%n",
+                    e.getKey(), messages, e.getValue().rawBytes.sum(), e.getValue().compressedBytes.sum(),
+                    getRatio(e.getKey()), getAverageCpuMicros(e.getKey())));
+        }
+        return sb.toString();
+    }
+}
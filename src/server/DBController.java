@@ -2,22 +2,51 @@ package server;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+
+import common.Logger;
 
 /**
  * DBController manages a pool of database connections using the Singleton
  * pattern. Supports thread-safe take and retrive.
+ *
+ * The pool is split into budgets. The last connections are reserved for
+ * gate-lane threads, and bulk work (the reporting lane, report queries,
+ * streams, exports and background jobs, i.e. every thread outside the gate
+ * and interactive lanes) may hold at most {@code bpark.db.bulkConnections}
+ * at a time. The default pool is the sum of the gate and interactive lane
+ * threads and the bulk budget, so request lanes never wait behind bulk work.
  */
 public class DBController {
 
 
+	private static final Logger LOG = Logger.get("db.pool");
+
 	/** Singleton instance of DBController */
 	private static DBController instance = null;
 	/** Queue for connection pool */
 	private final Queue<Connection> connectionPool = new LinkedList<>();
+	/** Connections bulk work may hold at once */
+	private final int BULK_CONNECTIONS = Integer.getInteger("bpark.db.bulkConnections", 5);
 	/** Size of the connection pool */
-	private final int POOL_SIZE = 6;
+	private final int POOL_SIZE = Integer.getInteger("bpark.db.poolSize",
+			Lane.GATE.getThreads() + Lane.INTERACTIVE.getThreads() + BULK_CONNECTIONS);
+	/** Connections kept free for gate-lane threads so gates never wait behind reports */
+	private final int GATE_RESERVED_CONNECTIONS = 1;
+	/** When each connection currently in use was taken, for query-time metrics */
+	private final Map<Connection, Long> checkoutTimes = new IdentityHashMap<>();
+	/** Connections currently held by bulk work */
+	private final Set<Connection> bulkCheckouts = Collections.newSetFromMap(new IdentityHashMap<>());
+	/** Actions to run once the open transaction of a connection commits */
+	private final Map<Connection, List<Runnable>> commitHooks = new IdentityHashMap<>();
 	/** if the DB connection initialization succeeded (1 = success, 0 = failure) */
 	private final int successFlag;
 
@@ -77,21 +106,29 @@ public class DBController {
 	}
 
 	/**
-	 * Retrieves an available connection from the pool. Waits up to 30 seconds if no
-	 * connections are currently available.
+	 * Retrieves an available connection from the pool. Waits up to 5 seconds if no
+	 * connections are currently available. The last reserved connections are only
+	 * handed to gate-lane threads, and bulk work waits once it holds its budget.
+	 * While a flight recording is running the connection is wrapped so its
+	 * statements are recorded.
 	 *
 	 * @return a Connection from the pool
-	 * @throws RuntimeException if no connection becomes available within 30 seconds
+	 * @throws RuntimeException if no connection becomes available within 5 seconds
 	 */
 	public synchronized Connection getConnection() {
+		ServerEvents.DbConnectionWait waitEvent = new ServerEvents.DbConnectionWait();
+		waitEvent.begin();
+		long waitStart = System.nanoTime();
 		long startTime = System.currentTimeMillis();
 		int waitCounter = 0;
-		while (connectionPool.isEmpty()) {
+		Lane lane = Lane.current();
+		boolean bulk = isBulk(lane);
+		while (connectionPool.size() <= reservedFor(lane) || (bulk && bulkCheckouts.size() >= BULK_CONNECTIONS)) {
 		    if (System.currentTimeMillis() - startTime > 5000) {
 		        throw new RuntimeException("Timeout: No available DB connections.");
 		    }
 		    if (waitCounter % 10 == 0) {
-		        System.out.println("Waiting for available DB connection...");
+		        LOG.warn("Waiting for available DB connection ({} ms)", System.currentTimeMillis() - startTime);
 		    }
 		    try {
 		        wait(100);
@@ -102,8 +139,39 @@ public class DBController {
 		}
 
 		Connection conn = connectionPool.remove();
-		System.out.println("Connection taken. Remaining in pool: " + connectionPool.size());
-		return conn;
+		if (bulk) {
+			bulkCheckouts.add(conn);
+		}
+		long now = System.nanoTime();
+		ServerMetrics.getInstance().recordDbPoolWait(now - waitStart);
+		checkoutTimes.put(conn, now);
+		if (waitEvent.shouldCommit()) {
+			waitEvent.lane = String.valueOf(lane);
+			waitEvent.idleConnections = connectionPool.size();
+			waitEvent.commit();
+		}
+		LOG.debug("Connection taken. Remaining in pool: {}", connectionPool.size());
+		return InstrumentedConnection.wrapIfRecording(conn);
+	}
+
+	/**
+	 * Returns how many pooled connections a thread of the given lane must leave free.
+	 *
+	 * @param lane the lane of the calling thread, or null
+	 * @return number of connections the caller may not take
+	 */
+	private int reservedFor(Lane lane) {
+		return lane == Lane.GATE ? 0 : GATE_RESERVED_CONNECTIONS;
+	}
+
+	/**
+	 * Returns whether a thread does bulk work and draws on the bulk budget.
+	 *
+	 * @param lane the lane of the calling thread, or null
+	 * @return true unless the thread serves the gate or interactive lane
+	 */
+	private static boolean isBulk(Lane lane) {
+		return lane != Lane.GATE && lane != Lane.INTERACTIVE;
 	}
 
 	/**
@@ -114,13 +182,102 @@ public class DBController {
 	 */
 	public synchronized void releaseConnection(Connection conn) {
 		if (conn != null) {
+			conn = InstrumentedConnection.unwrap(conn);
+			// Hooks of a transaction that never committed are dropped with it
+			commitHooks.remove(conn);
+			bulkCheckouts.remove(conn);
+			Long takenAt = checkoutTimes.remove(conn);
+			if (takenAt != null) {
+				ServerMetrics.getInstance().recordDbQuery(System.nanoTime() - takenAt);
+			}
 			connectionPool.add(conn);
-			System.out.println("Connection returned. Now available in pool: " + connectionPool.size());
+			LOG.debug("Connection returned. Now available in pool: {}", connectionPool.size());
 
 			notifyAll(); // wake all the "waiting threads".
 		}
 	}
 
+	/**
+	 * Runs an action once the caller's changes are committed: immediately in
+	 * auto-commit mode, otherwise when the open transaction is committed with
+	 * {@link #commit(Connection)}. A transaction that rolls back drops its
+	 * actions, so in-memory state never reflects changes that were not stored.
+	 *
+	 * @param conn   the connection holding the changes
+	 * @param action action to run after the commit
+	 */
+	public void afterCommit(Connection conn, Runnable action) {
+		boolean autoCommit;
+		try {
+			autoCommit = conn.getAutoCommit();
+		} catch (SQLException e) {
+			System.err.println("Error reading auto-commit mode: " + e.getMessage());
+			return;
+		}
+		if (autoCommit) {
+			action.run();
+			return;
+		}
+		synchronized (this) {
+			commitHooks.computeIfAbsent(InstrumentedConnection.unwrap(conn), c -> new ArrayList<>()).add(action);
+		}
+	}
+
+	/**
+	 * Commits the open transaction of a connection, then runs the actions
+	 * registered for it with {@link #afterCommit(Connection, Runnable)}.
+	 *
+	 * @param conn the connection to commit
+	 * @throws SQLException if the commit fails; the actions are then dropped
+	 */
+	public void commit(Connection conn) throws SQLException {
+		List<Runnable> actions;
+		try {
+			conn.commit();
+		} finally {
+			synchronized (this) {
+				actions = commitHooks.remove(InstrumentedConnection.unwrap(conn));
+			}
+		}
+		if (actions != null) {
+			for (Runnable action : actions) {
+				action.run();
+			}
+		}
+	}
+
+	/**
+	 * Rolls back the open transaction of a connection and drops the actions
+	 * registered for it.
+	 *
+	 * @param conn the connection to roll back
+	 * @throws SQLException if the rollback fails
+	 */
+	public void rollback(Connection conn) throws SQLException {
+		synchronized (this) {
+			commitHooks.remove(InstrumentedConnection.unwrap(conn));
+		}
+		conn.rollback();
+	}
+
+	/**
+	 * Returns the number of connections currently taken from the pool.
+	 *
+	 * @return connections in use
+	 */
+	public synchronized int getActiveConnections() {
+		return checkoutTimes.size();
+	}
+
+	/**
+	 * Returns the number of connections waiting in the pool.
+	 *
+	 * @return idle connections
+	 */
+	public synchronized int getIdleConnections() {
+		return connectionPool.size();
+	}
+
 	/**
 	 * Returns a flag indicating success (1) or failure (0) of initial database
 	 * connection setup.
@@ -0,0 +1,83 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FileChunkSource streams a file as blocks of bytes, e.g. a finished export.
+ * Blocks are read through a {@link FileChannel} into one reused buffer, so
+ * only the blocks of the current chunk are held in memory however large the
+ * file is. The file is closed when the last block is read or the stream is
+ * closed.
+ */
+public class FileChunkSource implements ChunkSource<byte[]> {
+
+    /** Bytes per streamed block, except the last */
+    public static final int BLOCK_BYTES = 64 * 1024;
+    /** Blocks per chunk, so a chunk message stays a few hundred kilobytes */
+    public static final int MAX_BLOCKS_PER_CHUNK = 4;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_BYTES);
+    private boolean exhausted = false;
+    private boolean closed = false;
+
+    private FileChunkSource(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a file for streaming.
+     * @param path File to stream
+     * @return an open source
+     * @throws IOException if the file cannot be opened
+     */
+    public static FileChunkSource open(Path path) throws IOException {
+        return new FileChunkSource(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    @Override
+    public List<byte[]> next(int max) throws IOException {
+        ArrayList<byte[]> blocks = new ArrayList<>(max);
+        while (blocks.size() < max && !exhausted) {
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    exhausted = true;
+                    close();
+                    break;
+                }
+            }
+            buffer.flip();
+            if (buffer.hasRemaining()) {
+                byte[] block = new byte[buffer.remaining()];
+                buffer.get(block);
+                blocks.add(block);
+            }
+        }
+        return blocks;
+    }
+
+    @Override
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing file stream: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package server;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * FlightRecorderControl starts and stops Java Flight Recorder recordings of
+ * the server using the Singleton pattern. A recording uses the JDK "profile"
+ * settings plus every {@link ServerEvents} event with no threshold, and is
+ * written to {@code bpark.jfr.dir} (default: the working directory).
+ */
+public class FlightRecorderControl {
+
+    private static final FlightRecorderControl instance = new FlightRecorderControl();
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private Recording recording;
+
+    private FlightRecorderControl() {
+    }
+
+    /**
+     * Returns the singleton instance of FlightRecorderControl.
+     * @return the FlightRecorderControl instance
+     */
+    public static FlightRecorderControl getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts a recording.
+     * @param duration How long to record before the file is written automatically, or null to record until stopped
+     * @return the file the recording will be written to
+     * @throws IllegalStateException if a recording is already running
+     * @throws IOException if the recording cannot be created
+     */
+    public synchronized Path start(Duration duration) throws IOException {
+        if (isRecording()) {
+            throw new IllegalStateException("A recording is already running: " + recording.getDestination());
+        }
+        Recording r;
+        try {
+            r = new Recording(Configuration.getConfiguration("profile"));
+        } catch (ParseException e) {
+            throw new IOException("Cannot read JFR profile settings: " + e.getMessage(), e);
+        }
+        r.setName("bpark");
+        for (Class<?> event : ServerEvents.class.getClasses()) {
+            if (jdk.jfr.Event.class.isAssignableFrom(event)) {
+                r.enable(event.asSubclass(jdk.jfr.Event.class)).withThreshold(Duration.ZERO);
+            }
+        }
+        Path file = Paths.get(System.getProperty("bpark.jfr.dir", "."),
+                "bpark-" + LocalDateTime.now().format(FILE_TIME) + ".jfr").toAbsolutePath().normalize();
+        r.setDestination(file);
+        if (duration != null) {
+            r.setDuration(duration);
+        }
+        r.start();
+        recording = r;
+        return file;
+    }
+
+    /**
+     * Stops the running recording and writes it to its file.
+     * @return the file written, or null if nothing was recording
+     */
+    public synchronized Path stop() {
+        if (!isRecording()) {
+            return null;
+        }
+        Path file = recording.getDestination();
+        recording.stop();
+        recording.close();
+        recording = null;
+        return file;
+    }
+
+    /**
+     * Returns whether a recording is running.
+     * @return true while recording
+     */
+    public synchronized boolean isRecording() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    /**
+     * Describes the current recording.
+     * @return status text
+     */
+    public synchronized String status() {
+        if (recording == null) {
+            return "No recording";
+        }
+        return "Recording " + recording.getState() + " -> " + recording.getDestination()
+                + (recording.getDuration() != null ? " (duration " + recording.getDuration().getSeconds() + "s)" : "");
+    }
+}
@@ -0,0 +1,174 @@
+package server;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import entities.Message;
+import entities.Message.MessageType;
+import ocsf.server.ConnectionToClient;
+
+/**
+ * HandlerRegistry maps each MessageType to the handler that serves it.
+ * Every registration declares the lane it runs in, how long a request may
+ * wait before it is dropped, and the name its metrics are reported under,
+ * so dispatch is a single EnumMap lookup.
+ */
+public class HandlerRegistry {
+
+    /** Handles one request message */
+    @FunctionalInterface
+    public interface MessageHandler {
+        void handle(Message message, ConnectionToClient client) throws Exception;
+    }
+
+    /**
+     * A registered handler with its scheduling settings and counters.
+     */
+    public static class Registration {
+        private final MessageType type;
+        private final Lane lane;
+        private final long timeoutMillis;
+        private final String metricsName;
+        private final boolean changesState;
+        private final MessageHandler handler;
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        Registration(MessageType type, Lane lane, long timeoutMillis, String metricsName,
+                     boolean changesState, MessageHandler handler) {
+            this.type = type;
+            this.lane = lane;
+            this.timeoutMillis = timeoutMillis;
+            this.metricsName = metricsName;
+            this.changesState = changesState;
+            this.handler = handler;
+        }
+
+        /**
+         * Records one handler execution.
+         * @param nanos Execution time
+         * @param failed true if the handler threw
+         */
+        public void recordExecution(long nanos, boolean failed) {
+            invocations.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        /**
+         * Records a request dropped because it waited longer than the timeout.
+         */
+        public void recordTimeout() {
+            timeouts.increment();
+        }
+
+        public MessageType getType() {
+            return type;
+        }
+
+        public Lane getLane() {
+            return lane;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public String getMetricsName() {
+            return metricsName;
+        }
+
+        public boolean changesState() {
+            return changesState;
+        }
+
+        public MessageHandler getHandler() {
+            return handler;
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        public double getAverageMillis() {
+            long count = invocations.sum();
+            return count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+    }
+
+    private final Map<MessageType, Registration> handlers = new EnumMap<>(MessageType.class);
+
+    /**
+     * Registers the handler of a message type.
+     * @param type Message type handled
+     * @param lane Lane the handler runs in
+     * @param timeoutMillis Longest a request may wait in its lane before it is dropped
+     * @param metricsName Name the handler's metrics are reported under
+     * @param changesState true if the handler changes parking state and must not run concurrently with others that do
+     * @param handler The handler
+     * @throws IllegalStateException if the type already has a handler
+     */
+    public void register(MessageType type, Lane lane, long timeoutMillis, String metricsName,
+                         boolean changesState, MessageHandler handler) {
+        if (handlers.containsKey(type)) {
+            throw new IllegalStateException("Handler already registered for " + type);
+        }
+        handlers.put(type, new Registration(type, lane, timeoutMillis, metricsName, changesState, handler));
+    }
+
+    /**
+     * Returns the registration of a message type.
+     * @param type Message type
+     * @return its registration, or null if the type has no handler
+     */
+    public Registration get(MessageType type) {
+        return handlers.get(type);
+    }
+
+    /**
+     * Returns all registrations.
+     * @return registrations in MessageType order
+     */
+    public Collection<Registration> getRegistrations() {
+        return handlers.values();
+    }
+
+    /**
+     * Builds a one-line-per-handler summary of the handlers that ran.
+     * @return summary text
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Registration r : handlers.values()) {
+            if (r.getInvocations() == 0 && r.getTimeouts() == 0) {
+                continue;
+            }
+            sb.append(String.format("%s [%s]: calls=%d failures=%d timeouts=%d avg=%.2fms max=%.2fms%n",
+                    r.getMetricsName(), r.getLane(), r.getInvocations(), r.getFailures(), r.getTimeouts(),
+                    r.getAverageMillis(), r.getMaxMillis()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package server;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import jdk.jfr.EventType;
+
+/**
+ * InstrumentedConnection wraps pooled connections so that every statement
+ * executed through them emits a {@link ServerEvents.DbStatement} flight
+ * recorder event. Connections are only wrapped while a recording has the
+ * event enabled, so statements run unwrapped the rest of the time.
+ */
+final class InstrumentedConnection {
+
+    private static final EventType STATEMENT_EVENT = EventType.getEventType(ServerEvents.DbStatement.class);
+    private static final int MAX_SQL_LENGTH = 256;
+
+    private InstrumentedConnection() {
+    }
+
+    /**
+     * Wraps a connection if statement events are being recorded.
+     * @param conn Pooled connection
+     * @return the connection, or an instrumented proxy of it
+     */
+    static Connection wrapIfRecording(Connection conn) {
+        if (!STATEMENT_EVENT.isEnabled()) {
+            return conn;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ConnectionHandler(conn));
+    }
+
+    /**
+     * Returns the pooled connection behind a connection handed out by the pool.
+     * @param conn Connection returned by {@link #wrapIfRecording(Connection)}
+     * @return the pooled connection
+     */
+    static Connection unwrap(Connection conn) {
+        if (Proxy.isProxyClass(conn.getClass()) && Proxy.getInvocationHandler(conn) instanceof ConnectionHandler) {
+            return ((ConnectionHandler) Proxy.getInvocationHandler(conn)).target;
+        }
+        return conn;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String normalize(String sql) {
+        String compact = sql.trim().replaceAll("\\s+", " ");
+        return compact.length() > MAX_SQL_LENGTH ? compact.substring(0, MAX_SQL_LENGTH) : compact;
+    }
+
+    /** Wraps the statements a connection creates */
+    private static final class ConnectionHandler implements InvocationHandler {
+        final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedConnection.invoke(target, method, args);
+            if (result instanceof Statement) {
+                String sql = method.getName().startsWith("prepare") && args != null && args[0] instanceof String
+                        ? (String) args[0] : null;
+                Class<?> type = result instanceof java.sql.CallableStatement ? java.sql.CallableStatement.class
+                        : result instanceof java.sql.PreparedStatement ? java.sql.PreparedStatement.class
+                        : Statement.class;
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {type},
+                        new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    /** Emits an event for each execution of a statement */
+    private static final class StatementHandler implements InvocationHandler {
+        final Statement target;
+        final String preparedSql;
+        ResultSetHandler openResult;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.equals("close") && openResult != null) {
+                    openResult.commit();
+                }
+                return InstrumentedConnection.invoke(target, method, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            ServerEvents.DbStatement event = new ServerEvents.DbStatement();
+            event.begin();
+            Object result = InstrumentedConnection.invoke(target, method, args);
+            if (sql != null) {
+                event.sql = normalize(sql);
+                event.sqlId = Integer.toHexString(event.sql.hashCode());
+            }
+            if (result instanceof ResultSet) {
+                // Queries are committed when their result set is closed, so rows read are known
+                openResult = new ResultSetHandler((ResultSet) result, event);
+                return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[] {ResultSet.class}, openResult);
+            }
+            if (result instanceof Integer || result instanceof Long) {
+                event.rows = ((Number) result).longValue();
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    event.rows += Math.max(count, 0);
+                }
+            }
+            event.commit();
+            return result;
+        }
+    }
+
+    /** Counts the rows read from a query result */
+    private static final class ResultSetHandler implements InvocationHandler {
+        final ResultSet target;
+        final ServerEvents.DbStatement event;
+        boolean committed;
+
+        ResultSetHandler(ResultSet target, ServerEvents.DbStatement event) {
+            this.target = target;
+            this.event = event;
+        }
+
+        void commit() {
+            if (!committed) {
+                committed = true;
+                event.commit();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedConnection.invoke(target, method, args);
+            String name = method.getName();
+            if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                event.rows++;
+            } else if (name.equals("close")) {
+                commit();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package server;
+
+/**
+ * Lane is the priority class a request is scheduled in; every handler in the
+ * {@link HandlerRegistry} declares its lane. Each lane has its own
+ * executor threads, queue bound and latency SLO, so a burst in one lane cannot
+ * delay requests in another. GATE serves the kiosks and gates and is always
+ * scheduled first.
+ */
+public enum Lane {
+    /** Gate and kiosk operations: a car is waiting at the barrier */
+    GATE(2, 64, 200, Thread.MAX_PRIORITY),
+    /** Subscriber and attendant screens */
+    INTERACTIVE(4, 128, 1_000, Thread.NORM_PRIORITY),
+    /** Reports, full listings and streams */
+    REPORTING(2, 16, 10_000, Thread.MIN_PRIORITY);
+
+    private final int threads;
+    private final int queueCapacity;
+    private final long sloMillis;
+    private final int threadPriority;
+
+    private static final ThreadLocal<Lane> CURRENT = new ThreadLocal<>();
+
+    Lane(int threads, int queueCapacity, long sloMillis, int threadPriority) {
+        this.threads = Integer.getInteger("bpark.lane." + name().toLowerCase() + ".threads", threads);
+        this.queueCapacity = Integer.getInteger("bpark.lane." + name().toLowerCase() + ".queue", queueCapacity);
+        this.sloMillis = sloMillis;
+        this.threadPriority = threadPriority;
+    }
+
+    /**
+     * Returns the lane of the current thread.
+     * @return the lane, or null if the thread is not a lane worker
+     */
+    public static Lane current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Marks the current thread as a worker of a lane.
+     * @param lane Lane the thread works for
+     */
+    static void bindCurrentThread(Lane lane) {
+        CURRENT.set(lane);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getSloMillis() {
+        return sloMillis;
+    }
+
+    public int getThreadPriority() {
+        return threadPriority;
+    }
+}
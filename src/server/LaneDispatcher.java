@@ -0,0 +1,130 @@
+package server;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LaneDispatcher runs requests on one bounded executor per {@link Lane}.
+ * A full lane rejects new work instead of queueing it behind the other lanes,
+ * and every completed task is checked against its lane's latency SLO.
+ */
+public class LaneDispatcher {
+
+    /**
+     * Executor and counters of one lane.
+     */
+    private static class LaneExecutor {
+        final ThreadPoolExecutor executor;
+        final LongAdder completed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder sloViolations = new LongAdder();
+
+        LaneExecutor(Lane lane) {
+            AtomicInteger counter = new AtomicInteger(1);
+            executor = new ThreadPoolExecutor(lane.getThreads(), lane.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(lane.getQueueCapacity()), r -> {
+                        Thread t = new Thread(() -> {
+                            Lane.bindCurrentThread(lane);
+                            r.run();
+                        }, "bpark-" + lane.name().toLowerCase() + "-" + counter.getAndIncrement());
+                        t.setDaemon(true);
+                        t.setPriority(lane.getThreadPriority());
+                        return t;
+                    });
+            executor.prestartAllCoreThreads();
+        }
+    }
+
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+
+    public LaneDispatcher() {
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneExecutor(lane));
+        }
+    }
+
+    /**
+     * Schedules a task in a lane.
+     * @param lane Lane to run the task in
+     * @param task Task to run
+     * @return false if the lane is saturated and the task was rejected
+     */
+    public boolean submit(Lane lane, Runnable task) {
+        LaneExecutor laneExecutor = lanes.get(lane);
+        long submitted = System.nanoTime();
+        try {
+            laneExecutor.executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    long elapsedMillis = (System.nanoTime() - submitted) / 1_000_000;
+                    laneExecutor.completed.increment();
+                    if (elapsedMillis > lane.getSloMillis()) {
+                        laneExecutor.sloViolations.increment();
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            laneExecutor.rejected.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting in a lane.
+     * @param lane Lane
+     * @return queued task count
+     */
+    public int getQueueDepth(Lane lane) {
+        return lanes.get(lane).executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of tasks a lane rejected because it was full.
+     * @param lane Lane
+     * @return rejected task count
+     */
+    public long getRejected(Lane lane) {
+        return lanes.get(lane).rejected.sum();
+    }
+
+    /**
+     * Returns the number of tasks that finished later than their lane's SLO.
+     * @param lane Lane
+     * @return SLO violation count
+     */
+    public long getSloViolations(Lane lane) {
+        return lanes.get(lane).sloViolations.sum();
+    }
+
+    /**
+     * Builds a one-line-per-lane summary.
+     * @return summary text
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Lane, LaneExecutor> e : lanes.entrySet()) {
+            LaneExecutor l = e.getValue();
+            sb.append(String.format("%s: active=%d queued=%d completed=%d rejected=%d sloViolations=%d%n",
+                    e.getKey(), l.executor.getActiveCount(), l.executor.getQueue().size(),
+                    l.completed.sum(), l.rejected.sum(), l.sloViolations.sum()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stops accepting tasks; queued tasks still run.
+     */
+    public void shutdown() {
+        for (LaneExecutor l : lanes.values()) {
+            l.executor.shutdown();
+        }
+    }
+}
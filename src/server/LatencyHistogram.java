@@ -0,0 +1,126 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import entities.LatencySummary;
+
+/**
+ * LatencyHistogram is a lock-free, fixed-size latency histogram in the style
+ * of HdrHistogram. Values are recorded in microseconds into log-linear
+ * buckets: every power-of-two range is split into 64 linear sub-buckets, so
+ * any recorded value is reproduced within 1.6% while the whole range from
+ * 1 microsecond to about 12 days fits in ~2,200 counters.
+ *
+ * Recording is a single atomic increment and never allocates.
+ */
+public class LatencyHistogram {
+
+    /** Values below this are counted exactly */
+    private static final int LINEAR_BUCKETS = 128;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 34;
+    private static final long MAX_VALUE = (2L * SUB_BUCKETS << MAX_MAGNITUDE) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_BUCKETS + MAX_MAGNITUDE * SUB_BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Records one latency.
+     * @param nanos Latency in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    /**
+     * Records one latency.
+     * @param micros Latency in microseconds
+     */
+    public void recordMicros(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        maxMicros.accumulate(value);
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (magnitude - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns a representative value (the middle) of a bucket.
+     */
+    private static long valueOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int magnitude = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return (subBucket << magnitude) + (1L << (magnitude - 1));
+    }
+
+    /**
+     * Returns the number of recorded values.
+     * @return value count
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Returns the value at a percentile of the recorded values.
+     * @param percentile Percentile between 0 and 100
+     * @return value in microseconds, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        return valuesAtPercentiles(percentile)[0];
+    }
+
+    /**
+     * Returns the values at several percentiles in one pass over the buckets.
+     */
+    private long[] valuesAtPercentiles(double... percentiles) {
+        long[] result = new long[percentiles.length];
+        long total = 0;
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return result;
+        }
+        long max = maxMicros.get();
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    result[p] = Math.min(valueOf(i), max);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds a serializable summary with p50, p99, p99.9 and max.
+     * @param name Name of the summarized operation
+     * @return latency summary
+     */
+    public LatencySummary summarize(String name) {
+        long[] values = valuesAtPercentiles(50, 99, 99.9);
+        return new LatencySummary(name, getCount(), values[0], values[1], values[2], maxMicros.get());
+    }
+}
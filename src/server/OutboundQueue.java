@@ -0,0 +1,270 @@
+package server;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import entities.Message.MessageType;
+import ocsf.server.ConnectionToClient;
+
+/**
+ * OutboundQueue is a bounded queue of encoded messages for one client,
+ * drained asynchronously so that a client that stops reading only blocks its
+ * own drain task, never the thread handling requests.
+ *
+ * When the queue is full the configured {@link OverflowPolicy} decides what
+ * happens. Only snapshot pushes such as availability and status may be
+ * dropped or coalesced; a reply to a request (a reservation code, an entry
+ * result, a stream chunk the client granted credit for) is never dropped.
+ * If the queue is still full after discarding snapshots, the client is too
+ * slow to keep up and is disconnected. A single message larger than the
+ * byte limit is accepted into an empty queue.
+ */
+public class OutboundQueue {
+
+    /** What to do when a message is offered to a full queue */
+    public enum OverflowPolicy {
+        /** Drop the oldest queued snapshot to make room */
+        DROP_STALE,
+        /** Replace an older queued snapshot of the same type, else drop the oldest snapshot */
+        COALESCE,
+        /** Close the connection; the client is too slow to keep up */
+        DISCONNECT
+    }
+
+    /** Maximum queued messages per client */
+    public static final int MAX_MESSAGES = Integer.getInteger("bpark.outbound.maxMessages", 256);
+    /** Maximum queued bytes per client */
+    public static final long MAX_BYTES = Long.getLong("bpark.outbound.maxBytes", 4L * 1024 * 1024);
+    /** Overflow policy for all clients */
+    public static final OverflowPolicy POLICY =
+            OverflowPolicy.valueOf(System.getProperty("bpark.outbound.policy", OverflowPolicy.COALESCE.name()));
+
+    /**
+     * Message types that carry a full snapshot of some state which clients
+     * poll periodically, so only the newest queued one matters and an
+     * overflowing queue may drop them.
+     */
+    private static final Set<MessageType> SNAPSHOTS = EnumSet.of(
+            MessageType.PARKING_AVAILABILITY_RESPONSE,
+            MessageType.SYSTEM_STATUS_RESPONSE);
+
+    /**
+     * One encoded message waiting to be written.
+     */
+    private static class Pending {
+        final MessageType type; // null for a text message
+        final Object payload;
+        final int size;
+
+        Pending(MessageType type, Object payload, int size) {
+            this.type = type;
+            this.payload = payload;
+            this.size = size;
+        }
+
+        boolean isSnapshot() {
+            return type != null && SNAPSHOTS.contains(type);
+        }
+    }
+
+    private final ConnectionToClient client;
+    private final ExecutorService drainer;
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private long queuedBytes = 0;
+    private boolean draining = false;
+    private boolean closed = false;
+
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Creates the outbound queue of a client.
+     * @param client Client the queue writes to
+     * @param drainer Executor running the drain tasks
+     */
+    public OutboundQueue(ConnectionToClient client, ExecutorService drainer) {
+        this.client = client;
+        this.drainer = drainer;
+    }
+
+    /**
+     * Queues an encoded message and starts a drain task if none is running.
+     * @param type Message type, used for coalescing
+     * @param payload Encoded message
+     * @return false if the message was rejected because the queue is closed
+     */
+    public boolean offer(MessageType type, byte[] payload) {
+        return offer(new Pending(type, payload, payload.length));
+    }
+
+    /**
+     * Queues a plain text message, e.g. an error reply to a text command.
+     * Text messages are never dropped.
+     * @param text Text to send
+     * @return false if the message was rejected because the queue is closed
+     */
+    public boolean offerText(String text) {
+        return offer(new Pending(null, text, text.length() * 2));
+    }
+
+    private boolean offer(Pending message) {
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (!queue.isEmpty() && !fits(message)) {
+                switch (POLICY) {
+                    case COALESCE:
+                        if (message.isSnapshot() && replace(message)) {
+                            return true;
+                        }
+                        disconnect = !makeRoom(message);
+                        break;
+                    case DROP_STALE:
+                        disconnect = !makeRoom(message);
+                        break;
+                    default:
+                        disconnect = true;
+                        break;
+                }
+                if (!disconnect && !fits(message)) {
+                    // The new message is itself a snapshot and there was no room for it
+                    dropped.incrementAndGet();
+                    return true;
+                }
+            }
+            if (!disconnect) {
+                queue.addLast(message);
+                queuedBytes += message.size;
+                if (!draining) {
+                    draining = true;
+                    drainer.execute(this::drain);
+                }
+            }
+        }
+        if (disconnect) {
+            System.err.println("Outbound queue full for " + client + ", disconnecting");
+            close();
+            try {
+                client.close();
+            } catch (IOException e) {
+                System.err.println("Error closing slow client: " + e.getMessage());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean fits(Pending message) {
+        return queue.size() < MAX_MESSAGES && queuedBytes + message.size <= MAX_BYTES;
+    }
+
+    /**
+     * Replaces the newest queued message of the same type.
+     */
+    private boolean replace(Pending message) {
+        Iterator<Pending> it = queue.descendingIterator();
+        while (it.hasNext()) {
+            Pending pending = it.next();
+            if (pending.type == message.type) {
+                it.remove();
+                queuedBytes -= pending.size;
+                queue.addLast(message);
+                queuedBytes += message.size;
+                coalesced.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops queued snapshots, oldest first, until the message fits. A new
+     * snapshot may instead be dropped itself by the caller.
+     * @return false if the message is not a snapshot and still does not fit
+     */
+    private boolean makeRoom(Pending message) {
+        Iterator<Pending> it = queue.iterator();
+        while (!fits(message) && it.hasNext()) {
+            Pending pending = it.next();
+            if (pending.isSnapshot()) {
+                it.remove();
+                queuedBytes -= pending.size;
+                dropped.incrementAndGet();
+            }
+        }
+        return fits(message) || message.isSnapshot();
+    }
+
+    /**
+     * Writes queued messages until the queue is empty.
+     */
+    private void drain() {
+        while (true) {
+            Pending next;
+            synchronized (this) {
+                next = queue.pollFirst();
+                if (next == null || closed) {
+                    draining = false;
+                    return;
+                }
+                queuedBytes -= next.size;
+            }
+            try {
+                client.sendToClient(next.payload);
+                bytesSent.addAndGet(next.size);
+                messagesSent.incrementAndGet();
+            } catch (IOException e) {
+                System.err.println("Error sending to " + client + ": " + e.getMessage());
+                close();
+            }
+        }
+    }
+
+    /**
+     * Discards queued messages and rejects new ones.
+     */
+    public synchronized void close() {
+        closed = true;
+        queue.clear();
+        queuedBytes = 0;
+    }
+
+    public synchronized int getDepth() {
+        return queue.size();
+    }
+
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth=%d queuedBytes=%d sent=%d bytesSent=%d dropped=%d coalesced=%d",
+                getDepth(), getQueuedBytes(), getMessagesSent(), getBytesSent(), getDropped(), getCoalesced());
+    }
+}
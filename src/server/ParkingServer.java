@@ -1,30 +1,50 @@
 package server;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.InetAddress;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+import common.Logger;
+import common.MessageCodec;
 import controllers.ParkingController;
 import controllers.ReportController;
+import entities.ExportRequest;
+import entities.ExtensionRequest;
+import entities.LoginRequest;
 import entities.Message;
 import entities.Message.MessageType;
+import entities.OccupancyRangeRequest;
+import entities.OccupancySeries;
+import entities.ParkingHistoryPage;
+import entities.ParkingHistoryPageRequest;
 import entities.ParkingOrder;
 import entities.ParkingReport;
 import entities.ParkingSubscriber;
+import entities.ProfileUpdateRequest;
+import entities.RegistrationRequest;
+import entities.ReservationCodeRequest;
+import entities.ReservationRequest;
+import entities.SessionQuery;
+import entities.SessionQueryResult;
+import entities.StreamCredit;
+import entities.StreamRequest;
+import entities.SystemStatus;
 import ocsf.server.AbstractServer;
 import ocsf.server.ConnectionToClient;
 import serverGUI.ServerPortFrame;
+import services.DemandForecastService;
 
 /**
  * ParkingServer handles client-server communication using singleton pattern.
@@ -32,6 +52,10 @@ import serverGUI.ServerPortFrame;
  */
 public class ParkingServer extends AbstractServer {
 
+    private static final Logger LOG = Logger.get("server");
+    /** Per-request lines, limited so they cannot throttle the server under load */
+    private static final Logger REQUEST_LOG = Logger.getSampled("server.requests", 20);
+
     public static final Integer DEFAULT_PORT = 5555;
     private static ParkingServer instance;
     
@@ -40,11 +64,40 @@ public class ParkingServer extends AbstractServer {
     public static ServerPortFrame spf;
 
     private final Map<ConnectionToClient, String> clientsMap = new HashMap<>();
+    private final StreamManager streamManager = new StreamManager(this::send);
+    private final CompressionStats compressionStats = new CompressionStats();
+    private static final String COMPRESSION_INFO = "compression";
+    private final Map<ConnectionToClient, OutboundQueue> outboundQueues = new ConcurrentHashMap<>();
+    private final ExecutorService outboundDrainer = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "bpark-outbound");
+        t.setDaemon(true);
+        return t;
+    });
     public static String serverIp;
 
+    private final LaneDispatcher laneDispatcher = new LaneDispatcher();
+    private final HandlerRegistry handlers = new HandlerRegistry();
+    private final TrafficRecorder trafficRecorder = TrafficRecorder.getInstance();
+    /** Held while handling requests that change parking state, which used to run under the server lock */
+    private final ReentrantLock stateLock = new ReentrantLock();
+
+    private static final long GATE_TIMEOUT_MILLIS = 2_000;
+    private static final long INTERACTIVE_TIMEOUT_MILLIS = 5_000;
+    private static final long REPORTING_TIMEOUT_MILLIS = 30_000;
+
     private ScheduledExecutorService connectionPoolTimer;
     private static final int POOL_SIZE = 5;
     private static final int TIMER_INTERVAL = 30;
+    private static final int AVAILABILITY_REFRESH_INTERVAL = 5;
+    private static final int MONTH_CLOSE_INTERVAL_MINUTES = 60;
+    private static final int EXPORT_CLEANUP_INTERVAL_MINUTES = 60;
+
+    /** Last known free spot count, so status requests never query the database */
+    private volatile int cachedAvailableSpots = -1;
+    /** Set when a state-changing handler ran since the last availability refresh */
+    private volatile boolean availabilityStale = true;
+    /** Spots freed by the auto-cancellation sweeper as of the last availability refresh */
+    private volatile long sweeperSpotChanges = 0;
 
     /**
      * Private constructor for singleton pattern.
@@ -57,6 +110,7 @@ public class ParkingServer extends AbstractServer {
         } catch (Exception e) {
             System.err.println("Error getting server IP: " + e.getMessage());
         }
+        registerHandlers();
         initializeConnectionPool();
     }
     
@@ -90,7 +144,109 @@ public class ParkingServer extends AbstractServer {
                 System.out.println("Client Status - Active clients: " + clientsMap.size());
                 cleanupInactiveConnections();
             }
+            outboundQueues.forEach((client, queue) -> {
+                if (queue.getDepth() > 0 || queue.getDropped() > 0) {
+                    System.out.println("Outbound " + client + ": " + queue);
+                }
+            });
+            streamManager.closeIdleStreams();
+            System.out.print("Lanes:\n" + laneDispatcher.summary());
+            System.out.print(handlers.summary());
+            String compression = compressionStats.summary();
+            if (!compression.isEmpty()) {
+                System.out.print("Compression stats:\n" + compression);
+            }
         }, 0, TIMER_INTERVAL, TimeUnit.SECONDS);
+        connectionPoolTimer.scheduleWithFixedDelay(this::refreshAvailability,
+                AVAILABILITY_REFRESH_INTERVAL, AVAILABILITY_REFRESH_INTERVAL, TimeUnit.SECONDS);
+        connectionPoolTimer.scheduleWithFixedDelay(this::freezeClosedMonths,
+                1, MONTH_CLOSE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        connectionPoolTimer.schedule(this::refreshDemandForecast, 1, TimeUnit.MINUTES);
+        connectionPoolTimer.scheduleAtFixedRate(this::refreshDemandForecast,
+                DemandForecastService.getInstance().untilNextRefresh().toMinutes(), TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        if (reportController != null) {
+            int sampleSeconds = reportController.getOccupancySampleSeconds();
+            connectionPoolTimer.scheduleAtFixedRate(this::sampleOccupancy, sampleSeconds, sampleSeconds, TimeUnit.SECONDS);
+            connectionPoolTimer.scheduleWithFixedDelay(this::deleteExpiredExports,
+                    1, EXPORT_CLEANUP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Deletes export files older than their retention period.
+     */
+    private void deleteExpiredExports() {
+        try {
+            reportController.deleteExpiredExports();
+        } catch (RuntimeException e) {
+            System.err.println("Error deleting expired exports: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records one occupancy sample for the occupancy history.
+     */
+    private void sampleOccupancy() {
+        try {
+            reportController.sampleOccupancy();
+        } catch (RuntimeException e) {
+            System.err.println("Error sampling occupancy: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Refits the reservation demand forecast; runs once after startup and
+     * then daily off-peak.
+     */
+    private void refreshDemandForecast() {
+        if (parkingController == null) {
+            return;
+        }
+        try {
+            parkingController.refreshDemandForecast();
+        } catch (RuntimeException e) {
+            System.err.println("Error refreshing demand forecast: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the monthly reports of months that have closed, so requests for
+     * past months are answered from the reports table instead of parkinginfo.
+     */
+    private void freezeClosedMonths() {
+        if (reportController == null) {
+            return;
+        }
+        try {
+            int frozen = reportController.freezeClosedMonths(Integer.getInteger("bpark.report.freezeMonths", 12));
+            if (frozen > 0) {
+                System.out.println("Stored monthly reports of " + frozen + " closed month(s)");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error storing closed monthly reports: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads the free spot count if parking state changed since the last read,
+     * through a client request or the auto-cancellation sweeper.
+     */
+    private void refreshAvailability() {
+        if (parkingController == null) {
+            return;
+        }
+        long sweeperChanges = parkingController.getAutoCancellationSpotChanges();
+        if (!availabilityStale && sweeperChanges == sweeperSpotChanges) {
+            return;
+        }
+        sweeperSpotChanges = sweeperChanges;
+        availabilityStale = false;
+        try {
+            cachedAvailableSpots = parkingController.getAvailableParkingSpots();
+        } catch (RuntimeException e) {
+            availabilityStale = true;
+            System.err.println("Error refreshing available spots: " + e.getMessage());
+        }
     }
 
     /**
@@ -98,23 +254,98 @@ public class ParkingServer extends AbstractServer {
      */
     private synchronized void cleanupInactiveConnections() {
         clientsMap.entrySet().removeIf(entry -> !entry.getKey().isAlive());
+        outboundQueues.entrySet().removeIf(entry -> {
+            if (!entry.getKey().isAlive()) {
+                entry.getValue().close();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Registers the handler of every supported message type.
+     */
+    private void registerHandlers() {
+        // Gate and kiosk operations
+        handlers.register(MessageType.KIOSK_ID_LOGIN, Lane.GATE, GATE_TIMEOUT_MILLIS, "kiosk.login.id", false, this::handleKioskIdLogin);
+        handlers.register(MessageType.KIOSK_RF_LOGIN, Lane.GATE, GATE_TIMEOUT_MILLIS, "kiosk.login.rf", false, this::handleKioskRFLogin);
+        handlers.register(MessageType.ENTER_PARKING_KIOSK, Lane.GATE, GATE_TIMEOUT_MILLIS, "kiosk.enter", true, this::handleEnterParkingKiosk);
+        handlers.register(MessageType.RETRIEVE_CAR_KIOSK, Lane.GATE, GATE_TIMEOUT_MILLIS, "kiosk.retrieve", true, this::handleRetrieveCarKiosk);
+        handlers.register(MessageType.FORGOT_CODE_KIOSK, Lane.GATE, GATE_TIMEOUT_MILLIS, "kiosk.forgotCode", false, this::handleForgotCodeKiosk);
+        handlers.register(MessageType.ACTIVATE_RESERVATION_KIOSK, Lane.GATE, GATE_TIMEOUT_MILLIS, "kiosk.activate", true, this::handleActivateReservationKiosk);
+        handlers.register(MessageType.ENTER_PARKING, Lane.GATE, GATE_TIMEOUT_MILLIS, "parking.enter", true, this::handleEnterParking);
+        handlers.register(MessageType.EXIT_PARKING, Lane.GATE, GATE_TIMEOUT_MILLIS, "parking.exit", true, this::handleExitParking);
+        handlers.register(MessageType.ACTIVATE_RESERVATION, Lane.GATE, GATE_TIMEOUT_MILLIS, "reservation.activate", true, this::handleActivateReservation);
+        handlers.register(MessageType.CHECK_PARKING_AVAILABILITY, Lane.GATE, GATE_TIMEOUT_MILLIS, "parking.availability", false, this::handleCheckAvailability);
+
+        // Subscriber and attendant operations
+        handlers.register(MessageType.SUBSCRIBER_LOGIN, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "subscriber.login", false, this::handleSubscriberLogin);
+        handlers.register(MessageType.RESERVE_PARKING, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "reservation.reserve", true, this::handleReserveParking);
+        handlers.register(MessageType.REGISTER_SUBSCRIBER, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "subscriber.register", true, this::handleRegisterSubscriber);
+        handlers.register(MessageType.REQUEST_LOST_CODE, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "subscriber.lostCode", false, this::handleRequestLostCode);
+        handlers.register(MessageType.GET_PARKING_HISTORY_PAGE, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "history.page", false, this::handleGetParkingHistoryPage);
+        handlers.register(MessageType.UPDATE_SUBSCRIBER_INFO, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "subscriber.update", true, this::handleUpdateSubscriberInfo);
+        handlers.register(MessageType.CANCEL_RESERVATION, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "reservation.cancel", true, this::handleCancelReservation);
+        handlers.register(MessageType.GET_SUBSCRIBER_BY_NAME, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "subscriber.byName", false, this::handleGetSubscriberByName);
+        handlers.register(MessageType.REQUEST_EXTENSION, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "parking.extend", true, this::handleRequestExtension);
+        handlers.register(MessageType.REQUEST_SUBSCRIBER_DATA, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "subscriber.data", false, this::handleRequestSubscriberData);
+        handlers.register(MessageType.GET_SYSTEM_STATUS, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "system.status", false, this::handleGetSystemStatus);
+        handlers.register(MessageType.GET_LIVE_ACTIVITY, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "analytics.live", false, this::handleGetLiveActivity);
+        handlers.register(MessageType.NEGOTIATE_COMPRESSION, Lane.INTERACTIVE, INTERACTIVE_TIMEOUT_MILLIS, "connection.compression", false, this::handleNegotiateCompression);
+
+        // Reports, listings and streams
+        handlers.register(MessageType.GET_PARKING_HISTORY, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "history.full", false, this::handleGetParkingHistory);
+        handlers.register(MessageType.MANAGER_GET_REPORTS, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "reports.get", false, this::handleManagerGetReports);
+        handlers.register(MessageType.GET_ACTIVE_PARKINGS, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "parking.active", false, this::handleGetActiveParkings);
+        handlers.register(MessageType.GENERATE_MONTHLY_REPORTS, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "reports.monthly", false, this::handleGenerateMonthlyReports);
+        handlers.register(MessageType.QUERY_SESSIONS, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "analytics.sessions", false, this::handleQuerySessions);
+        handlers.register(MessageType.GET_OCCUPANCY_SERIES, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "analytics.occupancy", false, this::handleGetOccupancySeries);
+        handlers.register(MessageType.EXPORT_DATA, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "export.data", false, this::handleExportData);
+        handlers.register(MessageType.GET_ALL_SUBSCRIBERS, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "subscriber.all", false, this::handleGetAllSubscribers);
+        handlers.register(MessageType.OPEN_STREAM, Lane.REPORTING, REPORTING_TIMEOUT_MILLIS, "stream.open", false,
+                (message, client) -> handleOpenStream((StreamRequest) message.getContent(), client));
     }
 
     /**
      * Handles incoming messages from clients.
+     * Messages are decoded on the client's connection thread and then scheduled
+     * in the lane of their handler, so gate operations never wait behind reports.
+     * Stream credits are applied on the connection thread, since they must never
+     * be rejected and only pace the client's own stream.
      * @param msg Message object from client
      * @param client Client connection
      */
-    public synchronized void handleMessageFromClient(Object msg, ConnectionToClient client) {
-        System.out.println("Message received: " + msg + " from " + client);
-
+    public void handleMessageFromClient(Object msg, ConnectionToClient client) {
         try {
+            byte[] frame = null;
             if (msg instanceof byte[]) {
-                msg = deserialize(msg);
+                frame = (byte[]) msg;
+                msg = MessageCodec.deserialize(frame, Boolean.TRUE.equals(client.getInfo(COMPRESSION_INFO)));
+            }
+            REQUEST_LOG.info("Message received: {} from {}", msg, client);
+            if (trafficRecorder.isRecording()) {
+                capture(frame, msg, client);
             }
 
             if (msg instanceof Message) {
-                handleMessageObject((Message) msg, client);
+                Message message = (Message) msg;
+                if (message.getType() == MessageType.STREAM_CREDIT) {
+                    // Flow control is handled on the connection thread: a rejected
+                    // credit would stall the stream until it is closed as idle
+                    streamManager.onCredit(client, (StreamCredit) message.getContent());
+                    return;
+                }
+                HandlerRegistry.Registration registration = handlers.get(message.getType());
+                if (registration == null) {
+                    LOG.warn("Unknown message type: {}", message.getType());
+                    return;
+                }
+                long received = System.nanoTime();
+                if (!laneDispatcher.submit(registration.getLane(), () -> dispatch(registration, message, client, received))) {
+                    LOG.warn("Lane {} saturated, rejecting {}", registration.getLane(), message.getType());
+                    send(client, new Message(MessageType.SERVER_BUSY, message.getType()));
+                }
             } else if (msg instanceof String) {
                 handleStringMessage((String) msg, client);
             }
@@ -125,230 +356,296 @@ public class ParkingServer extends AbstractServer {
         }
     }
 
-    private synchronized void handleMessageObject(Message message, ConnectionToClient client) throws IOException {
+    /**
+     * Runs a message handler on a lane thread. Requests that waited longer than
+     * their handler's timeout are dropped, since the client has given up on them.
+     * Each request is reported as a flight recorder event when recording.
+     */
+    private void dispatch(HandlerRegistry.Registration registration, Message message,
+                          ConnectionToClient client, long received) {
+        ServerEvents.MessageDispatch event = new ServerEvents.MessageDispatch();
+        event.begin();
+        try {
+            long waitedMillis = (System.nanoTime() - received) / 1_000_000;
+            if (waitedMillis > registration.getTimeoutMillis()) {
+                registration.recordTimeout();
+                commitDispatchEvent(event, registration, client, System.nanoTime() - received, 0, false, true);
+                LOG.warn("Dropping {} after waiting {}ms", message.getType(), waitedMillis);
+                send(client, new Message(MessageType.SERVER_BUSY, message.getType()));
+                return;
+            }
+
+            if (registration.changesState()) {
+                stateLock.lock();
+            }
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                registration.getHandler().handle(message, client);
+            } catch (Exception e) {
+                failed = true;
+                LOG.error("Handler " + registration.getMetricsName() + " failed", e);
+                send(client, new Message(MessageType.KIOSK_LOGIN_RESPONSE, "Server error"));
+            } finally {
+                if (registration.changesState()) {
+                    stateLock.unlock();
+                    availabilityStale = true;
+                }
+                long end = System.nanoTime();
+                registration.recordExecution(end - start, failed);
+                ServerMetrics.getInstance().recordMessage(message.getType(), end - received);
+                commitDispatchEvent(event, registration, client, start - received, end - start, failed, false);
+            }
+        } catch (IOException e) {
+            System.err.println("Error responding to " + message.getType() + ": " + e.getMessage());
+        }
+    }
+
+    private static void commitDispatchEvent(ServerEvents.MessageDispatch event, HandlerRegistry.Registration registration,
+                                            ConnectionToClient client, long queueNanos, long serviceNanos,
+                                            boolean failed, boolean dropped) {
+        if (event.shouldCommit()) {
+            event.messageType = registration.getType().name();
+            event.lane = registration.getLane().name();
+            event.client = String.valueOf(client);
+            event.queueTime = queueNanos;
+            event.serviceTime = serviceNanos;
+            event.failed = failed;
+            event.dropped = dropped;
+            event.commit();
+        }
+    }
+
+    private void handleSubscriberLogin(Message message, ConnectionToClient client) throws IOException {
+        LoginRequest login = (LoginRequest) message.getContent();
+        ParkingSubscriber subscriber = parkingController.getUserInfo(login.getUserName());
+
         Message ret;
+        if (subscriber != null && subscriber.getSubscriberID() == login.getUserID()) {
+            ret = new Message(MessageType.SUBSCRIBER_LOGIN_RESPONSE, subscriber);
+        } else {
+            ret = new Message(MessageType.SUBSCRIBER_LOGIN_RESPONSE, null);
+        }
 
-        try {
-            switch (message.getType()) {
-                case KIOSK_ID_LOGIN:
-                    handleKioskIdLogin(message, client);
-                    break;
+        send(client, ret);
+    }
 
-                case KIOSK_RF_LOGIN:
-                    handleKioskRFLogin(message, client);
-                    break;
+    private void handleCheckAvailability(Message message, ConnectionToClient client) throws IOException {
+        int availableSpots = parkingController.getAvailableParkingSpots();
+        cachedAvailableSpots = availableSpots;
+        send(client, new Message(MessageType.PARKING_AVAILABILITY_RESPONSE, availableSpots));
+    }
 
-                case ENTER_PARKING_KIOSK:
-                    handleEnterParkingKiosk(message, client);
-                    break;
+    private void handleReserveParking(Message message, ConnectionToClient client) throws IOException {
+        String reservationResult = parkingController.makeReservation((ReservationRequest) message.getContent());
+        send(client, new Message(MessageType.RESERVATION_RESPONSE, reservationResult));
+    }
 
-                case RETRIEVE_CAR_KIOSK:
-                    handleRetrieveCarKiosk(message, client);
-                    break;
+    private void handleRegisterSubscriber(Message message, ConnectionToClient client) throws IOException {
+        RegistrationRequest request = (RegistrationRequest) message.getContent();
+        String registrationResult = parkingController.registerNewSubscriber(request.getAttendantUserName(),
+                request.getName(), request.getPhone(), request.getEmail(), request.getCarNumber(),
+                request.getUserName());
+        send(client, new Message(MessageType.REGISTRATION_RESPONSE, registrationResult));
+    }
 
-                case FORGOT_CODE_KIOSK:
-                    handleForgotCodeKiosk(message, client);
-                    break;
+    private void handleRequestLostCode(Message message, ConnectionToClient client) throws IOException {
+        String lostCodeUserName = (String) message.getContent();
+        String lostCodeResult = parkingController.sendLostParkingCode(lostCodeUserName);
+        send(client, new Message(MessageType.LOST_CODE_RESPONSE, lostCodeResult));
+    }
 
-                case ACTIVATE_RESERVATION_KIOSK:
-                    handleActivateReservationKiosk(message, client);
-                    break;
+    private void handleGetParkingHistory(Message message, ConnectionToClient client) throws IOException {
+        String historyUserName = (String) message.getContent();
+        ArrayList<ParkingOrder> history = parkingController.getParkingHistory(historyUserName);
+        send(client, new Message(MessageType.PARKING_HISTORY_RESPONSE, history));
+    }
 
-                case SUBSCRIBER_LOGIN:
-    				String[] loginParts = ((String) message.getContent()).split(",");
-    				if (loginParts.length < 2) {
-    					ret = new Message(MessageType.SUBSCRIBER_LOGIN_RESPONSE, "ERROR: Missing username or user code");
-    					client.sendToClient(serialize(ret));
-    					break;
-    				}
-
-    				String username = loginParts[0].trim();
-    				String userCode = loginParts[1].trim();
-
-    				ParkingSubscriber subscriber = parkingController.getUserInfo(username);
-
-    				if (subscriber != null && String.valueOf(subscriber.getSubscriberID()).equals(userCode)) {
-    					ret = new Message(MessageType.SUBSCRIBER_LOGIN_RESPONSE, subscriber);
-    				} else {
-    					ret = new Message(MessageType.SUBSCRIBER_LOGIN_RESPONSE, null);
-    				}
-
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case CHECK_PARKING_AVAILABILITY:
-    				int availableSpots = parkingController.getAvailableParkingSpots();
-    				ret = new Message(MessageType.PARKING_AVAILABILITY_RESPONSE, availableSpots);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case RESERVE_PARKING:
-    				String[] reservationData = ((String) message.getContent()).split(",");
-    				String reservationUserName = reservationData[0]; // ← RENAMED
-    				String reservationDate = reservationData[1];
-    				String reservationResult = parkingController.makeReservation(reservationUserName, reservationDate);
-    				ret = new Message(MessageType.RESERVATION_RESPONSE, reservationResult);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case REGISTER_SUBSCRIBER:
-    				// Expected format: "attendantUserName,name,phone,email,carNumber,userName"
-    				String registrationData = (String) message.getContent();
-    				String[] regParts = registrationData.split(",");
-
-    				if (regParts.length >= 6) {
-    					String attendantUserName = regParts[0].trim();
-    					String name = regParts[1].trim();
-    					String phone = regParts[2].trim();
-    					String email = regParts[3].trim();
-    					String carNumber = regParts[4].trim();
-    					String subscriberUserName = regParts[5].trim(); // ← RENAMED
-
-    					String registrationResult = parkingController.registerNewSubscriber(attendantUserName, name, phone,
-    							email, carNumber, subscriberUserName);
-    					ret = new Message(MessageType.REGISTRATION_RESPONSE, registrationResult);
-    				} else {
-    					ret = new Message(MessageType.REGISTRATION_RESPONSE, "ERROR: Invalid registration data format");
-    				}
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case REQUEST_LOST_CODE:
-    				String lostCodeUserName = (String) message.getContent(); // ← RENAMED
-    				String lostCodeResult = parkingController.sendLostParkingCode(lostCodeUserName);
-    				ret = new Message(MessageType.LOST_CODE_RESPONSE, lostCodeResult);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case GET_PARKING_HISTORY:
-    				String historyUserName = (String) message.getContent(); // ← RENAMED
-    				ArrayList<ParkingOrder> history = parkingController.getParkingHistory(historyUserName);
-    				ret = new Message(MessageType.PARKING_HISTORY_RESPONSE, history);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case MANAGER_GET_REPORTS:
-    				String reportType = (String) message.getContent();
-    				ArrayList<ParkingReport> reports = reportController.getParkingReports(reportType);
-    				ret = new Message(MessageType.MANAGER_SEND_REPORTS, reports);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case GET_ACTIVE_PARKINGS:
-    				ArrayList<ParkingOrder> activeParkings = parkingController.getActiveParkings();
-    				ret = new Message(MessageType.ACTIVE_PARKINGS_RESPONSE, activeParkings);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case UPDATE_SUBSCRIBER_INFO:
-    				String updateResult = parkingController.updateSubscriberInfo((String) message.getContent());
-    				ret = new Message(MessageType.UPDATE_SUBSCRIBER_RESPONSE, updateResult);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case GENERATE_MONTHLY_REPORTS:
-    				String monthYear = (String) message.getContent();
-    				ArrayList<ParkingReport> monthlyReports = reportController.generateMonthlyReports(monthYear);
-    				ret = new Message(MessageType.MONTHLY_REPORTS_RESPONSE, monthlyReports);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case CANCEL_RESERVATION:
-    				// Expected format: "userName,reservationCode"
-    				String[] cancelData = ((String) message.getContent()).split(",", 2);
-    				if (cancelData.length != 2) {
-    					ret = new Message(MessageType.CANCELLATION_RESPONSE, "ERROR: Invalid cancellation data format");
-    				} else {
-    					try {
-    						String cancelUserName = cancelData[0].trim();
-    						int reservationCode = Integer.parseInt(cancelData[1].trim());
-    						String cancelResult = parkingController.cancelReservation(cancelUserName, reservationCode);
-    						ret = new Message(MessageType.CANCELLATION_RESPONSE, cancelResult);
-    					} catch (NumberFormatException e) {
-    						ret = new Message(MessageType.CANCELLATION_RESPONSE, "ERROR: Invalid reservation code format");
-    					}
-    				}
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case GET_SUBSCRIBER_BY_NAME:
-    				String subscriberName = (String) message.getContent();
-    				subscriber = parkingController.getSubscriberByName(subscriberName);
-    				ret = new Message(MessageType.SHOW_SUBSCRIBER_DETAILS, subscriber);
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case GET_ALL_SUBSCRIBERS:
-    				List<ParkingSubscriber> allSubs = parkingController.getAllSubscribers();
-    				Message response = new Message(MessageType.SHOW_ALL_SUBSCRIBERS, (Serializable) allSubs);
-    				client.sendToClient(serialize(response)); // ← נכון
-    				break;
-
-    			case REQUEST_EXTENSION:
-    				try {
-    					String[] parts = ((String) message.getContent()).split(",");
-    					if (parts.length != 2) {
-    						ret = new Message(MessageType.EXTENSION_RESPONSE, "Invalid extension format.");
-    					} else {
-    						String parkingCode = parts[0].trim();
-    						int additionalHours = Integer.parseInt(parts[1].trim());
-    						String result = parkingController.extendParkingTime(parkingCode, additionalHours);
-
-    						ret = new Message(MessageType.EXTENSION_RESPONSE, result);
-    					}
-    				} catch (NumberFormatException e) {
-    					ret = new Message(MessageType.EXTENSION_RESPONSE, "Invalid number format for extension hours.");
-    				}
-    				client.sendToClient(serialize(ret));
-    				break;
-
-    			case REQUEST_SUBSCRIBER_DATA: {
-    				String userName = (String) message.getContent();
-    				ParkingSubscriber userInfo = parkingController.getUserInfo(userName); // use your DB instance
-    				response = new Message(MessageType.SUBSCRIBER_DATA_RESPONSE, userInfo);
-    				client.sendToClient(response);
-    				break;
-    			}
-    			
-                default:
-                    System.out.println("Unknown message type: " + message.getType());
-                    break;
+    private void handleGetParkingHistoryPage(Message message, ConnectionToClient client) throws IOException {
+        ParkingHistoryPageRequest pageRequest = (ParkingHistoryPageRequest) message.getContent();
+        ParkingHistoryPage historyPage = parkingController.getParkingHistoryPage(pageRequest);
+        send(client, new Message(MessageType.PARKING_HISTORY_PAGE_RESPONSE, historyPage));
+    }
+
+    private void handleManagerGetReports(Message message, ConnectionToClient client) throws IOException {
+        String reportType = (String) message.getContent();
+        ArrayList<ParkingReport> reports = reportController.getParkingReports(reportType);
+        send(client, new Message(MessageType.MANAGER_SEND_REPORTS, reports));
+    }
+
+    private void handleGetActiveParkings(Message message, ConnectionToClient client) throws IOException {
+        ArrayList<ParkingOrder> activeParkings = parkingController.getActiveParkings();
+        send(client, new Message(MessageType.ACTIVE_PARKINGS_RESPONSE, activeParkings));
+    }
+
+    private void handleUpdateSubscriberInfo(Message message, ConnectionToClient client) throws IOException {
+        String updateResult = parkingController.updateSubscriberInfo((ProfileUpdateRequest) message.getContent());
+        send(client, new Message(MessageType.UPDATE_SUBSCRIBER_RESPONSE, updateResult));
+    }
+
+    private void handleGenerateMonthlyReports(Message message, ConnectionToClient client) throws IOException {
+        String monthYear = (String) message.getContent();
+        ArrayList<ParkingReport> monthlyReports = reportController.generateMonthlyReports(monthYear);
+        send(client, new Message(MessageType.MONTHLY_REPORTS_RESPONSE, monthlyReports));
+    }
+
+    private void handleQuerySessions(Message message, ConnectionToClient client) throws IOException {
+        SessionQueryResult result = reportController.querySessions((SessionQuery) message.getContent());
+        send(client, new Message(MessageType.SESSION_QUERY_RESPONSE, result));
+    }
+
+    private void handleGetOccupancySeries(Message message, ConnectionToClient client) throws IOException {
+        OccupancySeries series = reportController.getOccupancySeries((OccupancyRangeRequest) message.getContent());
+        send(client, new Message(MessageType.OCCUPANCY_SERIES_RESPONSE, series));
+    }
+
+    private void handleGetLiveActivity(Message message, ConnectionToClient client) throws IOException {
+        send(client, new Message(MessageType.LIVE_ACTIVITY_RESPONSE, reportController.getLiveActivity()));
+    }
+
+    /**
+     * Queues an export and answers when it is written, so a long export
+     * does not hold a reporting lane thread.
+     */
+    private void handleExportData(Message message, ConnectionToClient client) {
+        reportController.exportData((ExportRequest) message.getContent()).thenAccept(result -> {
+            try {
+                send(client, new Message(MessageType.EXPORT_RESPONSE, result));
+            } catch (IOException e) {
+                System.err.println("Error sending export result: " + e.getMessage());
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            ret = new Message(MessageType.KIOSK_LOGIN_RESPONSE, "Server error");
-            client.sendToClient(serialize(ret));
-        }
+        });
     }
 
-    private void handleKioskIdLogin(Message message, ConnectionToClient client) throws IOException {
-        String combined = (String) message.getContent();
-        String[] parts = combined.split(",");
-        Message ret;
+    private void handleCancelReservation(Message message, ConnectionToClient client) throws IOException {
+        ReservationCodeRequest request = (ReservationCodeRequest) message.getContent();
+        String cancelResult = parkingController.cancelReservation(request.getUserName(), request.getReservationCode());
+        send(client, new Message(MessageType.CANCELLATION_RESPONSE, cancelResult));
+    }
 
-        if (parts.length != 2) {
-            ret = new Message(MessageType.KIOSK_LOGIN_RESPONSE, "");
-            client.sendToClient(serialize(ret));
-            return;
+    private void handleGetSubscriberByName(Message message, ConnectionToClient client) throws IOException {
+        String subscriberName = (String) message.getContent();
+        ParkingSubscriber subscriber = parkingController.getSubscriberByName(subscriberName);
+        send(client, new Message(MessageType.SHOW_SUBSCRIBER_DETAILS, subscriber));
+    }
+
+    private void handleGetAllSubscribers(Message message, ConnectionToClient client) throws IOException {
+        List<ParkingSubscriber> allSubs = parkingController.getAllSubscribers();
+        send(client, new Message(MessageType.SHOW_ALL_SUBSCRIBERS, (Serializable) allSubs));
+    }
+
+    private void handleRequestExtension(Message message, ConnectionToClient client) throws IOException {
+        ExtensionRequest request = (ExtensionRequest) message.getContent();
+        String result = parkingController.extendParkingTime(request.getParkingCode(), request.getAdditionalHours());
+        send(client, new Message(MessageType.EXTENSION_RESPONSE, result));
+    }
+
+    private void handleRequestSubscriberData(Message message, ConnectionToClient client) throws IOException {
+        String userName = (String) message.getContent();
+        ParkingSubscriber userInfo = parkingController.getUserInfo(userName);
+        send(client, new Message(MessageType.SUBSCRIBER_DATA_RESPONSE, userInfo));
+    }
+
+    private void handleNegotiateCompression(Message message, ConnectionToClient client) throws IOException {
+        boolean accepted = MessageCodec.COMPRESSION_ENABLED
+                && Integer.valueOf(MessageCodec.VERSION).equals(message.getContent());
+        client.setInfo(COMPRESSION_INFO, accepted);
+        send(client, new Message(MessageType.COMPRESSION_RESPONSE, accepted));
+    }
+
+    /**
+     * Immediate entry for a subscriber, requested by the subscriber or by an attendant.
+     * Content: subscriber user name.
+     */
+    private void handleEnterParking(Message message, ConnectionToClient client) throws IOException {
+        String userName = ((String) message.getContent()).trim();
+        ParkingSubscriber subscriber = parkingController.getUserInfo(userName);
+        String result;
+        if (subscriber == null) {
+            result = "Subscriber not found: " + userName;
+        } else if (parkingController.isParkingFull()) {
+            result = "Parking is full";
+        } else {
+            result = parkingController.enterParking(subscriber.getSubscriberID());
         }
+        send(client, new Message(MessageType.ENTER_PARKING_RESPONSE, result));
+    }
 
-        String username = parts[0].trim();
-        int userID;
+    /**
+     * Car exit by parking code. Content: parking code.
+     */
+    private void handleExitParking(Message message, ConnectionToClient client) throws IOException {
+        String result;
         try {
-            userID = Integer.parseInt(parts[1].trim());
+            int parkingCode = Integer.parseInt(((String) message.getContent()).trim());
+            result = parkingController.retrieveCarByCode(parkingCode);
         } catch (NumberFormatException e) {
-            ret = new Message(MessageType.KIOSK_LOGIN_RESPONSE, "");
-            client.sendToClient(serialize(ret));
-            return;
+            result = "Invalid parking code format";
+        }
+        send(client, new Message(MessageType.EXIT_PARKING_RESPONSE, result));
+    }
+
+    /**
+     * Activates a pre-booked reservation on arrival.
+     */
+    private void handleActivateReservation(Message message, ConnectionToClient client) throws IOException {
+        ReservationCodeRequest request = (ReservationCodeRequest) message.getContent();
+        String result = parkingController.enterParkingWithReservation(request.getReservationCode());
+        send(client, new Message(MessageType.ACTIVATION_RESPONSE, result));
+    }
+
+    private void handleGetSystemStatus(Message message, ConnectionToClient client) throws IOException {
+        send(client, new Message(MessageType.SYSTEM_STATUS_RESPONSE, getSystemStatus()));
+    }
+
+    /**
+     * Builds a snapshot of the server's state and health: spot availability,
+     * connections, queue depths, DB pool usage and latency percentiles.
+     * Uses only in-memory state, so it is safe to poll while the database is busy.
+     * @return system status snapshot
+     */
+    public SystemStatus getSystemStatus() {
+        int connected;
+        synchronized (clientsMap) {
+            connected = (int) clientsMap.keySet().stream().filter(ConnectionToClient::isAlive).count();
+        }
+        SystemStatus status = new SystemStatus(LocalDateTime.now(), parkingController.getTotalParkingSpots(),
+                cachedAvailableSpots, connected, streamManager.getOpenStreamCount());
+        for (Lane lane : Lane.values()) {
+            status.getLaneQueueDepths().put(lane.name(), laneDispatcher.getQueueDepth(lane));
         }
 
-        String name = parkingController.getNameByUsernameAndUserID(username, userID);
+        int outboundDepth = 0;
+        long bytesSent = 0;
+        for (OutboundQueue queue : outboundQueues.values()) {
+            outboundDepth += queue.getDepth();
+            bytesSent += queue.getBytesSent();
+        }
+        status.setOutboundQueueDepth(outboundDepth);
+        status.setOutboundBytesSent(bytesSent);
+
+        DBController db = DBController.getInstance();
+        status.setDbConnectionsActive(db.getActiveConnections());
+        status.setDbConnectionsIdle(db.getIdleConnections());
+
+        ServerMetrics metrics = ServerMetrics.getInstance();
+        status.setMessageLatencies(metrics.summarizeMessages());
+        status.setDbPoolWait(metrics.summarizeDbPoolWait());
+        status.setDbQuery(metrics.summarizeDbQuery());
+        return status;
+    }
+
+    private void handleKioskIdLogin(Message message, ConnectionToClient client) throws IOException {
+        LoginRequest login = (LoginRequest) message.getContent();
+        Message ret;
+
+        String name = parkingController.getNameByUsernameAndUserID(login.getUserName(), login.getUserID());
         if (name != null) {
-            ret = new Message(MessageType.KIOSK_LOGIN_RESPONSE, name + "," + userID);
+            ret = new Message(MessageType.KIOSK_LOGIN_RESPONSE, name + "," + login.getUserID());
         } else {
             ret = new Message(MessageType.KIOSK_LOGIN_RESPONSE, "");
         }
-        client.sendToClient(serialize(ret));
+        send(client, ret);
     }
 
     private void handleKioskRFLogin(Message message, ConnectionToClient client) throws IOException {
@@ -360,7 +657,7 @@ public class ParkingServer extends AbstractServer {
         } else {
             ret = new Message(MessageType.KIOSK_LOGIN_RESPONSE, "");
         }
-        client.sendToClient(serialize(ret));
+        send(client, ret);
     }
 
     private void handleEnterParkingKiosk(Message message, ConnectionToClient client) throws IOException {
@@ -372,31 +669,101 @@ public class ParkingServer extends AbstractServer {
             String entryResult = parkingController.enterParking(enteringUserID);
             ret = new Message(MessageType.ENTER_PARKING_KIOSK_RESPONSE, entryResult);
         }
-        client.sendToClient(serialize(ret));
+        send(client, ret);
     }
 
     private void handleRetrieveCarKiosk(Message message, ConnectionToClient client) throws IOException {
         int parkingCode = (Integer) message.getContent();
         String retrievalResult = parkingController.retrieveCarByCode(parkingCode);
         Message ret = new Message(MessageType.RETRIEVE_CAR_KIOSK_RESPONSE, retrievalResult);
-        client.sendToClient(serialize(ret));
+        send(client, ret);
     }
 
     private void handleForgotCodeKiosk(Message message, ConnectionToClient client) throws IOException {
         int forgotUserID = (Integer) message.getContent();
         String code = parkingController.sendLostParkingCode(forgotUserID);
         Message ret = new Message(MessageType.FORGOT_CODE_KIOSK_RESPONSE, code);
-        client.sendToClient(serialize(ret));
+        send(client, ret);
     }
 
     private void handleActivateReservationKiosk(Message message, ConnectionToClient client) throws IOException {
         int parkingInfoID = (Integer) message.getContent();
         String activateResult = parkingController.enterParkingWithReservation(parkingInfoID);
         Message ret = new Message(MessageType.ACTIVATE_RESERVATION_KIOSK_RESPONSE, activateResult);
-        client.sendToClient(serialize(ret));
+        send(client, ret);
+    }
+
+    /**
+     * Opens a chunked stream for one of the large result requests.
+     * The result is read from a JDBC cursor chunk by chunk as the client grants credits.
+     */
+    private void handleOpenStream(StreamRequest request, ConnectionToClient client) throws IOException {
+        MessageType responseType;
+        ChunkSource<? extends Serializable> source;
+        int chunkSize = request.getChunkSize();
+
+        switch (request.getRequestType()) {
+            case GET_ALL_SUBSCRIBERS:
+                responseType = MessageType.SHOW_ALL_SUBSCRIBERS;
+                break;
+            case GET_PARKING_HISTORY:
+                responseType = MessageType.PARKING_HISTORY_RESPONSE;
+                break;
+            case GENERATE_MONTHLY_REPORTS:
+                responseType = MessageType.MONTHLY_REPORTS_RESPONSE;
+                break;
+            case DOWNLOAD_EXPORT:
+                responseType = MessageType.EXPORT_FILE_RESPONSE;
+                chunkSize = Math.min(chunkSize, FileChunkSource.MAX_BLOCKS_PER_CHUNK);
+                break;
+            default:
+                streamManager.reject(client, null, "Streaming not supported for " + request.getRequestType());
+                return;
+        }
+
+        boolean download = request.getRequestType() == MessageType.DOWNLOAD_EXPORT;
+        if (download ? !streamManager.canOpenDownload() : !streamManager.canOpenStream()) {
+            streamManager.reject(client, responseType, "Server busy, too many open streams");
+            return;
+        }
+
+        switch (request.getRequestType()) {
+            case GET_ALL_SUBSCRIBERS:
+                source = parkingController.openAllSubscribersCursor();
+                break;
+            case GET_PARKING_HISTORY:
+                source = parkingController.openParkingHistoryCursor((String) request.getArgument());
+                break;
+            case DOWNLOAD_EXPORT:
+                source = reportController.openExportDownload((String) request.getArgument());
+                break;
+            default:
+                source = reportController.openMonthlyReportsCursor((String) request.getArgument());
+                break;
+        }
+
+        if (source == null) {
+            streamManager.reject(client, responseType, "Error reading results");
+            return;
+        }
+        streamManager.open(client, responseType, source, chunkSize, request.getInitialCredits());
+    }
+
+    /**
+     * Appends a decoded request to the traffic capture. Frames are kept as
+     * received; messages sent as plain objects are serialized first.
+     */
+    private void capture(byte[] frame, Object msg, ConnectionToClient client) {
+        if (frame != null) {
+            trafficRecorder.record(client.getId(), frame);
+        } else if (msg instanceof Message) {
+            trafficRecorder.record(client.getId(), MessageCodec.serialize((Message) msg));
+        } else if (msg instanceof String) {
+            trafficRecorder.record(client.getId(), (String) msg);
+        }
     }
 
-    private synchronized void handleStringMessage(String message, ConnectionToClient client) {
+    private void handleStringMessage(String message, ConnectionToClient client) {
         String[] arr = message.split("\\s");
 
         try {
@@ -411,42 +778,63 @@ public class ParkingServer extends AbstractServer {
             }
         } catch (Exception e) {
             e.printStackTrace();
-            try {
-                client.sendToClient("error " + e.getMessage());
-            } catch (IOException ioException) {
-                ioException.printStackTrace();
-            }
+            outboundQueue(client).offerText("error " + e.getMessage());
         }
     }
 
-    private byte[] serialize(Message msg) {
-        try {
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-            ObjectOutputStream out = new ObjectOutputStream(byteStream);
-            out.writeObject(msg);
-            out.flush();
-            return byteStream.toByteArray();
-        } catch (Exception ex) {
-            ex.printStackTrace();
+    /**
+     * Sends a message to a client, compressing it if the connection negotiated
+     * compression and the payload is above the threshold. The message is queued
+     * on the client's outbound queue and written asynchronously.
+     */
+    private void send(ConnectionToClient client, Message msg) throws IOException {
+        byte[] payload = MessageCodec.serialize(msg);
+        if (Boolean.TRUE.equals(client.getInfo(COMPRESSION_INFO)) && MessageCodec.shouldCompress(payload)) {
+            long start = CompressionStats.cpuTime();
+            byte[] compressed = MessageCodec.compress(payload);
+            compressionStats.record(msg.getType(), payload.length, compressed.length,
+                    CompressionStats.cpuTime() - start);
+            if (compressed.length < payload.length) {
+                payload = compressed;
+            }
         }
-        return null;
+        outboundQueue(client).offer(msg.getType(), payload);
     }
 
-    private Object deserialize(Object msg) {
-        try {
-            byte[] messageBytes = (byte[]) msg;
-            ByteArrayInputStream byteStream = new ByteArrayInputStream(messageBytes);
-            ObjectInputStream objectStream = new ObjectInputStream(byteStream);
-            return objectStream.readObject();
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
-        return null;
+    private OutboundQueue outboundQueue(ConnectionToClient client) {
+        return outboundQueues.computeIfAbsent(client, c -> new OutboundQueue(c, outboundDrainer));
+    }
+
+    /**
+     * Returns the outbound queue of each connected client, for queue depth
+     * and bytes-sent metrics.
+     * @return outbound queues by client
+     */
+    public Map<ConnectionToClient, OutboundQueue> getOutboundQueues() {
+        return outboundQueues;
+    }
+
+    /**
+     * Returns compression ratio and CPU cost per message type.
+     * @return compression statistics
+     */
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
     }
 
     protected void serverStarted() {
         System.out.println("ParkB Server listening for connections on port " + getPort());
         parkingController.initializeParkingSpots();
+        refreshAvailability();
+        reportController.loadAnalytics();
+        String captureFile = System.getProperty("bpark.capture.file");
+        if (captureFile != null && !trafficRecorder.isRecording()) {
+            try {
+                LOG.info("Capturing traffic to {}", trafficRecorder.start(Paths.get(captureFile)));
+            } catch (IOException e) {
+                LOG.error("Cannot start traffic capture", e);
+            }
+        }
     }
 
     protected void serverStopped() {
@@ -458,6 +846,12 @@ public class ParkingServer extends AbstractServer {
         if (connectionPoolTimer != null) {
             connectionPoolTimer.shutdown();
         }
+        if (reportController != null) {
+            reportController.flushOccupancy();
+        }
+        outboundDrainer.shutdown();
+        laneDispatcher.shutdown();
+        trafficRecorder.stop();
     }
 
     @Override
@@ -478,6 +872,11 @@ public class ParkingServer extends AbstractServer {
         synchronized (clientsMap) {
             clientsMap.put(client, disconnectionStatus);
         }
+        streamManager.closeStreams(client);
+        OutboundQueue queue = outboundQueues.remove(client);
+        if (queue != null) {
+            queue.close();
+        }
         if (spf != null) {
             spf.printConnection(clientsMap);
         }
@@ -0,0 +1,129 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+/**
+ * ResultCursor is a forward-only JDBC cursor that hands out rows in batches.
+ * It borrows a pooled connection for its whole lifetime and uses MySQL row
+ * streaming, so only the rows of the current batch are held in memory.
+ * The connection is returned to the pool when the cursor is exhausted or closed.
+ *
+ * @param <T> type each row is mapped to
+ */
+public class ResultCursor<T> implements ChunkSource<T> {
+
+	/** Maps the current row of a ResultSet to an object */
+	@FunctionalInterface
+	public interface RowMapper<T> {
+		T map(ResultSet rs) throws SQLException;
+	}
+
+	/** Binds the parameters of the cursor's statement */
+	@FunctionalInterface
+	public interface StatementBinder {
+		void bind(PreparedStatement stmt) throws SQLException;
+	}
+
+	/** Fetch size that makes Connector/J stream rows one at a time */
+	private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+	private final Connection conn;
+	private final PreparedStatement stmt;
+	private final ResultSet rs;
+	private final RowMapper<T> mapper;
+	private boolean exhausted = false;
+	private boolean closed = false;
+
+	private ResultCursor(Connection conn, PreparedStatement stmt, ResultSet rs, RowMapper<T> mapper) {
+		this.conn = conn;
+		this.stmt = stmt;
+		this.rs = rs;
+		this.mapper = mapper;
+	}
+
+	/**
+	 * Opens a cursor over the rows of a query.
+	 *
+	 * @param query  SQL query
+	 * @param binder binds the query parameters
+	 * @param mapper maps each row
+	 * @return an open cursor
+	 * @throws SQLException if the query fails; the connection is released
+	 */
+	public static <T> ResultCursor<T> open(String query, StatementBinder binder, RowMapper<T> mapper)
+			throws SQLException {
+		Connection conn = DBController.getInstance().getConnection();
+		PreparedStatement stmt = null;
+		try {
+			stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			stmt.setFetchSize(STREAMING_FETCH_SIZE);
+			binder.bind(stmt);
+			ResultSet rs = stmt.executeQuery();
+			return new ResultCursor<>(conn, stmt, rs, mapper);
+		} catch (SQLException e) {
+			if (stmt != null) {
+				stmt.close();
+			}
+			DBController.getInstance().releaseConnection(conn);
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads up to {@code max} rows. Closes the cursor once the last row is read.
+	 *
+	 * @param max maximum number of rows to read
+	 * @return the rows read, possibly empty
+	 * @throws SQLException if reading fails
+	 */
+	@Override
+	public ArrayList<T> next(int max) throws SQLException {
+		ArrayList<T> batch = new ArrayList<>(max);
+		if (exhausted) {
+			return batch;
+		}
+		while (batch.size() < max) {
+			if (!rs.next()) {
+				exhausted = true;
+				close();
+				break;
+			}
+			batch.add(mapper.map(rs));
+		}
+		return batch;
+	}
+
+	/**
+	 * Returns whether all rows have been read.
+	 *
+	 * @return true once the cursor has run past its last row
+	 */
+	@Override
+	public boolean isExhausted() {
+		return exhausted;
+	}
+
+	/**
+	 * Closes the result set and statement and returns the connection to the pool.
+	 * Safe to call more than once.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			rs.close();
+			stmt.close();
+		} catch (SQLException e) {
+			System.err.println("Error closing result cursor: " + e.getMessage());
+		} finally {
+			DBController.getInstance().releaseConnection(conn);
+		}
+	}
+}
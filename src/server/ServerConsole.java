@@ -0,0 +1,153 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import entities.LatencySummary;
+import entities.SystemStatus;
+import services.ClockService;
+import services.DemandForecastService;
+import services.ReportCacheService;
+import services.RollupService;
+
+/**
+ * ServerConsole reads operator commands from standard input while the server
+ * runs. Commands:
+ * <pre>
+ *   jfr start [seconds]   start a flight recording (until stopped, or for the given time)
+ *   jfr stop              stop the recording and write its file
+ *   jfr status            show the current recording
+ *   capture start [file]  capture incoming requests for tools.TrafficReplayer
+ *   capture stop          stop the capture and close its file
+ *   capture status        show the current capture
+ *   rollup rebuild [days] recompute the report rollups of the last days (default 30)
+ *   cache                 show report cache hits and misses
+ *   status                print the server health snapshot
+ *   help                  list commands
+ * </pre>
+ */
+public class ServerConsole implements Runnable {
+
+    private static Thread thread;
+
+    /**
+     * Starts the console reader on a daemon thread, once.
+     */
+    public static synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(new ServerConsole(), "bpark-console");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public void run() {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    System.out.println(execute(line.trim()));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Server console closed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one console command.
+     * @param command Command line
+     * @return text to print
+     */
+    public String execute(String command) {
+        String[] parts = command.split("\\s+");
+        try {
+            switch (parts[0].toLowerCase()) {
+                case "jfr":
+                    return executeJfr(parts);
+                case "capture":
+                    return executeCapture(parts);
+                case "rollup":
+                    return executeRollup(parts);
+                case "cache":
+                    return ReportCacheService.getInstance().status();
+                case "forecast":
+                    return DemandForecastService.getInstance().status();
+                case "status":
+                    return formatStatus(ParkingServer.getInstance().getSystemStatus());
+                case "help":
+                    return "Commands: jfr start [seconds] | jfr stop | jfr status"
+                            + " | capture start [file] | capture stop | capture status"
+                            + " | rollup rebuild [days] | cache | forecast | status | help";
+                default:
+                    return "Unknown command: " + parts[0] + " (type help)";
+            }
+        } catch (Exception e) {
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    private String executeJfr(String[] parts) throws IOException {
+        FlightRecorderControl jfr = FlightRecorderControl.getInstance();
+        String action = parts.length > 1 ? parts[1].toLowerCase() : "status";
+        switch (action) {
+            case "start":
+                Duration duration = parts.length > 2 ? Duration.ofSeconds(Long.parseLong(parts[2])) : null;
+                Path file = jfr.start(duration);
+                return "Flight recording started -> " + file;
+            case "stop":
+                Path written = jfr.stop();
+                return written == null ? "No recording is running" : "Flight recording written to " + written;
+            default:
+                return jfr.status();
+        }
+    }
+
+    private String executeCapture(String[] parts) throws IOException {
+        TrafficRecorder recorder = TrafficRecorder.getInstance();
+        String action = parts.length > 1 ? parts[1].toLowerCase() : "status";
+        switch (action) {
+            case "start":
+                Path target = Paths.get(parts.length > 2 ? parts[2] : "bpark-traffic.bin");
+                return "Capturing requests -> " + recorder.start(target);
+            case "stop":
+                Path written = recorder.stop();
+                return written == null ? "No capture is running" : "Capture written to " + written;
+            default:
+                return recorder.status();
+        }
+    }
+
+    private String executeRollup(String[] parts) {
+        if (parts.length < 2 || !parts[1].equalsIgnoreCase("rebuild")) {
+            return "Usage: rollup rebuild [days]";
+        }
+        int days = parts.length > 2 ? Integer.parseInt(parts[2]) : 30;
+        LocalDate tomorrow = ClockService.getInstance().today().plusDays(1);
+        long start = System.nanoTime();
+        boolean rebuilt = RollupService.getInstance().rebuild(tomorrow.minusDays(days + 1), tomorrow);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return rebuilt ? "Rollups of the last " + days + " days rebuilt in " + millis + " ms" : "Rollup rebuild failed";
+    }
+
+    private static String formatStatus(SystemStatus status) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Spots ").append(status.getAvailableSpots()).append('/').append(status.getTotalSpots())
+          .append(", clients ").append(status.getConnectedClients())
+          .append(", DB ").append(status.getDbConnectionsActive()).append(" active/")
+          .append(status.getDbConnectionsIdle()).append(" idle")
+          .append(", lanes ").append(status.getLaneQueueDepths()).append('\n');
+        sb.append(status.getDbPoolWait()).append('\n').append(status.getDbQuery());
+        for (LatencySummary latency : status.getMessageLatencies().values()) {
+            sb.append('\n').append(latency);
+        }
+        return sb.toString();
+    }
+}
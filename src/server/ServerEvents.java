@@ -0,0 +1,116 @@
+package server;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * ServerEvents holds the Java Flight Recorder events of the server. Events
+ * are only recorded while a recording that enables them is running (see
+ * {@link FlightRecorderControl}); otherwise creating and committing them
+ * is close to free, so they stay in place in production.
+ */
+public final class ServerEvents {
+
+    private ServerEvents() {
+    }
+
+    @Name("bpark.MessageDispatch")
+    @Label("Message Dispatch")
+    @Category({"BPark", "Server"})
+    @Description("A client request, from receipt to handler completion")
+    @StackTrace(false)
+    public static class MessageDispatch extends Event {
+        @Label("Message Type")
+        public String messageType;
+
+        @Label("Client")
+        public String client;
+
+        @Label("Lane")
+        public String lane;
+
+        @Label("Queue Time")
+        @Description("Time spent waiting in the lane before the handler started")
+        @Timespan(Timespan.NANOSECONDS)
+        public long queueTime;
+
+        @Label("Service Time")
+        @Description("Time the handler ran")
+        @Timespan(Timespan.NANOSECONDS)
+        public long serviceTime;
+
+        @Label("Failed")
+        public boolean failed;
+
+        @Label("Dropped")
+        @Description("The request waited past its timeout and was not handled")
+        public boolean dropped;
+    }
+
+    @Name("bpark.DbConnectionWait")
+    @Label("DB Connection Wait")
+    @Category({"BPark", "Database"})
+    @Description("Time a thread waited to take a connection from the pool")
+    public static class DbConnectionWait extends Event {
+        @Label("Lane")
+        public String lane;
+
+        @Label("Idle Connections")
+        @Description("Connections left in the pool after this one was taken")
+        public int idleConnections;
+    }
+
+    @Name("bpark.DbStatement")
+    @Label("DB Statement")
+    @Category({"BPark", "Database"})
+    @Description("Execution of one SQL statement, including reading its result set")
+    @StackTrace(false)
+    public static class DbStatement extends Event {
+        @Label("SQL Id")
+        @Description("Stable hash of the statement text")
+        public String sqlId;
+
+        @Label("SQL")
+        public String sql;
+
+        @Label("Rows")
+        @Description("Rows read for queries, rows changed for updates")
+        public long rows;
+    }
+
+    @Name("bpark.AutoCancellationSweep")
+    @Label("Auto-Cancellation Sweep")
+    @Category({"BPark", "Services"})
+    @Description("One sweep cycle of the auto-cancellation service")
+    @StackTrace(false)
+    public static class AutoCancellationSweep extends Event {
+        @Label("Reservations Cancelled")
+        public int cancelled;
+
+        @Label("Late Pickups Notified")
+        public int notified;
+    }
+
+    @Name("bpark.EmailSend")
+    @Label("Email Send")
+    @Category({"BPark", "Services"})
+    @Description("Sending one notification email")
+    @StackTrace(false)
+    public static class EmailSend extends Event {
+        @Label("Notification Type")
+        public String notificationType;
+
+        @Label("Success")
+        public boolean success;
+
+        @Label("Body Size")
+        @DataAmount
+        public long bodySize;
+    }
+}
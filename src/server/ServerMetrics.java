@@ -0,0 +1,86 @@
+package server;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import entities.LatencySummary;
+import entities.Message.MessageType;
+
+/**
+ * ServerMetrics holds the server's latency histograms using the Singleton
+ * pattern: end-to-end latency per MessageType (from receipt to handler
+ * completion, including lane queueing), time spent waiting for a pooled DB
+ * connection, and how long each connection is held by its query.
+ *
+ * Reading a snapshot never touches the database.
+ */
+public class ServerMetrics {
+
+    private static final ServerMetrics instance = new ServerMetrics();
+
+    private final Map<MessageType, LatencyHistogram> messageLatency = new EnumMap<>(MessageType.class);
+    private final LatencyHistogram dbPoolWait = new LatencyHistogram();
+    private final LatencyHistogram dbQuery = new LatencyHistogram();
+
+    private ServerMetrics() {
+        for (MessageType type : MessageType.values()) {
+            messageLatency.put(type, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Returns the singleton instance of ServerMetrics.
+     * @return the ServerMetrics instance
+     */
+    public static ServerMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Records the end-to-end latency of one request.
+     * @param type Request message type
+     * @param nanos Time from receipt to completion
+     */
+    public void recordMessage(MessageType type, long nanos) {
+        messageLatency.get(type).recordNanos(nanos);
+    }
+
+    /**
+     * Records how long a thread waited for a pooled DB connection.
+     * @param nanos Wait time
+     */
+    public void recordDbPoolWait(long nanos) {
+        dbPoolWait.recordNanos(nanos);
+    }
+
+    /**
+     * Records how long a DB connection was held before it was released.
+     * @param nanos Hold time
+     */
+    public void recordDbQuery(long nanos) {
+        dbQuery.recordNanos(nanos);
+    }
+
+    /**
+     * Summarizes the latency of every message type that was received at least once.
+     * @return summaries by message type name, in MessageType order
+     */
+    public LinkedHashMap<String, LatencySummary> summarizeMessages() {
+        LinkedHashMap<String, LatencySummary> result = new LinkedHashMap<>();
+        for (Map.Entry<MessageType, LatencyHistogram> e : messageLatency.entrySet()) {
+            if (e.getValue().getCount() > 0) {
+                result.put(e.getKey().name(), e.getValue().summarize(e.getKey().name()));
+            }
+        }
+        return result;
+    }
+
+    public LatencySummary summarizeDbPoolWait() {
+        return dbPoolWait.summarize("db.poolWait");
+    }
+
+    public LatencySummary summarizeDbQuery() {
+        return dbQuery.summarize("db.query");
+    }
+}
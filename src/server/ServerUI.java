@@ -39,6 +39,7 @@ public class ServerUI extends Application {
 
         try {
             sv.listen();
+            ServerConsole.start();
         } catch (Exception ex) {
             ServerPortFrame.str = "error";
             System.out.println("ERROR - Could not listen for clients!");
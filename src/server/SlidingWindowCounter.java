@@ -0,0 +1,181 @@
+package server;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * SlidingWindowCounter counts events over the last minute, hour, day and
+ * 30 days without locks. Events are added to one time bucket per level
+ * (seconds, minutes, hours, days); each bucket is a striped
+ * {@link LongAdder}, so concurrent increments do not contend. A bucket is
+ * replaced by compare-and-set when its slot is reused for a newer period, so
+ * no event is lost at a boundary.
+ *
+ * Reading a window sums a fixed number of buckets (at most 60), so it costs
+ * the same however many events were counted. A window covers the current,
+ * partial period plus the full periods before it, e.g. the last hour is this
+ * minute and the 59 minutes before.
+ */
+public class SlidingWindowCounter {
+
+    /**
+     * Window that can be read.
+     */
+    public enum Window {
+        MINUTE,
+        HOUR,
+        DAY,
+        DAYS_30
+    }
+
+    private static final long SECOND_MILLIS = 1_000;
+    private static final long MINUTE_MILLIS = 60 * SECOND_MILLIS;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    /** Hours kept at hour resolution: 30 days, for hour-of-day profiles */
+    private static final int HOUR_SLOTS = 30 * 24;
+
+    /**
+     * Count of one period.
+     */
+    private static final class Bucket {
+        final long period;
+        final LongAdder count = new LongAdder();
+
+        Bucket(long period) {
+            this.period = period;
+        }
+    }
+
+    /**
+     * Ring of buckets of one period length.
+     */
+    private static final class Level {
+        final long periodMillis;
+        final AtomicReferenceArray<Bucket> buckets;
+
+        Level(long periodMillis, int slots) {
+            this.periodMillis = periodMillis;
+            this.buckets = new AtomicReferenceArray<>(slots);
+        }
+
+        void add(long millis, long n) {
+            long period = Math.floorDiv(millis, periodMillis);
+            int slot = (int) Math.floorMod(period, (long) buckets.length());
+            Bucket bucket = buckets.get(slot);
+            while (bucket == null || bucket.period < period) {
+                Bucket fresh = new Bucket(period);
+                if (buckets.compareAndSet(slot, bucket, fresh)) {
+                    bucket = fresh;
+                    break;
+                }
+                bucket = buckets.get(slot);
+            }
+            // A slot already reused for a later period means the event is too old to keep
+            if (bucket.period == period) {
+                bucket.count.add(n);
+            }
+        }
+
+        long count(long period) {
+            Bucket bucket = buckets.get((int) Math.floorMod(period, (long) buckets.length()));
+            return bucket != null && bucket.period == period ? bucket.count.sum() : 0;
+        }
+
+        long sum(long millis, int periods) {
+            long current = Math.floorDiv(millis, periodMillis);
+            long total = 0;
+            for (long period = current - periods + 1; period <= current; period++) {
+                total += count(period);
+            }
+            return total;
+        }
+    }
+
+    private final LongSupplier clock;
+    private final Level seconds = new Level(SECOND_MILLIS, 60);
+    private final Level minutes = new Level(MINUTE_MILLIS, 60);
+    private final Level hours = new Level(HOUR_MILLIS, HOUR_SLOTS);
+    private final Level days = new Level(DAY_MILLIS, 30);
+
+    /**
+     * Creates a counter.
+     * @param clock Current time in epoch milliseconds
+     */
+    public SlidingWindowCounter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Counts one event now.
+     */
+    public void increment() {
+        add(clock.getAsLong(), 1);
+    }
+
+    /**
+     * Counts events at a given time, e.g. to seed history at startup.
+     * Events older than a level's range are not counted in that level.
+     * @param epochMillis Time of the events
+     * @param n Number of events
+     */
+    public void add(long epochMillis, long n) {
+        seconds.add(epochMillis, n);
+        minutes.add(epochMillis, n);
+        hours.add(epochMillis, n);
+        days.add(epochMillis, n);
+    }
+
+    /**
+     * Returns the events counted in a window ending now.
+     * @param window Window to read
+     * @return event count
+     */
+    public long sum(Window window) {
+        long now = clock.getAsLong();
+        switch (window) {
+            case MINUTE:
+                return seconds.sum(now, 60);
+            case HOUR:
+                return minutes.sum(now, 60);
+            case DAY:
+                return hours.sum(now, 24);
+            default:
+                return days.sum(now, 30);
+        }
+    }
+
+    /**
+     * Returns the events of each of the last 60 minutes.
+     * @return counts, oldest minute first, the current minute last
+     */
+    public long[] perMinute() {
+        long current = Math.floorDiv(clock.getAsLong(), MINUTE_MILLIS);
+        long[] counts = new long[60];
+        for (int i = 0; i < 60; i++) {
+            counts[i] = minutes.count(current - 59 + i);
+        }
+        return counts;
+    }
+
+    /**
+     * Folds the last 30 days by local hour of day, e.g. to find peak hours.
+     * @param zone Zone that defines the hour of day
+     * @return counts indexed by hour of day (0-23)
+     */
+    public long[] perHourOfDay(ZoneId zone) {
+        long current = Math.floorDiv(clock.getAsLong(), HOUR_MILLIS);
+        long[] counts = new long[24];
+        for (long period = current - HOUR_SLOTS + 1; period <= current; period++) {
+            long count = hours.count(period);
+            if (count != 0) {
+                counts[Instant.ofEpochMilli(period * HOUR_MILLIS).atZone(zone).getHour()] += count;
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,226 @@
+package server;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import entities.Message;
+import entities.Message.MessageType;
+import entities.StreamChunk;
+import entities.StreamCredit;
+import ocsf.server.ConnectionToClient;
+
+/**
+ * StreamManager delivers large results as chunked streams with credit-based
+ * flow control. Each open stream owns a {@link ChunkSource}, usually a
+ * {@link ResultCursor}; a chunk is read from the source only when the client
+ * has granted a credit for it, so the server never holds more than one chunk
+ * of a stream in memory.
+ *
+ * A cursor stream pins a pooled DB connection, so the number of concurrent
+ * streams is capped and idle streams are closed by {@link #closeIdleStreams()}.
+ * File downloads hold no connection and have their own cap, so they neither
+ * take nor wait for a cursor stream's slot.
+ */
+public class StreamManager {
+
+    /** Sends a message to a client */
+    @FunctionalInterface
+    public interface Sender {
+        void send(ConnectionToClient client, Message message) throws IOException;
+    }
+
+    private static final int MAX_OPEN_STREAMS = 2;
+    private static final int MAX_OPEN_DOWNLOADS = Integer.getInteger("bpark.stream.maxDownloads", 4);
+    private static final int MAX_CHUNK_SIZE = 500;
+    private static final long IDLE_TIMEOUT_MILLIS = 60_000;
+
+    private final Map<Integer, OpenStream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger nextStreamId = new AtomicInteger(1);
+    private final Sender sender;
+
+    /**
+     * State of one open stream.
+     */
+    private static class OpenStream {
+        final int streamId;
+        final ConnectionToClient client;
+        final MessageType responseType;
+        final ChunkSource<? extends Serializable> source;
+        final int chunkSize;
+        int credits;
+        int sequence = 0;
+        boolean finished = false;
+        volatile long lastActivity = System.currentTimeMillis();
+
+        OpenStream(int streamId, ConnectionToClient client, MessageType responseType,
+                   ChunkSource<? extends Serializable> source, int chunkSize, int credits) {
+            this.streamId = streamId;
+            this.client = client;
+            this.responseType = responseType;
+            this.source = source;
+            this.chunkSize = chunkSize;
+            this.credits = credits;
+        }
+    }
+
+    /**
+     * Creates a stream manager.
+     * @param sender Used to send chunks to clients
+     */
+    public StreamManager(Sender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Returns whether another stream may be opened.
+     * @return true if below the concurrent stream limit
+     */
+    public boolean canOpenStream() {
+        return countStreams(false) < MAX_OPEN_STREAMS;
+    }
+
+    /**
+     * Returns whether another file download may be opened.
+     * @return true if below the concurrent download limit
+     */
+    public boolean canOpenDownload() {
+        return countStreams(true) < MAX_OPEN_DOWNLOADS;
+    }
+
+    private int countStreams(boolean downloads) {
+        int count = 0;
+        for (OpenStream stream : streams.values()) {
+            if ((stream.source instanceof FileChunkSource) == downloads) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Opens a stream over a source and sends as many chunks as the initial credits allow.
+     * @param client Client that requested the stream
+     * @param responseType Response type of the non-streamed request
+     * @param source Source producing the stream items
+     * @param chunkSize Requested rows per chunk
+     * @param initialCredits Chunks the client allows in flight
+     * @throws IOException if sending to the client fails
+     */
+    public void open(ConnectionToClient client, MessageType responseType,
+                     ChunkSource<? extends Serializable> source, int chunkSize, int initialCredits) throws IOException {
+        int boundedChunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        OpenStream stream = new OpenStream(nextStreamId.getAndIncrement(), client, responseType,
+                source, boundedChunkSize, Math.max(1, initialCredits));
+        streams.put(stream.streamId, stream);
+        pump(stream);
+    }
+
+    /**
+     * Rejects a stream request, sending a terminal error chunk.
+     * @param client Client that requested the stream
+     * @param responseType Response type of the non-streamed request
+     * @param error Error description
+     * @throws IOException if sending to the client fails
+     */
+    public void reject(ConnectionToClient client, MessageType responseType, String error) throws IOException {
+        StreamChunk chunk = StreamChunk.failed(-1, 0, responseType, error);
+        sender.send(client, new Message(MessageType.STREAM_CHUNK, chunk));
+    }
+
+    /**
+     * Applies a credit grant or cancellation from the client.
+     * @param client Client that sent the credit
+     * @param credit Credit message
+     * @throws IOException if sending to the client fails
+     */
+    public void onCredit(ConnectionToClient client, StreamCredit credit) throws IOException {
+        OpenStream stream = streams.get(credit.getStreamId());
+        if (stream == null || stream.client != client) {
+            return;
+        }
+        if (credit.isCancel()) {
+            finish(stream);
+            return;
+        }
+        synchronized (stream) {
+            stream.credits += Math.max(0, credit.getCredits());
+        }
+        pump(stream);
+    }
+
+    /**
+     * Sends chunks while the stream has credits and rows left.
+     */
+    private void pump(OpenStream stream) throws IOException {
+        synchronized (stream) {
+            stream.lastActivity = System.currentTimeMillis();
+            while (stream.credits > 0 && !stream.finished) {
+                StreamChunk chunk;
+                try {
+                    ArrayList<Serializable> items = new ArrayList<>(stream.source.next(stream.chunkSize));
+                    chunk = new StreamChunk(stream.streamId, stream.sequence++, stream.responseType,
+                            items, stream.source.isExhausted());
+                } catch (SQLException | IOException e) {
+                    System.err.println("Error reading stream " + stream.streamId + ": " + e.getMessage());
+                    chunk = StreamChunk.failed(stream.streamId, stream.sequence++, stream.responseType,
+                            "Error reading results");
+                }
+                stream.credits--;
+                if (chunk.isEndOfStream()) {
+                    finish(stream);
+                }
+                sender.send(stream.client, new Message(MessageType.STREAM_CHUNK, chunk));
+            }
+        }
+    }
+
+    /**
+     * Closes a stream's source and forgets it.
+     */
+    private void finish(OpenStream stream) {
+        synchronized (stream) {
+            stream.finished = true;
+            stream.source.close();
+        }
+        streams.remove(stream.streamId);
+    }
+
+    /**
+     * Closes all streams of a client, e.g. when it disconnects.
+     * @param client Client whose streams to close
+     */
+    public void closeStreams(ConnectionToClient client) {
+        for (OpenStream stream : streams.values()) {
+            if (stream.client == client) {
+                finish(stream);
+            }
+        }
+    }
+
+    /**
+     * Closes streams whose client stopped granting credits or went away,
+     * returning their DB connections to the pool.
+     */
+    public void closeIdleStreams() {
+        long now = System.currentTimeMillis();
+        for (OpenStream stream : streams.values()) {
+            if (!stream.client.isAlive() || now - stream.lastActivity > IDLE_TIMEOUT_MILLIS) {
+                System.out.println("Closing idle stream " + stream.streamId);
+                finish(stream);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of open streams.
+     * @return open stream count
+     */
+    public int getOpenStreamCount() {
+        return streams.size();
+    }
+}
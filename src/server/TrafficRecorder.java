@@ -0,0 +1,353 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import entities.Message.MessageType;
+
+/**
+ * TrafficRecorder captures every request the server decodes into a compact
+ * binary log using the Singleton pattern, so that production traffic can be
+ * replayed later with tools.TrafficReplayer.
+ *
+ * The request thread only queues the received frame; a writer thread appends
+ * it to the file. When the queue ({@code bpark.capture.queueSize}, default
+ * 65536) is full the request is dropped from the capture and counted, never
+ * delayed.
+ *
+ * Log format: a header (magic "BPKT", version byte, start time as epoch
+ * millis, build and message type fingerprint) followed by one record per request: microseconds since the
+ * previous record and client ID as var-longs, a kind byte (frame or string),
+ * the payload length as a var-int and the payload. Frames are stored as
+ * received on the wire, so a record is only a few bytes larger than the request.
+ * Frames encode message types by ordinal, so a capture only replays against
+ * the build that wrote it (see {@link #BUILD} and {@link #PROTOCOL}).
+ */
+public class TrafficRecorder {
+
+    private static final int MAGIC = 0x42504B54;
+    private static final int VERSION = 2;
+    public static final byte KIND_FRAME = 0;
+    public static final byte KIND_STRING = 1;
+
+    /** Build of this process: bpark.build, else the jar's implementation version */
+    public static final String BUILD = System.getProperty("bpark.build",
+            Objects.requireNonNullElse(TrafficRecorder.class.getPackage().getImplementationVersion(), "dev"));
+    /** Fingerprint of the MessageType constants in ordinal order */
+    public static final int PROTOCOL = protocolFingerprint();
+
+    private static final TrafficRecorder instance = new TrafficRecorder();
+
+    /** One captured request */
+    public static class Record {
+        private final long timeMicros;
+        private final long clientId;
+        private final byte kind;
+        private final byte[] payload;
+
+        public Record(long timeMicros, long clientId, byte kind, byte[] payload) {
+            this.timeMicros = timeMicros;
+            this.clientId = clientId;
+            this.kind = kind;
+            this.payload = payload;
+        }
+
+        /** @return microseconds since the start of the capture */
+        public long getTimeMicros() {
+            return timeMicros;
+        }
+
+        public long getClientId() {
+            return clientId;
+        }
+
+        public byte getKind() {
+            return kind;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        /**
+         * Returns the request as it was received: the frame bytes, or the string.
+         * @return byte[] or String
+         */
+        public Object toMessage() {
+            return kind == KIND_STRING ? new String(payload, StandardCharsets.UTF_8) : payload;
+        }
+    }
+
+    /** Marks the end of a capture in the writer queue */
+    private static final Record END = new Record(0, 0, KIND_FRAME, new byte[0]);
+
+    private volatile boolean recording;
+    private BlockingQueue<Record> queue;
+    private Thread writer;
+    private Path file;
+    private long startNanos;
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private TrafficRecorder() {
+    }
+
+    /**
+     * Returns the singleton instance of TrafficRecorder.
+     * @return the TrafficRecorder instance
+     */
+    public static TrafficRecorder getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts capturing into a file, replacing it if it exists.
+     * @param target Log file
+     * @return the absolute path of the log
+     * @throws IllegalStateException if a capture is already running
+     * @throws IOException if the file cannot be created
+     */
+    public synchronized Path start(Path target) throws IOException {
+        if (recording) {
+            throw new IllegalStateException("A capture is already running: " + file);
+        }
+        file = target.toAbsolutePath().normalize();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.writeUTF(BUILD);
+        out.writeInt(PROTOCOL);
+
+        queue = new ArrayBlockingQueue<>(Integer.getInteger("bpark.capture.queueSize", 65536));
+        recorded.reset();
+        dropped.reset();
+        startNanos = System.nanoTime();
+        BlockingQueue<Record> records = queue;
+        writer = new Thread(() -> writeLoop(records, out), "bpark-capture-writer");
+        writer.setDaemon(true);
+        writer.start();
+        recording = true;
+        return file;
+    }
+
+    /**
+     * Stops the capture and closes the log once every queued request is written.
+     * @return the log file, or null if no capture was running
+     */
+    public synchronized Path stop() {
+        if (!recording) {
+            return null;
+        }
+        recording = false;
+        try {
+            queue.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return file;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Describes the current capture.
+     * @return status line
+     */
+    public String status() {
+        if (!recording) {
+            return "No capture is running";
+        }
+        return "Capturing to " + file + ": " + recorded.sum() + " requests, " + dropped.sum() + " dropped";
+    }
+
+    /**
+     * Queues a binary request frame.
+     * @param clientId ID of the connection that sent it
+     * @param frame Frame as received
+     */
+    public void record(long clientId, byte[] frame) {
+        enqueue(clientId, KIND_FRAME, frame);
+    }
+
+    /**
+     * Queues a plain string request.
+     * @param clientId ID of the connection that sent it
+     * @param message The string
+     */
+    public void record(long clientId, String message) {
+        enqueue(clientId, KIND_STRING, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void enqueue(long clientId, byte kind, byte[] payload) {
+        BlockingQueue<Record> records = queue;
+        if (!recording || records == null) {
+            return;
+        }
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        if (records.offer(new Record(micros, clientId, kind, payload))) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop(BlockingQueue<Record> records, DataOutputStream out) {
+        long previous = 0;
+        try (out) {
+            while (true) {
+                Record record = records.poll();
+                if (record == null) {
+                    out.flush();
+                    record = records.take();
+                }
+                if (record == END) {
+                    break;
+                }
+                // Writer order can differ from timestamp order by a few microseconds
+                long time = Math.max(previous, record.timeMicros);
+                writeVarLong(out, time - previous);
+                writeVarLong(out, record.clientId);
+                out.writeByte(record.kind);
+                writeVarLong(out, record.payload.length);
+                out.write(record.payload);
+                previous = time;
+            }
+        } catch (IOException e) {
+            recording = false;
+            System.err.println("Error writing traffic capture: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int protocolFingerprint() {
+        CRC32 crc = new CRC32();
+        for (MessageType type : MessageType.values()) {
+            crc.update(type.name().getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return (int) crc.getValue();
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed var-long in capture");
+    }
+
+    /**
+     * Opens a capture for reading.
+     * @param file Log file written by a recorder
+     * @return a reader positioned at the first request
+     * @throws IOException if the file is not a capture
+     */
+    public static LogReader open(Path file) throws IOException {
+        return new LogReader(file);
+    }
+
+    /**
+     * Reads the requests of a capture in order.
+     */
+    public static class LogReader implements Closeable {
+        private final DataInputStream in;
+        private final long startEpochMillis;
+        private final String build;
+        private final int protocol;
+        private long time;
+
+        private LogReader(Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+            if (in.readInt() != MAGIC) {
+                in.close();
+                throw new IOException(file + " is not a traffic capture");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                in.close();
+                throw new IOException("Unsupported capture version " + version);
+            }
+            startEpochMillis = in.readLong();
+            build = in.readUTF();
+            protocol = in.readInt();
+        }
+
+        public long getStartEpochMillis() {
+            return startEpochMillis;
+        }
+
+        /** @return build of the server that wrote the capture */
+        public String getBuild() {
+            return build;
+        }
+
+        /** @return message type fingerprint of the server that wrote the capture */
+        public int getProtocol() {
+            return protocol;
+        }
+
+        /**
+         * Returns whether the capture was written by this build, so that its
+         * frames decode to the same message types here.
+         * @return true if build and message types match
+         */
+        public boolean matchesThisBuild() {
+            return BUILD.equals(build) && PROTOCOL == protocol;
+        }
+
+        /**
+         * Reads the next request.
+         * @return the record, or null at the end of the capture
+         * @throws IOException if the file is truncated or corrupt
+         */
+        public Record next() throws IOException {
+            long delta;
+            try {
+                delta = readVarLong(in);
+            } catch (EOFException e) {
+                return null;
+            }
+            time += delta;
+            long clientId = readVarLong(in);
+            byte kind = in.readByte();
+            byte[] payload = new byte[(int) readVarLong(in)];
+            in.readFully(payload);
+            return new Record(time, clientId, kind, payload);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
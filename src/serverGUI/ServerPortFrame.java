@@ -2,6 +2,8 @@ package serverGUI;
 
 import java.util.Collection;
 import java.util.Map;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -13,6 +15,9 @@ import javafx.scene.control.Button;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import entities.LatencySummary;
+import entities.SystemStatus;
 import ocsf.server.ConnectionToClient;
 import server.ParkingServer;
 import controllers.ParkingController;
@@ -34,8 +39,14 @@ public class ServerPortFrame extends Application {
     private TextField serverip;
     @FXML
     private TextArea txtClientConnection;
+    @FXML
+    private TextArea txtServerHealth;
 
     ServerPortFrame controller;
+    private Timeline healthRefresh;
+
+    /** Seconds between server health refreshes */
+    private static final int HEALTH_REFRESH_SECONDS = 5;
 
     @Override
     public void start(Stage primaryStage) throws Exception {
@@ -76,6 +87,7 @@ public class ServerPortFrame extends Application {
                     
                     // Show connection info with auto-cancellation status
                     showSystemInfo();
+                    startHealthRefresh();
                 } else {
                     controller.textMessage.setText("Database connection failed! Check MySQL server.");
                 }
@@ -157,4 +169,40 @@ public class ServerPortFrame extends Application {
             }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Refreshes the server health panel periodically from the in-memory
+     * status snapshot; the database is never queried for it.
+     */
+    private void startHealthRefresh() {
+        healthRefresh = new Timeline(new KeyFrame(Duration.seconds(HEALTH_REFRESH_SECONDS), e -> showServerHealth()));
+        healthRefresh.setCycleCount(Timeline.INDEFINITE);
+        healthRefresh.play();
+        showServerHealth();
+    }
+
+    /**
+     * Shows latency percentiles, queue depths and DB pool usage.
+     */
+    private void showServerHealth() {
+        if (controller == null || controller.txtServerHealth == null) {
+            return;
+        }
+        SystemStatus status = ParkingServer.getInstance().getSystemStatus();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Spots available: ").append(status.getAvailableSpots()).append("/").append(status.getTotalSpots())
+          .append("   Clients: ").append(status.getConnectedClients())
+          .append("   Open streams: ").append(status.getOpenStreams()).append("\n");
+        sb.append("DB connections: ").append(status.getDbConnectionsActive()).append(" active, ")
+          .append(status.getDbConnectionsIdle()).append(" idle\n");
+        sb.append("Lane queues: ").append(status.getLaneQueueDepths())
+          .append("   Outbound queued: ").append(status.getOutboundQueueDepth())
+          .append("   Bytes sent: ").append(status.getOutboundBytesSent()).append("\n\n");
+        sb.append(status.getDbPoolWait()).append("\n");
+        sb.append(status.getDbQuery()).append("\n");
+        for (LatencySummary latency : status.getMessageLatencies().values()) {
+            sb.append(latency).append("\n");
+        }
+        controller.txtServerHealth.setText(sb.toString());
+    }
+}
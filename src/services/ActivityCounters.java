@@ -0,0 +1,179 @@
+package services;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+
+import common.Logger;
+import entities.LiveActivity;
+import server.DBController;
+import server.SlidingWindowCounter;
+import server.SlidingWindowCounter.Window;
+
+/**
+ * ActivityCounters keeps live counts of lot events using the Singleton
+ * pattern. Each lifecycle event is counted inline by the service that
+ * performs it, after its change has committed, in a lock-free
+ * {@link SlidingWindowCounter}; the live dashboard and the peak hour report
+ * then read the last minute, hour, day or 30 days without a query.
+ *
+ * Counts start from zero at startup, except arrivals, which are seeded per
+ * hour from parking_rollup_hourly so that the 30-day peak hour profile
+ * survives a restart. The seed counts only sessions that parked, as the
+ * sketches do: cancelled and pending reservations never arrived, and an
+ * activated pre-order is counted once it completes. Arrivals recorded while
+ * the seed query runs may be counted twice.
+ */
+public class ActivityCounters {
+
+    private static final Logger LOG = Logger.get("analytics.activity");
+    private static ActivityCounters instance;
+
+    /**
+     * Counted lifecycle event.
+     */
+    public enum Event {
+        /** A car entered, with or without a reservation */
+        ARRIVAL,
+        /** A car left */
+        EXIT,
+        /** A reservation was made */
+        RESERVATION,
+        /** A reservation was cancelled by the subscriber or for lateness */
+        CANCELLATION,
+        /** A parking session was extended */
+        EXTENSION
+    }
+
+    private static final String SEED_QUERY = """
+            SELECT Rollup_date, Rollup_hour, SUM(Sessions) AS sessions
+            FROM parking_rollup_hourly
+            WHERE Rollup_date >= ?
+              AND (statusEnum IN ('finished', 'completed')
+                   OR (statusEnum = 'active' AND ReservationType = 'spontaneous'))
+            GROUP BY Rollup_date, Rollup_hour
+            """;
+
+    private final EnumMap<Event, SlidingWindowCounter> counters = new EnumMap<>(Event.class);
+    private volatile boolean seeded;
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private ActivityCounters() {
+        for (Event event : Event.values()) {
+            counters.put(event, new SlidingWindowCounter(() -> clock().millis()));
+        }
+    }
+
+    /**
+     * Returns singleton instance of ActivityCounters.
+     * @return ActivityCounters instance
+     */
+    public static synchronized ActivityCounters getInstance() {
+        if (instance == null) {
+            instance = new ActivityCounters();
+        }
+        return instance;
+    }
+
+    /**
+     * Counts one event now.
+     * @param event Event that happened
+     */
+    public void record(Event event) {
+        counters.get(event).increment();
+    }
+
+    /**
+     * Returns the count of an event over a window ending now.
+     * @param event Event to read
+     * @param window Window to read
+     * @return event count
+     */
+    public long count(Event event, Window window) {
+        return counters.get(event).sum(window);
+    }
+
+    /**
+     * Returns the arrivals of the last 30 days per local hour of day.
+     * @return counts indexed by hour of day (0-23)
+     */
+    public long[] arrivalsByHourOfDay() {
+        return counters.get(Event.ARRIVAL).perHourOfDay(clock().getZone());
+    }
+
+    /**
+     * Whether past arrivals have been loaded; until then the hour of day
+     * profile only covers arrivals since startup.
+     * @return true once seeded
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Builds a snapshot of all counters for the live dashboard.
+     * @return current counts
+     */
+    public LiveActivity snapshot() {
+        LinkedHashMap<String, LiveActivity.Counts> counts = new LinkedHashMap<>();
+        for (Event event : Event.values()) {
+            SlidingWindowCounter counter = counters.get(event);
+            counts.put(event.name(), new LiveActivity.Counts(counter.sum(Window.MINUTE), counter.sum(Window.HOUR),
+                    counter.sum(Window.DAY), counter.sum(Window.DAYS_30)));
+        }
+        return new LiveActivity(ClockService.getInstance().now(), counts,
+                counters.get(Event.ARRIVAL).perMinute(), arrivalsByHourOfDay());
+    }
+
+    /**
+     * Seeds the arrival counter with the hourly rollups of the last 30 days
+     * on a background thread.
+     */
+    public void seedInBackground() {
+        Thread loader = new Thread(this::seed, "bpark-activity-seed");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void seed() {
+        if (seeded) {
+            return;
+        }
+        LocalDate since = ClockService.getInstance().today().minusDays(29);
+        SlidingWindowCounter arrivals = counters.get(Event.ARRIVAL);
+        long total = 0;
+
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(SEED_QUERY)) {
+            stmt.setDate(1, Date.valueOf(since));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long sessions = rs.getLong("sessions");
+                    long hourStart = rs.getDate("Rollup_date").toLocalDate()
+                            .atTime(rs.getInt("Rollup_hour"), 0)
+                            .atZone(clock().getZone()).toInstant().toEpochMilli();
+                    arrivals.add(hourStart, sessions);
+                    total += sessions;
+                }
+            }
+            seeded = true;
+            LOG.info("Seeded activity counters with {} arrivals since {}", total, since);
+        } catch (SQLException e) {
+            System.err.println("Error seeding activity counters: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    private static Clock clock() {
+        return ClockService.getInstance().getClock();
+    }
+}
@@ -0,0 +1,79 @@
+package services;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * ClockService is the single source of "now" for the server using the
+ * Singleton pattern. Services and SQL take the current time from here instead
+ * of LocalDateTime.now() or NOW(), so a {@link SimulatedClock} can be
+ * installed to run time-dependent behavior faster than real time.
+ */
+public class ClockService {
+
+    private static ClockService instance;
+    private volatile Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private ClockService() {}
+
+    /**
+     * Returns singleton instance of ClockService.
+     * @return ClockService instance
+     */
+    public static synchronized ClockService getInstance() {
+        if (instance == null) {
+            instance = new ClockService();
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the clock, e.g. with a simulated one.
+     * @param clock Clock to use from now on
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Gets the current date and time.
+     * @return current date-time in the clock's zone
+     */
+    public LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    /**
+     * Gets the current date.
+     * @return today's date
+     */
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * Gets the current time of day.
+     * @return current time
+     */
+    public LocalTime currentTime() {
+        return LocalTime.now(clock);
+    }
+
+    /**
+     * Gets the current time as a SQL parameter, replacing NOW() in queries.
+     * @return current timestamp
+     */
+    public Timestamp nowTimestamp() {
+        return Timestamp.valueOf(now());
+    }
+}
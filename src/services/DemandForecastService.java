@@ -0,0 +1,256 @@
+package services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+import common.Logger;
+import server.DBController;
+
+/**
+ * DemandForecastService predicts occupied spots per 15-minute slot of the
+ * week using the Singleton pattern. It fits additive Holt-Winters smoothing
+ * (level, damped trend and a weekly season) to the occupancy history that
+ * {@link OccupancyRecorder} keeps at minute resolution, and stores the
+ * forecast of the next occurrence of each slot in a 7 x 96 table. Reservation
+ * admission reads the table in constant time per slot; the fit runs off-peak
+ * (see {@link #refresh()}) and replaces the table in one step.
+ *
+ * Slots without samples, e.g. while the server was down, do not update the
+ * model. Until a full week of history exists there is no forecast and
+ * callers fall back to live availability.
+ */
+public class DemandForecastService {
+
+    private static final Logger LOG = Logger.get("forecast");
+    private static DemandForecastService instance;
+
+    private static final int SLOT_MINUTES = 15;
+    private static final int SLOT_SECONDS = SLOT_MINUTES * 60;
+    private static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    /** Season length: the slots of one week, Monday 00:00 first */
+    static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+
+    private static final String HISTORY_QUERY = """
+            SELECT FLOOR(TIMESTAMPDIFF(MINUTE, ?, Bucket_start) / 15) AS slot,
+                   SUM(Occupied_sum) AS occupied, SUM(Samples) AS samples
+            FROM occupancy_series
+            WHERE Resolution = 'minute' AND Bucket_start >= ? AND Bucket_start < ?
+            GROUP BY slot
+            """;
+
+    private final int historyWeeks = Integer.getInteger("bpark.forecast.weeks", 4);
+    private final double alpha = Double.parseDouble(System.getProperty("bpark.forecast.alpha", "0.2"));
+    private final double beta = Double.parseDouble(System.getProperty("bpark.forecast.beta", "0.01"));
+    private final double gamma = Double.parseDouble(System.getProperty("bpark.forecast.gamma", "0.3"));
+    private final double phi = Double.parseDouble(System.getProperty("bpark.forecast.phi", "0.98"));
+    private final int refreshHour = Integer.getInteger("bpark.forecast.refreshHour", 3);
+
+    /** Predicted occupied spots by week slot, or null before the first fit */
+    private volatile float[] forecast;
+    private volatile LocalDateTime refreshedAt;
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private DemandForecastService() {}
+
+    /**
+     * Returns singleton instance of DemandForecastService.
+     * @return DemandForecastService instance
+     */
+    public static synchronized DemandForecastService getInstance() {
+        if (instance == null) {
+            instance = new DemandForecastService();
+        }
+        return instance;
+    }
+
+    /**
+     * Whether a forecast is available.
+     * @return true once a fit has succeeded
+     */
+    public boolean hasForecast() {
+        return forecast != null;
+    }
+
+    /**
+     * Returns the fewest predicted free spots over the slots of a time range.
+     * A range may cross midnight or the end of the week; ranges longer than
+     * a week are checked over one week.
+     * @param start Start of the range, inclusive
+     * @param end End of the range, exclusive
+     * @return predicted free spots, or -1 without a forecast
+     */
+    public double minPredictedFreeSpots(LocalDateTime start, LocalDateTime end) {
+        float[] table = forecast;
+        if (table == null) {
+            return -1;
+        }
+        int first = weekSlot(start);
+        // Seconds from the start of the first slot, rounded up to whole slots
+        long seconds = ChronoUnit.SECONDS.between(start, end) + start.toLocalTime().toSecondOfDay() % SLOT_SECONDS;
+        int slots = (int) Math.min(SLOTS_PER_WEEK, Math.max(1, (seconds + SLOT_SECONDS - 1) / SLOT_SECONDS));
+        float maxOccupied = 0;
+        for (int i = 0; i < slots; i++) {
+            maxOccupied = Math.max(maxOccupied, table[(first + i) % SLOTS_PER_WEEK]);
+        }
+        return ParkingSpotService.getInstance().getTotalSpots() - maxOccupied;
+    }
+
+    /**
+     * Returns the delay until the next off-peak refresh.
+     * @return time until the next refresh hour
+     */
+    public Duration untilNextRefresh() {
+        LocalDateTime now = ClockService.getInstance().now();
+        LocalDateTime next = now.toLocalDate().atTime(refreshHour, 0);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        return Duration.between(now, next);
+    }
+
+    /**
+     * Refits the model to the occupancy history and replaces the forecast.
+     * The previous forecast is kept if the history cannot be read or is
+     * shorter than a week.
+     */
+    public void refresh() {
+        LocalDateTime now = ClockService.getInstance().now();
+        LocalDateTime start = now.toLocalDate().minusWeeks(historyWeeks)
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+        LocalDateTime end = now.truncatedTo(ChronoUnit.HOURS)
+                .plusMinutes(now.getMinute() / SLOT_MINUTES * SLOT_MINUTES);
+        double[] series = new double[(int) (ChronoUnit.MINUTES.between(start, end) / SLOT_MINUTES)];
+        Arrays.fill(series, Double.NaN);
+        long fitStart = System.nanoTime();
+
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(HISTORY_QUERY)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(start));
+            stmt.setTimestamp(2, Timestamp.valueOf(start));
+            stmt.setTimestamp(3, Timestamp.valueOf(end));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int slot = rs.getInt("slot");
+                    long samples = rs.getLong("samples");
+                    if (slot >= 0 && slot < series.length && samples > 0) {
+                        series[slot] = (double) rs.getLong("occupied") / samples;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading occupancy history for forecast: " + e.getMessage());
+            return;
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+
+        float[] fitted = fit(series, ParkingSpotService.getInstance().getTotalSpots(), alpha, beta, gamma, phi);
+        if (fitted == null) {
+            LOG.info("Not enough occupancy history for a forecast yet");
+            return;
+        }
+        forecast = fitted;
+        refreshedAt = now;
+        LOG.info("Refreshed demand forecast in {} ms", (System.nanoTime() - fitStart) / 1_000_000);
+    }
+
+    /**
+     * Fits additive Holt-Winters with a damped trend and a weekly season.
+     * @param series Average occupied spots per slot, starting on a Monday at
+     *               00:00; NaN where nothing was sampled
+     * @param capacity Total spots, the upper bound of a prediction
+     * @return predicted occupied spots of the next occurrence of each week
+     *         slot, or null if the series has less than a week from its first sample
+     */
+    static float[] fit(double[] series, int capacity, double alpha, double beta, double gamma, double phi) {
+        int first = 0;
+        while (first < series.length && Double.isNaN(series[first])) {
+            first++;
+        }
+        if (series.length - first < SLOTS_PER_WEEK) {
+            return null;
+        }
+        // Start on the week of the first sample, so season indexes stay aligned
+        first -= first % SLOTS_PER_WEEK;
+
+        // Initial level and season from the averages of all weeks, then smooth from the start
+        double sum = 0;
+        int counted = 0;
+        double[] season = new double[SLOTS_PER_WEEK];
+        int[] seasonCounts = new int[SLOTS_PER_WEEK];
+        for (int t = first; t < series.length; t++) {
+            if (!Double.isNaN(series[t])) {
+                sum += series[t];
+                counted++;
+                season[t % SLOTS_PER_WEEK] += series[t];
+                seasonCounts[t % SLOTS_PER_WEEK]++;
+            }
+        }
+        double level = sum / counted;
+        double trend = 0;
+        for (int s = 0; s < SLOTS_PER_WEEK; s++) {
+            season[s] = seasonCounts[s] > 0 ? season[s] / seasonCounts[s] - level : 0;
+        }
+
+        for (int t = first; t < series.length; t++) {
+            int s = t % SLOTS_PER_WEEK;
+            double y = series[t];
+            double previousLevel = level;
+            if (Double.isNaN(y)) {
+                level = previousLevel + phi * trend;
+                trend = phi * trend;
+                continue;
+            }
+            level = alpha * (y - season[s]) + (1 - alpha) * (previousLevel + phi * trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * phi * trend;
+            season[s] = gamma * (y - level) + (1 - gamma) * season[s];
+        }
+
+        float[] table = new float[SLOTS_PER_WEEK];
+        int next = series.length;
+        for (int h = 1; h <= SLOTS_PER_WEEK; h++) {
+            int s = (next + h - 1) % SLOTS_PER_WEEK;
+            // Damped trend: phi + phi^2 + ... + phi^h
+            double damping = phi == 1 ? h : phi * (1 - Math.pow(phi, h)) / (1 - phi);
+            double predicted = level + damping * trend + season[s];
+            table[s] = (float) Math.max(0, Math.min(capacity, predicted));
+        }
+        return table;
+    }
+
+    /**
+     * Summarizes the forecast for the server console.
+     * @return status line
+     */
+    public String status() {
+        float[] table = forecast;
+        if (table == null) {
+            return "Demand forecast: not available";
+        }
+        int busiest = 0;
+        for (int s = 1; s < table.length; s++) {
+            if (table[s] > table[busiest]) {
+                busiest = s;
+            }
+        }
+        LocalTime slotStart = LocalTime.ofSecondOfDay((long) (busiest % SLOTS_PER_DAY) * SLOT_SECONDS);
+        return String.format("Demand forecast: refreshed %s, busiest slot %s %s with %.1f spots occupied",
+                refreshedAt, DayOfWeek.of(busiest / SLOTS_PER_DAY + 1), slotStart, table[busiest]);
+    }
+
+    private static int weekSlot(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * SLOTS_PER_DAY + time.toLocalTime().toSecondOfDay() / SLOT_SECONDS;
+    }
+}
@@ -0,0 +1,115 @@
+package services;
+
+/**
+ * DurationHistogram is a small, mergeable histogram of parking durations in
+ * minutes, built like {@link server.LatencyHistogram}: durations under an
+ * hour are counted exactly, longer ones in log-linear buckets that split
+ * every power-of-two range into 32 steps, so any percentile is reproduced
+ * within about 3%. Durations up to four years fit in ~550 int counters
+ * (about 2 KB). Count, sum, min and max are exact.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class DurationHistogram {
+
+    /** Values below this are counted exactly */
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 15;
+    private static final long MAX_VALUE = (2L * SUB_BUCKETS << MAX_MAGNITUDE) - 1;
+
+    private final int[] counts = new int[LINEAR_BUCKETS + MAX_MAGNITUDE * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records one duration.
+     * @param minutes Duration in minutes; negative values count as 0
+     */
+    public void record(long minutes) {
+        long value = Math.max(0, Math.min(minutes, MAX_VALUE));
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every duration recorded in another histogram.
+     * @param other Histogram to merge in
+     */
+    public void merge(DurationHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (magnitude - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns a representative value (the middle) of a bucket.
+     */
+    private static long valueOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int magnitude = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return (subBucket << magnitude) + (1L << (magnitude - 1));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the exact mean.
+     * @return mean in minutes, 0 if nothing was recorded
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the duration at a percentile of the recorded durations.
+     * @param percentile Percentile between 0 and 100
+     * @return duration in minutes, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(valueOf(i), max));
+            }
+        }
+        return max;
+    }
+}
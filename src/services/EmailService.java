@@ -13,6 +13,8 @@ import javax.mail.Transport;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
+import server.ServerEvents;
+
 /**
  * EmailService for BPark System - Hebrew Only Handles all email notifications
  * for the parking system
@@ -45,6 +47,9 @@ public class EmailService {
      */
     public static boolean sendNotification(NotificationType type, String recipientEmail, 
                                          String customerName, Object... additionalData) {
+        ServerEvents.EmailSend event = new ServerEvents.EmailSend();
+        event.begin();
+        event.notificationType = type.name();
         try {
             Session session = createEmailSession();
             MimeMessage message = new MimeMessage(session);
@@ -60,12 +65,16 @@ public class EmailService {
             
             Transport.send(message);
             System.out.println("✅ Email sent successfully: " + type + " to " + recipientEmail);
+            event.success = true;
+            event.bodySize = content.htmlBody.length();
             return true;
             
         } catch (Exception e) {
             System.err.println("❌ Failed to send email: " + type + " to " + recipientEmail);
             e.printStackTrace();
             return false;
+        } finally {
+            event.commit();
         }
     }
     
@@ -109,6 +118,13 @@ public class EmailService {
         return sendNotification(NotificationType.WELCOME_MESSAGE, recipientEmail, customerName, username, userID);
     }
     
+    /**
+     * Builds the HTML body of a notification without sending it
+     */
+    public static String renderNotificationBody(NotificationType type, String customerName, Object... additionalData) {
+        return generateEmailContent(type, customerName, additionalData).htmlBody;
+    }
+    
     /**
      * Create email session with Gmail SMTP configuration
      */
@@ -136,8 +152,8 @@ public class EmailService {
      */
     private static EmailContent generateEmailContent(NotificationType type, String customerName, 
                                                    Object... additionalData) {
-        String currentDate = LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-        String currentTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm"));
+        String currentDate = ClockService.getInstance().today().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        String currentTime = ClockService.getInstance().now().format(DateTimeFormatter.ofPattern("HH:mm"));
         
         switch (type) {
             case LATE_PICKUP:
@@ -237,8 +253,8 @@ public class EmailService {
     private static EmailContent createReservationContent(String customerName, String reservationCode, 
                                                        String reservationDate, String spotNumber) {
         String subject = "אישור הזמנת חניה - קוד " + reservationCode;
-        String content = createEmailTemplate(customerName, LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), 
-            LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")),
+        String content = createEmailTemplate(customerName, ClockService.getInstance().today().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), 
+            ClockService.getInstance().now().format(DateTimeFormatter.ofPattern("HH:mm")),
             "אישור הזמנת חניה",
             "שלום " + customerName + ",",
             "הזמנת החניה שלך אושרה בהצלחה!<br><br>" +
@@ -295,8 +311,8 @@ public class EmailService {
      */
     private static EmailContent createExtensionContent(String customerName, String parkingCode, int hours, String newEndTime) {
         String subject = "אישור הארכת חניה - קוד " + parkingCode;
-        String content = createEmailTemplate(customerName, LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), 
-            LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")),
+        String content = createEmailTemplate(customerName, ClockService.getInstance().today().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), 
+            ClockService.getInstance().now().format(DateTimeFormatter.ofPattern("HH:mm")),
             "אישור הארכת חניה",
             "שלום " + customerName + ",",
             "הארכת החניה שלך אושרה בהצלחה!<br><br>" +
@@ -332,8 +348,8 @@ public class EmailService {
      */
     private static EmailContent createWelcomeContent(String customerName, String username, int userID) {
         String subject = "ברוכים הבאים ל-BPARK - מערכת חניון חכמה!";
-        String content = createEmailTemplate(customerName, LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), 
-            LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")),
+        String content = createEmailTemplate(customerName, ClockService.getInstance().today().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), 
+            ClockService.getInstance().now().format(DateTimeFormatter.ofPattern("HH:mm")),
             "ברוכים הבאים ל-BPARK!",
             "שלום " + customerName + " וברוכים הבאים!",
             "אנחנו שמחים שהצטרפת למערכת החניון החכם שלנו.<br><br>" +
@@ -356,8 +372,8 @@ public class EmailService {
      */
     private static EmailContent createDefaultContent(String customerName) {
         return new EmailContent("הודעה מ-BPARK", 
-            createEmailTemplate(customerName, LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), 
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm")),
+            createEmailTemplate(customerName, ClockService.getInstance().today().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")), 
+                ClockService.getInstance().now().format(DateTimeFormatter.ofPattern("HH:mm")),
                 "הודעה מ-BPARK", "שלום " + customerName + ",", 
                 "קיבלת הודעה מצוות BPARK.", "", "#d1ecf1", "#17a2b8"));
     }
@@ -0,0 +1,324 @@
+package services;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import common.Logger;
+import entities.ExportRequest;
+import entities.ExportResult;
+import server.DBController;
+import server.FileChunkSource;
+
+/**
+ * ExportService writes sessions and users to CSV files using the Singleton
+ * pattern. Rows are read with a forward-only streaming cursor, encoded into
+ * reused buffers and written through a {@link FileChannel}, so an export
+ * runs in constant memory however many rows it covers. Exports run one at a
+ * time on a low-priority thread and use a single pooled connection, so they
+ * do not compete with the gates for connections or lane threads.
+ *
+ * Finished files are kept in {@code bpark.export.dir} for
+ * {@code bpark.export.retentionHours}, then removed by {@link #deleteExpired()}.
+ * They are downloaded as chunked streams (see {@link #openDownload(String)}).
+ */
+public class ExportService {
+
+    private static final Logger LOG = Logger.get("export");
+    private static ExportService instance;
+
+    /** Bytes encoded before they are written to the file */
+    private static final int BUFFER_BYTES = 64 * 1024;
+    /** Date range of an export without bounds; DATETIME starts at year 1000 */
+    private static final LocalDate EARLIEST = LocalDate.of(1000, 1, 1);
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final String SESSIONS_QUERY = """
+            SELECT pi.ParkingInfo_ID, pi.Code, pi.User_ID, u.UserName, pi.ParkingSpot_ID,
+                   pi.ReservationType, pi.statusEnum, pi.Date, pi.Start_time, pi.Entry_time,
+                   pi.Estimated_end_time, pi.Actual_end_time, pi.IsExtended, pi.IsLate
+            FROM parkinginfo pi
+            LEFT JOIN users u ON u.User_ID = pi.User_ID
+            WHERE pi.Entry_time >= ? AND pi.Entry_time < ?
+            ORDER BY pi.Entry_time
+            """;
+
+    private static final String USERS_QUERY = """
+            SELECT u.User_ID, u.UserName, u.Name, u.Email, u.Phone, u.CarNum, u.UserTypeEnum,
+                   COUNT(pi.ParkingInfo_ID) AS Sessions
+            FROM users u
+            LEFT JOIN parkinginfo pi ON pi.User_ID = u.User_ID
+                AND pi.Entry_time >= ? AND pi.Entry_time < ?
+            GROUP BY u.User_ID
+            ORDER BY u.User_ID
+            """;
+
+    private final ExecutorService exporter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "bpark-export");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final Path directory = Paths.get(System.getProperty("bpark.export.dir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "bpark-exports").toString()));
+    private final long retentionMillis = Long.getLong("bpark.export.retentionHours", 24) * 3_600_000L;
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private ExportService() {}
+
+    /**
+     * Returns singleton instance of ExportService.
+     * @return ExportService instance
+     */
+    public static synchronized ExportService getInstance() {
+        if (instance == null) {
+            instance = new ExportService();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues an export; exports run one at a time.
+     * @param request Dataset and date range
+     * @return the result, completed when the file is written or the export failed
+     */
+    public CompletableFuture<ExportResult> export(ExportRequest request) {
+        if (request == null || request.getDataset() == null) {
+            return CompletableFuture.completedFuture(ExportResult.failed("No dataset requested"));
+        }
+        return CompletableFuture.supplyAsync(() -> run(request), exporter);
+    }
+
+    /**
+     * Opens a finished export for download.
+     * @param fileName Name from the export result
+     * @return an open source, or null if there is no such export
+     */
+    public FileChunkSource openDownload(String fileName) {
+        if (fileName == null || !fileName.matches("[A-Za-z0-9_.-]+\\.csv")) {
+            return null;
+        }
+        Path file = directory.resolve(fileName);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return FileChunkSource.open(file);
+        } catch (IOException e) {
+            System.err.println("Error opening export " + fileName + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private ExportResult run(ExportRequest request) {
+        LocalDate from = request.getFrom() != null ? request.getFrom() : EARLIEST;
+        LocalDate to = request.getTo() != null ? request.getTo() : ClockService.getInstance().today().plusDays(1);
+        String fileName = request.getDataset().name().toLowerCase() + "-" + from + "-" + to + "-"
+                + ClockService.getInstance().now().format(FILE_TIME) + ".csv";
+        long start = System.nanoTime();
+
+        Path part;
+        try {
+            Files.createDirectories(directory);
+            part = directory.resolve(fileName + ".part");
+        } catch (IOException e) {
+            System.err.println("Error preparing export directory: " + e.getMessage());
+            return ExportResult.failed("Export directory not available");
+        }
+
+        Connection conn = DBController.getInstance().getConnection();
+        String query = request.getDataset() == ExportRequest.Dataset.SESSIONS ? SESSIONS_QUERY : USERS_QUERY;
+        try (PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+             CsvWriter csv = new CsvWriter(FileChannel.open(part, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(to.atStartOfDay()));
+            long rows = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                for (int i = 1; i <= columns; i++) {
+                    csv.field(meta.getColumnLabel(i));
+                }
+                csv.endRow();
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        csv.field(rs.getString(i));
+                    }
+                    csv.endRow();
+                    rows++;
+                }
+            }
+            long bytes = csv.finish();
+            Files.move(part, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            LOG.info("Exported {} rows to {}", rows, fileName);
+            return new ExportResult(fileName, rows, bytes, elapsedMillis);
+        } catch (SQLException | IOException e) {
+            System.err.println("Error exporting " + request.getDataset() + ": " + e.getMessage());
+            deleteQuietly(part);
+            return ExportResult.failed("Export failed");
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Deletes exports older than the retention period; the server runs this
+     * periodically. A download already open keeps reading a deleted file.
+     */
+    public void deleteExpired() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{csv,part}")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error deleting expired exports: " + e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting export " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Encodes CSV rows into a reused byte buffer and writes it to a channel
+     * when full. A row is built in a reused character buffer first, so
+     * writing a row allocates nothing beyond the values read from JDBC.
+     */
+    static final class CsvWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private CharBuffer row = CharBuffer.allocate(1024);
+        private boolean firstField = true;
+
+        CsvWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Appends a field to the current row, quoted if it contains a
+         * separator, quote or line break. Null is written as an empty field.
+         */
+        void field(String value) throws IOException {
+            if (!firstField) {
+                append(',');
+            }
+            firstField = false;
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                for (int i = 0; i < value.length(); i++) {
+                    append(value.charAt(i));
+                }
+                return;
+            }
+            append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    append('"');
+                }
+                append(c);
+            }
+            append('"');
+        }
+
+        /**
+         * Ends the current row and encodes it into the byte buffer.
+         */
+        void endRow() throws IOException {
+            append('\r');
+            append('\n');
+            row.flip();
+            while (true) {
+                CoderResult result = encoder.encode(row, bytes, false);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isUnderflow()) {
+                    break;
+                } else {
+                    result.throwException();
+                }
+            }
+            row.compact();
+            firstField = true;
+        }
+
+        /**
+         * Writes what is buffered and returns the size of the file.
+         */
+        long finish() throws IOException {
+            drain();
+            return channel.position();
+        }
+
+        private void append(char c) {
+            if (!row.hasRemaining()) {
+                CharBuffer larger = CharBuffer.allocate(row.capacity() * 2);
+                row.flip();
+                larger.put(row);
+                row = larger;
+            }
+            row.put(c);
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import common.Logger;
+import entities.OccupancyRangeRequest;
+import entities.OccupancySeries;
+import entities.OccupancySeries.Resolution;
+import server.DBController;
+
+/**
+ * OccupancyRecorder samples occupied spots, reservations held and late
+ * sessions every few seconds and keeps their history using the Singleton
+ * pattern (see bpark_occupancy.sql).
+ *
+ * Samples are kept at full resolution in a fixed-size ring buffer covering
+ * the last day. Every sample is also added to the open minute, hour and day
+ * buckets; a bucket is written to {@code occupancy_series} when it closes.
+ * Writes add to an existing row, so a bucket that was partly written before a
+ * restart is completed rather than overwritten. Range queries read the ring
+ * or the persisted buckets plus the open one, never parkinginfo.
+ */
+public class OccupancyRecorder {
+
+    private static final Logger LOG = Logger.get("analytics.occupancy");
+    private static OccupancyRecorder instance;
+
+    /** Longest series returned, so an explicit fine resolution over a long range stays chartable */
+    private static final int MAX_POINTS = 5_000;
+
+    private static final String SAMPLE_QUERY = """
+            SELECT (SELECT COUNT(*) FROM parkingspot WHERE isOccupied = TRUE) AS occupied,
+                   IFNULL(SUM(statusEnum = 'preorder'), 0) AS reservations,
+                   IFNULL(SUM(statusEnum = 'active' AND Estimated_end_time < ?), 0) AS late
+            FROM parkinginfo
+            WHERE statusEnum IN ('preorder', 'active')
+            """;
+
+    private static final String UPSERT = """
+            INSERT INTO occupancy_series
+                (Resolution, Bucket_start, Samples, Occupied_sum, Occupied_max,
+                 Reservations_sum, Reservations_max, Late_sum, Late_max)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Samples = Samples + VALUES(Samples),
+                Occupied_sum = Occupied_sum + VALUES(Occupied_sum),
+                Occupied_max = GREATEST(Occupied_max, VALUES(Occupied_max)),
+                Reservations_sum = Reservations_sum + VALUES(Reservations_sum),
+                Reservations_max = GREATEST(Reservations_max, VALUES(Reservations_max)),
+                Late_sum = Late_sum + VALUES(Late_sum),
+                Late_max = GREATEST(Late_max, VALUES(Late_max))
+            """;
+
+    private static final String RANGE_QUERY = """
+            SELECT Bucket_start, Samples, Occupied_sum, Occupied_max,
+                   Reservations_sum, Reservations_max, Late_sum, Late_max
+            FROM occupancy_series
+            WHERE Resolution = ? AND Bucket_start >= ? AND Bucket_start < ?
+            ORDER BY Bucket_start
+            LIMIT ?
+            """;
+
+    private static final String PRUNE_MINUTES =
+            "DELETE FROM occupancy_series WHERE Resolution = 'minute' AND Bucket_start < ?";
+
+    /**
+     * Sums and maxima of the samples taken in one minute, hour or day.
+     */
+    private static final class Bucket {
+        final Resolution resolution;
+        final LocalDateTime start;
+        int samples;
+        long occupiedSum;
+        int occupiedMax;
+        long reservationsSum;
+        int reservationsMax;
+        long lateSum;
+        int lateMax;
+
+        Bucket(Resolution resolution, LocalDateTime start) {
+            this.resolution = resolution;
+            this.start = start;
+        }
+
+        void add(int occupied, int reservations, int late) {
+            samples++;
+            occupiedSum += occupied;
+            occupiedMax = Math.max(occupiedMax, occupied);
+            reservationsSum += reservations;
+            reservationsMax = Math.max(reservationsMax, reservations);
+            lateSum += late;
+            lateMax = Math.max(lateMax, late);
+        }
+
+        void merge(Bucket other) {
+            samples += other.samples;
+            occupiedSum += other.occupiedSum;
+            occupiedMax = Math.max(occupiedMax, other.occupiedMax);
+            reservationsSum += other.reservationsSum;
+            reservationsMax = Math.max(reservationsMax, other.reservationsMax);
+            lateSum += other.lateSum;
+            lateMax = Math.max(lateMax, other.lateMax);
+        }
+
+        OccupancySeries.Point toPoint() {
+            double n = Math.max(1, samples);
+            return new OccupancySeries.Point(start, samples, occupiedSum / n, occupiedMax,
+                    reservationsSum / n, reservationsMax, lateSum / n, lateMax);
+        }
+    }
+
+    private final int sampleSeconds = Integer.getInteger("bpark.occupancy.sampleSeconds", 10);
+    private final int minuteRetentionDays = Integer.getInteger("bpark.occupancy.minuteDays", 30);
+
+    // Full-resolution ring buffer; head is the next slot to write
+    private final long[] rawTime;
+    private final int[] rawOccupied;
+    private final int[] rawReservations;
+    private final int[] rawLate;
+    private int head;
+    private int rawCount;
+
+    private final Map<Resolution, Bucket> open = new EnumMap<>(Resolution.class);
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private OccupancyRecorder() {
+        int capacity = Integer.getInteger("bpark.occupancy.rawSamples", 24 * 3600 / sampleSeconds);
+        rawTime = new long[capacity];
+        rawOccupied = new int[capacity];
+        rawReservations = new int[capacity];
+        rawLate = new int[capacity];
+    }
+
+    /**
+     * Returns singleton instance of OccupancyRecorder.
+     * @return OccupancyRecorder instance
+     */
+    public static synchronized OccupancyRecorder getInstance() {
+        if (instance == null) {
+            instance = new OccupancyRecorder();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the sampling interval.
+     * @return seconds between samples
+     */
+    public int getSampleSeconds() {
+        return sampleSeconds;
+    }
+
+    /**
+     * Reads the current occupancy from the database and records it.
+     */
+    public void sample() {
+        LocalDateTime now = ClockService.getInstance().now();
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(SAMPLE_QUERY)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(now));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    record(now, rs.getInt("occupied"), rs.getInt("reservations"), rs.getInt("late"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error sampling occupancy: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Records one sample and writes the buckets it closes.
+     * @param time Sample time
+     * @param occupied Occupied spots
+     * @param reservations Reservations held
+     * @param late Active sessions past their estimated end
+     */
+    public void record(LocalDateTime time, int occupied, int reservations, int late) {
+        List<Bucket> closed = new ArrayList<>();
+        synchronized (this) {
+            rawTime[head] = toSeconds(time);
+            rawOccupied[head] = occupied;
+            rawReservations[head] = reservations;
+            rawLate[head] = late;
+            head = (head + 1) % rawTime.length;
+            rawCount = Math.min(rawCount + 1, rawTime.length);
+
+            for (Resolution resolution : new Resolution[] { Resolution.MINUTE, Resolution.HOUR, Resolution.DAY }) {
+                LocalDateTime start = bucketStart(resolution, time);
+                Bucket bucket = open.get(resolution);
+                if (bucket != null && !bucket.start.equals(start)) {
+                    closed.add(bucket);
+                    bucket = null;
+                }
+                if (bucket == null) {
+                    bucket = new Bucket(resolution, start);
+                    open.put(resolution, bucket);
+                }
+                bucket.add(occupied, reservations, late);
+            }
+        }
+        if (!closed.isEmpty()) {
+            persist(closed);
+            if (closed.size() > 1) {
+                // An hour closed: drop minute buckets past retention
+                pruneMinutes(time.minusDays(minuteRetentionDays));
+            }
+        }
+    }
+
+    /**
+     * Writes the open buckets and starts them over, e.g. before shutdown.
+     * The rows are added to, so the rest of each bucket is merged in when it closes.
+     */
+    public void flush() {
+        List<Bucket> partial;
+        synchronized (this) {
+            partial = new ArrayList<>(open.values());
+            for (Bucket bucket : partial) {
+                open.put(bucket.resolution, new Bucket(bucket.resolution, bucket.start));
+            }
+        }
+        partial.removeIf(bucket -> bucket.samples == 0);
+        if (!partial.isEmpty()) {
+            persist(partial);
+        }
+    }
+
+    /**
+     * Returns the occupancy history of a time range.
+     * @param request Range and optional resolution
+     * @return series at the requested or chosen resolution
+     */
+    public OccupancySeries query(OccupancyRangeRequest request) {
+        LocalDateTime to = request.getTo() != null ? request.getTo() : ClockService.getInstance().now();
+        LocalDateTime from = request.getFrom() != null ? request.getFrom() : to.minusHours(1);
+        Resolution resolution = request.getResolution() != null ? request.getResolution() : chooseResolution(from, to);
+
+        if (resolution == Resolution.RAW) {
+            return new OccupancySeries(Resolution.RAW, rawPoints(from, to));
+        }
+        ArrayList<OccupancySeries.Point> points = new ArrayList<>();
+        Bucket last = null;
+        for (Bucket bucket : persistedBuckets(resolution, from, to)) {
+            if (last != null) {
+                points.add(last.toPoint());
+            }
+            last = bucket;
+        }
+
+        // The open bucket is not persisted yet, or only partly after a flush
+        Bucket current;
+        synchronized (this) {
+            Bucket openBucket = open.get(resolution);
+            current = null;
+            if (openBucket != null && !openBucket.start.isBefore(from) && openBucket.start.isBefore(to)) {
+                current = new Bucket(resolution, openBucket.start);
+                current.merge(openBucket);
+            }
+        }
+        if (current != null && last != null && last.start.equals(current.start)) {
+            last.merge(current);
+            current = null;
+        }
+        if (last != null) {
+            points.add(last.toPoint());
+        }
+        if (current != null && points.size() < MAX_POINTS) {
+            points.add(current.toPoint());
+        }
+        return new OccupancySeries(resolution, points);
+    }
+
+    /**
+     * Picks the finest resolution that covers the range in a chartable number of points.
+     */
+    private Resolution chooseResolution(LocalDateTime from, LocalDateTime to) {
+        long seconds = Duration.between(from, to).getSeconds();
+        synchronized (this) {
+            if (rawCount > 0 && seconds <= MAX_POINTS * (long) sampleSeconds && toSeconds(from) >= oldestRawSeconds()) {
+                return Resolution.RAW;
+            }
+        }
+        if (seconds <= Duration.ofDays(2).getSeconds()) {
+            return Resolution.MINUTE;
+        }
+        if (seconds <= Duration.ofDays(90).getSeconds()) {
+            return Resolution.HOUR;
+        }
+        return Resolution.DAY;
+    }
+
+    private long oldestRawSeconds() {
+        int oldest = (head - rawCount + rawTime.length) % rawTime.length;
+        return rawTime[oldest];
+    }
+
+    private synchronized ArrayList<OccupancySeries.Point> rawPoints(LocalDateTime from, LocalDateTime to) {
+        long fromSeconds = toSeconds(from);
+        long toSeconds = toSeconds(to);
+        ArrayList<OccupancySeries.Point> points = new ArrayList<>();
+        for (int i = 0; i < rawCount && points.size() < MAX_POINTS; i++) {
+            int slot = (head - rawCount + i + rawTime.length) % rawTime.length;
+            long time = rawTime[slot];
+            if (time >= fromSeconds && time < toSeconds) {
+                points.add(new OccupancySeries.Point(LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC), 1,
+                        rawOccupied[slot], rawOccupied[slot], rawReservations[slot], rawReservations[slot],
+                        rawLate[slot], rawLate[slot]));
+            }
+        }
+        return points;
+    }
+
+    private List<Bucket> persistedBuckets(Resolution resolution, LocalDateTime from, LocalDateTime to) {
+        List<Bucket> buckets = new ArrayList<>();
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(RANGE_QUERY)) {
+            stmt.setString(1, resolution.name().toLowerCase());
+            stmt.setTimestamp(2, Timestamp.valueOf(bucketStart(resolution, from)));
+            stmt.setTimestamp(3, Timestamp.valueOf(to));
+            stmt.setInt(4, MAX_POINTS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Bucket bucket = new Bucket(resolution, rs.getTimestamp("Bucket_start").toLocalDateTime());
+                    bucket.samples = rs.getInt("Samples");
+                    bucket.occupiedSum = rs.getLong("Occupied_sum");
+                    bucket.occupiedMax = rs.getInt("Occupied_max");
+                    bucket.reservationsSum = rs.getLong("Reservations_sum");
+                    bucket.reservationsMax = rs.getInt("Reservations_max");
+                    bucket.lateSum = rs.getLong("Late_sum");
+                    bucket.lateMax = rs.getInt("Late_max");
+                    buckets.add(bucket);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading occupancy series: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+        return buckets;
+    }
+
+    private void persist(List<Bucket> buckets) {
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT)) {
+            for (Bucket bucket : buckets) {
+                stmt.setString(1, bucket.resolution.name().toLowerCase());
+                stmt.setTimestamp(2, Timestamp.valueOf(bucket.start));
+                stmt.setInt(3, bucket.samples);
+                stmt.setLong(4, bucket.occupiedSum);
+                stmt.setInt(5, bucket.occupiedMax);
+                stmt.setLong(6, bucket.reservationsSum);
+                stmt.setInt(7, bucket.reservationsMax);
+                stmt.setLong(8, bucket.lateSum);
+                stmt.setInt(9, bucket.lateMax);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            LOG.debug("Wrote {} occupancy buckets", buckets.size());
+        } catch (SQLException e) {
+            System.err.println("Error writing occupancy series: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    private void pruneMinutes(LocalDateTime before) {
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(PRUNE_MINUTES)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(before));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error pruning occupancy minutes: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    private static LocalDateTime bucketStart(Resolution resolution, LocalDateTime time) {
+        switch (resolution) {
+            case MINUTE:
+                return time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+                return time.truncatedTo(ChronoUnit.DAYS);
+            default:
+                return time;
+        }
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -60,6 +60,14 @@ public class ParkingSpotService {
         }
     }
     
+    /**
+     * Gets the total number of parking spots.
+     * @return Number of spots in the parking lot
+     */
+    public int getTotalSpots() {
+        return TOTAL_PARKING_SPOTS;
+    }
+    
     /**
      * Gets the number of available parking spots.
      * @return Number of available spots
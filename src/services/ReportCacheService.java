@@ -0,0 +1,215 @@
+package services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import common.Logger;
+import entities.ParkingReport;
+import server.DBController;
+
+/**
+ * ReportCacheService caches generated reports by report type and period
+ * using the Singleton pattern.
+ *
+ * Reports of a closed period (e.g. a past month) never change: they are
+ * kept in memory and persisted to the {@code reports} table, so after a
+ * restart they are read back instead of recomputed. Reports of the current
+ * period are kept in memory for {@code bpark.reportCache.ttlSeconds}
+ * (default 60) and dropped as soon as a session changes.
+ */
+public class ReportCacheService {
+
+    private static final Logger LOG = Logger.get("reports.cache");
+    private static ReportCacheService instance;
+
+    /** Report_Data is a TEXT column */
+    private static final int MAX_PERSISTED_CHARS = 65_535;
+
+    private static class Entry {
+        final ArrayList<ParkingReport> reports;
+        final long expiresAtNanos;
+        final long sessionVersion;
+
+        Entry(ArrayList<ParkingReport> reports, long expiresAtNanos, long sessionVersion) {
+            this.reports = reports;
+            this.expiresAtNanos = expiresAtNanos;
+            this.sessionVersion = sessionVersion;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /** Bumped on every session change; current-period entries from an older version are stale */
+    private final AtomicLong sessionVersion = new AtomicLong();
+    private final long ttlNanos = TimeUnit.SECONDS.toNanos(Long.getLong("bpark.reportCache.ttlSeconds", 60));
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private ReportCacheService() {}
+
+    /**
+     * Returns singleton instance of ReportCacheService.
+     * @return ReportCacheService instance
+     */
+    public static synchronized ReportCacheService getInstance() {
+        if (instance == null) {
+            instance = new ReportCacheService();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns cached reports, generating them on a miss.
+     * @param key Report type and period, e.g. "MONTHLY:2025-06"
+     * @param closedPeriod true if the period has ended and its reports can no longer change
+     * @param generator Computes the reports on a miss
+     * @return the reports; incomplete ones are returned but never cached
+     */
+    public ArrayList<ParkingReport> get(String key, boolean closedPeriod, Supplier<ArrayList<ParkingReport>> generator) {
+        Entry entry = entries.get(key);
+        if (entry != null && isFresh(entry, closedPeriod)) {
+            hits.increment();
+            return entry.reports;
+        }
+
+        if (closedPeriod) {
+            ArrayList<ParkingReport> persisted = load(key);
+            if (persisted != null) {
+                hits.increment();
+                entries.put(key, new Entry(persisted, Long.MAX_VALUE, 0));
+                return persisted;
+            }
+        }
+
+        misses.increment();
+        long version = sessionVersion.get();
+        ArrayList<ParkingReport> reports = generator.get();
+        if (reports.stream().anyMatch(ParkingReport::isIncomplete)) {
+            LOG.warn("Report {} is incomplete, not caching it", key);
+        } else if (closedPeriod) {
+            // An empty result may be a failed query; recompute it next time instead of freezing it
+            if (!reports.isEmpty()) {
+                entries.put(key, new Entry(reports, Long.MAX_VALUE, 0));
+                persist(key, reports);
+            }
+        } else {
+            entries.put(key, new Entry(reports, System.nanoTime() + ttlNanos, version));
+        }
+        return reports;
+    }
+
+    private boolean isFresh(Entry entry, boolean closedPeriod) {
+        if (closedPeriod) {
+            return true;
+        }
+        return entry.sessionVersion == sessionVersion.get() && System.nanoTime() - entry.expiresAtNanos < 0;
+    }
+
+    /**
+     * Checks whether a report is held in memory, fresh or not.
+     * @param key Report type and period
+     * @return true if an entry exists
+     */
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Invalidates every current-period report. Called whenever a change to
+     * a session has been committed, e.g. it was opened, closed or extended.
+     */
+    public void onSessionChange() {
+        sessionVersion.incrementAndGet();
+    }
+
+    /**
+     * Describes the cache for the server console.
+     * @return status line
+     */
+    public String status() {
+        return "Report cache: " + entries.size() + " entries, " + hits.sum() + " hits, " + misses.sum() + " misses";
+    }
+
+    private ArrayList<ParkingReport> load(String key) {
+        String query = "SELECT Report_Data FROM reports WHERE Report_Type = ? ORDER BY Reports_ID DESC LIMIT 1";
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, key);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return decode(rs.getString("Report_Data"));
+                }
+            }
+        } catch (SQLException | IOException | ClassNotFoundException e) {
+            System.err.println("Error loading cached report " + key + ": " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+        return null;
+    }
+
+    private void persist(String key, ArrayList<ParkingReport> reports) {
+        String data;
+        try {
+            data = encode(reports);
+        } catch (IOException e) {
+            System.err.println("Error encoding report " + key + ": " + e.getMessage());
+            return;
+        }
+        if (data.length() > MAX_PERSISTED_CHARS) {
+            LOG.warn("Report {} is too large to persist ({} chars), keeping it in memory only", key, data.length());
+            return;
+        }
+
+        String insert = "INSERT INTO reports (Report_Type, Generated_Date, Report_Data) VALUES (?, ?, ?)";
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(insert)) {
+            stmt.setString(1, key);
+            stmt.setTimestamp(2, ClockService.getInstance().nowTimestamp());
+            stmt.setString(3, data);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error persisting report " + key + ": " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Serializes reports as Base64 of gzipped Java serialization, to fit a TEXT column.
+     */
+    private static String encode(ArrayList<ParkingReport> reports) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeObject(reports);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayList<ParkingReport> decode(String data) throws IOException, ClassNotFoundException {
+        byte[] bytes = Base64.getDecoder().decode(data);
+        try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes)))) {
+            return (ArrayList<ParkingReport>) in.readObject();
+        }
+    }
+}
@@ -1,20 +1,36 @@
 package services;
 
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import entities.ParkingReport;
 import server.DBController;
+import server.ResultCursor;
 
 /**
  * ReportService handles all reporting operations following Single Responsibility Principle.
  * Manages parking reports, statistics, and analytical data generation.
+ * The rolling 30-day reports read the rollup tables kept by {@link RollupService},
+ * so their cost does not grow with the size of parkinginfo. Their queries run
+ * concurrently, so a report takes about as long as its slowest query.
+ * Duration percentiles and distinct active subscribers come from the per-day
+ * sketches of {@link SessionSketchService}, and the peak hour profile from the
+ * live counters of {@link ActivityCounters} once they are seeded.
  */
 public class ReportService {
     
@@ -42,18 +58,28 @@ public class ReportService {
      * @return ArrayList of ParkingReport objects
      */
     public ArrayList<ParkingReport> getParkingReports(String reportType) {
+        // The rolling window always ends today, so these are never closed
+        return ReportCacheService.getInstance().get("REPORTS:" + reportType.toUpperCase(), false,
+                () -> computeParkingReports(reportType));
+    }
+
+    private ArrayList<ParkingReport> computeParkingReports(String reportType) {
         ArrayList<ParkingReport> reports = new ArrayList<>();
+        long deadline = queryDeadline();
 
         switch (reportType.toUpperCase()) {
             case "PARKING_TIME":
-                reports.add(generateParkingTimeReport());
+                reports.add(parkingTimeReportAsync(deadline).join());
                 break;
             case "SUBSCRIBER_STATUS":
-                reports.add(generateSubscriberStatusReport());
+                reports.add(subscriberStatusReportAsync(deadline).join());
                 break;
             case "ALL":
-                reports.add(generateParkingTimeReport());
-                reports.add(generateSubscriberStatusReport());
+                // Start both before waiting, so all their queries run at once
+                CompletableFuture<ParkingReport> parkingTime = parkingTimeReportAsync(deadline);
+                CompletableFuture<ParkingReport> subscriberStatus = subscriberStatusReportAsync(deadline);
+                reports.add(parkingTime.join());
+                reports.add(subscriberStatus.join());
                 break;
             default:
                 System.err.println("Unknown report type: " + reportType);
@@ -61,71 +87,171 @@ public class ReportService {
 
         return reports;
     }
-    
+
+    /**
+     * One report query, run on its own pooled connection. Statements must
+     * be limited to {@code timeoutSeconds}, the time left until the deadline.
+     */
+    @FunctionalInterface
+    private interface ReportQuery<T> {
+        T run(Connection conn, int timeoutSeconds) throws SQLException;
+    }
+
+    /**
+     * Report queries are independent, so each runs on its own connection on
+     * this pool and the report is assembled when all have answered. The pool
+     * bounds how many connections reports hold at once; its queue needs no
+     * bound because the REPORTING lane already bounds concurrent reports.
+     */
+    private static final ExecutorService QUERY_POOL = createQueryPool();
+
+    private static ExecutorService createQueryPool() {
+        AtomicInteger counter = new AtomicInteger(1);
+        return Executors.newFixedThreadPool(Integer.getInteger("bpark.report.queryThreads", 3), r -> {
+            Thread t = new Thread(r, "bpark-report-query-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Deadline for the queries of one report request, in System.nanoTime() units.
+     */
+    private static long queryDeadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Long.getLong("bpark.report.deadlineMillis", 10_000));
+    }
+
+    /**
+     * Runs a report query on the query pool. The future completes with null
+     * if the query fails or has not answered by the deadline, so a report is
+     * built from whatever arrived in time and marked incomplete. The query's statements time out at
+     * the deadline too, so a late query does not keep holding its connection.
+     */
+    private static <T> CompletableFuture<T> submitQuery(String name, long deadline, ReportQuery<T> query) {
+        return CompletableFuture.supplyAsync(() -> {
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return null;
+            }
+            // Whole seconds, rounded up, since 0 would mean no timeout
+            int timeoutSeconds = (int) Math.max(1, (remainingNanos + 999_999_999L) / 1_000_000_000L);
+            Connection conn = DBController.getInstance().getConnection();
+            try {
+                return query.run(conn, timeoutSeconds);
+            } catch (SQLException e) {
+                System.err.println("Error running report query " + name + ": " + e.getMessage());
+                return null;
+            } finally {
+                DBController.getInstance().releaseConnection(conn);
+            }
+        }, QUERY_POOL).exceptionally(e -> {
+            System.err.println("Error running report query " + name + ": " + e.getMessage());
+            return null;
+        }).completeOnTimeout(null, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /** Total parking hours per day (sessions count once they end) */
+    private static final String TOTAL_TIME_QUERY = """
+            SELECT Rollup_date as parking_date, 
+                   SUM(Parked_minutes) DIV 60 as total_hours
+            FROM parking_rollup_daily 
+            WHERE Rollup_date >= ?
+            GROUP BY Rollup_date
+            ORDER BY parking_date DESC
+            """;
+
+    /** Extension statistics */
+    private static final String EXTENSION_QUERY = """
+            SELECT 
+                IFNULL(SUM(Sessions), 0) as total_sessions,
+                IFNULL(SUM(Extended), 0) as extended_sessions
+            FROM parking_rollup_daily 
+            WHERE Rollup_date >= ?
+            """;
+
+    /** Active vs inactive subscribers */
+    private static final String ACTIVITY_QUERY = """
+            SELECT 
+                (SELECT COUNT(*) FROM users WHERE UserTypeEnum = 'sub') as total_subscribers,
+                COUNT(DISTINCT r.User_ID) as active_subscribers
+            FROM parking_rollup_user_daily r
+            JOIN users u ON u.User_ID = r.User_ID
+            WHERE r.Rollup_date >= ? AND u.UserTypeEnum = 'sub'
+            """;
+
+    /** Subscriber total, when active subscribers come from the sketches */
+    private static final String TOTAL_SUBSCRIBERS_QUERY = """
+            SELECT COUNT(*) as total_subscribers FROM users WHERE UserTypeEnum = 'sub'
+            """;
+
+    /** Late pickup statistics */
+    private static final String LATE_PICKUP_QUERY = """
+            SELECT 
+                IFNULL(SUM(Exits), 0) as total_exits,
+                IFNULL(SUM(Late_exits), 0) as late_exits
+            FROM parking_rollup_daily 
+            WHERE Rollup_date >= ?
+            """;
+
     /**
      * Generates parking time analysis report.
      * @return ParkingReport with parking time statistics
      */
     public ParkingReport generateParkingTimeReport() {
-        ParkingReport report = new ParkingReport();
-        report.setReportType("Parking Time Analysis");
-        report.setReportDate(LocalDate.now());
-        
-        Connection conn = DBController.getInstance().getConnection();
-        TreeMap<String, Integer> hourlyData = new TreeMap<>();
-        
-        try {
-            // Get total parking time per day
-            String totalTimeQuery = """
-                    SELECT DATE(Entry_time) as parking_date, 
-                           SUM(TIMESTAMPDIFF(HOUR, Entry_time, IFNULL(Actual_end_time, NOW()))) as total_hours
-                    FROM parkinginfo 
-                    WHERE Entry_time >= DATE_SUB(NOW(), INTERVAL 30 DAY)
-                    GROUP BY DATE(Entry_time)
-                    ORDER BY parking_date DESC
-                    """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(totalTimeQuery)) {
+        return parkingTimeReportAsync(queryDeadline()).join();
+    }
+
+    private CompletableFuture<ParkingReport> parkingTimeReportAsync(long deadline) {
+        Date since = windowStart();
+
+        CompletableFuture<TreeMap<String, Integer>> totals = submitQuery("total time", deadline, (conn, timeoutSeconds) -> {
+            TreeMap<String, Integer> hourlyData = new TreeMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement(TOTAL_TIME_QUERY)) {
+                stmt.setQueryTimeout(timeoutSeconds);
+                stmt.setDate(1, since);
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
-                        String date = rs.getString("parking_date");
-                        int hours = rs.getInt("total_hours");
-                        hourlyData.put(date, hours);
+                        hourlyData.put(rs.getString("parking_date"), rs.getInt("total_hours"));
                     }
                 }
             }
-            
-            report.setTotalParkingTimePerDay(hourlyData);
-            
-            // Get extension statistics
-            String extensionQuery = """
-                    SELECT 
-                        COUNT(*) as total_sessions,
-                        SUM(CASE WHEN IsExtended = 'yes' THEN 1 ELSE 0 END) as extended_sessions
-                    FROM parkinginfo 
-                    WHERE Entry_time >= DATE_SUB(NOW(), INTERVAL 30 DAY)
-                    """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(extensionQuery)) {
+            return hourlyData;
+        });
+
+        CompletableFuture<int[]> extensions = submitQuery("extensions", deadline, (conn, timeoutSeconds) -> {
+            try (PreparedStatement stmt = conn.prepareStatement(EXTENSION_QUERY)) {
+                stmt.setQueryTimeout(timeoutSeconds);
+                stmt.setDate(1, since);
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        int totalSessions = rs.getInt("total_sessions");
-                        int extendedSessions = rs.getInt("extended_sessions");
-                        
-                        report.setExtensions(extendedSessions);
-                        report.setTotalParkings(totalSessions);
-                        report.setNoExtensions(totalSessions - extendedSessions);
-                    }
+                    return rs.next() ? new int[] { rs.getInt("total_sessions"), rs.getInt("extended_sessions") } : null;
                 }
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error generating parking time report: " + e.getMessage());
-        } finally {
-            DBController.getInstance().releaseConnection(conn);
-        }
-        
-        return report;
+        });
+
+        return totals.thenCombine(extensions, (hourlyData, ext) -> {
+            ParkingReport report = new ParkingReport();
+            report.setReportType("Parking Time Analysis");
+            report.setReportDate(ClockService.getInstance().today());
+            report.setIncomplete(hourlyData == null || ext == null);
+            report.setTotalParkingTimePerDay(hourlyData != null ? hourlyData : new TreeMap<>());
+            if (ext != null) {
+                report.setExtensions(ext[1]);
+                report.setTotalParkings(ext[0]);
+                report.setNoExtensions(ext[0] - ext[1]);
+            }
+            SessionSketchService sketches = SessionSketchService.getInstance();
+            if (sketches.isLoaded()) {
+                DurationHistogram durations = sketches.durations(since.toLocalDate(),
+                        ClockService.getInstance().today().plusDays(1));
+                report.setAverageParkingTime(durations.getMean());
+                report.setMinParkingTime((int) durations.getMin());
+                report.setMaxParkingTime((int) durations.getMax());
+                report.setMedianParkingTime((int) durations.getValueAtPercentile(50));
+                report.setP90ParkingTime((int) durations.getValueAtPercentile(90));
+            }
+            return report;
+        });
     }
     
     /**
@@ -133,85 +259,58 @@ public class ReportService {
      * @return ParkingReport with subscriber statistics
      */
     public ParkingReport generateSubscriberStatusReport() {
-        ParkingReport report = new ParkingReport();
-        report.setReportType("Subscriber Status Analysis");
-        report.setReportDate(LocalDate.now());
-        
-        Connection conn = DBController.getInstance().getConnection();
-        
-        try {
-            // Get subscriber counts by type
-            String subscriberQuery = """
-                    SELECT UserTypeEnum, COUNT(*) as count 
-                    FROM users 
-                    GROUP BY UserTypeEnum
-                    """;
-            
-            TreeMap<String, Integer> subscriberData = new TreeMap<>();
-            try (PreparedStatement stmt = conn.prepareStatement(subscriberQuery)) {
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        String userType = rs.getString("UserTypeEnum");
-                        int count = rs.getInt("count");
-                        subscriberData.put(userType, count);
+        return subscriberStatusReportAsync(queryDeadline()).join();
+    }
+
+    private CompletableFuture<ParkingReport> subscriberStatusReportAsync(long deadline) {
+        Date since = windowStart();
+
+        CompletableFuture<int[]> activity = submitQuery("subscriber activity", deadline, (conn, timeoutSeconds) -> {
+            SessionSketchService sketches = SessionSketchService.getInstance();
+            if (sketches.isLoaded()) {
+                try (PreparedStatement stmt = conn.prepareStatement(TOTAL_SUBSCRIBERS_QUERY)) {
+                    stmt.setQueryTimeout(timeoutSeconds);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        int active = (int) sketches.distinctSubscribers(since.toLocalDate(),
+                                ClockService.getInstance().today().plusDays(1));
+                        return rs.next() ? new int[] { rs.getInt("total_subscribers"), active } : null;
                     }
                 }
             }
-            
-            // Note: setSubscriberTypeData method not available in entity, data stored in subscriberData
-            
-            // Get active vs inactive subscribers
-            String activityQuery = """
-                    SELECT 
-                        COUNT(DISTINCT u.User_ID) as total_subscribers,
-                        COUNT(DISTINCT CASE WHEN pi.Entry_time >= DATE_SUB(NOW(), INTERVAL 30 DAY) 
-                                           THEN u.User_ID END) as active_subscribers
-                    FROM users u
-                    LEFT JOIN parkinginfo pi ON u.User_ID = pi.User_ID
-                    WHERE u.UserTypeEnum = 'sub'
-                    """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(activityQuery)) {
+            try (PreparedStatement stmt = conn.prepareStatement(ACTIVITY_QUERY)) {
+                stmt.setQueryTimeout(timeoutSeconds);
+                stmt.setDate(1, since);
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        int totalSubscribers = rs.getInt("total_subscribers");
-                        int activeSubscribers = rs.getInt("active_subscribers");
-                        
-                        report.setTotalSubscribers(totalSubscribers);
-                        report.setActiveSubscribers(activeSubscribers);
-                    }
+                    return rs.next() ? new int[] { rs.getInt("total_subscribers"), rs.getInt("active_subscribers") } : null;
                 }
             }
-            
-            // Get late pickup statistics
-            String latePickupQuery = """
-                    SELECT 
-                        COUNT(*) as total_exits,
-                        COUNT(CASE WHEN Actual_end_time > Estimated_end_time THEN 1 END) as late_exits
-                    FROM parkinginfo 
-                    WHERE Actual_end_time IS NOT NULL 
-                    AND Entry_time >= DATE_SUB(NOW(), INTERVAL 30 DAY)
-                    """;
-            
-            try (PreparedStatement stmt = conn.prepareStatement(latePickupQuery)) {
+        });
+
+        CompletableFuture<int[]> latePickups = submitQuery("late pickups", deadline, (conn, timeoutSeconds) -> {
+            try (PreparedStatement stmt = conn.prepareStatement(LATE_PICKUP_QUERY)) {
+                stmt.setQueryTimeout(timeoutSeconds);
+                stmt.setDate(1, since);
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        int totalExits = rs.getInt("total_exits");
-                        int lateExits = rs.getInt("late_exits");
-                        
-                        report.setTotalOrders(totalExits);
-                        report.setLateExits(lateExits);
-                    }
+                    return rs.next() ? new int[] { rs.getInt("total_exits"), rs.getInt("late_exits") } : null;
                 }
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error generating subscriber status report: " + e.getMessage());
-        } finally {
-            DBController.getInstance().releaseConnection(conn);
-        }
-        
-        return report;
+        });
+
+        return activity.thenCombine(latePickups, (act, late) -> {
+            ParkingReport report = new ParkingReport();
+            report.setReportType("Subscriber Status Analysis");
+            report.setReportDate(ClockService.getInstance().today());
+            report.setIncomplete(act == null || late == null);
+            if (act != null) {
+                report.setTotalSubscribers(act[0]);
+                report.setActiveSubscribers(act[1]);
+            }
+            if (late != null) {
+                report.setTotalOrders(late[0]);
+                report.setLateExits(late[1]);
+            }
+            return report;
+        });
     }
     
     /**
@@ -226,14 +325,16 @@ public class ReportService {
                 SELECT 
                     ReservationType,
                     statusEnum,
-                    COUNT(*) as count
-                FROM parkinginfo 
-                WHERE Entry_time >= DATE_SUB(NOW(), INTERVAL 30 DAY)
+                    SUM(Sessions) as count
+                FROM parking_rollup_daily 
+                WHERE Rollup_date >= ?
                 GROUP BY ReservationType, statusEnum
+                HAVING SUM(Sessions) > 0
                 ORDER BY ReservationType, statusEnum
                 """;
         
         try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setDate(1, windowStart());
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     String type = rs.getString("ReservationType");
@@ -259,19 +360,30 @@ public class ReportService {
      */
     public TreeMap<String, Integer> getPeakHourAnalysis() {
         TreeMap<String, Integer> hourlyData = new TreeMap<>();
+        ActivityCounters activity = ActivityCounters.getInstance();
+        if (activity.isSeeded()) {
+            long[] arrivals = activity.arrivalsByHourOfDay();
+            for (int hour = 0; hour < arrivals.length; hour++) {
+                if (arrivals[hour] > 0) {
+                    hourlyData.put(String.format("%02d:00", hour), (int) arrivals[hour]);
+                }
+            }
+            return hourlyData;
+        }
         Connection conn = DBController.getInstance().getConnection();
         
         String query = """
                 SELECT 
-                    HOUR(Entry_time) as hour_of_day,
-                    COUNT(*) as parking_count
-                FROM parkinginfo 
-                WHERE Entry_time >= DATE_SUB(NOW(), INTERVAL 30 DAY)
-                GROUP BY HOUR(Entry_time)
+                    Rollup_hour as hour_of_day,
+                    SUM(Sessions) as parking_count
+                FROM parking_rollup_hourly 
+                WHERE Rollup_date >= ?
+                GROUP BY Rollup_hour
                 ORDER BY hour_of_day
                 """;
         
         try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setDate(1, windowStart());
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     int hour = rs.getInt("hour_of_day");
@@ -290,71 +402,179 @@ public class ReportService {
         return hourlyData;
     }
     
+    /**
+     * Per-day aggregates for one month, used by both the list and the cursor variant.
+     * The half-open Entry_time range lets the query use idx_entry_time
+     * (see bpark_parkinginfo_indexes.sql) instead of scanning every session.
+     */
+    private static final String MONTHLY_REPORT_QUERY = """
+            SELECT 
+                DAY(Entry_time) as day_of_month,
+                COUNT(*) as total_parkings,
+                COUNT(CASE WHEN ReservationType = 'preorder' THEN 1 END) as reservations,
+                COUNT(CASE WHEN ReservationType = 'spontaneous' THEN 1 END) as spontaneous,
+                AVG(TIMESTAMPDIFF(HOUR, Entry_time, Actual_end_time)) as avg_duration_hours
+            FROM parkinginfo 
+            WHERE Entry_time >= ? AND Entry_time < ?
+            GROUP BY DAY(Entry_time)
+            ORDER BY day_of_month
+            """;
+    
     /**
      * Generates monthly reports for specified month/year.
      * @param monthYear Month and year string (e.g., "2024-01")
      * @return ArrayList of monthly parking reports
      */
     public ArrayList<ParkingReport> generateMonthlyReports(String monthYear) {
-        ArrayList<ParkingReport> monthlyReports = new ArrayList<>();
-        Connection conn = DBController.getInstance().getConnection();
-        
-        // Parse month-year and create date range
-        String[] parts = monthYear.split("-");
-        if (parts.length != 2) {
+        YearMonth month = parseMonth(monthYear);
+        if (month == null) {
+            return new ArrayList<>();
+        }
+        return ReportCacheService.getInstance().get(monthlyCacheKey(month), isClosed(month),
+                () -> computeMonthlyReports(month));
+    }
+
+    /**
+     * Computes and stores the reports of recently closed months that are not
+     * cached yet, so that requests for them never reach parkinginfo. Run
+     * periodically; months already cached are skipped.
+     * @param months How many closed months to cover, counting back from the latest
+     * @return number of months newly stored
+     */
+    public int freezeClosedMonths(int months) {
+        ReportCacheService cache = ReportCacheService.getInstance();
+        YearMonth month = YearMonth.from(ClockService.getInstance().today()).minusMonths(1);
+        if (!isClosed(month)) {
+            month = month.minusMonths(1);
+        }
+
+        int frozen = 0;
+        for (int i = 0; i < months; i++, month = month.minusMonths(1)) {
+            String key = monthlyCacheKey(month);
+            if (cache.contains(key)) {
+                continue;
+            }
+            generateMonthlyReports(month.toString());
+            if (cache.contains(key)) {
+                frozen++;
+            }
+        }
+        return frozen;
+    }
+
+    private static String monthlyCacheKey(YearMonth month) {
+        return "MONTHLY:" + month;
+    }
+
+    /**
+     * A month is closed once a full day has passed after its end, so that
+     * sessions running past midnight on its last day are included.
+     */
+    private static boolean isClosed(YearMonth month) {
+        return ClockService.getInstance().today().isAfter(month.atEndOfMonth().plusDays(1));
+    }
+
+    /** Accepts "2024-01" as well as "2024-1" */
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("uuuu-M");
+
+    /**
+     * Parses a "YYYY-MM" month.
+     * @return the month, or null if the format is invalid
+     */
+    private static YearMonth parseMonth(String monthYear) {
+        try {
+            return YearMonth.parse(monthYear.trim(), MONTH_FORMAT);
+        } catch (DateTimeParseException e) {
             System.err.println("Invalid month-year format. Expected: YYYY-MM");
-            return monthlyReports;
+            return null;
         }
+    }
+
+    /**
+     * Binds the half-open range [first day of month, first day of next month).
+     */
+    private static void bindMonth(PreparedStatement stmt, YearMonth month) throws SQLException {
+        stmt.setTimestamp(1, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+        stmt.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+    }
+
+    private ArrayList<ParkingReport> computeMonthlyReports(YearMonth month) {
+        ArrayList<ParkingReport> monthlyReports = new ArrayList<>();
         
-        String year = parts[0];
-        String month = parts[1];
-        
-        String query = """
-                SELECT 
-                    DAY(Entry_time) as day_of_month,
-                    COUNT(*) as total_parkings,
-                    COUNT(CASE WHEN ReservationType = 'preorder' THEN 1 END) as reservations,
-                    COUNT(CASE WHEN ReservationType = 'spontaneous' THEN 1 END) as spontaneous,
-                    AVG(TIMESTAMPDIFF(HOUR, Entry_time, Actual_end_time)) as avg_duration_hours
-                FROM parkinginfo 
-                WHERE YEAR(Entry_time) = ? AND MONTH(Entry_time) = ?
-                AND Entry_time IS NOT NULL
-                GROUP BY DAY(Entry_time)
-                ORDER BY day_of_month
-                """;
-        
-        try (PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, year);
-            stmt.setString(2, month);
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(MONTHLY_REPORT_QUERY)) {
+            bindMonth(stmt, month);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    ParkingReport report = new ParkingReport();
-                    
-                    int dayOfMonth = rs.getInt("day_of_month");
-                    int totalParkings = rs.getInt("total_parkings");
-                    int reservations = rs.getInt("reservations");
-                    int spontaneous = rs.getInt("spontaneous");
-                    double avgDuration = rs.getDouble("avg_duration_hours");
-                    
-                    String reportDate = String.format("%s-%s-%02d", year, month, dayOfMonth);
-                    
-                    report.setReportTitle("Daily Report for " + reportDate);
-                    report.setReportDate(LocalDate.parse(reportDate));
-                    report.setTotalOrders(totalParkings);
-                    report.setReservationCount(reservations);
-                    report.setSpontaneousCount(spontaneous);
-                    report.setAverageParkingDuration(avgDuration);
-                    
-                    monthlyReports.add(report);
+                    monthlyReports.add(createDailyReportFromResultSet(rs, month));
                 }
             }
         } catch (SQLException e) {
             System.err.println("Error generating monthly reports: " + e.getMessage());
+            // Rows read before the failure are not the month; return nothing so none of it is cached
+            monthlyReports.clear();
         } finally {
             DBController.getInstance().releaseConnection(conn);
         }
         
         return monthlyReports;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Opens a streaming cursor over the per-day reports of a month.
+     * The caller must close the cursor (it closes itself once exhausted).
+     * @param monthYear Month and year string (e.g., "2024-01")
+     * @return Open cursor, or null if the month is invalid or the query failed
+     */
+    public ResultCursor<ParkingReport> openMonthlyReportsCursor(String monthYear) {
+        YearMonth month = parseMonth(monthYear);
+        if (month == null) {
+            return null;
+        }
+        
+        try {
+            return ResultCursor.open(MONTHLY_REPORT_QUERY, stmt -> bindMonth(stmt, month),
+                    rs -> createDailyReportFromResultSet(rs, month));
+        } catch (SQLException e) {
+            System.err.println("Error opening monthly reports cursor: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Creates a daily ParkingReport from a row of the monthly report query.
+     * @param rs ResultSet positioned on a row
+     * @param month Report month
+     * @return Daily ParkingReport
+     * @throws SQLException if database error occurs
+     */
+    private ParkingReport createDailyReportFromResultSet(ResultSet rs, YearMonth month) throws SQLException {
+        ParkingReport report = new ParkingReport();
+        
+        int dayOfMonth = rs.getInt("day_of_month");
+        int totalParkings = rs.getInt("total_parkings");
+        int reservations = rs.getInt("reservations");
+        int spontaneous = rs.getInt("spontaneous");
+        double avgDuration = rs.getDouble("avg_duration_hours");
+        
+        LocalDate reportDate = month.atDay(dayOfMonth);
+        
+        report.setReportTitle("Daily Report for " + reportDate);
+        report.setReportDate(reportDate);
+        report.setTotalOrders(totalParkings);
+        report.setReservationCount(reservations);
+        report.setSpontaneousCount(spontaneous);
+        report.setAverageParkingDuration(avgDuration);
+        
+        return report;
+    }
+
+    /**
+     * Returns the first day of the 30-day window used by the rolling reports.
+     * @return Date 30 days before the current clock date
+     */
+    private static Date windowStart() {
+        return Date.valueOf(ClockService.getInstance().today().minusDays(30));
+    }
+}
@@ -13,9 +13,12 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Random;
 
+import entities.ParkingHistoryPage;
+import entities.ParkingHistoryPageRequest;
 import entities.ParkingOrder;
 import entities.ParkingSubscriber;
 import server.DBController;
+import server.ResultCursor;
 
 /**
  * ReservationService handles all parking reservation operations following Single Responsibility Principle.
@@ -26,6 +29,7 @@ public class ReservationService {
     private static ReservationService instance;
     private static final int MINIMUM_EXTENSION_HOURS = 2;
     private static final int MAXIMUM_EXTENSION_HOURS = 4;
+    private static final int MAXIMUM_HISTORY_PAGE_SIZE = 200;
     private static final Random random = new Random();
     
     /**
@@ -49,7 +53,7 @@ public class ReservationService {
      * @param userID User ID making the reservation
      * @param parkingDate Date of parking
      * @param startTime Start time
-     * @param endTime End time
+     * @param endTime End time; at or before the start time means the next day
      * @return Reservation code if successful, negative value if failed
      */
     public int createReservation(int userID, LocalDate parkingDate, LocalTime startTime, LocalTime endTime) {
@@ -66,15 +70,20 @@ public class ReservationService {
         String insertQuery = """
                 INSERT INTO parkinginfo (User_ID, ParkingSpot_ID, Date, Start_time, Estimated_end_time, 
                                        Entry_time, statusEnum, ReservationType, IsExtended) 
-                VALUES (?, ?, ?, ?, ?, NOW(), 'active', 'pre_order', 'no')
+                VALUES (?, ?, ?, ?, ?, ?, 'active', 'pre_order', 'no')
                 """;
         
+        LocalDateTime estimatedEnd = parkingDate.atTime(endTime);
+        if (!endTime.isAfter(startTime)) {
+            estimatedEnd = estimatedEnd.plusDays(1);
+        }
         try (PreparedStatement stmt = conn.prepareStatement(insertQuery, PreparedStatement.RETURN_GENERATED_KEYS)) {
             stmt.setInt(1, userID);
             stmt.setInt(2, spotId);
             stmt.setDate(3, Date.valueOf(parkingDate));
             stmt.setTime(4, Time.valueOf(startTime));
-            stmt.setTime(5, Time.valueOf(endTime));
+            stmt.setTimestamp(5, Timestamp.valueOf(estimatedEnd));
+            stmt.setTimestamp(6, ClockService.getInstance().nowTimestamp());
             
             int rowsInserted = stmt.executeUpdate();
             if (rowsInserted > 0) {
@@ -85,6 +94,8 @@ public class ReservationService {
                         // Generate and update parking code
                         int code = generateParkingCode();
                         updateParkingCode(reservationId, code);
+                        RollupService.getInstance().apply(conn, null, reservationId);
+                        ActivityCounters.getInstance().record(ActivityCounters.Event.RESERVATION);
                         
                         // Send confirmation email
                         ParkingSubscriber subscriber = UserService.getInstance().getSubscriberByUserName(String.valueOf(userID));
@@ -141,14 +152,18 @@ public class ReservationService {
                     // Update reservation status
                     String updateQuery = """
                             UPDATE parkinginfo 
-                            SET statusEnum = 'cancelled', Actual_end_time = NOW() 
+                            SET statusEnum = 'cancelled', Actual_end_time = ? 
                             WHERE ParkingInfo_ID = ?
                             """;
                     
+                    RollupService.Snapshot before = RollupService.getInstance().snapshot(conn, parkingInfoId);
                     try (PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
-                        updateStmt.setInt(1, parkingInfoId);
+                        updateStmt.setTimestamp(1, ClockService.getInstance().nowTimestamp());
+                        updateStmt.setInt(2, parkingInfoId);
                         updateStmt.executeUpdate();
                     }
+                    RollupService.getInstance().apply(conn, before, parkingInfoId);
+                    ActivityCounters.getInstance().record(ActivityCounters.Event.CANCELLATION);
                     
                     // Release parking spot
                     ParkingSpotService.getInstance().releaseSpot(spotId);
@@ -205,12 +220,15 @@ public class ReservationService {
                             WHERE ParkingInfo_ID = ?
                             """;
                     
+                    RollupService.Snapshot before = RollupService.getInstance().snapshot(conn, parkingInfoId);
                     try (PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
                         updateStmt.setTimestamp(1, Timestamp.valueOf(newEstimatedEnd));
                         updateStmt.setInt(2, parkingInfoId);
                         
                         int rowsUpdated = updateStmt.executeUpdate();
                         if (rowsUpdated > 0) {
+                            RollupService.getInstance().apply(conn, before, parkingInfoId);
+                            ActivityCounters.getInstance().record(ActivityCounters.Event.EXTENSION);
                             // Send extension confirmation email
                             NotificationService.getInstance().sendExtensionConfirmation(
                                 userEmail, 
@@ -252,12 +270,17 @@ public class ReservationService {
         String insertQuery = """
                 INSERT INTO parkinginfo (User_ID, ParkingSpot_ID, Date, Start_time, Estimated_end_time, 
                                        Entry_time, statusEnum, ReservationType, IsExtended) 
-                VALUES (?, ?, CURDATE(), CURTIME(), ADDTIME(CURTIME(), '04:00:00'), NOW(), 'active', 'spontaneous', 'no')
+                VALUES (?, ?, ?, ?, ?, ?, 'active', 'spontaneous', 'no')
                 """;
         
+        LocalDateTime now = ClockService.getInstance().now();
         try (PreparedStatement stmt = conn.prepareStatement(insertQuery, PreparedStatement.RETURN_GENERATED_KEYS)) {
             stmt.setInt(1, userID);
             stmt.setInt(2, spotId);
+            stmt.setDate(3, Date.valueOf(now.toLocalDate()));
+            stmt.setTime(4, Time.valueOf(now.toLocalTime()));
+            stmt.setTimestamp(5, Timestamp.valueOf(now.plusHours(4)));
+            stmt.setTimestamp(6, Timestamp.valueOf(now));
             
             int rowsInserted = stmt.executeUpdate();
             if (rowsInserted > 0) {
@@ -266,6 +289,8 @@ public class ReservationService {
                         int parkingInfoId = generatedKeys.getInt(1);
                         int code = generateParkingCode();
                         updateParkingCode(parkingInfoId, code);
+                        RollupService.getInstance().apply(conn, null, parkingInfoId);
+                        ActivityCounters.getInstance().record(ActivityCounters.Event.ARRIVAL);
                         
                         return "ENTRY_SUCCESS:" + code;
                     }
@@ -303,20 +328,25 @@ public class ReservationService {
                     int spotID = rs.getInt("ParkingSpot_ID");
                     Time estimatedEndTime = rs.getTime("Estimated_end_time");
                     
-                    LocalTime now = LocalTime.now();
+                    LocalTime now = ClockService.getInstance().currentTime();
                     LocalTime estimatedEnd = estimatedEndTime.toLocalTime();
                     
                     // Update parking session as completed
                     String updateQuery = """
                             UPDATE parkinginfo 
-                            SET Actual_end_time = NOW(), statusEnum = 'completed' 
+                            SET Actual_end_time = ?, statusEnum = 'completed' 
                             WHERE ParkingInfo_ID = ?
                             """;
                     
+                    RollupService.Snapshot before = RollupService.getInstance().snapshot(conn, parkingInfoID);
                     try (PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
-                        updateStmt.setInt(1, parkingInfoID);
+                        updateStmt.setTimestamp(1, ClockService.getInstance().nowTimestamp());
+                        updateStmt.setInt(2, parkingInfoID);
                         updateStmt.executeUpdate();
+                        RollupService.getInstance().apply(conn, before, parkingInfoID);
                     }
+                    SessionStore.getInstance().recordCompleted(conn, parkingInfoID);
+                    ActivityCounters.getInstance().record(ActivityCounters.Event.EXIT);
                     
                     // Release parking spot
                     ParkingSpotService.getInstance().releaseSpot(spotID);
@@ -370,7 +400,96 @@ public class ReservationService {
         
         return history;
     }
-    
+
+    /**
+     * Opens a streaming cursor over a user's full parking history, newest first.
+     * The caller must close the cursor (it closes itself once exhausted).
+     * @param userName Username to get history for
+     * @return Open cursor, or null if the query failed
+     */
+    public ResultCursor<ParkingOrder> openParkingHistoryCursor(String userName) {
+        String query = """
+                SELECT pi.*, u.Name, u.Email, u.Phone, u.CarNum
+                FROM parkinginfo pi
+                JOIN users u ON pi.User_ID = u.User_ID
+                WHERE pi.User_ID = (SELECT User_ID FROM users WHERE UserName = ?)
+                ORDER BY pi.Entry_time DESC, pi.ParkingInfo_ID DESC
+                """;
+        try {
+            return ResultCursor.open(query, stmt -> stmt.setString(1, userName), this::createParkingOrderFromResultSet);
+        } catch (SQLException e) {
+            System.err.println("Error opening parking history cursor: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves one page of parking history for a user, newest first.
+     * Uses keyset pagination on (Entry_time, ParkingInfo_ID) so that each page is
+     * an index range scan on (User_ID, Entry_time) no matter how deep it is.
+     * Orders without an entry time come last, ordered by ID, so the cursor
+     * always moves forward even when the last order shown has no entry time.
+     * @param request Page request holding the username, cursor and page size
+     * @return Parking history page with a flag telling whether more pages exist
+     */
+    public ParkingHistoryPage getParkingHistoryPage(ParkingHistoryPageRequest request) {
+        int pageSize = Math.max(1, Math.min(request.getPageSize(), MAXIMUM_HISTORY_PAGE_SIZE));
+        ArrayList<ParkingOrder> orders = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+
+        Connection conn = DBController.getInstance().getConnection();
+        String cursorCondition;
+        if (request.isFirstPage()) {
+            cursorCondition = "";
+        } else if (request.getAfterEntryTime() == null) {
+            cursorCondition = "AND pi.Entry_time IS NULL AND pi.ParkingInfo_ID < ?";
+        } else {
+            cursorCondition = "AND (pi.Entry_time IS NULL OR pi.Entry_time < ? "
+                    + "OR (pi.Entry_time = ? AND pi.ParkingInfo_ID < ?))";
+        }
+        String query = """
+                SELECT pi.*, u.Name, u.Email, u.Phone, u.CarNum
+                FROM parkinginfo pi
+                JOIN users u ON pi.User_ID = u.User_ID
+                WHERE pi.User_ID = (SELECT User_ID FROM users WHERE UserName = ?)
+                %s
+                ORDER BY pi.Entry_time IS NULL, pi.Entry_time DESC, pi.ParkingInfo_ID DESC
+                LIMIT ?
+                """.formatted(cursorCondition);
+
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            // Fetch one extra row to learn whether another page exists
+            stmt.setFetchSize(pageSize + 1);
+            int index = 1;
+            stmt.setString(index++, request.getUserName());
+            if (!request.isFirstPage()) {
+                if (request.getAfterEntryTime() != null) {
+                    Timestamp cursor = Timestamp.valueOf(request.getAfterEntryTime());
+                    stmt.setTimestamp(index++, cursor);
+                    stmt.setTimestamp(index++, cursor);
+                }
+                stmt.setInt(index++, request.getAfterOrderID());
+            }
+            stmt.setInt(index, pageSize + 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (orders.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    orders.add(createParkingOrderFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting parking history page: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+
+        return new ParkingHistoryPage(request.getUserName(), orders, hasMore, request.isFirstPage());
+    }
+
     /**
      * Retrieves all active parking sessions.
      * @return List of active parking orders
@@ -481,18 +600,22 @@ public class ReservationService {
                 // Update reservation to active status
                 String updateQuery = """
                         UPDATE parkinginfo 
-                        SET statusEnum = 'active', Entry_time = CURRENT_TIMESTAMP, Code = ?
+                        SET statusEnum = 'active', Entry_time = ?, Code = ?
                         WHERE ParkingInfo_ID = ?
                         """;
                 
                 int parkingCode = generateParkingCode();
                 
+                RollupService.Snapshot before = RollupService.getInstance().snapshot(conn, reservationID);
                 try (PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
-                    updateStmt.setInt(1, parkingCode);
-                    updateStmt.setInt(2, reservationID);
+                    updateStmt.setTimestamp(1, ClockService.getInstance().nowTimestamp());
+                    updateStmt.setInt(2, parkingCode);
+                    updateStmt.setInt(3, reservationID);
                     
                     int updatedRows = updateStmt.executeUpdate();
                     if (updatedRows > 0) {
+                        RollupService.getInstance().apply(conn, before, reservationID);
+                        ActivityCounters.getInstance().record(ActivityCounters.Event.ARRIVAL);
                         return "Reservation activated successfully. Your parking code is: " + parkingCode;
                     } else {
                         return "Failed to activate reservation";
@@ -0,0 +1,331 @@
+package services;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import server.DBController;
+
+/**
+ * RollupService maintains the hourly and daily report rollups
+ * (see bpark_rollups.sql) using the Singleton pattern.
+ *
+ * Every change to a session is applied as a difference: callers take a
+ * {@link Snapshot} of the row before changing it and pass it to
+ * {@link #apply(Connection, Snapshot, int)} afterwards, which removes the
+ * old contribution and adds the new one. Rollup writes use the caller's
+ * connection, so they commit or roll back together with the session change.
+ * A failed rollup write is logged and never fails the session change;
+ * {@link #rebuild(LocalDate, LocalDate)} repairs any drift.
+ */
+public class RollupService {
+
+    private static RollupService instance;
+
+    private static final String SNAPSHOT_QUERY = """
+            SELECT DATE(Entry_time) AS entry_date, HOUR(Entry_time) AS entry_hour,
+                   IFNULL(ReservationType, '') AS reservation_type, statusEnum, User_ID,
+                   IsExtended = 'yes' AS extended,
+                   Actual_end_time IS NOT NULL AS exited,
+                   IFNULL(Actual_end_time > Estimated_end_time, 0) AS late,
+                   IFNULL(TIMESTAMPDIFF(MINUTE, Entry_time, Actual_end_time), 0) AS parked_minutes,
+                   Actual_end_time,
+                   IFNULL((SELECT UserTypeEnum = 'sub' FROM users u WHERE u.User_ID = parkinginfo.User_ID), 0) AS subscriber
+            FROM parkinginfo
+            WHERE ParkingInfo_ID = ?
+            """;
+
+    private static final String HOURLY_UPSERT = """
+            INSERT INTO parking_rollup_hourly
+                (Rollup_date, Rollup_hour, ReservationType, statusEnum, Sessions, Extended, Exits, Late_exits, Parked_minutes)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Sessions = Sessions + VALUES(Sessions),
+                Extended = Extended + VALUES(Extended),
+                Exits = Exits + VALUES(Exits),
+                Late_exits = Late_exits + VALUES(Late_exits),
+                Parked_minutes = Parked_minutes + VALUES(Parked_minutes)
+            """;
+
+    private static final String DAILY_UPSERT = """
+            INSERT INTO parking_rollup_daily
+                (Rollup_date, ReservationType, statusEnum, Sessions, Extended, Exits, Late_exits, Parked_minutes)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Sessions = Sessions + VALUES(Sessions),
+                Extended = Extended + VALUES(Extended),
+                Exits = Exits + VALUES(Exits),
+                Late_exits = Late_exits + VALUES(Late_exits),
+                Parked_minutes = Parked_minutes + VALUES(Parked_minutes)
+            """;
+
+    private static final String USER_DAY_INSERT =
+            "INSERT IGNORE INTO parking_rollup_user_daily (Rollup_date, User_ID) VALUES (?, ?)";
+
+    /**
+     * The rollup contribution of one session: its bucket and its measures.
+     */
+    public static class Snapshot {
+        private final LocalDate date;
+        private final int hour;
+        private final String reservationType;
+        private final String status;
+        private final int userId;
+        private final int extended;
+        private final int exited;
+        private final int late;
+        private final long parkedMinutes;
+        private final LocalDateTime exitTime;
+        private final boolean subscriber;
+
+        Snapshot(LocalDate date, int hour, String reservationType, String status, int userId,
+                 int extended, int exited, int late, long parkedMinutes, LocalDateTime exitTime, boolean subscriber) {
+            this.date = date;
+            this.hour = hour;
+            this.reservationType = reservationType;
+            this.status = status;
+            this.userId = userId;
+            this.extended = extended;
+            this.exited = exited;
+            this.late = late;
+            this.parkedMinutes = parkedMinutes;
+            this.exitTime = exitTime;
+            this.subscriber = subscriber;
+        }
+
+        /** Whether the car has left: exits set 'completed', the auto-finish sets 'finished' */
+        boolean isCompleted() {
+            return "completed".equals(status) || "finished".equals(status);
+        }
+
+        /**
+         * Whether the car actually parked. A cancelled or pending reservation
+         * did not; an activated pre-order is counted once it completes.
+         */
+        boolean hasParked() {
+            return isCompleted() || ("active".equals(status) && "spontaneous".equals(reservationType));
+        }
+
+        boolean sameBucket(Snapshot other) {
+            return date.equals(other.date) && hour == other.hour
+                    && reservationType.equals(other.reservationType) && status.equals(other.status);
+        }
+    }
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private RollupService() {}
+
+    /**
+     * Returns singleton instance of RollupService.
+     * @return RollupService instance
+     */
+    public static synchronized RollupService getInstance() {
+        if (instance == null) {
+            instance = new RollupService();
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the current rollup contribution of a session.
+     * @param conn Connection of the caller
+     * @param parkingInfoId Session ID
+     * @return snapshot, or null if the session does not exist or has not started
+     */
+    public Snapshot snapshot(Connection conn, int parkingInfoId) {
+        try (PreparedStatement stmt = conn.prepareStatement(SNAPSHOT_QUERY)) {
+            stmt.setInt(1, parkingInfoId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getDate("entry_date") == null) {
+                    return null;
+                }
+                Timestamp exit = rs.getTimestamp("Actual_end_time");
+                return new Snapshot(rs.getDate("entry_date").toLocalDate(), rs.getInt("entry_hour"),
+                        rs.getString("reservation_type"), rs.getString("statusEnum"), rs.getInt("User_ID"),
+                        rs.getInt("extended"), rs.getInt("exited"), rs.getInt("late"), rs.getLong("parked_minutes"),
+                        exit == null ? null : exit.toLocalDateTime(), rs.getBoolean("subscriber"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading rollup snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Applies a session change to the rollups. The session sketches and the
+     * report cache are updated once the caller commits: the sketches are
+     * never rebuilt, so a rolled back change must not reach them, and a
+     * report built from the rollups before the change cannot be cached as current.
+     * @param conn Connection of the caller, used for the writes
+     * @param before Snapshot taken before the change, or null for a new session
+     * @param parkingInfoId Session ID
+     */
+    public void apply(Connection conn, Snapshot before, int parkingInfoId) {
+        Snapshot after = snapshot(conn, parkingInfoId);
+        try {
+            applyRollups(conn, before, after);
+        } catch (SQLException e) {
+            System.err.println("Error updating report rollups for session " + parkingInfoId + ": " + e.getMessage());
+        }
+        DBController.getInstance().afterCommit(conn, () -> {
+            recordSketches(before, after);
+            ReportCacheService.getInstance().onSessionChange();
+        });
+    }
+
+    private void applyRollups(Connection conn, Snapshot before, Snapshot after) throws SQLException {
+        if (before != null && after != null && before.sameBucket(after)) {
+            write(conn, after, 0, after.extended - before.extended, after.exited - before.exited,
+                    after.late - before.late, after.parkedMinutes - before.parkedMinutes);
+            return;
+        }
+        if (before != null) {
+            write(conn, before, -1, -before.extended, -before.exited, -before.late, -before.parkedMinutes);
+        }
+        if (after != null) {
+            write(conn, after, 1, after.extended, after.exited, after.late, after.parkedMinutes);
+            if (before == null || !before.date.equals(after.date)) {
+                try (PreparedStatement stmt = conn.prepareStatement(USER_DAY_INSERT)) {
+                    stmt.setDate(1, Date.valueOf(after.date));
+                    stmt.setInt(2, after.userId);
+                    stmt.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static void recordSketches(Snapshot before, Snapshot after) {
+        if (after == null) {
+            return;
+        }
+        SessionSketchService sketches = SessionSketchService.getInstance();
+        if (after.subscriber && after.hasParked()) {
+            sketches.recordSubscriber(after.date, after.userId);
+        }
+        if (after.isCompleted() && after.exitTime != null && (before == null || !before.isCompleted())) {
+            sketches.recordCompletion(after.date, after.exitTime, after.parkedMinutes);
+        }
+    }
+
+    private void write(Connection conn, Snapshot bucket, int sessions, int extended, int exits,
+                       int lateExits, long parkedMinutes) throws SQLException {
+        if (sessions == 0 && extended == 0 && exits == 0 && lateExits == 0 && parkedMinutes == 0) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(HOURLY_UPSERT)) {
+            stmt.setDate(1, Date.valueOf(bucket.date));
+            stmt.setInt(2, bucket.hour);
+            stmt.setString(3, bucket.reservationType);
+            stmt.setString(4, bucket.status);
+            stmt.setInt(5, sessions);
+            stmt.setInt(6, extended);
+            stmt.setInt(7, exits);
+            stmt.setInt(8, lateExits);
+            stmt.setLong(9, parkedMinutes);
+            stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(DAILY_UPSERT)) {
+            stmt.setDate(1, Date.valueOf(bucket.date));
+            stmt.setString(2, bucket.reservationType);
+            stmt.setString(3, bucket.status);
+            stmt.setInt(4, sessions);
+            stmt.setInt(5, extended);
+            stmt.setInt(6, exits);
+            stmt.setInt(7, lateExits);
+            stmt.setLong(8, parkedMinutes);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Recomputes the rollups of a date range from parkinginfo, e.g. after a
+     * bulk load or to repair drift.
+     * @param from First day, inclusive
+     * @param to Last day, exclusive
+     * @return true if the rebuild committed
+     */
+    public boolean rebuild(LocalDate from, LocalDate to) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        String[] deletes = {
+            "DELETE FROM parking_rollup_hourly WHERE Rollup_date >= ? AND Rollup_date < ?",
+            "DELETE FROM parking_rollup_daily WHERE Rollup_date >= ? AND Rollup_date < ?",
+            "DELETE FROM parking_rollup_user_daily WHERE Rollup_date >= ? AND Rollup_date < ?"
+        };
+        String[] inserts = {
+            """
+            INSERT INTO parking_rollup_hourly
+            SELECT DATE(Entry_time), HOUR(Entry_time), IFNULL(ReservationType, ''), statusEnum,
+                   COUNT(*),
+                   SUM(IsExtended = 'yes'),
+                   SUM(Actual_end_time IS NOT NULL),
+                   SUM(IFNULL(Actual_end_time > Estimated_end_time, 0)),
+                   SUM(IFNULL(TIMESTAMPDIFF(MINUTE, Entry_time, Actual_end_time), 0))
+            FROM parkinginfo
+            WHERE Entry_time >= ? AND Entry_time < ?
+            GROUP BY DATE(Entry_time), HOUR(Entry_time), IFNULL(ReservationType, ''), statusEnum
+            """,
+            """
+            INSERT INTO parking_rollup_daily
+            SELECT Rollup_date, ReservationType, statusEnum,
+                   SUM(Sessions), SUM(Extended), SUM(Exits), SUM(Late_exits), SUM(Parked_minutes)
+            FROM parking_rollup_hourly
+            WHERE Rollup_date >= ? AND Rollup_date < ?
+            GROUP BY Rollup_date, ReservationType, statusEnum
+            """,
+            """
+            INSERT IGNORE INTO parking_rollup_user_daily
+            SELECT DISTINCT DATE(Entry_time), User_ID
+            FROM parkinginfo
+            WHERE Entry_time >= ? AND Entry_time < ?
+            """
+        };
+
+        Connection conn = DBController.getInstance().getConnection();
+        try {
+            conn.setAutoCommit(false);
+            for (String sql : deletes) {
+                executeRange(conn, sql, from, to);
+            }
+            for (String sql : inserts) {
+                executeRange(conn, sql, from, to);
+            }
+            conn.commit();
+            ReportCacheService.getInstance().onSessionChange();
+            return true;
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackEx) {
+                System.err.println("Failed to rollback rollup rebuild: " + rollbackEx.getMessage());
+            }
+            System.err.println("Error rebuilding report rollups: " + e.getMessage());
+            return false;
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Failed to reset auto-commit: " + e.getMessage());
+            } finally {
+                DBController.getInstance().releaseConnection(conn);
+            }
+        }
+    }
+
+    private static void executeRange(Connection conn, String sql, LocalDate from, LocalDate to) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            // Midnight timestamps bound both the DATE and the DATETIME ranges
+            stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(to.atStartOfDay()));
+            stmt.executeUpdate();
+        }
+    }
+}
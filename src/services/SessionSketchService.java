@@ -0,0 +1,214 @@
+package services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import common.Logger;
+import server.DBController;
+
+/**
+ * SessionSketchService keeps one small sketch per day for approximate
+ * analytics using the Singleton pattern: a {@link DurationHistogram} of the
+ * durations of completed sessions and a {@link HyperLogLog} of the
+ * subscribers who parked. Days are keyed by session entry date, like the
+ * rollups, and merge into any window, so duration percentiles and distinct
+ * active subscribers cost a few kilobytes per day and microseconds to read
+ * instead of COUNT(DISTINCT ...) scans.
+ *
+ * Only sessions where a car actually parked are counted: completed sessions
+ * for durations, and completed or spontaneous active sessions for
+ * subscribers. Cancelled and pending reservations are left out.
+ * The sketches are loaded from parkinginfo at startup and then fed by
+ * {@link RollupService#apply} on every session change. They are not
+ * transactional: a session change that is rolled back after being applied
+ * stays counted until the next restart.
+ */
+public class SessionSketchService {
+
+    private static final Logger LOG = Logger.get("analytics.sketches");
+    private static SessionSketchService instance;
+
+    private static final String LOAD_QUERY = """
+            SELECT DATE(pi.Entry_time) AS entry_date, pi.User_ID,
+                   IFNULL(u.UserTypeEnum = 'sub', 0) AS subscriber,
+                   IFNULL(pi.Actual_end_time < ?, 0) AS completed,
+                   TIMESTAMPDIFF(MINUTE, pi.Entry_time, pi.Actual_end_time) AS parked_minutes
+            FROM parkinginfo pi
+            LEFT JOIN users u ON u.User_ID = pi.User_ID
+            WHERE pi.Entry_time >= ? AND pi.Entry_time < ?
+              AND (pi.statusEnum IN ('finished', 'completed')
+                   OR (pi.statusEnum = 'active' AND pi.ReservationType = 'spontaneous'))
+            """;
+
+    /**
+     * The sketches of one entry day.
+     */
+    private static final class DaySketch {
+        final DurationHistogram durations = new DurationHistogram();
+        final HyperLogLog subscribers = new HyperLogLog();
+
+        synchronized void recordDuration(long minutes) {
+            durations.record(minutes);
+        }
+
+        synchronized void recordSubscriber(int userId) {
+            subscribers.add(userId);
+        }
+
+        synchronized void mergeDurationsInto(DurationHistogram target) {
+            target.merge(durations);
+        }
+
+        synchronized void mergeSubscribersInto(HyperLogLog target) {
+            target.merge(subscribers);
+        }
+    }
+
+    private final ConcurrentSkipListMap<LocalDate, DaySketch> days = new ConcurrentSkipListMap<>();
+    private final int retentionDays = Integer.getInteger("bpark.sketch.days", 400);
+    /**
+     * Divides the startup load from live updates: the load counts sessions
+     * that completed before it, live updates count the rest. Durations are
+     * not counted before the load starts.
+     */
+    private volatile LocalDateTime cutoff;
+    private volatile boolean loaded;
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private SessionSketchService() {}
+
+    /**
+     * Returns singleton instance of SessionSketchService.
+     * @return SessionSketchService instance
+     */
+    public static synchronized SessionSketchService getInstance() {
+        if (instance == null) {
+            instance = new SessionSketchService();
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the sketches of the retained days on a background thread.
+     */
+    public void loadInBackground() {
+        Thread loader = new Thread(this::load, "bpark-sketch-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() {
+        if (cutoff != null) {
+            return;
+        }
+        LocalDateTime loadStart = ClockService.getInstance().now();
+        cutoff = loadStart;
+        LocalDate today = loadStart.toLocalDate();
+        long start = System.nanoTime();
+        long rows = 0;
+
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(LOAD_QUERY, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setTimestamp(1, Timestamp.valueOf(loadStart));
+            stmt.setTimestamp(2, Timestamp.valueOf(today.minusDays(retentionDays).atStartOfDay()));
+            stmt.setTimestamp(3, Timestamp.valueOf(today.plusDays(1).atStartOfDay()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    DaySketch day = day(rs.getDate("entry_date").toLocalDate());
+                    if (rs.getBoolean("subscriber")) {
+                        day.recordSubscriber(rs.getInt("User_ID"));
+                    }
+                    if (rs.getBoolean("completed")) {
+                        day.recordDuration(rs.getLong("parked_minutes"));
+                    }
+                    rows++;
+                }
+            }
+            loaded = true;
+            LOG.info("Loaded sketches of {} sessions in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException e) {
+            System.err.println("Error loading session sketches: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Whether the startup load has finished; until then the sketches are incomplete.
+     * @return true once loaded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Counts a subscriber as active on a day. Counting the same subscriber again is free.
+     * @param entryDate Entry date of the session
+     * @param userId Subscriber ID
+     */
+    public void recordSubscriber(LocalDate entryDate, int userId) {
+        day(entryDate).recordSubscriber(userId);
+    }
+
+    /**
+     * Records the duration of a session that has just completed.
+     * @param entryDate Entry date of the session
+     * @param exitTime Exit time of the session
+     * @param minutes Parked minutes
+     */
+    public void recordCompletion(LocalDate entryDate, LocalDateTime exitTime, long minutes) {
+        LocalDateTime loadCutoff = cutoff;
+        if (loadCutoff == null || exitTime.isBefore(loadCutoff)) {
+            return;
+        }
+        day(entryDate).recordDuration(minutes);
+    }
+
+    /**
+     * Merges the duration histograms of a date range.
+     * @param from First entry day, inclusive
+     * @param to Last entry day, exclusive
+     * @return a new histogram of the range
+     */
+    public DurationHistogram durations(LocalDate from, LocalDate to) {
+        DurationHistogram merged = new DurationHistogram();
+        for (DaySketch day : days.subMap(from, to).values()) {
+            day.mergeDurationsInto(merged);
+        }
+        return merged;
+    }
+
+    /**
+     * Estimates the distinct subscribers who parked in a date range.
+     * @param from First entry day, inclusive
+     * @param to Last entry day, exclusive
+     * @return estimated distinct subscribers
+     */
+    public long distinctSubscribers(LocalDate from, LocalDate to) {
+        HyperLogLog merged = new HyperLogLog();
+        for (DaySketch day : days.subMap(from, to).values()) {
+            day.mergeSubscribersInto(merged);
+        }
+        return merged.estimate();
+    }
+
+    private DaySketch day(LocalDate date) {
+        DaySketch day = days.get(date);
+        if (day == null) {
+            day = days.computeIfAbsent(date, d -> new DaySketch());
+            // A new day is rare; drop the days that fell out of retention
+            days.headMap(ClockService.getInstance().today().minusDays(retentionDays)).clear();
+        }
+        return day;
+    }
+}
@@ -0,0 +1,438 @@
+package services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import common.Logger;
+import entities.SessionQuery;
+import entities.SessionQueryResult;
+import server.DBController;
+
+/**
+ * SessionStore keeps every completed parking session in memory, column by
+ * column, for ad-hoc manager analytics that the fixed reports cannot express
+ * (e.g. late exits by weekday for pre-orders only) using the Singleton pattern.
+ *
+ * Sessions are held in fixed-size chunks of primitive arrays, one array per
+ * column, so a query is a tight loop over a few arrays and chunks are scanned
+ * in parallel. Times are stored as local wall-clock epoch seconds, so weekday
+ * and hour are plain arithmetic. History is loaded from parkinginfo once at
+ * startup; sessions completed afterwards are appended as they finish. Only
+ * the last chunk is ever written, and each chunk publishes its rows through a
+ * volatile size, so queries never lock.
+ */
+public class SessionStore {
+
+    private static final Logger LOG = Logger.get("analytics.sessions");
+    private static SessionStore instance;
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    static final byte TYPE_OTHER = 0;
+    static final byte TYPE_SPONTANEOUS = 1;
+    static final byte TYPE_PRE_ORDER = 2;
+    private static final String[] TYPE_LABELS = { "other", "spontaneous", "pre_order" };
+
+    private static final byte FLAG_EXTENDED = 1;
+    private static final byte FLAG_LATE = 2;
+
+    private static final String COMPLETED_COLUMNS = """
+            SELECT Entry_time, Actual_end_time, Estimated_end_time, ReservationType, IsExtended, User_ID
+            FROM parkinginfo
+            """;
+
+    /** Exits set 'completed' and the auto-finish sets 'finished'; cancellations are not sessions */
+    private static final String COMPLETED_FILTER =
+            " AND statusEnum IN ('finished', 'completed') AND Entry_time IS NOT NULL";
+
+    private static final String LOAD_QUERY = COMPLETED_COLUMNS
+            + "WHERE Actual_end_time < ?" + COMPLETED_FILTER;
+
+    private static final String SESSION_QUERY = COMPLETED_COLUMNS
+            + "WHERE ParkingInfo_ID = ? AND Actual_end_time IS NOT NULL" + COMPLETED_FILTER;
+
+    /**
+     * Up to CHUNK_SIZE sessions, one array per column.
+     */
+    private static final class Chunk {
+        final long[] entry = new long[CHUNK_SIZE];
+        final long[] exit = new long[CHUNK_SIZE];
+        final long[] estimatedEnd = new long[CHUNK_SIZE];
+        final byte[] type = new byte[CHUNK_SIZE];
+        final byte[] flags = new byte[CHUNK_SIZE];
+        final int[] userId = new int[CHUNK_SIZE];
+        /** Rows below this index are fully written */
+        volatile int size;
+    }
+
+    /**
+     * Per-group sums of one scanned chunk.
+     */
+    private static final class Partial {
+        final long[] sessions;
+        final long[] late;
+        final long[] extended;
+        final long[] durationSeconds;
+        final long[] overstaySeconds;
+        long scanned;
+
+        Partial(int groups) {
+            sessions = new long[groups];
+            late = new long[groups];
+            extended = new long[groups];
+            durationSeconds = new long[groups];
+            overstaySeconds = new long[groups];
+        }
+
+        Partial merge(Partial other) {
+            for (int g = 0; g < sessions.length; g++) {
+                sessions[g] += other.sessions[g];
+                late[g] += other.late[g];
+                extended[g] += other.extended[g];
+                durationSeconds[g] += other.durationSeconds[g];
+                overstaySeconds[g] += other.overstaySeconds[g];
+            }
+            scanned += other.scanned;
+            return this;
+        }
+    }
+
+    private final Object appendLock = new Object();
+    private volatile Chunk[] chunks = new Chunk[0];
+    /**
+     * Exit time (local epoch seconds) dividing the startup load from live
+     * appends: the load takes sessions that ended before it, appends take the
+     * rest, so no session is counted twice. It is a whole second, like the
+     * stored exit times, so both sides compare the same value exactly.
+     * Nothing is appended before the load starts.
+     */
+    private volatile long cutoff = Long.MAX_VALUE;
+    private volatile boolean loaded;
+    private final ExecutorService scanPool = createScanPool();
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private SessionStore() {}
+
+    /**
+     * Returns singleton instance of SessionStore.
+     * @return SessionStore instance
+     */
+    public static synchronized SessionStore getInstance() {
+        if (instance == null) {
+            instance = new SessionStore();
+        }
+        return instance;
+    }
+
+    private static ExecutorService createScanPool() {
+        int threads = Integer.getInteger("bpark.sessionStore.threads",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger counter = new AtomicInteger(1);
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bpark-session-scan-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Loads completed sessions from parkinginfo on a background thread.
+     * Queries made while loading see the sessions loaded so far.
+     */
+    public void loadInBackground() {
+        Thread loader = new Thread(this::load, "bpark-session-store-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() {
+        if (cutoff != Long.MAX_VALUE) {
+            return;
+        }
+        LocalDateTime loadStart = ClockService.getInstance().now().truncatedTo(ChronoUnit.SECONDS);
+        cutoff = toSeconds(loadStart);
+        long start = System.nanoTime();
+        long rows = 0;
+
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(LOAD_QUERY, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setTimestamp(1, Timestamp.valueOf(loadStart));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    appendRow(rs);
+                    rows++;
+                }
+            }
+            loaded = true;
+            LOG.info("Loaded {} completed sessions in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException e) {
+            System.err.println("Error loading session store: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Appends a session that has just completed. Call after the change is committed.
+     * @param conn Connection of the caller
+     * @param parkingInfoId Session ID
+     */
+    public void recordCompleted(Connection conn, int parkingInfoId) {
+        if (cutoff == Long.MAX_VALUE) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(SESSION_QUERY)) {
+            stmt.setInt(1, parkingInfoId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && toSeconds(rs.getTimestamp("Actual_end_time")) >= cutoff) {
+                    appendRow(rs);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error adding session " + parkingInfoId + " to session store: " + e.getMessage());
+        }
+    }
+
+    private void appendRow(ResultSet rs) throws SQLException {
+        long entry = toSeconds(rs.getTimestamp("Entry_time"));
+        long exit = toSeconds(rs.getTimestamp("Actual_end_time"));
+        long estimatedEnd = toSeconds(rs.getTimestamp("Estimated_end_time"));
+        String type = rs.getString("ReservationType");
+        byte flags = 0;
+        if ("yes".equals(rs.getString("IsExtended"))) {
+            flags |= FLAG_EXTENDED;
+        }
+        if (estimatedEnd != NO_TIME && exit > estimatedEnd) {
+            flags |= FLAG_LATE;
+        }
+        append(entry, exit, estimatedEnd, typeCode(type), flags, rs.getInt("User_ID"));
+    }
+
+    private void append(long entry, long exit, long estimatedEnd, byte type, byte flags, int userId) {
+        synchronized (appendLock) {
+            Chunk[] current = chunks;
+            Chunk chunk = current.length == 0 ? null : current[current.length - 1];
+            if (chunk == null || chunk.size == CHUNK_SIZE) {
+                chunk = new Chunk();
+                Chunk[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = chunk;
+                chunks = grown;
+            }
+            int row = chunk.size;
+            chunk.entry[row] = entry;
+            chunk.exit[row] = exit;
+            chunk.estimatedEnd[row] = estimatedEnd;
+            chunk.type[row] = type;
+            chunk.flags[row] = flags;
+            chunk.userId[row] = userId;
+            chunk.size = row + 1;
+        }
+    }
+
+    /**
+     * Returns the number of sessions held.
+     * @return session count
+     */
+    public long size() {
+        long total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.size;
+        }
+        return total;
+    }
+
+    /**
+     * Filters, groups and aggregates the stored sessions, scanning chunks in parallel.
+     * @param query Filters and grouping
+     * @return one row per non-empty group
+     */
+    public SessionQueryResult query(SessionQuery query) {
+        long start = System.nanoTime();
+        SessionQuery.GroupBy groupBy = query.getGroupBy() == null ? SessionQuery.GroupBy.NONE : query.getGroupBy();
+        Filter filter = new Filter(query, groupBy);
+
+        Chunk[] snapshot = chunks;
+        List<CompletableFuture<Partial>> scans = new ArrayList<>(snapshot.length);
+        for (Chunk chunk : snapshot) {
+            scans.add(CompletableFuture.supplyAsync(() -> filter.scan(chunk), scanPool));
+        }
+        Partial total = new Partial(groupCount(groupBy));
+        for (CompletableFuture<Partial> scan : scans) {
+            total.merge(scan.join());
+        }
+
+        ArrayList<SessionQueryResult.Group> groups = new ArrayList<>();
+        for (int g = 0; g < total.sessions.length; g++) {
+            long sessions = total.sessions[g];
+            if (sessions == 0) {
+                continue;
+            }
+            long late = total.late[g];
+            groups.add(new SessionQueryResult.Group(groupLabel(groupBy, g), sessions, late, total.extended[g],
+                    total.durationSeconds[g] / 60.0 / sessions,
+                    late == 0 ? 0 : total.overstaySeconds[g] / 60.0 / late));
+        }
+        return new SessionQueryResult(groupBy, groups, total.scanned, (System.nanoTime() - start) / 1000, loaded);
+    }
+
+    /**
+     * The query's filters as primitive bounds, applied to one chunk at a time.
+     */
+    private static final class Filter {
+        final long entryFrom;
+        final long entryTo;
+        final int type;
+        final int flagMask;
+        final int flagValue;
+        final int userId;
+        final SessionQuery.GroupBy groupBy;
+        final int groups;
+
+        Filter(SessionQuery query, SessionQuery.GroupBy groupBy) {
+            entryFrom = query.getFromDate() == null ? Long.MIN_VALUE : toSeconds(query.getFromDate().atStartOfDay());
+            entryTo = query.getToDate() == null ? Long.MAX_VALUE : toSeconds(query.getToDate().atStartOfDay());
+            type = query.getReservationType() == null ? -1 : typeCode(query.getReservationType());
+            int mask = 0;
+            int value = 0;
+            if (query.getLate() != null) {
+                mask |= FLAG_LATE;
+                value |= query.getLate() ? FLAG_LATE : 0;
+            }
+            if (query.getExtended() != null) {
+                mask |= FLAG_EXTENDED;
+                value |= query.getExtended() ? FLAG_EXTENDED : 0;
+            }
+            flagMask = mask;
+            flagValue = value;
+            userId = query.getUserId();
+            this.groupBy = groupBy;
+            this.groups = groupCount(groupBy);
+        }
+
+        Partial scan(Chunk chunk) {
+            Partial partial = new Partial(groups);
+            int size = chunk.size;
+            long[] entry = chunk.entry;
+            long[] exit = chunk.exit;
+            long[] estimatedEnd = chunk.estimatedEnd;
+            byte[] types = chunk.type;
+            byte[] flags = chunk.flags;
+            int[] users = chunk.userId;
+
+            for (int row = 0; row < size; row++) {
+                long entered = entry[row];
+                if (entered < entryFrom || entered >= entryTo
+                        || (type >= 0 && types[row] != type)
+                        || (flags[row] & flagMask) != flagValue
+                        || (userId != 0 && users[row] != userId)) {
+                    continue;
+                }
+                int g = groupOf(groupBy, entered, types[row]);
+                partial.sessions[g]++;
+                partial.durationSeconds[g] += exit[row] - entered;
+                if ((flags[row] & FLAG_EXTENDED) != 0) {
+                    partial.extended[g]++;
+                }
+                if ((flags[row] & FLAG_LATE) != 0) {
+                    partial.late[g]++;
+                    partial.overstaySeconds[g] += exit[row] - estimatedEnd[row];
+                }
+            }
+            partial.scanned = size;
+            return partial;
+        }
+    }
+
+    private static int groupCount(SessionQuery.GroupBy groupBy) {
+        switch (groupBy) {
+            case WEEKDAY:
+                return 7;
+            case HOUR_OF_DAY:
+                return 24;
+            case DAY_OF_MONTH:
+                return 31;
+            case MONTH:
+                return 12;
+            case RESERVATION_TYPE:
+                return TYPE_LABELS.length;
+            default:
+                return 1;
+        }
+    }
+
+    private static int groupOf(SessionQuery.GroupBy groupBy, long entrySeconds, byte type) {
+        long epochDay = Math.floorDiv(entrySeconds, 86_400);
+        switch (groupBy) {
+            case WEEKDAY:
+                // 1970-01-01 was a Thursday; index 0 is Monday
+                return Math.floorMod(epochDay + 3, 7);
+            case HOUR_OF_DAY:
+                return Math.floorMod(entrySeconds, 86_400) / 3600;
+            case DAY_OF_MONTH:
+                return LocalDate.ofEpochDay(epochDay).getDayOfMonth() - 1;
+            case MONTH:
+                return LocalDate.ofEpochDay(epochDay).getMonthValue() - 1;
+            case RESERVATION_TYPE:
+                return type;
+            default:
+                return 0;
+        }
+    }
+
+    private static String groupLabel(SessionQuery.GroupBy groupBy, int group) {
+        switch (groupBy) {
+            case WEEKDAY:
+                return DayOfWeek.of(group + 1).name();
+            case HOUR_OF_DAY:
+                return String.format("%02d:00", group);
+            case DAY_OF_MONTH:
+                return String.valueOf(group + 1);
+            case MONTH:
+                return Month.of(group + 1).name();
+            case RESERVATION_TYPE:
+                return TYPE_LABELS[group];
+            default:
+                return "ALL";
+        }
+    }
+
+    private static byte typeCode(String reservationType) {
+        if ("pre_order".equals(reservationType)) {
+            return TYPE_PRE_ORDER;
+        }
+        if ("spontaneous".equals(reservationType)) {
+            return TYPE_SPONTANEOUS;
+        }
+        return TYPE_OTHER;
+    }
+
+    private static long toSeconds(Timestamp timestamp) {
+        return timestamp == null ? NO_TIME : toSeconds(timestamp.toLocalDateTime());
+    }
+
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
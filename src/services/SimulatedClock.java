@@ -0,0 +1,59 @@
+package services;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * SimulatedClock is a clock that only moves when told to. Installed in
+ * {@link ClockService} it lets a simulation step through a day minute by minute.
+ */
+public class SimulatedClock extends Clock {
+
+    private final AtomicReference<Instant> instant;
+    private final ZoneId zone;
+
+    public SimulatedClock(LocalDateTime start, ZoneId zone) {
+        this(new AtomicReference<>(start.atZone(zone).toInstant()), zone);
+    }
+
+    /** Shares the time of another simulated clock */
+    private SimulatedClock(AtomicReference<Instant> instant, ZoneId zone) {
+        this.instant = instant;
+        this.zone = zone;
+    }
+
+    /**
+     * Moves the clock forward.
+     * @param duration How far to move
+     */
+    public void advance(Duration duration) {
+        instant.updateAndGet(i -> i.plus(duration));
+    }
+
+    /**
+     * Sets the clock to a date and time.
+     * @param dateTime New time in the clock's zone
+     */
+    public void set(LocalDateTime dateTime) {
+        instant.set(dateTime.atZone(zone).toInstant());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new SimulatedClock(instant, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return instant.get();
+    }
+}
@@ -7,6 +7,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import entities.ParkingSubscriber;
 import server.DBController;
+import server.ResultCursor;
 import services.ValidationService;
 import services.NotificationService;
 
@@ -293,6 +294,21 @@ public class UserService {
         return subscribers;
     }
     
+    /**
+     * Opens a streaming cursor over all subscribers, ordered by name.
+     * The caller must close the cursor (it closes itself once exhausted).
+     * @return Open cursor, or null if the query failed
+     */
+    public ResultCursor<ParkingSubscriber> openAllSubscribersCursor() {
+        String query = "SELECT * FROM users WHERE UserTypeEnum = 'sub' ORDER BY Name";
+        try {
+            return ResultCursor.open(query, stmt -> {}, this::createSubscriberFromResultSet);
+        } catch (SQLException e) {
+            System.err.println("Error opening subscribers cursor: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Sends lost parking code to user email by user ID.
      * @param userID User ID requesting lost code
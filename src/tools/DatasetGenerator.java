@@ -0,0 +1,528 @@
+package tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import server.DBController;
+import services.RollupService;
+
+/**
+ * DatasetGenerator fills a test database with realistic users and years of
+ * parking sessions so that report and lookup queries can be benchmarked at
+ * 10M+ rows.
+ *
+ * Sessions follow configurable distributions: arrival hour from a 24-value
+ * weight profile, log-normal stay duration, and independent rates for
+ * reservations, cancelled reservations, extensions and late pickups. Spots are
+ * drawn at random, so concurrent sessions may share a spot; the data is meant
+ * for query volume, not for occupancy invariants. Every session gets its own
+ * parking code, counting up from 100000; past 900,000 sessions the codes are
+ * longer than the six digits the application hands out.
+ *
+ * Two output modes:
+ *   jdbc  multi-row INSERT batches through {@link DBController}, with unique and
+ *         foreign key checks off for the session. Only columns that exist in
+ *         the target parkinginfo table are written, and the report rollups of
+ *         the generated range are rebuilt afterwards.
+ *   file  tab-separated files plus a load.sql script using LOAD DATA LOCAL INFILE,
+ *         the fastest way to load tens of millions of rows with the mysql client.
+ *         All known columns are written unless bpark.gen.columns lists a subset.
+ *
+ * Settings (system properties, defaults in brackets):
+ *   bpark.gen.mode [jdbc], bpark.gen.db / bpark.gen.dbPassword (fall back to bpark.bench.*),
+ *   bpark.gen.dir [dataset], bpark.gen.users [10000], bpark.gen.sessions [1000000],
+ *   bpark.gen.from [three years ago], bpark.gen.to [yesterday], bpark.gen.spots [100, file mode],
+ *   bpark.gen.firstUserId [1000, file mode], bpark.gen.arrivalProfile [24 comma-separated weights],
+ *   bpark.gen.durationMedianMinutes [150], bpark.gen.durationSigma [0.6],
+ *   bpark.gen.reservationShare [0.3], bpark.gen.cancelRate [0.1], bpark.gen.extensionRate [0.12],
+ *   bpark.gen.lateRate [0.08], bpark.gen.rowsPerInsert [1000], bpark.gen.seed [42]
+ *
+ * Usage: java -Dbpark.gen.db=bpark_test -Dbpark.gen.dbPassword=... -Dbpark.gen.sessions=10000000 tools.DatasetGenerator
+ */
+public class DatasetGenerator {
+
+    private static final String DEFAULT_PROFILE =
+            "1,1,1,1,2,5,20,70,100,85,55,45,50,45,40,45,60,80,65,40,25,15,8,4";
+    private static final int ESTIMATED_STAY_HOURS = 4;
+    private static final int MIN_STAY_MINUTES = 10;
+    private static final int MAX_STAY_MINUTES = 12 * 60;
+    private static final int LATE_THRESHOLD_MINUTES = 15;
+    private static final int FIRST_CODE = 100_000;
+    private static final long MAX_SESSIONS = (long) Integer.MAX_VALUE - FIRST_CODE + 1;
+    private static final int PROGRESS_EVERY = 1_000_000;
+    private static final DateTimeFormatter SQL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] FIRST_NAMES = {
+        "Noa", "Ido", "Dana", "Yossi", "Maya", "Omer", "Tamar", "Eitan", "Shira", "Lior",
+        "Avi", "Roni", "Gal", "Yael", "Amit", "Michal", "Tal", "Nir", "Hila", "Ron"
+    };
+    private static final String[] LAST_NAMES = {
+        "Cohen", "Levi", "Mizrahi", "Peretz", "Biton", "Dahan", "Avraham", "Friedman", "Azulay", "Katz",
+        "Porat", "Shapiro", "Ben-David", "Golan", "Stein", "Halevi", "Amar", "Ohana", "Segal", "Weiss"
+    };
+
+    /** One generated session, reused for every row */
+    private static class Session {
+        int userId;
+        int spotId;
+        int code;
+        boolean reserved;
+        boolean cancelled;
+        boolean extended;
+        boolean late;
+        LocalDateTime placed;
+        LocalDateTime estimatedStart;
+        LocalDateTime estimatedEnd;
+        LocalDateTime actualStart;
+        LocalDateTime actualEnd;
+    }
+
+    /** parkinginfo columns the application reads, with the value each gets */
+    private static final Map<String, Function<Session, Object>> SESSION_COLUMNS = new LinkedHashMap<>();
+    static {
+        SESSION_COLUMNS.put("ParkingSpot_ID", s -> s.spotId);
+        SESSION_COLUMNS.put("User_ID", s -> s.userId);
+        SESSION_COLUMNS.put("Code", s -> s.code);
+        SESSION_COLUMNS.put("Date_Of_Placing_Order", s -> s.placed);
+        SESSION_COLUMNS.put("Date", s -> s.estimatedStart.toLocalDate());
+        SESSION_COLUMNS.put("Start_time", s -> s.estimatedStart.toLocalTime());
+        SESSION_COLUMNS.put("Entry_time", s -> s.actualStart);
+        SESSION_COLUMNS.put("Actual_start_time", s -> s.actualStart);
+        SESSION_COLUMNS.put("Actual_end_time", s -> s.actualEnd);
+        SESSION_COLUMNS.put("Estimated_start_time", s -> s.estimatedStart);
+        SESSION_COLUMNS.put("Estimated_end_time", s -> s.estimatedEnd);
+        SESSION_COLUMNS.put("IsOrderedEnum", s -> s.reserved ? "yes" : "no");
+        SESSION_COLUMNS.put("ReservationType", s -> s.reserved ? "pre_order" : "spontaneous");
+        SESSION_COLUMNS.put("IsLate", s -> s.late ? "yes" : "no");
+        SESSION_COLUMNS.put("IsExtended", s -> s.extended ? "yes" : "no");
+        SESSION_COLUMNS.put("statusEnum", s -> s.cancelled ? "cancelled" : "finished");
+    }
+
+    private static final String[] USER_COLUMNS = {"User_ID", "Name", "Phone", "Email", "CarNum", "UserName", "UserTypeEnum"};
+
+    /** Receives generated rows, either as INSERT batches or as a tab-separated file */
+    private interface RowSink extends AutoCloseable {
+        void add(Object[] row) throws SQLException, IOException;
+
+        @Override
+        void close() throws SQLException, IOException;
+    }
+
+    private final SplittableRandom random;
+    private final double[] hourCumulative = new double[24];
+    private final double durationMu;
+    private final double durationSigma;
+    private final double reservationShare;
+    private final double cancelRate;
+    private final double extensionRate;
+    private final double lateRate;
+    private final Session session = new Session();
+
+    public DatasetGenerator(long seed) {
+        random = new SplittableRandom(seed);
+        String[] weights = System.getProperty("bpark.gen.arrivalProfile", DEFAULT_PROFILE).split(",");
+        if (weights.length != 24) {
+            throw new IllegalArgumentException("bpark.gen.arrivalProfile needs 24 weights, got " + weights.length);
+        }
+        double sum = 0;
+        for (int hour = 0; hour < 24; hour++) {
+            sum += Double.parseDouble(weights[hour].trim());
+            hourCumulative[hour] = sum;
+        }
+        for (int hour = 0; hour < 24; hour++) {
+            hourCumulative[hour] /= sum;
+        }
+        durationMu = Math.log(Double.parseDouble(System.getProperty("bpark.gen.durationMedianMinutes", "150")));
+        durationSigma = Double.parseDouble(System.getProperty("bpark.gen.durationSigma", "0.6"));
+        reservationShare = Double.parseDouble(System.getProperty("bpark.gen.reservationShare", "0.3"));
+        cancelRate = Double.parseDouble(System.getProperty("bpark.gen.cancelRate", "0.1"));
+        extensionRate = Double.parseDouble(System.getProperty("bpark.gen.extensionRate", "0.12"));
+        lateRate = Double.parseDouble(System.getProperty("bpark.gen.lateRate", "0.08"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = System.getProperty("bpark.gen.mode", "jdbc");
+        int users = Integer.getInteger("bpark.gen.users", 10_000);
+        long sessions = Long.getLong("bpark.gen.sessions", 1_000_000);
+        if (sessions > MAX_SESSIONS) {
+            System.err.println("bpark.gen.sessions is limited to " + MAX_SESSIONS + " so that every session gets a unique code");
+            System.exit(1);
+        }
+        LocalDate to = LocalDate.parse(System.getProperty("bpark.gen.to", LocalDate.now().minusDays(1).toString()));
+        LocalDate from = LocalDate.parse(System.getProperty("bpark.gen.from", to.minusYears(3).toString()));
+        DatasetGenerator generator = new DatasetGenerator(Long.getLong("bpark.gen.seed", 42));
+
+        long start = System.nanoTime();
+        if ("file".equalsIgnoreCase(mode)) {
+            Path dir = Paths.get(System.getProperty("bpark.gen.dir", "dataset"));
+            generator.writeFiles(dir, users, sessions, from, to);
+        } else {
+            String db = System.getProperty("bpark.gen.db", System.getProperty("bpark.bench.db"));
+            if (db == null) {
+                System.err.println("Set bpark.gen.db and bpark.gen.dbPassword, or use -Dbpark.gen.mode=file");
+                System.exit(1);
+            }
+            DBController.initializeConnection(db,
+                    System.getProperty("bpark.gen.dbPassword", System.getProperty("bpark.bench.dbPassword", "")));
+            if (DBController.getInstance().getSuccessFlag() != 1) {
+                System.err.println("Database " + db + " unavailable");
+                System.exit(1);
+            }
+            generator.insert(users, sessions, from, to);
+            System.out.println("Rebuilding report rollups...");
+            RollupService.getInstance().rebuild(from, to.plusDays(1));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Generated %d users and %d sessions in %.1f s (%.0f rows/s)%n",
+                users, sessions, seconds, (users + sessions) / seconds);
+        System.exit(0);
+    }
+
+    /**
+     * Writes users and sessions straight into the configured database.
+     */
+    private void insert(int users, long sessions, LocalDate from, LocalDate to) throws Exception {
+        int rowsPerInsert = Integer.getInteger("bpark.gen.rowsPerInsert", 1000);
+        Connection conn = DBController.getInstance().getConnection();
+        try (Statement settings = conn.createStatement()) {
+            settings.execute("SET unique_checks = 0, foreign_key_checks = 0");
+            conn.setAutoCommit(false);
+
+            int firstUserId = queryInt(conn, "SELECT IFNULL(MAX(User_ID), 0) + 1 FROM users");
+            int[] spots = querySpots(conn);
+            if (spots.length == 0) {
+                throw new IllegalStateException("parkingspot is empty; start the server once to create spots");
+            }
+
+            try (RowSink sink = new InsertSink(conn, "users", List.of(USER_COLUMNS), rowsPerInsert)) {
+                writeUsers(sink, firstUserId, users);
+            }
+            List<String> columns = existingColumns(conn, "parkinginfo");
+            try (RowSink sink = new InsertSink(conn, "parkinginfo", columns, rowsPerInsert)) {
+                writeSessions(sink, columns, firstUserId, users, spots, sessions, from, to);
+            }
+        } finally {
+            try (Statement settings = conn.createStatement()) {
+                conn.setAutoCommit(true);
+                settings.execute("SET unique_checks = 1, foreign_key_checks = 1");
+            } catch (SQLException e) {
+                System.err.println("Failed to restore session settings: " + e.getMessage());
+            }
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    /**
+     * Writes users.tsv, parkinginfo.tsv and a load.sql script into a directory.
+     */
+    private void writeFiles(Path dir, int users, long sessions, LocalDate from, LocalDate to) throws Exception {
+        Files.createDirectories(dir);
+        int firstUserId = Integer.getInteger("bpark.gen.firstUserId", 1000);
+        int[] spots = new int[Integer.getInteger("bpark.gen.spots", 100)];
+        for (int i = 0; i < spots.length; i++) {
+            spots[i] = i + 1;
+        }
+        List<String> columns = new ArrayList<>(SESSION_COLUMNS.keySet());
+        String selected = System.getProperty("bpark.gen.columns");
+        if (selected != null) {
+            columns.clear();
+            for (String column : selected.split(",")) {
+                if (!SESSION_COLUMNS.containsKey(column.trim())) {
+                    throw new IllegalArgumentException("Unknown parkinginfo column: " + column);
+                }
+                columns.add(column.trim());
+            }
+        }
+
+        try (RowSink sink = new FileSink(dir.resolve("users.tsv"))) {
+            writeUsers(sink, firstUserId, users);
+        }
+        try (RowSink sink = new FileSink(dir.resolve("parkinginfo.tsv"))) {
+            writeSessions(sink, columns, firstUserId, users, spots, sessions, from, to);
+        }
+
+        StringBuilder script = new StringBuilder()
+                .append("-- Load with: mysql --local-infile=1 <db> < load.sql (from this directory)\n")
+                .append("SET unique_checks = 0;\nSET foreign_key_checks = 0;\n")
+                .append(loadStatement("users.tsv", "users", List.of(USER_COLUMNS)))
+                .append(loadStatement("parkinginfo.tsv", "parkinginfo", columns))
+                .append("SET unique_checks = 1;\nSET foreign_key_checks = 1;\n")
+                .append("-- Then rebuild the report rollups: bpark_rollups.sql, or \"rollup rebuild <days>\" in the server console\n");
+        Files.writeString(dir.resolve("load.sql"), script, StandardCharsets.UTF_8);
+        System.out.println("Files written to " + dir.toAbsolutePath().normalize());
+    }
+
+    private static String loadStatement(String file, String table, List<String> columns) {
+        return "LOAD DATA LOCAL INFILE '" + file + "' INTO TABLE " + table
+                + " FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n' ("
+                + String.join(", ", columns) + ");\n";
+    }
+
+    private void writeUsers(RowSink sink, int firstUserId, int users) throws Exception {
+        Object[] row = new Object[USER_COLUMNS.length];
+        for (int i = 0; i < users; i++) {
+            int userId = firstUserId + i;
+            String userName = "gen" + userId;
+            row[0] = userId;
+            row[1] = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            row[2] = String.format("05%d-%07d", random.nextInt(10), random.nextInt(10_000_000));
+            row[3] = userName + "@example.com";
+            row[4] = String.format("%03d-%02d-%03d", random.nextInt(1000), random.nextInt(100), random.nextInt(1000));
+            row[5] = userName;
+            row[6] = "sub";
+            sink.add(row);
+        }
+    }
+
+    private void writeSessions(RowSink sink, List<String> columns, int firstUserId, int users, int[] spots,
+                               long sessions, LocalDate from, LocalDate to) throws Exception {
+        List<Function<Session, Object>> values = new ArrayList<>();
+        for (String column : columns) {
+            values.add(SESSION_COLUMNS.get(column));
+        }
+        Object[] row = new Object[columns.size()];
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        long start = System.nanoTime();
+
+        for (long n = 0; n < sessions; n++) {
+            nextSession(from.plusDays(random.nextLong(days)), firstUserId + random.nextInt(users),
+                    spots[random.nextInt(spots.length)], (int) (FIRST_CODE + n));
+            for (int c = 0; c < row.length; c++) {
+                row[c] = values.get(c).apply(session);
+            }
+            sink.add(row);
+            if ((n + 1) % PROGRESS_EVERY == 0) {
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("  %,d sessions (%.0f rows/s)%n", n + 1, (n + 1) / seconds);
+            }
+        }
+    }
+
+    /**
+     * Fills {@link #session} with one session on a day.
+     */
+    private void nextSession(LocalDate day, int userId, int spotId, int code) {
+        Session s = session;
+        s.userId = userId;
+        s.spotId = spotId;
+        s.code = code;
+        LocalDateTime arrival = day.atTime(arrivalHour(), random.nextInt(60), random.nextInt(60));
+        int stayMinutes = (int) Math.max(MIN_STAY_MINUTES,
+                Math.min(MAX_STAY_MINUTES, Math.exp(durationMu + durationSigma * gaussian())));
+
+        s.reserved = random.nextDouble() < reservationShare;
+        if (s.reserved) {
+            LocalDateTime slot = arrival.truncatedTo(ChronoUnit.HOURS).plusMinutes(arrival.getMinute() / 15 * 15);
+            s.placed = slot.minusMinutes(60 + random.nextInt(7 * 24 * 60));
+            s.estimatedStart = slot;
+        } else {
+            s.placed = arrival;
+            s.estimatedStart = arrival;
+        }
+        s.estimatedEnd = s.estimatedStart.plusHours(ESTIMATED_STAY_HOURS);
+
+        s.cancelled = s.reserved && random.nextDouble() < cancelRate;
+        if (s.cancelled) {
+            s.extended = false;
+            s.late = false;
+            s.actualStart = null;
+            s.actualEnd = null;
+            return;
+        }
+        s.extended = random.nextDouble() < extensionRate;
+        if (s.extended) {
+            s.estimatedEnd = s.estimatedEnd.plusHours(1 + random.nextInt(4));
+        }
+        s.late = random.nextDouble() < lateRate;
+        s.actualStart = arrival;
+        LocalDateTime departure = arrival.plusMinutes(stayMinutes);
+        if (s.late) {
+            s.actualEnd = s.estimatedEnd.plusMinutes(LATE_THRESHOLD_MINUTES + 1 + random.nextInt(180));
+        } else {
+            s.actualEnd = departure.isAfter(s.estimatedEnd) ? s.estimatedEnd : departure;
+        }
+    }
+
+    private int arrivalHour() {
+        double r = random.nextDouble();
+        for (int hour = 0; hour < 23; hour++) {
+            if (r < hourCumulative[hour]) {
+                return hour;
+            }
+        }
+        return 23;
+    }
+
+    /** Standard normal value (Box-Muller) */
+    private double gaussian() {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static int queryInt(Connection conn, String query) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static int[] querySpots(Connection conn) throws SQLException {
+        List<Integer> spots = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT ParkingSpot_ID FROM parkingspot")) {
+            while (rs.next()) {
+                spots.add(rs.getInt(1));
+            }
+        }
+        return spots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the known session columns that the target table actually has,
+     * so the generator works with both the dump schema and the one the
+     * services write to.
+     */
+    private static List<String> existingColumns(Connection conn, String table) throws SQLException {
+        List<String> present = new ArrayList<>();
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, table, null)) {
+            while (rs.next()) {
+                present.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : SESSION_COLUMNS.keySet()) {
+            if (present.contains(column.toLowerCase(Locale.ROOT))) {
+                columns.add(column);
+            }
+        }
+        System.out.println("Writing parkinginfo columns: " + String.join(", ", columns));
+        return columns;
+    }
+
+    /**
+     * Buffers rows into multi-row INSERT statements, one commit per statement.
+     */
+    private static class InsertSink implements RowSink {
+        private final Connection conn;
+        private final String table;
+        private final List<String> columns;
+        private final int rowsPerInsert;
+        private final PreparedStatement fullInsert;
+        private final Object[][] pending;
+        private int pendingRows;
+
+        InsertSink(Connection conn, String table, List<String> columns, int rowsPerInsert) throws SQLException {
+            this.conn = conn;
+            this.table = table;
+            this.columns = columns;
+            this.rowsPerInsert = rowsPerInsert;
+            this.fullInsert = conn.prepareStatement(insertSql(rowsPerInsert));
+            this.pending = new Object[rowsPerInsert][columns.size()];
+        }
+
+        private String insertSql(int rows) {
+            StringBuilder placeholders = new StringBuilder("(");
+            for (int c = 0; c < columns.size(); c++) {
+                placeholders.append(c == 0 ? "?" : ", ?");
+            }
+            placeholders.append(')');
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+            for (int r = 0; r < rows; r++) {
+                sql.append(r == 0 ? "" : ", ").append(placeholders);
+            }
+            return sql.toString();
+        }
+
+        @Override
+        public void add(Object[] row) throws SQLException {
+            System.arraycopy(row, 0, pending[pendingRows], 0, row.length);
+            if (++pendingRows == rowsPerInsert) {
+                flush(fullInsert);
+            }
+        }
+
+        private void flush(PreparedStatement stmt) throws SQLException {
+            int index = 1;
+            for (int r = 0; r < pendingRows; r++) {
+                for (Object value : pending[r]) {
+                    stmt.setObject(index++, value);
+                }
+            }
+            stmt.executeUpdate();
+            conn.commit();
+            pendingRows = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (pendingRows > 0) {
+                    try (PreparedStatement tail = conn.prepareStatement(insertSql(pendingRows))) {
+                        flush(tail);
+                    }
+                }
+            } finally {
+                fullInsert.close();
+            }
+        }
+    }
+
+    /**
+     * Writes rows as tab-separated text in the format LOAD DATA reads by default.
+     */
+    private static class FileSink implements RowSink {
+        private final Writer out;
+        private final StringBuilder line = new StringBuilder(256);
+
+        FileSink(Path file) throws IOException {
+            out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 20);
+        }
+
+        @Override
+        public void add(Object[] row) throws IOException {
+            line.setLength(0);
+            for (int c = 0; c < row.length; c++) {
+                if (c > 0) {
+                    line.append('\t');
+                }
+                Object value = row[c];
+                if (value == null) {
+                    line.append("\\N");
+                } else if (value instanceof LocalDateTime) {
+                    SQL_DATE_TIME.formatTo((LocalDateTime) value, line);
+                } else {
+                    line.append(value);
+                }
+            }
+            line.append('\n');
+            out.append(line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import controllers.SimpleAutoCancellationService;
+import entities.LatencySummary;
+import server.DBController;
+import server.LatencyHistogram;
+import services.ClockService;
+import services.ParkingSpotService;
+import services.ReservationService;
+import services.SimulatedClock;
+
+/**
+ * DaySimulation replays a full busy day against the real services in a few
+ * seconds. A {@link SimulatedClock} is installed in {@link ClockService} and
+ * stepped one minute at a time; each simulated minute generates spontaneous
+ * entries and reservations following an hourly demand profile, exits the
+ * sessions that are due (some of them late, as overstays), cancels
+ * reservations whose driver never shows up and runs one auto-cancellation sweep.
+ *
+ * At the end it prints the count and latency of every operation, the
+ * throughput in operations per wall-clock second and the cost of the sweeps.
+ * The simulation writes real rows, so point it at a test database.
+ *
+ * Settings (system properties):
+ *   bpark.sim.db / bpark.sim.dbPassword   database (falls back to bpark.bench.db)
+ *   bpark.sim.date                        simulated day, default today
+ *   bpark.sim.peakArrivalsPerHour         arrivals in the busiest hour, default 60
+ *   bpark.sim.reservationShare            share of arrivals that reserve, default 0.3
+ *   bpark.sim.noShowRate                  share of reservations never used, default 0.1
+ *   bpark.sim.overstayRate                share of sessions leaving late, default 0.15
+ *   bpark.sim.seed                        random seed, default 42
+ *
+ * Usage: java -Dbpark.sim.db=bpark_test -Dbpark.sim.dbPassword=... tools.DaySimulation
+ */
+public class DaySimulation {
+
+    /** Relative demand per hour of day; 1.0 is the peak hour */
+    private static final double[] HOURLY_PROFILE = {
+        0.02, 0.01, 0.01, 0.01, 0.02, 0.05, 0.20, 0.70,
+        1.00, 0.85, 0.55, 0.45, 0.50, 0.45, 0.40, 0.45,
+        0.60, 0.80, 0.65, 0.40, 0.25, 0.15, 0.08, 0.04
+    };
+    /** Spontaneous sessions are given four hours, see ReservationService.enterParking */
+    private static final int SPONTANEOUS_ALLOWANCE_MINUTES = 240;
+    private static final int NO_SHOW_GRACE_MINUTES = 15;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Something due at a simulated minute */
+    private static class ScheduledAction implements Comparable<ScheduledAction> {
+        final int minute;
+        final boolean exit;
+        final int code;
+
+        ScheduledAction(int minute, boolean exit, int code) {
+            this.minute = minute;
+            this.exit = exit;
+            this.code = code;
+        }
+
+        @Override
+        public int compareTo(ScheduledAction other) {
+            return Integer.compare(minute, other.minute);
+        }
+    }
+
+    /** Count, failures and latency of one operation */
+    private static class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        int failures;
+    }
+
+    private final ReservationService reservations = ReservationService.getInstance();
+    private final SimpleAutoCancellationService sweeper = new SimpleAutoCancellationService(null);
+    private final Map<String, OperationStats> stats = new LinkedHashMap<>();
+    private final PriorityQueue<ScheduledAction> due = new PriorityQueue<>();
+    private final LatencyHistogram sweepCost = new LatencyHistogram();
+    private final Random random;
+    private final List<Integer> userIds;
+    private final double peakArrivalsPerHour;
+    private final double reservationShare;
+    private final double noShowRate;
+    private final double overstayRate;
+    private long sweepTotalNanos;
+    private int sweepCancelled;
+    private int sweepNotified;
+    private int overstays;
+    private int noShows;
+
+    public DaySimulation(List<Integer> userIds, long seed) {
+        this.userIds = userIds;
+        this.random = new Random(seed);
+        this.peakArrivalsPerHour = Double.parseDouble(System.getProperty("bpark.sim.peakArrivalsPerHour", "60"));
+        this.reservationShare = Double.parseDouble(System.getProperty("bpark.sim.reservationShare", "0.3"));
+        this.noShowRate = Double.parseDouble(System.getProperty("bpark.sim.noShowRate", "0.1"));
+        this.overstayRate = Double.parseDouble(System.getProperty("bpark.sim.overstayRate", "0.15"));
+        for (String operation : new String[] {"enter", "reserve", "exit", "cancel"}) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) {
+        String db = System.getProperty("bpark.sim.db", System.getProperty("bpark.bench.db"));
+        if (db == null) {
+            System.err.println("Set bpark.sim.db and bpark.sim.dbPassword to a test database");
+            System.exit(1);
+        }
+        String password = System.getProperty("bpark.sim.dbPassword", System.getProperty("bpark.bench.dbPassword", ""));
+        DBController.initializeConnection(db, password);
+        if (DBController.getInstance().getSuccessFlag() != 1) {
+            System.err.println("Database " + db + " unavailable");
+            System.exit(1);
+        }
+        ParkingSpotService.getInstance().initializeParkingSpots();
+
+        List<Integer> userIds = loadSubscriberIds();
+        if (userIds.isEmpty()) {
+            System.err.println("No subscribers in " + db + ", nothing to simulate");
+            System.exit(1);
+        }
+
+        String date = System.getProperty("bpark.sim.date");
+        LocalDate day = date != null ? LocalDate.parse(date) : LocalDate.now();
+        DaySimulation simulation = new DaySimulation(userIds, Long.getLong("bpark.sim.seed", 42));
+        simulation.run(day);
+        System.exit(0);
+    }
+
+    private static List<Integer> loadSubscriberIds() {
+        List<Integer> ids = new ArrayList<>();
+        Connection conn = DBController.getInstance().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT User_ID FROM users WHERE UserTypeEnum = 'sub'");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt("User_ID"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading subscribers: " + e.getMessage());
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+        return ids;
+    }
+
+    /**
+     * Simulates one day from midnight to midnight and prints the results.
+     * @param day The simulated date
+     */
+    public void run(LocalDate day) {
+        LocalDateTime midnight = day.atStartOfDay();
+        SimulatedClock clock = new SimulatedClock(midnight, ZoneId.systemDefault());
+        ClockService.getInstance().setClock(clock);
+
+        long wallStart = System.nanoTime();
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            clock.set(midnight.plusMinutes(minute));
+            runDueActions(minute);
+            int arrivals = poisson(peakArrivalsPerHour * HOURLY_PROFILE[minute / 60] / 60.0);
+            for (int i = 0; i < arrivals; i++) {
+                if (random.nextDouble() < reservationShare) {
+                    reserve(day, minute);
+                } else {
+                    enter(minute);
+                }
+            }
+            sweep();
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        ClockService.getInstance().setClock(Clock.systemDefaultZone());
+
+        report(day, wallNanos);
+    }
+
+    private void runDueActions(int minute) {
+        while (!due.isEmpty() && due.peek().minute <= minute) {
+            ScheduledAction action = due.poll();
+            if (action.exit) {
+                String result = timed("exit", () -> reservations.exitParking(action.code));
+                if ("INVALID_CODE".equals(result)) {
+                    stats.get("exit").failures++;
+                }
+            } else {
+                String result = timed("cancel", () -> reservations.cancelReservation(action.code, "no-show"));
+                if (!result.startsWith("Reservation cancelled")) {
+                    stats.get("cancel").failures++;
+                }
+            }
+        }
+    }
+
+    private void enter(int minute) {
+        String result = timed("enter", () -> reservations.enterParking(randomUser()));
+        if (!result.startsWith("ENTRY_SUCCESS:")) {
+            stats.get("enter").failures++;
+            return;
+        }
+        int code = Integer.parseInt(result.substring("ENTRY_SUCCESS:".length()));
+        int stay = random.nextDouble() < overstayRate
+                ? overstay(SPONTANEOUS_ALLOWANCE_MINUTES)
+                : 20 + random.nextInt(SPONTANEOUS_ALLOWANCE_MINUTES - 20);
+        scheduleExit(minute + stay, code);
+    }
+
+    private void reserve(LocalDate day, int minute) {
+        int start = minute + 30 + random.nextInt(150);
+        int length = 60 + random.nextInt(180);
+        if (start + length >= MINUTES_PER_DAY) {
+            enter(minute);
+            return;
+        }
+        LocalTime startTime = LocalTime.MIDNIGHT.plusMinutes(start);
+        LocalTime endTime = startTime.plusMinutes(length);
+        Integer code = timed("reserve", () -> reservations.createReservation(randomUser(), day, startTime, endTime));
+        if (code < 0) {
+            stats.get("reserve").failures++;
+            return;
+        }
+        if (random.nextDouble() < noShowRate) {
+            noShows++;
+            due.add(new ScheduledAction(start + NO_SHOW_GRACE_MINUTES, false, code));
+        } else {
+            int stay = random.nextDouble() < overstayRate ? overstay(length) : random.nextInt(length);
+            scheduleExit(start + stay, code);
+        }
+    }
+
+    /**
+     * Returns a stay past the allowance by 20 to 110 minutes, enough for the
+     * sweep's 15-minute late threshold to catch it.
+     */
+    private int overstay(int allowance) {
+        overstays++;
+        return allowance + 20 + random.nextInt(90);
+    }
+
+    /** Sessions still parked at midnight are left as they are */
+    private void scheduleExit(int minute, int code) {
+        if (minute < MINUTES_PER_DAY) {
+            due.add(new ScheduledAction(minute, true, code));
+        }
+    }
+
+    private void sweep() {
+        long start = System.nanoTime();
+        SimpleAutoCancellationService.SweepResult result = sweeper.runSweep();
+        long elapsed = System.nanoTime() - start;
+        sweepCost.recordNanos(elapsed);
+        sweepTotalNanos += elapsed;
+        sweepCancelled += result.getCancelled();
+        sweepNotified += result.getNotified();
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            stats.get(operation).latency.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    private int randomUser() {
+        return userIds.get(random.nextInt(userIds.size()));
+    }
+
+    /** Knuth's method, fine for the small per-minute means used here */
+    private int poisson(double mean) {
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    private void report(LocalDate day, long wallNanos) {
+        double wallSeconds = wallNanos / 1e9;
+        long totalOps = 0;
+        System.out.printf("Simulated %s in %.2f s wall clock (%.0fx real time)%n",
+                day, wallSeconds, Duration.ofDays(1).toSeconds() / wallSeconds);
+        System.out.printf("%-8s %8s %8s %9s %9s %9s%n", "op", "count", "failed", "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, OperationStats> entry : stats.entrySet()) {
+            OperationStats op = entry.getValue();
+            LatencySummary summary = op.latency.summarize(entry.getKey());
+            totalOps += summary.getCount();
+            System.out.printf("%-8s %8d %8d %9.2f %9.2f %9.2f%n", entry.getKey(), summary.getCount(), op.failures,
+                    summary.getP50Micros() / 1000.0, summary.getP99Micros() / 1000.0, summary.getMaxMicros() / 1000.0);
+        }
+        System.out.printf("Throughput: %.1f ops/s (%d operations)%n", totalOps / wallSeconds, totalOps);
+        System.out.printf("Scheduled no-shows: %d, overstays: %d, spots occupied at midnight: %d%n",
+                noShows, overstays, ParkingSpotService.getInstance().getTotalSpots() - ParkingSpotService.getInstance().getAvailableSpots());
+
+        LatencySummary sweeps = sweepCost.summarize("sweep");
+        System.out.printf("Sweeps: %d, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %.1f%% of wall time%n",
+                sweeps.getCount(), sweeps.getP50Micros() / 1000.0, sweeps.getP99Micros() / 1000.0,
+                sweeps.getMaxMicros() / 1000.0, 100.0 * sweepTotalNanos / wallNanos);
+        System.out.printf("Sweep results: %d reservations auto-cancelled, %d late pickups notified%n",
+                sweepCancelled, sweepNotified);
+    }
+}
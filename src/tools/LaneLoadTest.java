@@ -0,0 +1,235 @@
+package tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import server.DBController;
+import server.Lane;
+import server.LaneDispatcher;
+
+/**
+ * LaneLoadTest shows that gate and interactive latency do not depend on
+ * report and background traffic. It drives the server's {@link LaneDispatcher}
+ * with open-loop streams of short gate and interactive requests, first alone
+ * and then while a producer floods the reporting lane far past its capacity
+ * and background threads (standing in for report queries, streams, exports
+ * and timers) hold connections continuously, and prints p50/p99 per lane for
+ * both phases.
+ *
+ * Every request borrows a real connection from {@link DBController} and
+ * spends its DB time in {@code SELECT SLEEP(...)}, so the connection budgets
+ * are tested along with the lanes. A request that cannot get a connection
+ * counts as failed. No client is needed.
+ *
+ * Settings: bpark.loadtest.db, bpark.loadtest.dbPassword (default to
+ * bpark.bench.db and bpark.bench.dbPassword), bpark.loadtest.backgroundThreads [8]
+ *
+ * Usage: java -Dbpark.loadtest.db=bpark_test tools.LaneLoadTest [phaseSeconds] [gateRequestsPerSecond]
+ */
+public class LaneLoadTest {
+
+    private static final long GATE_CPU_MICROS = 500;
+    private static final long GATE_DB_MILLIS = 2;
+    private static final long INTERACTIVE_CPU_MICROS = 1_000;
+    private static final long INTERACTIVE_DB_MILLIS = 10;
+    private static final long REPORT_CPU_MICROS = 5_000;
+    private static final long REPORT_DB_MILLIS = 100;
+    private static final long BACKGROUND_DB_MILLIS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int phaseSeconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int gateRate = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int interactiveRate = Math.max(1, gateRate / 4);
+
+        String db = System.getProperty("bpark.loadtest.db", System.getProperty("bpark.bench.db"));
+        if (db == null) {
+            System.err.println("Set bpark.loadtest.db and bpark.loadtest.dbPassword to a test database");
+            System.exit(1);
+        }
+        DBController.initializeConnection(db,
+                System.getProperty("bpark.loadtest.dbPassword", System.getProperty("bpark.bench.dbPassword", "")));
+        if (DBController.getInstance().getSuccessFlag() != 1) {
+            System.err.println("Database " + db + " unavailable");
+            System.exit(1);
+        }
+
+        LaneDispatcher dispatcher = new LaneDispatcher();
+
+        List<List<Long>> baseline = runPhase(dispatcher, phaseSeconds, gateRate, interactiveRate);
+
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        AtomicLong reportsSubmitted = new AtomicLong();
+        Thread flood = new Thread(() -> {
+            while (flooding.get()) {
+                if (dispatcher.submit(Lane.REPORTING, () -> work(REPORT_CPU_MICROS, REPORT_DB_MILLIS))) {
+                    reportsSubmitted.incrementAndGet();
+                } else {
+                    LockSupport.parkNanos(200_000);
+                }
+            }
+        }, "report-flood");
+        flood.setDaemon(true);
+        flood.start();
+
+        // Threads outside the request lanes draw on the bulk connection budget
+        AtomicLong backgroundTimeouts = new AtomicLong();
+        int backgroundThreads = Integer.getInteger("bpark.loadtest.backgroundThreads", 8);
+        List<Thread> background = new ArrayList<>();
+        for (int i = 0; i < backgroundThreads; i++) {
+            Thread t = new Thread(() -> {
+                while (flooding.get()) {
+                    if (!work(0, BACKGROUND_DB_MILLIS)) {
+                        backgroundTimeouts.incrementAndGet();
+                    }
+                }
+            }, "background-" + i);
+            t.setDaemon(true);
+            t.start();
+            background.add(t);
+        }
+
+        List<List<Long>> saturated = runPhase(dispatcher, phaseSeconds, gateRate, interactiveRate);
+        flooding.set(false);
+        flood.join();
+        for (Thread t : background) {
+            t.join();
+        }
+
+        System.out.println("phase,lane,requests,failed,p50_ms,p99_ms,max_ms");
+        printPhase("baseline", "gate", baseline.get(0));
+        printPhase("baseline", "interactive", baseline.get(1));
+        printPhase("saturated", "gate", saturated.get(0));
+        printPhase("saturated", "interactive", saturated.get(1));
+        System.out.println("reporting_accepted=" + reportsSubmitted.get()
+                + " reporting_rejected=" + dispatcher.getRejected(Lane.REPORTING)
+                + " background_connection_timeouts=" + backgroundTimeouts.get());
+        System.out.print(dispatcher.summary());
+
+        boolean flat = true;
+        for (int lane = 0; lane < 2; lane++) {
+            double baselineP99 = percentile(baseline.get(lane), 0.99) / 1e6;
+            double saturatedP99 = percentile(saturated.get(lane), 0.99) / 1e6;
+            flat &= failed(saturated.get(lane)) == 0 && saturatedP99 <= Math.max(baselineP99 * 2, baselineP99 + 5);
+        }
+        System.out.println(flat ? "PASS: gate and interactive p99 stayed flat"
+                : "FAIL: request lanes degraded under report and background load");
+        dispatcher.shutdown();
+        System.exit(flat ? 0 : 1);
+    }
+
+    /**
+     * Runs gate and interactive request streams side by side and returns
+     * their latencies, gate first.
+     */
+    private static List<List<Long>> runPhase(LaneDispatcher dispatcher, int seconds, int gateRate,
+                                             int interactiveRate) throws InterruptedException {
+        List<List<Long>> result = Collections.synchronizedList(new ArrayList<>(List.of(List.of(), List.of())));
+        Thread interactive = new Thread(() -> {
+            try {
+                result.set(1, runLanePhase(dispatcher, Lane.INTERACTIVE, seconds, interactiveRate,
+                        INTERACTIVE_CPU_MICROS, INTERACTIVE_DB_MILLIS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "interactive-generator");
+        interactive.start();
+        result.set(0, runLanePhase(dispatcher, Lane.GATE, seconds, gateRate, GATE_CPU_MICROS, GATE_DB_MILLIS));
+        interactive.join();
+        return result;
+    }
+
+    /**
+     * Submits requests to a lane at a fixed rate and returns their latencies in
+     * nanoseconds, measured from the scheduled send time to completion.
+     * Rejected requests and requests that got no connection are Long.MAX_VALUE.
+     */
+    private static List<Long> runLanePhase(LaneDispatcher dispatcher, Lane lane, int seconds, int rate,
+                                           long cpuMicros, long dbMillis) throws InterruptedException {
+        int total = seconds * rate;
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(total));
+        CountDownLatch done = new CountDownLatch(total);
+        ScheduledExecutorService generator = Executors.newSingleThreadScheduledExecutor();
+        long periodNanos = 1_000_000_000L / rate;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < total; i++) {
+            long intended = start + i * periodNanos;
+            generator.schedule(() -> {
+                boolean accepted = dispatcher.submit(lane, () -> {
+                    boolean ok = work(cpuMicros, dbMillis);
+                    latencies.add(ok ? System.nanoTime() - intended : Long.MAX_VALUE);
+                    done.countDown();
+                });
+                if (!accepted) {
+                    latencies.add(Long.MAX_VALUE);
+                    done.countDown();
+                }
+            }, intended - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        done.await(seconds + 30L, TimeUnit.SECONDS);
+        generator.shutdown();
+        return new ArrayList<>(latencies);
+    }
+
+    /**
+     * Spins the CPU, then holds a pooled connection while the database sleeps.
+     * @return false if no connection was available or the query failed
+     */
+    private static boolean work(long cpuMicros, long dbMillis) {
+        long end = System.nanoTime() + cpuMicros * 1000;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+        Connection conn;
+        try {
+            conn = DBController.getInstance().getConnection();
+        } catch (RuntimeException e) {
+            return false;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT SLEEP(?)")) {
+            stmt.setDouble(1, dbMillis / 1000.0);
+            stmt.executeQuery().close();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error running load test query: " + e.getMessage());
+            return false;
+        } finally {
+            DBController.getInstance().releaseConnection(conn);
+        }
+    }
+
+    private static void printPhase(String phase, String lane, List<Long> latencies) {
+        List<Long> served = new ArrayList<>(latencies);
+        served.removeIf(latency -> latency == Long.MAX_VALUE);
+        System.out.printf(Locale.ROOT, "%s,%s,%d,%d,%.2f,%.2f,%.2f%n", phase, lane, latencies.size(),
+                failed(latencies), percentile(served, 0.50) / 1e6, percentile(served, 0.99) / 1e6,
+                percentile(served, 1.0) / 1e6);
+    }
+
+    private static long failed(List<Long> latencies) {
+        return latencies.stream().filter(latency -> latency == Long.MAX_VALUE).count();
+    }
+
+    private static double percentile(List<Long> values, double p) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,413 @@
+package tools;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import common.MessageCodec;
+import entities.ExtensionRequest;
+import entities.Message;
+import entities.Message.MessageType;
+import entities.ParkingHistoryPageRequest;
+import entities.ParkingSubscriber;
+import entities.ReservationCodeRequest;
+import entities.ReservationRequest;
+import ocsf.client.AbstractClient;
+import server.LatencyHistogram;
+
+/**
+ * LoadGenerator drives a running ParkingServer with a headless fleet of
+ * kiosk, portal and manager clients speaking the normal wire protocol.
+ *
+ * Requests arrive open-loop: arrival times follow a Poisson process at the
+ * configured rate regardless of how fast the server answers, and latency is
+ * measured from each request's scheduled arrival, so a slow server shows up
+ * as higher latency rather than as a lower offered load. Each connection has
+ * one request in flight; arrivals that find every connection busy wait in a
+ * client-side queue and that wait is counted.
+ *
+ * The subscriber pool is read from the server with GET_ALL_SUBSCRIBERS.
+ * Codes returned by enter and reserve are reused by retrieve, extend and cancel.
+ *
+ * Settings (system properties):
+ * <pre>
+ *   bpark.load.host         server host (localhost)
+ *   bpark.load.port         server port (5555)
+ *   bpark.load.rate         total arrivals per second (50)
+ *   bpark.load.seconds      measured duration (60)
+ *   bpark.load.warmup       unmeasured warm-up seconds (5)
+ *   bpark.load.connections  client connections (32)
+ *   bpark.load.mix          operation weights, e.g. "rfLogin=30,enter=15,retrieve=15,reserve=10,cancel=5,extend=5,history=15,reports=5"
+ *   bpark.load.csv          file to also write the CSV results to
+ * </pre>
+ *
+ * Usage: java -Dbpark.load.rate=100 tools.LoadGenerator
+ */
+public class LoadGenerator {
+
+    private static final long RESPONSE_TIMEOUT_MILLIS = 30_000;
+    private static final String DEFAULT_MIX =
+            "rfLogin=30,enter=15,retrieve=15,reserve=10,cancel=5,extend=5,history=15,reports=5";
+
+    /** A scenario step and the response types that complete it */
+    enum Operation {
+        RF_LOGIN("rfLogin", MessageType.KIOSK_LOGIN_RESPONSE),
+        ENTER("enter", MessageType.ENTER_PARKING_KIOSK_RESPONSE),
+        RETRIEVE("retrieve", MessageType.RETRIEVE_CAR_KIOSK_RESPONSE),
+        RESERVE("reserve", MessageType.RESERVATION_RESPONSE),
+        CANCEL("cancel", MessageType.CANCELLATION_RESPONSE),
+        EXTEND("extend", MessageType.EXTENSION_RESPONSE),
+        HISTORY("history", MessageType.PARKING_HISTORY_PAGE_RESPONSE),
+        REPORTS("reports", MessageType.MANAGER_SEND_REPORTS);
+
+        final String key;
+        final MessageType response;
+
+        Operation(String key, MessageType response) {
+            this.key = key;
+            this.response = response;
+        }
+
+        static Operation byKey(String key) {
+            for (Operation op : values()) {
+                if (op.key.equalsIgnoreCase(key)) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation in mix: " + key);
+        }
+    }
+
+    /** Results of one operation */
+    static class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder busy = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+    }
+
+    /** An arrival waiting for a free connection */
+    static class Arrival {
+        final Operation op;
+        final long intendedNanos;
+        final boolean measured;
+
+        Arrival(Operation op, long intendedNanos, boolean measured) {
+            this.op = op;
+            this.intendedNanos = intendedNanos;
+            this.measured = measured;
+        }
+    }
+
+    /** Headless connection with at most one request in flight */
+    static class LoadClient extends AbstractClient {
+        private volatile CompletableFuture<Message> pending;
+        private volatile Set<MessageType> expected = EnumSet.noneOf(MessageType.class);
+
+        LoadClient(String host, int port) {
+            super(host, port);
+        }
+
+        /**
+         * Sends a request and waits for its response.
+         * @return the response, a SERVER_BUSY message, or null if it timed out
+         */
+        Message call(Message request, MessageType responseType) throws IOException, InterruptedException {
+            CompletableFuture<Message> future = new CompletableFuture<>();
+            expected = EnumSet.of(responseType, MessageType.SERVER_BUSY);
+            pending = future;
+            sendToServer(MessageCodec.serialize(request));
+            try {
+                return future.get(RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (java.util.concurrent.ExecutionException e) {
+                throw new IOException(e.getCause());
+            } finally {
+                pending = null;
+            }
+        }
+
+        @Override
+        protected void handleMessageFromServer(Object msg) {
+            Object decoded = msg instanceof byte[] ? MessageCodec.deserialize((byte[]) msg) : msg;
+            CompletableFuture<Message> future = pending;
+            if (decoded instanceof Message && future != null && expected.contains(((Message) decoded).getType())) {
+                future.complete((Message) decoded);
+            }
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final BlockingQueue<Arrival> arrivals = new LinkedBlockingQueue<>();
+    private final List<ParkingSubscriber> subscribers = new ArrayList<>();
+    /** Parking codes of cars currently parked by the generator */
+    private final ConcurrentLinkedQueue<Integer> parkedCodes = new ConcurrentLinkedQueue<>();
+    /** Reservations made by the generator, as userName/code */
+    private final ConcurrentLinkedQueue<ReservationCodeRequest> reservations = new ConcurrentLinkedQueue<>();
+
+    LoadGenerator(String host, int port, String mixSpec) {
+        this.host = host;
+        this.port = port;
+        this.mix = parseMix(mixSpec);
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        for (Operation op : Operation.values()) {
+            stats.put(op, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = System.getProperty("bpark.load.host", "localhost");
+        int port = Integer.getInteger("bpark.load.port", 5555);
+        double rate = Double.parseDouble(System.getProperty("bpark.load.rate", "50"));
+        int seconds = Integer.getInteger("bpark.load.seconds", 60);
+        int warmup = Integer.getInteger("bpark.load.warmup", 5);
+        int connections = Integer.getInteger("bpark.load.connections", 32);
+        String csvFile = System.getProperty("bpark.load.csv");
+
+        LoadGenerator generator = new LoadGenerator(host, port, System.getProperty("bpark.load.mix", DEFAULT_MIX));
+        generator.run(rate, warmup, seconds, connections);
+
+        generator.printReport(System.out, rate, seconds);
+        if (csvFile != null) {
+            try (PrintStream csv = new PrintStream(csvFile, "UTF-8")) {
+                generator.printCsv(csv, seconds);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.byKey(kv[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Empty operation mix");
+        }
+        return weights;
+    }
+
+    /**
+     * Connects the clients, generates arrivals for the warm-up and measured
+     * phases, and waits for the in-flight requests to finish.
+     */
+    void run(double rate, int warmupSeconds, int seconds, int connectionCount) throws Exception {
+        List<LoadClient> clients = new ArrayList<>();
+        for (int i = 0; i < connectionCount; i++) {
+            LoadClient client = new LoadClient(host, port);
+            client.openConnection();
+            clients.add(client);
+        }
+        loadSubscribers(clients.get(0));
+
+        List<Thread> workers = new ArrayList<>();
+        for (LoadClient client : clients) {
+            Thread worker = new Thread(() -> work(client), "load-client");
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        long next = start;
+        while (next < end) {
+            next += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) / rate * 1e9);
+            long delay = next - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            arrivals.add(new Arrival(pickOperation(), next, next >= measureFrom));
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RESPONSE_TIMEOUT_MILLIS);
+        while (!arrivals.isEmpty() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (LoadClient client : clients) {
+            try {
+                client.closeConnection();
+            } catch (IOException e) {
+                // already closed by the server
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadSubscribers(LoadClient client) throws Exception {
+        Message reply = client.call(new Message(MessageType.GET_ALL_SUBSCRIBERS, null), MessageType.SHOW_ALL_SUBSCRIBERS);
+        if (reply == null || reply.getType() != MessageType.SHOW_ALL_SUBSCRIBERS || reply.getContent() == null) {
+            throw new IllegalStateException("Could not load subscribers from the server");
+        }
+        subscribers.addAll((List<ParkingSubscriber>) reply.getContent());
+        if (subscribers.isEmpty()) {
+            throw new IllegalStateException("The server has no subscribers to simulate");
+        }
+    }
+
+    private Operation pickOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> e : mix.entrySet()) {
+            pick -= e.getValue();
+            if (pick < 0) {
+                return e.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void work(LoadClient client) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Arrival arrival = arrivals.take();
+                OperationStats opStats = stats.get(arrival.op);
+                Message request = buildRequest(arrival.op);
+                if (request == null) {
+                    opStats.skipped.increment();
+                    continue;
+                }
+                Message reply = client.call(request, arrival.op.response);
+                long latency = System.nanoTime() - arrival.intendedNanos;
+                if (reply != null && reply.getType() != MessageType.SERVER_BUSY) {
+                    onReply(arrival.op, request, reply);
+                }
+                if (!arrival.measured) {
+                    continue;
+                }
+                if (reply == null) {
+                    opStats.timeouts.increment();
+                } else if (reply.getType() == MessageType.SERVER_BUSY) {
+                    opStats.busy.increment();
+                } else {
+                    opStats.latency.recordNanos(latency);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Load client failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the request of an operation for a random subscriber.
+     * @return the request, or null if the operation has nothing to act on yet
+     */
+    private Message buildRequest(Operation op) {
+        ParkingSubscriber user = subscribers.get(ThreadLocalRandom.current().nextInt(subscribers.size()));
+        switch (op) {
+            case RF_LOGIN:
+                return new Message(MessageType.KIOSK_RF_LOGIN, user.getSubscriberID());
+            case ENTER:
+                return new Message(MessageType.ENTER_PARKING_KIOSK, user.getSubscriberID());
+            case RETRIEVE: {
+                Integer code = parkedCodes.poll();
+                return code == null ? null : new Message(MessageType.RETRIEVE_CAR_KIOSK, code);
+            }
+            case RESERVE: {
+                LocalDate date = LocalDate.now().plusDays(1 + ThreadLocalRandom.current().nextInt(7));
+                LocalTime time = LocalTime.of(8 + ThreadLocalRandom.current().nextInt(10), 15 * ThreadLocalRandom.current().nextInt(4));
+                return new Message(MessageType.RESERVE_PARKING, new ReservationRequest(user.getSubscriberCode(), date, time));
+            }
+            case CANCEL: {
+                ReservationCodeRequest reservation = reservations.poll();
+                return reservation == null ? null : new Message(MessageType.CANCEL_RESERVATION, reservation);
+            }
+            case EXTEND: {
+                Integer code = parkedCodes.peek();
+                return code == null ? null : new Message(MessageType.REQUEST_EXTENSION, new ExtensionRequest(code, 1));
+            }
+            case HISTORY:
+                return new Message(MessageType.GET_PARKING_HISTORY_PAGE, new ParkingHistoryPageRequest(user.getSubscriberCode(), 20));
+            case REPORTS:
+                return new Message(MessageType.MANAGER_GET_REPORTS, "ALL");
+            default:
+                throw new IllegalArgumentException(op.name());
+        }
+    }
+
+    /**
+     * Remembers codes handed out by the server so later steps can use them.
+     */
+    private void onReply(Operation op, Message request, Message reply) {
+        Serializable content = reply.getContent();
+        if (!(content instanceof String)) {
+            return;
+        }
+        String text = (String) content;
+        if (op == Operation.ENTER && text.startsWith("ENTRY_SUCCESS:")) {
+            parkedCodes.add(Integer.parseInt(text.substring("ENTRY_SUCCESS:".length()).trim()));
+        } else if (op == Operation.RESERVE && text.contains("Code: ")) {
+            String userName = ((ReservationRequest) request.getContent()).getUserName();
+            int code = Integer.parseInt(text.substring(text.indexOf("Code: ") + 6).trim());
+            reservations.add(new ReservationCodeRequest(userName, code));
+        }
+    }
+
+    void printReport(PrintStream out, double rate, int seconds) {
+        out.printf("Offered load: %.1f req/s for %ds%n", rate, seconds);
+        out.printf("%-10s %8s %9s %9s %9s %9s %9s %9s %6s %6s %6s%n", "operation", "count", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "busy", "tmout", "skip");
+        for (Map.Entry<Operation, OperationStats> e : stats.entrySet()) {
+            if (!mix.containsKey(e.getKey())) {
+                continue;
+            }
+            OperationStats s = e.getValue();
+            LatencyHistogram h = s.latency;
+            out.printf("%-10s %8d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %6d %6d %6d%n", e.getKey().key, h.getCount(),
+                    h.getCount() / (double) seconds, h.getValueAtPercentile(50) / 1000.0,
+                    h.getValueAtPercentile(90) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                    h.getValueAtPercentile(99.9) / 1000.0, h.getValueAtPercentile(100) / 1000.0,
+                    s.busy.sum(), s.timeouts.sum(), s.skipped.sum());
+        }
+        out.println();
+        printCsv(out, seconds);
+    }
+
+    void printCsv(PrintStream out, int seconds) {
+        out.println("operation,count,throughput_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,busy,timeouts,skipped");
+        for (Map.Entry<Operation, OperationStats> e : stats.entrySet()) {
+            if (!mix.containsKey(e.getKey())) {
+                continue;
+            }
+            OperationStats s = e.getValue();
+            LatencyHistogram h = s.latency;
+            out.printf(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%d%n", e.getKey().key, h.getCount(),
+                    h.getCount() / (double) seconds, h.getValueAtPercentile(50) / 1000.0,
+                    h.getValueAtPercentile(90) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                    h.getValueAtPercentile(99.9) / 1000.0, h.getValueAtPercentile(100) / 1000.0,
+                    s.busy.sum(), s.timeouts.sum(), s.skipped.sum());
+        }
+    }
+}
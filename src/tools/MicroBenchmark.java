@@ -0,0 +1,172 @@
+package tools;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * MicroBenchmark is a small benchmark harness in the style of JMH's
+ * average-time mode. Each benchmark is warmed up, then run for a number of
+ * fixed-length rounds; calls are made in batches sized during warm-up so the
+ * clock is read once per batch, and every result is written to a volatile
+ * sink so the JIT cannot remove the work.
+ *
+ * Results are printed as a table and written as JSON (one object per
+ * benchmark with its score in ns/op, a 99% confidence interval and the
+ * per-round scores) so runs can be compared by scripts.
+ *
+ * Settings (system properties):
+ * <pre>
+ *   bpark.bench.warmupRounds  warm-up rounds (5)
+ *   bpark.bench.rounds        measured rounds (10)
+ *   bpark.bench.roundMillis   length of one round (500)
+ *   bpark.bench.filter        only run benchmarks whose name contains this text
+ * </pre>
+ */
+public class MicroBenchmark {
+
+    /** One benchmarked operation */
+    @FunctionalInterface
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    /** Result of one benchmark */
+    public static class Result {
+        final String name;
+        final double nanosPerOp;
+        final double error;
+        final double[] rounds;
+
+        Result(String name, double nanosPerOp, double error, double[] rounds) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.error = error;
+            this.rounds = rounds;
+        }
+    }
+
+    /** Keeps benchmark results alive */
+    private static volatile Object sink;
+
+    /** z-score of a two-sided 99% interval */
+    private static final double Z_99 = 2.576;
+
+    private final int warmupRounds = Integer.getInteger("bpark.bench.warmupRounds", 5);
+    private final int rounds = Integer.getInteger("bpark.bench.rounds", 10);
+    private final long roundNanos = Long.getLong("bpark.bench.roundMillis", 500) * 1_000_000;
+    private final String filter = System.getProperty("bpark.bench.filter", "");
+    private final List<Result> results = new ArrayList<>();
+
+    /**
+     * Runs one benchmark unless it is filtered out.
+     * @param name Benchmark name, e.g. "message.serialize"
+     * @param operation The operation measured
+     */
+    public void run(String name, Operation operation) {
+        if (!name.contains(filter)) {
+            return;
+        }
+        try {
+            int batch = calibrate(operation);
+            for (int i = 0; i < warmupRounds; i++) {
+                round(operation, batch);
+            }
+            double[] scores = new double[rounds];
+            for (int i = 0; i < rounds; i++) {
+                scores[i] = round(operation, batch);
+            }
+            Result result = summarize(name, scores);
+            results.add(result);
+            System.out.printf(Locale.ROOT, "%-32s %12.1f +- %8.1f ns/op%n", name, result.nanosPerOp, result.error);
+        } catch (Exception e) {
+            System.err.println("Benchmark " + name + " failed: " + e);
+        }
+    }
+
+    /**
+     * Finds a batch size that takes about a millisecond.
+     */
+    private static int calibrate(Operation operation) throws Exception {
+        int batch = 1;
+        while (batch < (1 << 24)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                sink = operation.run();
+            }
+            if (System.nanoTime() - start >= 1_000_000) {
+                break;
+            }
+            batch <<= 1;
+        }
+        return batch;
+    }
+
+    /**
+     * Runs batches for one round.
+     * @return average nanoseconds per operation in the round
+     */
+    private double round(Operation operation, int batch) throws Exception {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < batch; i++) {
+                sink = operation.run();
+            }
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < roundNanos);
+        return (double) elapsed / ops;
+    }
+
+    private static Result summarize(String name, double[] scores) {
+        double mean = 0;
+        for (double s : scores) {
+            mean += s;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double s : scores) {
+            variance += (s - mean) * (s - mean);
+        }
+        double stdDev = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+        return new Result(name, mean, Z_99 * stdDev / Math.sqrt(scores.length), scores);
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Writes the results as a JSON array.
+     * @param out Destination
+     */
+    public void writeJson(PrintStream out) {
+        out.println("[");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            StringBuilder roundsJson = new StringBuilder();
+            for (int j = 0; j < r.rounds.length; j++) {
+                roundsJson.append(j > 0 ? ", " : "").append(String.format(Locale.ROOT, "%.3f", r.rounds[j]));
+            }
+            out.printf(Locale.ROOT, "  {\"benchmark\": \"%s\", \"mode\": \"avgt\", \"unit\": \"ns/op\", "
+                    + "\"score\": %.3f, \"scoreError\": %.3f, \"confidence\": 0.99, \"rounds\": [%s]}%s%n",
+                    r.name, r.nanosPerOp, r.error, roundsJson, i < results.size() - 1 ? "," : "");
+        }
+        out.println("]");
+    }
+
+    /**
+     * Writes the results as JSON to a file.
+     * @param file File path
+     * @throws IOException if the file cannot be written
+     */
+    public void writeJson(String file) throws IOException {
+        try (PrintStream out = new PrintStream(file, "UTF-8")) {
+            writeJson(out);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package tools;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import common.MessageCodec;
+import entities.Message;
+import entities.Message.MessageType;
+import entities.ParkingHistoryPageRequest;
+import entities.ParkingOrder;
+import entities.ParkingSubscriber;
+import entities.ReservationRequest;
+import server.DBController;
+import server.HandlerRegistry;
+import server.Lane;
+import server.LaneDispatcher;
+import services.EmailService;
+import services.ParkingSpotService;
+import services.ReservationService;
+import services.UserService;
+import services.ValidationService;
+
+/**
+ * ServerBenchmarks measures the server's hot paths with {@link MicroBenchmark}.
+ *
+ * In-memory benchmarks always run: message encoding, handler dispatch,
+ * validation and email rendering. Database benchmarks (spot allocation,
+ * parking-code lookup, reservation queries) run only when a database is
+ * configured with {@code bpark.bench.db} and {@code bpark.bench.dbPassword};
+ * the spot benchmark allocates and immediately releases a spot, so use a
+ * test database.
+ *
+ * Usage: java [-Dbpark.bench.db=bpark -Dbpark.bench.dbPassword=...] tools.ServerBenchmarks [results.json]
+ */
+public class ServerBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        String output = args.length > 0 ? args[0] : "bench-results.json";
+        MicroBenchmark bench = new MicroBenchmark();
+
+        messageBenchmarks(bench);
+        dispatchBenchmarks(bench);
+        serviceBenchmarks(bench);
+
+        String db = System.getProperty("bpark.bench.db");
+        if (db != null) {
+            DBController.initializeConnection(db, System.getProperty("bpark.bench.dbPassword", ""));
+            if (DBController.getInstance().getSuccessFlag() == 1) {
+                databaseBenchmarks(bench);
+            } else {
+                System.err.println("Database " + db + " unavailable, skipping database benchmarks");
+            }
+        } else {
+            System.out.println("bpark.bench.db not set, skipping database benchmarks");
+        }
+
+        bench.writeJson(output);
+        System.out.println("Results written to " + output);
+        System.exit(0);
+    }
+
+    private static void messageBenchmarks(MicroBenchmark bench) {
+        Message reservation = new Message(MessageType.RESERVE_PARKING,
+                new ReservationRequest("subscriber01", LocalDate.of(2025, 7, 1), LocalTime.of(9, 30)));
+        byte[] reservationFrame = MessageCodec.serialize(reservation);
+
+        ArrayList<ParkingOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ParkingOrder order = new ParkingOrder();
+            order.setOrderID(i);
+            order.setParkingCode(String.valueOf(100000 + i));
+            order.setSubscriberName("subscriber" + (i % 40));
+            order.setStatus("finished");
+            orders.add(order);
+        }
+        Message history = new Message(MessageType.PARKING_HISTORY_RESPONSE, orders);
+        byte[] historyFrame = MessageCodec.serialize(history);
+        byte[] historyCompressed = MessageCodec.compress(historyFrame);
+
+        bench.run("message.serialize.request", () -> MessageCodec.serialize(reservation));
+        bench.run("message.deserialize.request", () -> MessageCodec.deserialize(reservationFrame));
+        bench.run("message.serialize.history200", () -> MessageCodec.serialize(history));
+        bench.run("message.deserialize.history200", () -> MessageCodec.deserialize(historyFrame));
+        bench.run("message.compress.history200", () -> MessageCodec.compress(historyFrame));
+        bench.run("message.inflate.history200", () -> MessageCodec.deserialize(historyCompressed, true));
+    }
+
+    private static void dispatchBenchmarks(MicroBenchmark bench) {
+        HandlerRegistry registry = new HandlerRegistry();
+        MessageType[] types = MessageType.values();
+        for (MessageType type : types) {
+            registry.register(type, Lane.INTERACTIVE, 5_000, type.name(), false, (message, client) -> { });
+        }
+        Message[] messages = new Message[types.length];
+        for (int i = 0; i < types.length; i++) {
+            messages[i] = new Message(types[i], null);
+        }
+        int[] next = {0};
+        bench.run("dispatch.registry", () -> {
+            Message message = messages[Math.floorMod(next[0]++, messages.length)];
+            HandlerRegistry.Registration registration = registry.get(message.getType());
+            registration.getHandler().handle(message, null);
+            registration.recordExecution(1, false);
+            return registration;
+        });
+
+        LaneDispatcher dispatcher = new LaneDispatcher();
+        bench.run("dispatch.lane.gate", () -> {
+            CountDownLatch done = new CountDownLatch(1);
+            dispatcher.submit(Lane.GATE, done::countDown);
+            done.await();
+            return done;
+        });
+        dispatcher.shutdown();
+    }
+
+    private static void serviceBenchmarks(MicroBenchmark bench) {
+        ValidationService validation = ValidationService.getInstance();
+        bench.run("validation.registration", () ->
+                validation.validateUserRegistration("Dana Levi", "0521234567", "dana.levi@example.com", "danalevi"));
+        bench.run("validation.parkingCode", () -> validation.isValidParkingCode(" 482913 "));
+
+        bench.run("email.render.reservation", () -> EmailService.renderNotificationBody(
+                EmailService.NotificationType.RESERVATION_CONFIRMATION, "Dana Levi", "482913", "01/07/2025", "7"));
+        bench.run("email.render.registration", () -> EmailService.renderNotificationBody(
+                EmailService.NotificationType.REGISTRATION_CONFIRMATION, "Dana Levi", "danalevi", 1042));
+    }
+
+    private static void databaseBenchmarks(MicroBenchmark bench) {
+        ParkingSpotService spots = ParkingSpotService.getInstance();
+        ReservationService reservations = ReservationService.getInstance();
+
+        bench.run("db.spot.allocateRelease", () -> {
+            int spot = spots.allocateSpot();
+            if (spot > 0) {
+                spots.releaseSpot(spot);
+            }
+            return spot;
+        });
+        bench.run("db.spot.available", spots::getAvailableSpots);
+
+        List<ParkingOrder> active = reservations.getActiveParkings();
+        int code = active.isEmpty() ? 1 : Integer.parseInt(active.get(0).getParkingCode());
+        bench.run("db.parkingCode.lookup", () -> spots.getSpotIdByParkingCode(code));
+
+        bench.run("db.reservation.active", reservations::getActiveParkings);
+        List<ParkingSubscriber> subscribers = UserService.getInstance().getAllSubscribers();
+        if (!subscribers.isEmpty()) {
+            String userName = subscribers.get(0).getSubscriberCode();
+            bench.run("db.reservation.historyPage", () ->
+                    reservations.getParkingHistoryPage(new ParkingHistoryPageRequest(userName, 20)));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import common.MessageCodec;
+import entities.LatencySummary;
+import entities.Message;
+import entities.Message.MessageType;
+import entities.StreamChunk;
+import ocsf.client.AbstractClient;
+import server.LatencyHistogram;
+import server.TrafficRecorder;
+
+/**
+ * TrafficReplayer re-drives a capture written by {@link TrafficRecorder}
+ * against a test server. Every captured client gets its own connection and
+ * its requests are sent in their original order, so logins and the requests
+ * that depend on them replay correctly.
+ *
+ * Speed is a multiplier of the captured timing ("1" for real time, "10" for
+ * ten times faster) or "max" to send as fast as the connections allow. The
+ * report shows how far sends fell behind the schedule, the achieved request
+ * rate and the response latency. Latency pairs each response with the oldest
+ * unanswered request of its connection; snapshot polls, whose replies the
+ * server may coalesce, stream credits and later stream chunks are not timed.
+ * Requests on different lanes can complete out of order, so latency is
+ * approximate for connections that mix lanes.
+ *
+ * Frames encode message types by ordinal, so a capture is only replayed by
+ * the build that recorded it.
+ *
+ * Settings: bpark.replay.host [localhost], bpark.replay.port [5555],
+ * bpark.replay.speed [1], bpark.replay.drainSeconds [5]
+ *
+ * Usage: java -Dbpark.replay.speed=10 tools.TrafficReplayer capture.bin
+ */
+public class TrafficReplayer {
+
+    /** Polls whose replies the server may coalesce, see server.OutboundQueue */
+    private static final Set<MessageType> SNAPSHOT_REQUESTS = EnumSet.of(
+            MessageType.CHECK_PARKING_AVAILABILITY, MessageType.GET_SYSTEM_STATUS);
+    private static final Set<MessageType> SNAPSHOT_RESPONSES = EnumSet.of(
+            MessageType.PARKING_AVAILABILITY_RESPONSE, MessageType.SYSTEM_STATUS_RESPONSE);
+
+    /** A request waiting for its response */
+    private static class Pending {
+        final MessageType type;
+        final long sentNanos;
+
+        Pending(MessageType type, long sentNanos) {
+            this.type = type;
+            this.sentNanos = sentNanos;
+        }
+    }
+
+    /** Connection standing in for one captured client */
+    static class ReplayClient extends AbstractClient {
+        private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        private final LatencyHistogram latency;
+        private final LongAdder responses;
+        private final LongAdder expected;
+
+        ReplayClient(String host, int port, LatencyHistogram latency, LongAdder responses, LongAdder expected) {
+            super(host, port);
+            this.latency = latency;
+            this.responses = responses;
+            this.expected = expected;
+        }
+
+        /**
+         * Sends a captured request. Only requests that get exactly one reply
+         * are timed: text commands, stream credits and snapshot polls are not.
+         */
+        void send(Object message) throws IOException {
+            MessageType type = typeOf(message);
+            boolean timed = type != null && type != MessageType.STREAM_CREDIT && !SNAPSHOT_REQUESTS.contains(type);
+            if (timed) {
+                synchronized (pending) {
+                    pending.add(new Pending(type, System.nanoTime()));
+                }
+                expected.increment();
+            }
+            sendToServer(message);
+        }
+
+        /**
+         * Pairs a response with the oldest unanswered request. Snapshot
+         * replies and later chunks of a stream are not responses, and a busy
+         * rejection pairs with the request type it names.
+         */
+        @Override
+        protected void handleMessageFromServer(Object msg) {
+            Object decoded = msg instanceof byte[] ? MessageCodec.deserialize((byte[]) msg, true) : msg;
+            if (!(decoded instanceof Message)) {
+                return;
+            }
+            Message message = (Message) decoded;
+            MessageType type = message.getType();
+            if (type == null || SNAPSHOT_RESPONSES.contains(type)) {
+                return;
+            }
+            if (type == MessageType.STREAM_CHUNK && ((StreamChunk) message.getContent()).getSequence() > 0) {
+                return;
+            }
+            Pending answered = null;
+            synchronized (pending) {
+                if (type == MessageType.SERVER_BUSY) {
+                    for (Iterator<Pending> it = pending.iterator(); it.hasNext(); ) {
+                        Pending p = it.next();
+                        if (p.type == message.getContent()) {
+                            it.remove();
+                            answered = p;
+                            break;
+                        }
+                    }
+                } else {
+                    answered = pending.poll();
+                }
+            }
+            if (answered != null) {
+                responses.increment();
+                latency.recordNanos(System.nanoTime() - answered.sentNanos);
+            }
+        }
+
+        private static MessageType typeOf(Object message) {
+            Object decoded = message instanceof byte[] ? MessageCodec.deserialize((byte[]) message, true) : message;
+            return decoded instanceof Message ? ((Message) decoded).getType() : null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java [-Dbpark.replay.speed=1|10|max] tools.TrafficReplayer <capture file>");
+            System.exit(1);
+        }
+        String host = System.getProperty("bpark.replay.host", "localhost");
+        int port = Integer.getInteger("bpark.replay.port", 5555);
+        String speedSetting = System.getProperty("bpark.replay.speed", "1");
+        double speed = "max".equalsIgnoreCase(speedSetting) ? 0 : Double.parseDouble(speedSetting);
+
+        new TrafficReplayer(host, port, speed).replay(Paths.get(args[0]));
+        System.exit(0);
+    }
+
+    private final String host;
+    private final int port;
+    /** Time multiplier, 0 for maximum speed */
+    private final double speed;
+    private final Map<Long, ReplayClient> clients = new HashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram scheduleLag = new LatencyHistogram();
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder expected = new LongAdder();
+
+    TrafficReplayer(String host, int port, double speed) {
+        this.host = host;
+        this.port = port;
+        this.speed = speed;
+    }
+
+    /**
+     * Sends every request of a capture, then waits for outstanding responses.
+     * @param file Capture file
+     * @throws IOException if the capture cannot be read
+     */
+    public void replay(Path file) throws IOException {
+        try (TrafficRecorder.LogReader reader = TrafficRecorder.open(file)) {
+            if (!reader.matchesThisBuild()) {
+                throw new IOException(String.format(
+                        "Capture was recorded by build %s (message types %08x), this is build %s (message types %08x)",
+                        reader.getBuild(), reader.getProtocol(), TrafficRecorder.BUILD, TrafficRecorder.PROTOCOL));
+            }
+        }
+        connectAll(file);
+        long sent = 0;
+        long failed = 0;
+        long capturedMicros = 0;
+        long start = System.nanoTime();
+
+        try (TrafficRecorder.LogReader reader = TrafficRecorder.open(file)) {
+            TrafficRecorder.Record record;
+            while ((record = reader.next()) != null) {
+                capturedMicros = record.getTimeMicros();
+                if (speed > 0) {
+                    long due = start + (long) (record.getTimeMicros() * 1000 / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    scheduleLag.recordNanos(Math.max(0, System.nanoTime() - due));
+                }
+                try {
+                    client(record.getClientId()).send(record.toMessage());
+                    sent++;
+                } catch (IOException e) {
+                    failed++;
+                }
+            }
+        }
+        long sendNanos = System.nanoTime() - start;
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Integer.getInteger("bpark.replay.drainSeconds", 5));
+        while (latency.getCount() < expected.sum() && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(10_000_000);
+        }
+        for (ReplayClient client : clients.values()) {
+            try {
+                client.closeConnection();
+            } catch (IOException e) {
+                // Closing at the end of the run
+            }
+        }
+
+        report(sent, failed, capturedMicros, sendNanos);
+    }
+
+    /**
+     * Opens the connections of every captured client up front, so that
+     * connecting does not delay the schedule.
+     */
+    private void connectAll(Path file) throws IOException {
+        try (TrafficRecorder.LogReader reader = TrafficRecorder.open(file)) {
+            TrafficRecorder.Record record;
+            while ((record = reader.next()) != null) {
+                client(record.getClientId());
+            }
+        }
+    }
+
+    private ReplayClient client(long clientId) throws IOException {
+        ReplayClient client = clients.get(clientId);
+        if (client == null) {
+            client = new ReplayClient(host, port, latency, responses, expected);
+            client.openConnection();
+            clients.put(clientId, client);
+        }
+        return client;
+    }
+
+    private void report(long sent, long failed, long capturedMicros, long sendNanos) {
+        double sendSeconds = sendNanos / 1e9;
+        double capturedSeconds = capturedMicros / 1e6;
+        System.out.printf("Replayed %d requests from %d clients (%d failed to send)%n", sent, clients.size(), failed);
+        System.out.printf("Captured span %.1f s, replayed in %.1f s (%s), %.1f req/s%n", capturedSeconds, sendSeconds,
+                speed > 0 ? speed + "x" : "max speed", sent / Math.max(sendSeconds, 1e-9));
+        if (speed > 0) {
+            LatencySummary lag = scheduleLag.summarize("schedule lag");
+            System.out.printf("Schedule lag: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    lag.getP50Micros() / 1000.0, lag.getP99Micros() / 1000.0, lag.getMaxMicros() / 1000.0);
+        }
+        LatencySummary summary = latency.summarize("response");
+        System.out.printf("Responses: %d received, %d unanswered%n", responses.sum(),
+                Math.max(0, expected.sum() - summary.getCount()));
+        System.out.printf("Latency: p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                summary.getP50Micros() / 1000.0, summary.getP99Micros() / 1000.0,
+                summary.getP999Micros() / 1000.0, summary.getMaxMicros() / 1000.0);
+    }
+}